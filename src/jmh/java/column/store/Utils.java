@@ -2,7 +2,10 @@ package column.store;
 
 import column.store.api.read.Reader;
 import column.store.csv.read.CSVReader;
+import column.store.inmemory.InMemoryReader;
 import column.store.parquet.read.ParquetReader;
+import column.store.parquet.read.VectorizedParquetReader;
+import org.apache.parquet.ParquetReadOptions;
 import org.yaml.snakeyaml.Yaml;
 
 import java.io.FileInputStream;
@@ -18,11 +21,18 @@ public final class Utils {
           .useBloomFilter()
           .useColumnIndexFilter()
           .useDictionaryFilter();
+  private static final UnaryOperator<ParquetReadOptions.Builder> VECTORIZED_CONFIG = builder -> builder
+          .useStatsFilter()
+          .useDictionaryFilter()
+          .useBloomFilter()
+          .useColumnIndexFilter();
 
   public static Reader reader(final String type) {
     return switch (type) {
       case "csv" -> new CSVReader();
       case "parquet" -> new ParquetReader(CONFIG);
+      case "parquet-vectorized" -> new VectorizedParquetReader(VECTORIZED_CONFIG);
+      case "inmemory" -> new InMemoryReader(InMemoryReader.Mode.MAPPED);
       default -> throw new IllegalArgumentException("Unsupported type: " + type);
     };
   }
@@ -31,7 +41,8 @@ public final class Utils {
     var base = Path.of("datasets", source, isStable ? "stable" : "unstable");
     return switch (type) {
       case "csv" -> base.resolve(Path.of("csv", "data.csv"));
-      case "parquet" -> base.resolve("parquet");
+      case "parquet", "parquet-vectorized" -> base.resolve("parquet");
+      case "inmemory" -> base.resolve("inmemory");
       default -> throw new IllegalArgumentException("Unsupported type: " + type);
     };
   }
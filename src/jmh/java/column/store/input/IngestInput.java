@@ -0,0 +1,172 @@
+package column.store.input;
+
+import column.store.api.column.BooleanColumn;
+import column.store.api.column.Column;
+import column.store.api.column.DoubleColumn;
+import column.store.api.column.IdColumn;
+import column.store.api.column.LongColumn;
+import column.store.api.column.StringColumn;
+import column.store.api.query.Query;
+import column.store.api.read.BinaryVector;
+import column.store.api.read.BooleanVector;
+import column.store.api.read.DoubleVector;
+import column.store.api.read.LongVector;
+import column.store.inmemory.InMemoryReader;
+import column.store.inmemory.InMemoryWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes the 1M records created by {@link CreateInput} with {@link InMemoryWriter}.
+ * Run {@link CreateInput} first.
+ */
+public class IngestInput {
+
+    private static final StringColumn NAME = Column.forString("name");
+    private static final BooleanColumn MALE = Column.forBoolean("male");
+    private static final LongColumn AGE = Column.forLong("age");
+    private static final DoubleColumn HEIGHT = Column.forDouble("height");
+    private static final IdColumn ID = Column.forId("id");
+
+    @State(Scope.Thread)
+    public static class BenchState {
+
+        /**
+         * With {@link InMemoryWriter#MIN_BUFFER_SIZE}, the encoded blocks are written to their files 16 bytes at a time,
+         * only values larger than that are written at once. Compared to {@link InMemoryWriter#DEFAULT_BUFFER_SIZE}, this
+         * measures the cost of the write syscalls, which the buffer amortizes.
+         */
+        @Param({"16", "65536"})
+        private int bufferSize;
+
+        private final List<String> names = new ArrayList<>();
+        private final List<Boolean> males = new ArrayList<>();
+        private final List<Long> ages = new ArrayList<>();
+        private final List<Double> heights = new ArrayList<>();
+        private final List<byte[]> ids = new ArrayList<>();
+
+        private BinaryVector nameVector;
+        private BooleanVector maleVector;
+        private LongVector ageVector;
+        private DoubleVector heightVector;
+        private BinaryVector idVector;
+        private int rows;
+
+        private Path target;
+
+        @Setup(Level.Trial)
+        public void load() throws IOException {
+            var reader = new InMemoryReader(InMemoryReader.Mode.MAPPED);
+            reader.query(Query.from(Path.of("testDir")).select(NAME, MALE, AGE, HEIGHT, ID).allOf());
+            var nameReader = reader.of(NAME);
+            var maleReader = reader.of(MALE);
+            var ageReader = reader.of(AGE);
+            var heightReader = reader.of(HEIGHT);
+            var idReader = reader.of(ID);
+
+            while (reader.hasNext()) {
+                reader.next();
+                names.add(nameReader.isPresent() ? nameReader.get() : null);
+                males.add(maleReader.isPresent() ? maleReader.get() : null);
+                ages.add(ageReader.isPresent() ? ageReader.get() : null);
+                heights.add(heightReader.isPresent() ? heightReader.get() : null);
+                ids.add(idReader.isPresent() ? idReader.get() : null);
+            }
+            reader.close();
+
+            var batchReader = new InMemoryReader(InMemoryReader.Mode.MAPPED);
+            batchReader.query(Query.from(Path.of("testDir")).select(NAME, MALE, AGE, HEIGHT, ID).allOf());
+            nameVector = batchReader.of(NAME).vector();
+            maleVector = batchReader.of(MALE).vector();
+            ageVector = batchReader.of(AGE).vector();
+            heightVector = batchReader.of(HEIGHT).vector();
+            idVector = batchReader.of(ID).vector();
+            rows = batchReader.nextBatch(Integer.MAX_VALUE);
+            batchReader.close();
+        }
+
+        @Setup(Level.Invocation)
+        public void createTarget() throws IOException {
+            target = Files.createTempDirectory("ingest");
+        }
+
+        @TearDown(Level.Invocation)
+        public void deleteTarget() throws IOException {
+            try (var paths = Files.walk(target)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                    try {
+                        Files.delete(path);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public void write(final BenchState state) throws IOException {
+        try (var writer = new InMemoryWriter(state.target, state.bufferSize)) {
+            var nameWriter = writer.of(NAME);
+            var maleWriter = writer.of(MALE);
+            var ageWriter = writer.of(AGE);
+            var heightWriter = writer.of(HEIGHT);
+            var idWriter = writer.of(ID);
+
+            for (int i = 0; i < state.names.size(); i++) {
+                var name = state.names.get(i);
+                if (name != null) {
+                    nameWriter.write(name);
+                } else {
+                    nameWriter.writeNull();
+                }
+                var male = state.males.get(i);
+                if (male != null) {
+                    maleWriter.write(male);
+                } else {
+                    maleWriter.writeNull();
+                }
+                var age = state.ages.get(i);
+                if (age != null) {
+                    ageWriter.write(age);
+                } else {
+                    ageWriter.writeNull();
+                }
+                var height = state.heights.get(i);
+                if (height != null) {
+                    heightWriter.write(height);
+                } else {
+                    heightWriter.writeNull();
+                }
+                var id = state.ids.get(i);
+                if (id != null) {
+                    idWriter.write(id);
+                } else {
+                    idWriter.writeNull();
+                }
+                writer.next();
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public void writeBatch(final BenchState state) throws IOException {
+        try (var writer = new InMemoryWriter(state.target, state.bufferSize)) {
+            writer.of(NAME).writeAll(state.nameVector);
+            writer.of(MALE).writeAll(state.maleVector);
+            writer.of(AGE).writeAll(state.ageVector);
+            writer.of(HEIGHT).writeAll(state.heightVector);
+            writer.of(ID).writeAll(state.idVector);
+            writer.nextBatch(state.rows);
+        }
+    }
+}
@@ -32,7 +32,7 @@ public class FilterByTimeframe {
   @State(Scope.Thread)
   public static class BenchState {
 
-    @Param({ "parquet", "csv" })
+    @Param({ "parquet", "csv", "inmemory" })
     private String readerType;
     @Param({ "true", "false" })
     private boolean isStable;
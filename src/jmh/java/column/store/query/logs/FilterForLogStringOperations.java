@@ -43,7 +43,7 @@ public class FilterForLogStringOperations {
         private Query query;
         private StringColumn[] columns;
 
-        @Param({"parquet", "csv"})
+        @Param({"parquet", "parquet-vectorized", "csv"})
         private String readerType;
         @Param({"true", "false"})
         private boolean isStable;
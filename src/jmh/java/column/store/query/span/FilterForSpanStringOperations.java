@@ -42,7 +42,7 @@ public class FilterForSpanStringOperations {
         private Query query;
         private StringColumn[] columns;
 
-        @Param({"parquet", "csv"})
+        @Param({"parquet", "parquet-vectorized", "csv"})
         private String readerType;
         @Param({"true", "false"})
         private boolean isStable;
@@ -30,7 +30,7 @@ public class FilterForTraceId {
 
   @State(Scope.Thread)
   public static class BenchState {
-    @Param({ "parquet", "csv" })
+    @Param({ "parquet", "csv", "inmemory" })
     private String readerType;
     @Param({ "true", "false" })
     private boolean isStable;
@@ -17,6 +17,8 @@ import java.util.stream.Collectors;
 
 public class ReadAllSpanColumns {
 
+    private static final int BATCH_SIZE = 1024;
+
     @State(Scope.Thread)
     public static class BenchState {
         private Reader reader;
@@ -30,7 +32,7 @@ public class ReadAllSpanColumns {
         private List<LongColumnReader> longReaders;
         private List<DoubleColumnReader> doubleReaders;
 
-        @Param({"parquet", "csv"})
+        @Param({"parquet", "parquet-vectorized", "csv"})
         private String readerType;
         @Param({"true", "false"})
         private boolean isStable;
@@ -149,4 +151,24 @@ public class ReadAllSpanColumns {
             });
         }
     }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void readBatch(final BenchState state, final Blackhole blackhole) throws IOException {
+        var reader = state.reader;
+        reader.query(state.query);
+
+        var vectors = new ArrayList<ColumnVector>();
+        state.stringReaders.forEach(r -> vectors.add(r.vector()));
+        state.booleanReaders.forEach(r -> vectors.add(r.vector()));
+        state.idReaders.forEach(r -> vectors.add(r.vector()));
+        state.longReaders.forEach(r -> vectors.add(r.vector()));
+        state.doubleReaders.forEach(r -> vectors.add(r.vector()));
+
+        while (reader.nextBatch(BATCH_SIZE) > 0) {
+            for (var vector : vectors) {
+                blackhole.consume(vector);
+            }
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package column.store.api.column;
 
+import static column.store.util.Conditions.checkArgument;
+
 import java.util.Locale;
 
 /**
@@ -59,6 +61,14 @@ public sealed interface Column permits BaseColumn {
         return new IdColumn(name.toLowerCase(Locale.ROOT));
     }
 
+    /**
+     * @return a new {@link IdColumn}, whose values all have {@code width} bytes.
+     */
+    static IdColumn forId(final String name, final int width) {
+        checkArgument(width > 0, "Width must be positive");
+        return new IdColumn(name.toLowerCase(Locale.ROOT), width);
+    }
+
     /**
      * @return a new {@link LongColumn}.
      */
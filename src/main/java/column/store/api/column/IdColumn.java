@@ -1,7 +1,37 @@
 package column.store.api.column;
 
+/**
+ * A {@link Column} of opaque byte array ids. Ids of a fixed width, like 64 bit span ids or 128 bit trace ids,
+ * can be declared with {@link Column#forId(String, int)}, which allows writers to store the width only once.
+ * The width is not part of the identity of the column.
+ */
 public final class IdColumn extends BaseColumn {
+
+    /** Width of an {@link IdColumn}, whose values may have any length. */
+    public static final int VARIABLE_WIDTH = 0;
+
+    private final int width;
+
     IdColumn(final String name) {
+        this(name, VARIABLE_WIDTH);
+    }
+
+    IdColumn(final String name, final int width) {
         super(name, Type.ID);
+        this.width = width;
+    }
+
+    /**
+     * @return the number of bytes of every value, or {@link #VARIABLE_WIDTH}.
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * @return whether all values have the same {@link #width()}.
+     */
+    public boolean isFixedWidth() {
+        return width != VARIABLE_WIDTH;
     }
 }
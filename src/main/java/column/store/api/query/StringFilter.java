@@ -3,8 +3,11 @@ package column.store.api.query;
 import column.store.api.column.Column;
 import column.store.api.column.StringColumn;
 
+import java.util.List;
 import java.util.Locale;
 
+import static column.store.util.Conditions.checkArgument;
+
 /**
  * {@link StringFilter} is a case-insensitive {@link Filter}.
  * All filter arguments will be converted to lowercase, based on {@link Locale#ROOT}.
@@ -13,11 +16,17 @@ public final class StringFilter extends BaseFilter {
 
     private final MatchType matchType;
     private final String value;
+    private final List<String> tokens;
 
     private StringFilter(final Column column, final MatchType matchType, final String value) {
+        this(column, matchType, value, List.of());
+    }
+
+    private StringFilter(final Column column, final MatchType matchType, final String value, final List<String> tokens) {
         super(column);
         this.matchType = matchType;
         this.value = value;
+        this.tokens = tokens;
     }
 
     public MatchType matchType() {
@@ -28,6 +37,13 @@ public final class StringFilter extends BaseFilter {
         return value;
     }
 
+    /**
+     * @return the terms of a {@link MatchType#PHRASE} filter, see {@link Tokens}. Empty for other match types.
+     */
+    public List<String> tokens() {
+        return tokens;
+    }
+
     @Override
     public String toString() {
         return "StringFilter[" +
@@ -41,6 +57,7 @@ public final class StringFilter extends BaseFilter {
         STARTS_WITH,
         ENDS_WITH,
         CONTAINS,
+        PHRASE,
     }
 
     public static final class Builder extends Filter.Builder {
@@ -76,5 +93,16 @@ public final class StringFilter extends BaseFilter {
         public StringFilter contains(final String value) {
             return new StringFilter(column, MatchType.CONTAINS, value.toLowerCase(Locale.ROOT));
         }
+
+        /**
+         * @return a new {@link StringFilter}, which matches iff the terms of {@code record[column]} contain the terms of
+         * {@code phrase} in the same order, without other terms in between. A phrase of a single term matches all records
+         * with that term. Terms are split by {@link Tokens}.
+         */
+        public StringFilter hasPhrase(final String phrase) {
+            var tokens = List.copyOf(Tokens.of(phrase));
+            checkArgument(!tokens.isEmpty(), "Phrase must have at least one term");
+            return new StringFilter(column, MatchType.PHRASE, phrase.toLowerCase(Locale.ROOT), tokens);
+        }
     }
 }
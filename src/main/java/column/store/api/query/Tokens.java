@@ -0,0 +1,93 @@
+package column.store.api.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits strings into the terms of a {@link StringFilter.MatchType#PHRASE} filter. A term is a maximal run of letters,
+ * digits and underscores, everything else separates terms. Terms are lowercase, based on {@link Locale#ROOT}.
+ */
+public final class Tokens {
+
+    private Tokens() {
+        // hidden util constructor
+    }
+
+    /**
+     * @return whether {@code codePoint} is part of a term.
+     */
+    public static boolean isTokenChar(final int codePoint) {
+        return Character.isLetterOrDigit(codePoint) || codePoint == '_';
+    }
+
+    /**
+     * @return the terms of {@code value} in order of their occurrence.
+     */
+    public static List<String> of(final String value) {
+        var lowercase = value.toLowerCase(Locale.ROOT);
+        var tokens = new ArrayList<String>();
+        int start = nextToken(lowercase, 0);
+        while (start < lowercase.length()) {
+            int end = tokenEnd(lowercase, start);
+            tokens.add(lowercase.substring(start, end));
+            start = nextToken(lowercase, end);
+        }
+        return tokens;
+    }
+
+    /**
+     * @return whether the terms of the lowercase {@code value} contain the terms of {@code phrase} in the same order,
+     * without other terms in between.
+     */
+    public static boolean containsPhrase(final String value, final List<String> phrase) {
+        for (int start = nextToken(value, 0); start < value.length(); start = nextToken(value, tokenEnd(value, start))) {
+            if (startsWithPhrase(value, start, phrase)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWithPhrase(final String value, final int start, final List<String> phrase) {
+        int position = start;
+        for (var token : phrase) {
+            int end = tokenEnd(value, position);
+            if (end - position != token.length() || !value.regionMatches(position, token, 0, token.length())) {
+                return false;
+            }
+            position = nextToken(value, end);
+        }
+        return true;
+    }
+
+    /**
+     * @return the index of the first term char at or after {@code from}, the length of {@code value} if there is none.
+     */
+    private static int nextToken(final String value, final int from) {
+        int i = from;
+        while (i < value.length()) {
+            int codePoint = value.codePointAt(i);
+            if (isTokenChar(codePoint)) {
+                return i;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return i;
+    }
+
+    /**
+     * @return the index after the term starting at {@code from}.
+     */
+    private static int tokenEnd(final String value, final int from) {
+        int i = from;
+        while (i < value.length()) {
+            int codePoint = value.codePointAt(i);
+            if (!isTokenChar(codePoint)) {
+                return i;
+            }
+            i += Character.charCount(codePoint);
+        }
+        return i;
+    }
+}
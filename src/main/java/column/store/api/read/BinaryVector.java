@@ -0,0 +1,93 @@
+package column.store.api.read;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A {@link ColumnVector} of an {@link column.store.api.column.IdColumn} or a {@link column.store.api.column.StringColumn}.
+ * The values of all rows are concatenated in {@link #bytes()}, the value of row {@code i} starts at
+ * {@code offsets()[i]} and ends at {@code offsets()[i + 1]}. Strings are UTF-8 encoded, {@code null} rows are empty.
+ */
+public final class BinaryVector extends ColumnVector {
+
+    private int[] offsets = new int[1];
+    private byte[] bytes = new byte[0];
+
+    /**
+     * @return the concatenated values of this vector, the array may be larger than the values.
+     */
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * @return the start offsets of the values in {@link #bytes()}, followed by the end offset of the last value.
+     */
+    public int[] offsets() {
+        return offsets;
+    }
+
+    public int offset(final int row) {
+        return offsets[row];
+    }
+
+    public int length(final int row) {
+        return offsets[row + 1] - offsets[row];
+    }
+
+    /**
+     * @return a copy of the value of {@code row}.
+     */
+    public byte[] get(final int row) {
+        return Arrays.copyOfRange(bytes, offsets[row], offsets[row + 1]);
+    }
+
+    /**
+     * @return the UTF-8 decoded value of {@code row}.
+     */
+    public String getString(final int row) {
+        return new String(bytes, offsets[row], length(row), StandardCharsets.UTF_8);
+    }
+
+    public void append(final byte[] value) {
+        append(value, 0, value.length);
+    }
+
+    public void append(final byte[] value, final int offset, final int length) {
+        int start = allocate(length);
+        System.arraycopy(value, offset, bytes, start, length);
+    }
+
+    public void append(final String value) {
+        append(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Appends a value of {@code length} bytes, which has to be copied into {@link #bytes()} by the caller.
+     *
+     * @return the offset of the appended value in {@link #bytes()}.
+     */
+    public int allocate(final int length) {
+        ensureCapacity(size + 1);
+        int start = offsets[size];
+        int end = start + length;
+        if (end > bytes.length) {
+            bytes = Arrays.copyOf(bytes, grow(bytes.length, end));
+        }
+        offsets[++size] = end;
+        return start;
+    }
+
+    @Override
+    public void appendNull() {
+        super.appendNull();
+        offsets[size] = offsets[size - 1];
+    }
+
+    @Override
+    protected void ensureCapacity(final int rows) {
+        if (rows + 1 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, grow(offsets.length, rows + 1));
+        }
+    }
+}
@@ -11,4 +11,16 @@ public interface BooleanColumnReader extends ColumnReader {
      * @throws NullPointerException if the value is {@code null}.
      */
     boolean get();
+
+    @Override
+    BooleanVector vector();
+
+    @Override
+    default void appendToVector() {
+        if (isPresent()) {
+            vector().append(get());
+        } else {
+            vector().appendNull();
+        }
+    }
 }
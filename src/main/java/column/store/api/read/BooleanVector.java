@@ -0,0 +1,43 @@
+package column.store.api.read;
+
+import java.util.Arrays;
+
+/**
+ * A {@link ColumnVector} of a {@link column.store.api.column.BooleanColumn}.
+ */
+public final class BooleanVector extends ColumnVector {
+
+    private boolean[] values = new boolean[0];
+
+    /**
+     * @return the values of this vector, the array may be larger than {@link #size()}.
+     */
+    public boolean[] values() {
+        return values;
+    }
+
+    public boolean get(final int row) {
+        return values[row];
+    }
+
+    public void append(final boolean value) {
+        ensureCapacity(size + 1);
+        values[size++] = value;
+    }
+
+    /**
+     * Appends {@code count} present values of {@code src}, starting at {@code offset}.
+     */
+    public void appendAll(final boolean[] src, final int offset, final int count) {
+        ensureCapacity(size + count);
+        System.arraycopy(src, offset, values, size, count);
+        size += count;
+    }
+
+    @Override
+    protected void ensureCapacity(final int rows) {
+        if (rows > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, rows));
+        }
+    }
+}
@@ -30,4 +30,15 @@ public interface ColumnReader {
     default boolean isNull() {
         return !isPresent();
     }
+
+    /**
+     * @return the values of this {@link column.store.api.column.Column} of the last batch ({@link Reader#nextBatch(int)}).
+     */
+    ColumnVector vector();
+
+    /**
+     * Appends the value of the current record to the {@link #vector()}.
+     * Used by {@link Reader}s, which fill a batch record by record.
+     */
+    void appendToVector();
 }
@@ -0,0 +1,78 @@
+package column.store.api.read;
+
+import java.util.BitSet;
+
+/**
+ * The values of a single column for a batch of records, filled by {@link Reader#nextBatch(int)}.
+ * Supported vector types are:
+ * <ul>
+ *     <li>{@link BooleanVector}</li>
+ *     <li>{@link DoubleVector}</li>
+ *     <li>{@link LongVector}</li>
+ *     <li>{@link BinaryVector}, for ids and strings</li>
+ * </ul>
+ *
+ * <p> A set bit in {@link #nulls()} marks a {@code null} value, the value of a {@code null} row is undefined.
+ * Vectors are reused by subsequent batches, so they are only valid until the next call to {@link Reader#nextBatch(int)}.
+ */
+public abstract class ColumnVector {
+
+    protected static final int INITIAL_CAPACITY = 1024;
+
+    private final BitSet nulls = new BitSet();
+    protected int size;
+
+    /**
+     * @return the number of rows in this vector.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the null bitmap of this vector, must not be modified.
+     */
+    public BitSet nulls() {
+        return nulls;
+    }
+
+    public boolean isNull(final int row) {
+        return nulls.get(row);
+    }
+
+    public boolean isPresent(final int row) {
+        return !nulls.get(row);
+    }
+
+    /**
+     * Removes all rows, keeps the allocated capacity.
+     */
+    public void clear() {
+        size = 0;
+        nulls.clear();
+    }
+
+    /**
+     * Appends a {@code null} row.
+     */
+    public void appendNull() {
+        ensureCapacity(size + 1);
+        nulls.set(size++);
+    }
+
+    /**
+     * Marks the already appended {@code row} as {@code null}.
+     */
+    public void setNull(final int row) {
+        nulls.set(row);
+    }
+
+    /**
+     * Makes sure, that values for at least {@code rows} rows can be stored.
+     */
+    protected abstract void ensureCapacity(int rows);
+
+    protected static int grow(final int capacity, final int rows) {
+        return Math.max(Math.max(capacity * 2, rows), INITIAL_CAPACITY);
+    }
+}
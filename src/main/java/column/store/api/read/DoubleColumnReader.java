@@ -11,4 +11,16 @@ public interface DoubleColumnReader extends ColumnReader {
      * @throws NullPointerException if the value is {@code null}.
      */
     double get();
+
+    @Override
+    DoubleVector vector();
+
+    @Override
+    default void appendToVector() {
+        if (isPresent()) {
+            vector().append(get());
+        } else {
+            vector().appendNull();
+        }
+    }
 }
@@ -0,0 +1,43 @@
+package column.store.api.read;
+
+import java.util.Arrays;
+
+/**
+ * A {@link ColumnVector} of a {@link column.store.api.column.DoubleColumn}.
+ */
+public final class DoubleVector extends ColumnVector {
+
+    private double[] values = new double[0];
+
+    /**
+     * @return the values of this vector, the array may be larger than {@link #size()}.
+     */
+    public double[] values() {
+        return values;
+    }
+
+    public double get(final int row) {
+        return values[row];
+    }
+
+    public void append(final double value) {
+        ensureCapacity(size + 1);
+        values[size++] = value;
+    }
+
+    /**
+     * Appends {@code count} present values of {@code src}, starting at {@code offset}.
+     */
+    public void appendAll(final double[] src, final int offset, final int count) {
+        ensureCapacity(size + count);
+        System.arraycopy(src, offset, values, size, count);
+        size += count;
+    }
+
+    @Override
+    protected void ensureCapacity(final int rows) {
+        if (rows > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, rows));
+        }
+    }
+}
@@ -11,4 +11,16 @@ public interface LongColumnReader extends ColumnReader {
      * @throws NullPointerException if the value is {@code null}.
      */
     long get();
+
+    @Override
+    LongVector vector();
+
+    @Override
+    default void appendToVector() {
+        if (isPresent()) {
+            vector().append(get());
+        } else {
+            vector().appendNull();
+        }
+    }
 }
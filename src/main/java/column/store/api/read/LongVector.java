@@ -0,0 +1,43 @@
+package column.store.api.read;
+
+import java.util.Arrays;
+
+/**
+ * A {@link ColumnVector} of a {@link column.store.api.column.LongColumn}.
+ */
+public final class LongVector extends ColumnVector {
+
+    private long[] values = new long[0];
+
+    /**
+     * @return the values of this vector, the array may be larger than {@link #size()}.
+     */
+    public long[] values() {
+        return values;
+    }
+
+    public long get(final int row) {
+        return values[row];
+    }
+
+    public void append(final long value) {
+        ensureCapacity(size + 1);
+        values[size++] = value;
+    }
+
+    /**
+     * Appends {@code count} present values of {@code src}, starting at {@code offset}.
+     */
+    public void appendAll(final long[] src, final int offset, final int count) {
+        ensureCapacity(size + count);
+        System.arraycopy(src, offset, values, size, count);
+        size += count;
+    }
+
+    @Override
+    protected void ensureCapacity(final int rows) {
+        if (rows > values.length) {
+            values = Arrays.copyOf(values, grow(values.length, rows));
+        }
+    }
+}
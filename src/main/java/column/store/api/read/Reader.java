@@ -72,6 +72,17 @@ public interface Reader extends AutoCloseable {
      */
     void next() throws IOException;
 
+    /**
+     * Advance this {@link Reader} by up to {@code maxRows} records, and fill the {@link ColumnReader#vector()} of every
+     * column reader obtained from this {@link Reader} with their values.
+     * Afterwards, the current record is the last record of the batch.
+     *
+     * <p> May block until the batch is complete, or no next record can be found.
+     *
+     * @return the number of records in the batch, {@code 0} if no next record can be found.
+     */
+    int nextBatch(int maxRows) throws IOException;
+
     /**
      * Releases any underlying resources.
      * Column readers may not be accessed after this method has been called.
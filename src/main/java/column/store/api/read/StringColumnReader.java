@@ -11,4 +11,16 @@ public interface StringColumnReader extends ColumnReader {
      * @throws NullPointerException if the value is {@code null}.
      */
     String get();
+
+    @Override
+    BinaryVector vector();
+
+    @Override
+    default void appendToVector() {
+        if (isPresent()) {
+            vector().append(get());
+        } else {
+            vector().appendNull();
+        }
+    }
 }
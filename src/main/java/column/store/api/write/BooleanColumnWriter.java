@@ -1,9 +1,27 @@
 package column.store.api.write;
 
+import column.store.api.read.BooleanVector;
+
+import java.util.BitSet;
+
 public interface BooleanColumnWriter extends ColumnWriter {
 
     /**
      * Write {@code value} into the {@link column.store.api.column.BooleanColumn} of the current record.
      */
     void write(boolean value);
+
+    /**
+     * Write the first {@code count} {@code values} into the {@link column.store.api.column.BooleanColumn} of {@code count}
+     * records, starting with the current record. A set bit in {@code nulls} writes {@code null} instead.
+     * The records are finished by {@link Writer#nextBatch(int)}.
+     */
+    void writeAll(boolean[] values, BitSet nulls, int count);
+
+    /**
+     * Write the values of {@code vector}, see {@link #writeAll(boolean[], BitSet, int)}.
+     */
+    default void writeAll(final BooleanVector vector) {
+        writeAll(vector.values(), vector.nulls(), vector.size());
+    }
 }
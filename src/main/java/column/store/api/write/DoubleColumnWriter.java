@@ -1,9 +1,27 @@
 package column.store.api.write;
 
+import column.store.api.read.DoubleVector;
+
+import java.util.BitSet;
+
 public interface DoubleColumnWriter extends ColumnWriter {
 
     /**
      * Write {@code value} into the {@link column.store.api.column.DoubleColumn} of the current record.
      */
     void write(double value);
+
+    /**
+     * Write the first {@code count} {@code values} into the {@link column.store.api.column.DoubleColumn} of {@code count}
+     * records, starting with the current record. A set bit in {@code nulls} writes {@code null} instead.
+     * The records are finished by {@link Writer#nextBatch(int)}.
+     */
+    void writeAll(double[] values, BitSet nulls, int count);
+
+    /**
+     * Write the values of {@code vector}, see {@link #writeAll(double[], BitSet, int)}.
+     */
+    default void writeAll(final DoubleVector vector) {
+        writeAll(vector.values(), vector.nulls(), vector.size());
+    }
 }
@@ -1,9 +1,27 @@
 package column.store.api.write;
 
+import column.store.api.read.LongVector;
+
+import java.util.BitSet;
+
 public interface LongColumnWriter extends ColumnWriter {
 
     /**
      * Write {@code value} into the {@link column.store.api.column.LongColumn} of the current record.
      */
     void write(long value);
+
+    /**
+     * Write the first {@code count} {@code values} into the {@link column.store.api.column.LongColumn} of {@code count}
+     * records, starting with the current record. A set bit in {@code nulls} writes {@code null} instead.
+     * The records are finished by {@link Writer#nextBatch(int)}.
+     */
+    void writeAll(long[] values, BitSet nulls, int count);
+
+    /**
+     * Write the values of {@code vector}, see {@link #writeAll(long[], BitSet, int)}.
+     */
+    default void writeAll(final LongVector vector) {
+        writeAll(vector.values(), vector.nulls(), vector.size());
+    }
 }
@@ -1,9 +1,28 @@
 package column.store.api.write;
 
+import column.store.api.read.BinaryVector;
+
+import java.util.BitSet;
+
 public interface StringColumnWriter extends ColumnWriter {
 
     /**
      * Write {@code value} into the {@link column.store.api.column.StringColumn} of the current record.
      */
     void write(String value);
+
+    /**
+     * Write the UTF-8 encoded values of {@code count} records, starting with the current record, into the
+     * {@link column.store.api.column.StringColumn}. The value of record {@code i} is the {@code bytes} from {@code offsets[i]}
+     * to {@code offsets[i + 1]}. A set bit in {@code nulls} writes {@code null} instead.
+     * The records are finished by {@link Writer#nextBatch(int)}.
+     */
+    void writeAll(byte[] bytes, int[] offsets, BitSet nulls, int count);
+
+    /**
+     * Write the values of {@code vector}, see {@link #writeAll(byte[], int[], BitSet, int)}.
+     */
+    default void writeAll(final BinaryVector vector) {
+        writeAll(vector.bytes(), vector.offsets(), vector.nulls(), vector.size());
+    }
 }
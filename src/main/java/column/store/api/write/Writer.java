@@ -40,6 +40,13 @@ public interface Writer extends AutoCloseable {
      */
     void next() throws IOException;
 
+    /**
+     * Finish {@code rows} records, starting with the current record. The values of the records are written with the
+     * {@code writeAll} methods of the column writers, e.g. {@link LongColumnWriter#writeAll(long[], java.util.BitSet, int)}.
+     * Records without a value for a {@link Column} are {@code null}.
+     */
+    void nextBatch(int rows) throws IOException;
+
     /**
      * Flushes the currently in-memory records to disk.
      */
@@ -35,8 +35,10 @@ import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 
 public final class SpansBench {
 
+  private static final int BATCH_SIZE = 4096;
+
   public static void main(final String[] args) throws IOException {
-    var reader = new InMemoryReader();
+    var reader = new InMemoryReader(InMemoryReader.Mode.MAPPED);
     var path = Path.of("..", "column-store-tools", "4a5355be-70fa-4a24-926e-28392ad6a5bc");
     var query = Query.from(path).select(Column.forBoolean("dummy")).allOf();
     reader.query(query);
@@ -59,14 +61,14 @@ public final class SpansBench {
     var stringWriters = stringWriters(byType, writer);
 
     long startNanos = System.nanoTime();
-    while (reader.hasNext()) {
-      reader.next();
+    int rows;
+    while ((rows = reader.nextBatch(BATCH_SIZE)) > 0) {
       booleans(booleanReaders, booleanWriters);
       doubles(doubleReaders, doubleWriters);
       ids(idReaders, idWriters);
       longs(longReaders, longWriters);
       strings(stringReaders, stringWriters);
-      writer.next();
+      writer.nextBatch(rows);
     }
 
     reader.close();
@@ -98,61 +100,31 @@ public final class SpansBench {
 
   private static void strings(final StringByteReader[] stringReaders, final StringColumnWriter[] stringWriters) {
     for (int i = 0; i < stringReaders.length; i++) {
-      var stringReader = stringReaders[i];
-      var stringWriter = stringWriters[i];
-      if (stringReader.isPresent()) {
-        stringWriter.write(stringReader.get());
-      } else {
-        stringWriter.writeNull();
-      }
+      stringWriters[i].writeAll(stringReaders[i].vector());
     }
   }
 
   private static void longs(final LongByteReader[] longReaders, final LongColumnWriter[] longWriters) {
     for (int i = 0; i < longReaders.length; i++) {
-      var longReader = longReaders[i];
-      var longWriter = longWriters[i];
-      if (longReader.isPresent()) {
-        longWriter.write(longReader.get());
-      } else {
-        longWriter.writeNull();
-      }
+      longWriters[i].writeAll(longReaders[i].vector());
     }
   }
 
   private static void ids(final IdByteReader[] idReaders, final IdColumnWriter[] idWriters) {
     for (int i = 0; i < idReaders.length; i++) {
-      var idReader = idReaders[i];
-      var idWriter = idWriters[i];
-      if (idReader.isPresent()) {
-        idWriter.write(idReader.get());
-      } else {
-        idWriter.writeNull();
-      }
+      idWriters[i].writeAll(idReaders[i].vector());
     }
   }
 
   private static void doubles(final DoubleByteReader[] doubleReaders, final DoubleColumnWriter[] doubleWriters) {
     for (int i = 0; i < doubleReaders.length; i++) {
-      var doubleReader = doubleReaders[i];
-      var doubleWriter = doubleWriters[i];
-      if (doubleReader.isPresent()) {
-        doubleWriter.write(doubleReader.get());
-      } else {
-        doubleWriter.writeNull();
-      }
+      doubleWriters[i].writeAll(doubleReaders[i].vector());
     }
   }
 
   private static void booleans(final BooleanByteReader[] booleanReaders, final BooleanColumnWriter[] booleanWriters) {
     for (int i = 0; i < booleanReaders.length; i++) {
-      var booleanReader = booleanReaders[i];
-      var booleanWriter = booleanWriters[i];
-      if (booleanReader.isPresent()) {
-        booleanWriter.write(booleanReader.get());
-      } else {
-        booleanWriter.writeNull();
-      }
+      booleanWriters[i].writeAll(booleanReaders[i].vector());
     }
   }
 
@@ -42,6 +42,7 @@ public class CSVReader implements Reader {
     private boolean isAllOf = true;
     private CSVParser csvParser;
     private CSVRecord currentRecord = null;
+    private final Map<Column, ColumnReader> columnReaders = new HashMap<>();
 
     @Override
     public void query(final Query query) throws IOException {
@@ -171,7 +172,9 @@ public class CSVReader implements Reader {
 
     @Override
     public BooleanColumnReader of(final BooleanColumn column) {
-        return new BooleanColumnReader() {
+        return (BooleanColumnReader) columnReaders.computeIfAbsent(column, col -> new BooleanColumnReader() {
+            private final BooleanVector vector = new BooleanVector();
+
             @Override
             public boolean get() {
                 return Boolean.parseBoolean(getColumnValue(column));
@@ -181,12 +184,19 @@ public class CSVReader implements Reader {
             public boolean isPresent() {
                 return CSVReader.this.isPresent(column);
             }
-        };
+
+            @Override
+            public BooleanVector vector() {
+                return vector;
+            }
+        });
     }
 
     @Override
     public DoubleColumnReader of(final DoubleColumn column) {
-        return new DoubleColumnReader() {
+        return (DoubleColumnReader) columnReaders.computeIfAbsent(column, col -> new DoubleColumnReader() {
+            private final DoubleVector vector = new DoubleVector();
+
             @Override
             public double get() {
                 return Double.parseDouble(getColumnValue(column));
@@ -196,12 +206,19 @@ public class CSVReader implements Reader {
             public boolean isPresent() {
                 return CSVReader.this.isPresent(column);
             }
-        };
+
+            @Override
+            public DoubleVector vector() {
+                return vector;
+            }
+        });
     }
 
     @Override
     public IdColumnReader of(final IdColumn column) {
-        return new IdColumnReader() {
+        return (IdColumnReader) columnReaders.computeIfAbsent(column, col -> new IdColumnReader() {
+            private final BinaryVector vector = new BinaryVector();
+
             @Override
             public byte[] get() {
                 var encodedBytes = getColumnValue(column).getBytes(StandardCharsets.UTF_8);
@@ -212,12 +229,19 @@ public class CSVReader implements Reader {
             public boolean isPresent() {
                 return CSVReader.this.isPresent(column);
             }
-        };
+
+            @Override
+            public BinaryVector vector() {
+                return vector;
+            }
+        });
     }
 
     @Override
     public LongColumnReader of(final LongColumn column) {
-        return new LongColumnReader() {
+        return (LongColumnReader) columnReaders.computeIfAbsent(column, col -> new LongColumnReader() {
+            private final LongVector vector = new LongVector();
+
             @Override
             public long get() {
                 return Long.parseLong(getColumnValue(column));
@@ -227,12 +251,19 @@ public class CSVReader implements Reader {
             public boolean isPresent() {
                 return CSVReader.this.isPresent(column);
             }
-        };
+
+            @Override
+            public LongVector vector() {
+                return vector;
+            }
+        });
     }
 
     @Override
     public StringColumnReader of(final StringColumn column) {
-        return new StringColumnReader() {
+        return (StringColumnReader) columnReaders.computeIfAbsent(column, col -> new StringColumnReader() {
+            private final BinaryVector vector = new BinaryVector();
+
             @Override
             public String get() {
                 return getColumnValue(column);
@@ -242,7 +273,12 @@ public class CSVReader implements Reader {
             public boolean isPresent() {
                 return CSVReader.this.isPresent(column);
             }
-        };
+
+            @Override
+            public BinaryVector vector() {
+                return vector;
+            }
+        });
     }
 
     @Override
@@ -266,6 +302,22 @@ public class CSVReader implements Reader {
         }
     }
 
+    @Override
+    public int nextBatch(final int maxRows) throws IOException {
+        for (var reader : columnReaders.values()) {
+            reader.vector().clear();
+        }
+        int rows = 0;
+        while (rows < maxRows && hasNext()) {
+            next();
+            for (var reader : columnReaders.values()) {
+                reader.appendToVector();
+            }
+            rows++;
+        }
+        return rows;
+    }
+
     @Override
     public void close() throws IOException {
         if (csvParser != null) {
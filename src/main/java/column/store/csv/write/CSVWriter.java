@@ -8,6 +8,7 @@ import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.IntFunction;
 
 public class CSVWriter implements Writer {
 
@@ -16,6 +17,7 @@ public class CSVWriter implements Writer {
     private List<String[]> recordsToWrite;
     private final Map<String, Integer> headers;
     private String[] currentRecord;
+    private final List<String[]> batchRecords = new ArrayList<>();
     private final Path csvFilePath;
     private final int maxInMemoryRecords = 500_000;
 
@@ -78,6 +80,22 @@ public class CSVWriter implements Writer {
         currentRecord[headers.get(columnName)] = "";
     }
 
+    private void writeAll(final Column column, final BitSet nulls, final int count, final IntFunction<String> value) {
+        int index = headers.get(column.name());
+        for (int row = 0; row < count; row++) {
+            batchRecord(row)[index] = nulls.get(row) ? "" : value.apply(row);
+        }
+    }
+
+    private String[] batchRecord(final int row) {
+        while (batchRecords.size() <= row) {
+            var record = new String[headers.size()];
+            Arrays.fill(record, "");
+            batchRecords.add(record);
+        }
+        return batchRecords.get(row);
+    }
+
     private void ensureColumnExists(final Column column) throws NoSuchColumnException {
         if (!headers.containsKey(column.name())) {
             throw new NoSuchColumnException(column);
@@ -94,6 +112,11 @@ public class CSVWriter implements Writer {
                 currentRecord[headers.get(column.name())] = String.valueOf(value);
             }
 
+            @Override
+            public void writeAll(final boolean[] values, final BitSet nulls, final int count) {
+                CSVWriter.this.writeAll(column, nulls, count, row -> String.valueOf(values[row]));
+            }
+
             @Override
             public void writeNull() {
                 CSVWriter.this.writeNull(column.name());
@@ -111,6 +134,11 @@ public class CSVWriter implements Writer {
                 currentRecord[headers.get(column.name())] = String.valueOf(value);
             }
 
+            @Override
+            public void writeAll(final double[] values, final BitSet nulls, final int count) {
+                CSVWriter.this.writeAll(column, nulls, count, row -> String.valueOf(values[row]));
+            }
+
             @Override
             public void writeNull() {
                 CSVWriter.this.writeNull(column.name());
@@ -128,6 +156,11 @@ public class CSVWriter implements Writer {
                 currentRecord[headers.get(column.name())] = new String(BASE_64.encode(value), StandardCharsets.UTF_8);
             }
 
+            @Override
+            public void writeAll(final byte[] bytes, final int[] offsets, final BitSet nulls, final int count) {
+                CSVWriter.this.writeAll(column, nulls, count, row -> BASE_64.encodeToString(Arrays.copyOfRange(bytes, offsets[row], offsets[row + 1])));
+            }
+
             @Override
             public void writeNull() {
                 CSVWriter.this.writeNull(column.name());
@@ -145,6 +178,11 @@ public class CSVWriter implements Writer {
                 currentRecord[headers.get(column.name())] = String.valueOf(value);
             }
 
+            @Override
+            public void writeAll(final long[] values, final BitSet nulls, final int count) {
+                CSVWriter.this.writeAll(column, nulls, count, row -> String.valueOf(values[row]));
+            }
+
             @Override
             public void writeNull() {
                 CSVWriter.this.writeNull(column.name());
@@ -162,6 +200,14 @@ public class CSVWriter implements Writer {
                 currentRecord[headers.get(column.name())] = prepareStringForWriting(value);
             }
 
+            @Override
+            public void writeAll(final byte[] bytes, final int[] offsets, final BitSet nulls, final int count) {
+                CSVWriter.this.writeAll(column, nulls, count, row -> {
+                    var value = new String(bytes, offsets[row], offsets[row + 1] - offsets[row], StandardCharsets.UTF_8);
+                    return prepareStringForWriting(value);
+                });
+            }
+
             @Override
             public void writeNull() {
                 CSVWriter.this.writeNull(column.name());
@@ -179,6 +225,18 @@ public class CSVWriter implements Writer {
         }
     }
 
+    @Override
+    public void nextBatch(final int rows) throws IOException {
+        for (int row = 0; row < rows; row++) {
+            recordsToWrite.add(batchRecord(row));
+        }
+        batchRecords.clear();
+
+        if (recordsToWrite.size() >= maxInMemoryRecords) {
+            flush();
+        }
+    }
+
     @Override
     public void flush() throws IOException {
         try (FileWriter wr = new FileWriter(csvFilePath.toString(), true)) {
@@ -0,0 +1,245 @@
+package column.store.inmemory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Locale;
+
+/**
+ * Writes variable length values. The {@link ColumnFormat#PLAIN} payload consists of the lengths of all present values
+ * (one int each), followed by their concatenated bytes.
+ *
+ * <p> Writers with {@link #dictionaryEncoded()} values use the {@link ColumnFormat#DICTIONARY} encoding for blocks, where
+ * it is smaller. This is decided block by block, as a block with few present values may not be worth a dictionary while
+ * the following ones are. Once the dictionaries of three blocks in a row are not smaller than their values, the
+ * cardinality of the column is too high for dictionaries, and the column is written without building them any more.
+ * Dictionaries of ASCII values of {@link #caseInsensitive()} writers are sorted ({@link ColumnFormat#SORTED_DICTIONARY}),
+ * if that is not larger, so that filters on a prefix or a suffix match a range of codes. Blocks of sorted or repetitive
+ * values are written as {@link ColumnFormat#RUN_LENGTH}, if that is the smallest encoding.
+ */
+abstract class BinaryBlockWriter extends BlockWriter implements BlockWriter.ZoneMapped, BlockWriter.BloomFiltered {
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    /** Number of blocks in a row, whose dictionary is not smaller than their values, after which dictionaries are not built. */
+    private static final int MAX_LARGER_DICTIONARIES = 3;
+
+    protected final int[] lengths;
+    protected byte[] data = new byte[INITIAL_CAPACITY];
+    protected int dataLength;
+
+    /** {@code null} if dictionaries are not used, or not any more after too many blocks, where they did not pay off. */
+    private DictionaryEncoder dictionary;
+    /** Number of the last blocks in a row, whose dictionary was not smaller than their values. */
+    private int largerDictionaries;
+    private byte encoding;
+    private int dictionaryBytes;
+    private int runs;
+    private int runBytes;
+
+    protected BinaryBlockWriter(final ColumnOutput output, final int blockRows) {
+        super(output, blockRows);
+        this.lengths = new int[blockRows];
+        this.dictionary = dictionaryEncoded() ? new DictionaryEncoder(blockRows) : null;
+    }
+
+    protected void append(final byte[] value) {
+        lengths[markPresent()] = value.length;
+        if (dataLength + value.length > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, dataLength + value.length));
+        }
+        System.arraycopy(value, 0, data, dataLength, value.length);
+        dataLength += value.length;
+    }
+
+    /**
+     * Appends the values of the next {@code count} records, see {@link column.store.api.write.IdColumnWriter#writeAll}.
+     */
+    protected void appendAll(final byte[] bytes, final int[] offsets, final BitSet nulls, final int count) {
+        appendBatch(nulls, count, (from, length, row) -> {
+            for (int i = 0; i < length; i++) {
+                lengths[present + i] = offsets[from + i + 1] - offsets[from + i];
+            }
+            int size = offsets[from + length] - offsets[from];
+            if (dataLength + size > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, dataLength + size));
+            }
+            // the values of a run of present records are contiguous
+            System.arraycopy(bytes, offsets[from], data, dataLength, size);
+            dataLength += size;
+        });
+    }
+
+    @Override
+    public void writeBounds(final ColumnOutput zones) {
+        boolean fold = caseInsensitive();
+        byte[] min = data;
+        int minOffset = 0;
+        int minLength = lengths[0];
+        byte[] max = data;
+        int maxOffset = 0;
+        int maxLength = lengths[0];
+        int offset = 0;
+        for (int i = 0; i < present; i++) {
+            byte[] value = data;
+            int valueOffset = offset;
+            int length = lengths[i];
+            offset += length;
+            if (fold && !ZoneMap.isAscii(data, valueOffset, length)) {
+                // lowercase of non ASCII characters is not a byte by byte conversion
+                value = new String(data, valueOffset, length, StandardCharsets.UTF_8)
+                        .toLowerCase(Locale.ROOT)
+                        .getBytes(StandardCharsets.UTF_8);
+                valueOffset = 0;
+                length = value.length;
+            }
+            if (i == 0 || ZoneMap.compare(value, valueOffset, length, min, minOffset, minLength, fold) < 0) {
+                min = value;
+                minOffset = valueOffset;
+                minLength = length;
+            }
+            if (i == 0 || ZoneMap.compare(value, valueOffset, length, max, maxOffset, maxLength, fold) > 0) {
+                max = value;
+                maxOffset = valueOffset;
+                maxLength = length;
+            }
+        }
+        ZoneMap.writeBound(zones, min, minOffset, minLength, fold, false);
+        ZoneMap.writeBound(zones, max, maxOffset, maxLength, fold, true);
+    }
+
+    @Override
+    public void addValues(final BloomFilter.Builder bloomFilter) {
+        boolean fold = caseInsensitive();
+        int offset = 0;
+        for (int i = 0; i < present; i++) {
+            int length = lengths[i];
+            if (fold && !ZoneMap.isAscii(data, offset, length)) {
+                var value = new String(data, offset, length, StandardCharsets.UTF_8)
+                        .toLowerCase(Locale.ROOT)
+                        .getBytes(StandardCharsets.UTF_8);
+                bloomFilter.add(BloomFilter.hash(value, 0, value.length, false));
+            } else {
+                bloomFilter.add(BloomFilter.hash(data, offset, length, fold));
+            }
+            offset += length;
+        }
+    }
+
+    /**
+     * @return whether the {@link ZoneMap} bounds are bounds of the lowercase values.
+     */
+    protected abstract boolean caseInsensitive();
+
+    /**
+     * @return whether blocks may be {@link ColumnFormat#DICTIONARY} encoded. Called by the constructor.
+     */
+    protected abstract boolean dictionaryEncoded();
+
+    @Override
+    protected byte encoding() {
+        encoding = ColumnFormat.PLAIN;
+        if (dictionary != null) {
+            dictionaryBytes = dictionary.build(data, lengths, present);
+            if (dictionaryBytes >= 0 && dictionaryBytes < plainBytes()) {
+                largerDictionaries = 0;
+                encoding = ColumnFormat.DICTIONARY;
+                sort();
+            } else if (dictionaryBytes < 0 || ++largerDictionaries == MAX_LARGER_DICTIONARIES) {
+                // more distinct values than entries, or than pay off, the cardinality of the column is too high
+                dictionary = null;
+            }
+        }
+        countRuns();
+        if (runBytes < payloadBytes()) {
+            encoding = ColumnFormat.RUN_LENGTH;
+        }
+        return encoding;
+    }
+
+    private void sort() {
+        if (caseInsensitive() && dictionary.isAscii()) {
+            int sortedBytes = dictionary.sort(data, lengths, present);
+            if (sortedBytes <= dictionaryBytes) {
+                encoding = ColumnFormat.SORTED_DICTIONARY;
+                dictionaryBytes = sortedBytes;
+            }
+        }
+    }
+
+    private void countRuns() {
+        runs = 1;
+        runBytes = Integer.BYTES + 2 * Integer.BYTES + lengths[0];
+        int previousOffset = 0;
+        int offset = lengths[0];
+        for (int i = 1; i < present; i++) {
+            if (!equals(previousOffset, lengths[i - 1], offset, lengths[i])) {
+                runs++;
+                runBytes += 2 * Integer.BYTES + lengths[i];
+            }
+            previousOffset = offset;
+            offset += lengths[i];
+        }
+    }
+
+    private boolean equals(final int offset, final int length, final int otherOffset, final int otherLength) {
+        return length == otherLength && Arrays.equals(data, offset, offset + length, data, otherOffset, otherOffset + otherLength);
+    }
+
+    @Override
+    protected int payloadBytes() {
+        return switch (encoding) {
+            case ColumnFormat.DICTIONARY, ColumnFormat.SORTED_DICTIONARY -> dictionaryBytes;
+            case ColumnFormat.RUN_LENGTH -> runBytes;
+            default -> plainBytes();
+        };
+    }
+
+    private int plainBytes() {
+        return present * Integer.BYTES + dataLength;
+    }
+
+    @Override
+    protected void writePayload() {
+        if (encoding == ColumnFormat.DICTIONARY) {
+            dictionary.write(output, data, lengths, present);
+            return;
+        }
+        if (encoding == ColumnFormat.SORTED_DICTIONARY) {
+            dictionary.writeSorted(output, data, lengths, present);
+            return;
+        }
+        if (encoding == ColumnFormat.RUN_LENGTH) {
+            writeRuns();
+            return;
+        }
+        for (int i = 0; i < present; i++) {
+            output.reserve(Integer.BYTES).putInt(lengths[i]);
+        }
+        output.put(data, 0, dataLength);
+    }
+
+    private void writeRuns() {
+        output.reserve(Integer.BYTES).putInt(runs);
+        int runStart = 0;
+        int runOffset = 0;
+        int offset = lengths[0];
+        for (int i = 1; i <= present; i++) {
+            if (i == present || !equals(runOffset, lengths[runStart], offset, lengths[i])) {
+                output.reserve(2 * Integer.BYTES)
+                        .putInt(i - runStart)
+                        .putInt(lengths[runStart]);
+                output.put(data, runOffset, lengths[runStart]);
+                runStart = i;
+                runOffset = offset;
+            }
+            if (i < present) {
+                offset += lengths[i];
+            }
+        }
+    }
+
+    @Override
+    protected void clear() {
+        dataLength = 0;
+    }
+}
@@ -0,0 +1,80 @@
+package column.store.inmemory;
+
+import java.util.Arrays;
+
+/**
+ * Frame-of-reference bit-packing of the {@link ColumnFormat#FRAME_OF_REFERENCE} encoding: every value of a miniblock is
+ * stored as its unsigned offset to the smallest value of the miniblock (the reference), in {@code width} bits.
+ * Offsets are packed into longs least significant bit first, so 64 offsets take exactly {@code width} longs.
+ */
+final class BitPacking {
+
+    /** Values per miniblock, only the last miniblock of a block may have fewer values. */
+    static final int MINIBLOCK_VALUES = 128;
+    static final int MINIBLOCK_HEADER_BYTES = Long.BYTES + Byte.BYTES;
+
+    private BitPacking() {
+        // hidden util constructor
+    }
+
+    /**
+     * @return the number of bits needed for offsets up to {@code range}, which is unsigned.
+     */
+    static int width(final long range) {
+        return Long.SIZE - Long.numberOfLeadingZeros(range);
+    }
+
+    /**
+     * @return the largest offset of {@code width} bits, as unsigned long.
+     */
+    static long maxOffset(final int width) {
+        return width == Long.SIZE ? -1L : (1L << width) - 1;
+    }
+
+    /**
+     * @return the number of longs of {@code count} packed offsets of {@code width} bits.
+     */
+    static int packedWords(final int count, final int width) {
+        return ColumnFormat.words(count * width);
+    }
+
+    /**
+     * Packs the offsets of the {@code count} values starting at {@code from} to {@code reference} into {@code words}.
+     */
+    static void pack(final long[] values, final int from, final int count, final long reference, final int width,
+                     final long[] words) {
+        Arrays.fill(words, 0, packedWords(count, width), 0L);
+        for (int i = 0; i < count; i++) {
+            long offset = values[from + i] - reference;
+            int bit = i * width;
+            int word = bit / Long.SIZE;
+            int shift = bit % Long.SIZE;
+            words[word] |= offset << shift;
+            if (shift + width > Long.SIZE) {
+                words[word + 1] |= offset >>> (Long.SIZE - shift);
+            }
+        }
+    }
+
+    /**
+     * Unpacks {@code count} offsets of {@code width} bits from {@code words} and stores {@code reference} plus the offset
+     * to {@code values}, starting at {@code offset}. {@code words} needs a trailing {@code 0} after the packed words,
+     * so that the loop has no branches.
+     */
+    static void unpack(final long[] words, final int width, final long reference, final int count,
+                       final long[] values, final int offset) {
+        if (width == 0) {
+            Arrays.fill(values, offset, offset + count, reference);
+            return;
+        }
+        long mask = maxOffset(width);
+        for (int i = 0; i < count; i++) {
+            int bit = i * width;
+            int word = bit / Long.SIZE;
+            int shift = bit % Long.SIZE;
+            // the high bits come from the next word, the double shift is 0 if the offset does not cross words
+            long packed = words[word] >>> shift | (words[word + 1] << 1) << (Long.SIZE - 1 - shift);
+            values[offset + i] = reference + (packed & mask);
+        }
+    }
+}
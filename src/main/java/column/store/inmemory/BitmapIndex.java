@@ -0,0 +1,231 @@
+package column.store.inmemory;
+
+import static column.store.util.Conditions.checkState;
+
+import column.store.api.column.BooleanColumn;
+import column.store.api.column.Column;
+import column.store.api.column.StringColumn;
+import column.store.api.query.BooleanFilter;
+import column.store.api.query.Filter;
+import column.store.api.query.Query;
+import column.store.api.query.StringFilter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Persistent bitmap index of a low-cardinality {@link StringColumn} or {@link BooleanColumn}, which maps every value
+ * to the {@link RowBitmap} of the rows it is present in. A filter on the column is answered exactly by the union of the
+ * bitmaps of the values it matches, and the filters of a query by intersecting or uniting these, without decoding
+ * any value of the column.
+ *
+ * <p> It is stored in a sidecar file next to the column directories (see {@link #path(Path, Column)}), and built by
+ * {@link InMemoryWriter#bitmapIndex(StringColumn)} or for existing data by {@link #build(Path, StringColumn)}.
+ * Columns with more than {@link #MAX_VALUES} distinct values have no index.
+ *
+ * <pre>
+ * file header:  magic (int) | version (byte) | values (int)
+ * value:        value length (int) | value | position of its bitmap (long)
+ * bitmaps:      {@link RowBitmap} ...
+ * </pre>
+ * String values are lowercase and UTF-8 encoded, boolean values are a byte, {@code 1} for {@code true}.
+ */
+public final class BitmapIndex {
+
+    /** "CSB1". */
+    static final int MAGIC = 0x43534231;
+    static final byte VERSION = 1;
+    static final int FILE_HEADER_BYTES = Integer.BYTES + Byte.BYTES + Integer.BYTES;
+    /** A bitmap per value is only small for a few values. */
+    static final int MAX_VALUES = 256;
+
+    private static final String DIRECTORY = "bitmaps";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] TRUE = {1};
+    private static final byte[] FALSE = {0};
+
+    private final Bytes bytes;
+    private final int values;
+
+    private BitmapIndex(final Bytes bytes, final int values) {
+        this.bytes = bytes;
+        this.values = values;
+    }
+
+    /**
+     * @return the path of the index of {@code column}.
+     */
+    static Path path(final Path root, final Column column) {
+        return root.resolve(DIRECTORY).resolve(column.type().name()).resolve(column.name());
+    }
+
+    /**
+     * Builds the index of {@code column} of the records in {@code root}, replacing an existing index.
+     */
+    public static void build(final Path root, final StringColumn column) throws IOException {
+        var builder = new Builder();
+        try (var reader = new InMemoryReader(InMemoryReader.Mode.MAPPED)) {
+            reader.query(Query.from(root).select(column).allOf());
+            var vector = reader.of(column).vector();
+            long row = 0;
+            int rows;
+            // the index is not written, once there are too many values
+            while (builder.valueCount() <= MAX_VALUES && (rows = reader.nextBatch(ColumnFormat.DEFAULT_BLOCK_ROWS)) > 0) {
+                for (int i = 0; i < rows; i++) {
+                    if (!vector.isNull(i)) {
+                        builder.add(vector.bytes(), vector.offset(i), vector.length(i), row + i);
+                    }
+                }
+                row += rows;
+            }
+        }
+        builder.write(path(root, column));
+    }
+
+    /**
+     * Builds the index of {@code column} of the records in {@code root}, replacing an existing index.
+     */
+    public static void build(final Path root, final BooleanColumn column) throws IOException {
+        var builder = new Builder();
+        try (var reader = new InMemoryReader(InMemoryReader.Mode.MAPPED)) {
+            reader.query(Query.from(root).select(column).allOf());
+            var vector = reader.of(column).vector();
+            long row = 0;
+            int rows;
+            while ((rows = reader.nextBatch(ColumnFormat.DEFAULT_BLOCK_ROWS)) > 0) {
+                for (int i = 0; i < rows; i++) {
+                    if (!vector.isNull(i)) {
+                        var value = vector.get(i) ? TRUE : FALSE;
+                        builder.add(value, 0, value.length, row + i);
+                    }
+                }
+                row += rows;
+            }
+        }
+        builder.write(path(root, column));
+    }
+
+    /**
+     * @return the index read from {@code bytes}.
+     */
+    static BitmapIndex read(final Bytes bytes) {
+        checkState(bytes.size() >= FILE_HEADER_BYTES && bytes.getInt(0) == MAGIC, "Not a bitmap index");
+        byte version = bytes.get(Integer.BYTES);
+        checkState(version == VERSION, "Unsupported version " + version + " of bitmap index");
+        return new BitmapIndex(bytes, bytes.getInt(Integer.BYTES + Byte.BYTES));
+    }
+
+    /**
+     * @return the rows matching {@code filter}, a {@link BooleanFilter} or a {@link StringFilter}.
+     */
+    RowBitmap rows(final Filter filter) {
+        if (filter instanceof BooleanFilter booleanFilter) {
+            var value = booleanFilter.value() ? TRUE : FALSE;
+            var rows = RowBitmap.empty();
+            long position = FILE_HEADER_BYTES;
+            for (int i = 0; i < values; i++) {
+                int length = bytes.getInt(position);
+                if (length == value.length && bytes.equals(position + Integer.BYTES, value)) {
+                    rows = RowBitmap.read(bytes, bytes.getLong(position + Integer.BYTES + length));
+                }
+                position += Integer.BYTES + length + Long.BYTES;
+            }
+            return rows;
+        }
+        var matches = InMemoryReader.StringByteReader.matches((StringFilter) filter);
+        var rows = RowBitmap.empty();
+        long position = FILE_HEADER_BYTES;
+        for (int i = 0; i < values; i++) {
+            int length = bytes.getInt(position);
+            if (matches.test(bytes.string(position + Integer.BYTES, length))) {
+                rows = rows.or(RowBitmap.read(bytes, bytes.getLong(position + Integer.BYTES + length)));
+            }
+            position += Integer.BYTES + length + Long.BYTES;
+        }
+        return rows;
+    }
+
+    /**
+     * Collects the rows of every value in memory, in the order they are added.
+     */
+    static final class Builder {
+
+        /** The rows of every lowercase value, in the order of their first occurrence. */
+        private final Map<String, RowBitmap.Builder> rows = new LinkedHashMap<>();
+        /** The bytes of the previous value, which is often repeated. */
+        private byte[] previous = new byte[0];
+        private RowBitmap.Builder previousRows;
+
+        /**
+         * Adds {@code row} to the rows of the value of {@code length} bytes starting at {@code offset}. Rows have to be
+         * added in ascending order.
+         */
+        void add(final byte[] value, final int offset, final int length, final long row) {
+            if (previousRows == null || !Arrays.equals(previous, 0, previous.length, value, offset, offset + length)) {
+                var lowercase = new String(value, offset, length, StandardCharsets.UTF_8).toLowerCase(Locale.ROOT);
+                previous = Arrays.copyOfRange(value, offset, offset + length);
+                previousRows = rows.computeIfAbsent(lowercase, key -> new RowBitmap.Builder());
+            }
+            previousRows.add(row);
+        }
+
+        /**
+         * @return the number of distinct values added so far.
+         */
+        int valueCount() {
+            return rows.size();
+        }
+
+        /**
+         * Writes the index to {@code file}, or deletes it if there are too many values for an index.
+         */
+        void write(final Path file) throws IOException {
+            if (rows.size() > MAX_VALUES) {
+                Files.deleteIfExists(file);
+                return;
+            }
+            var values = new byte[rows.size()][];
+            var bitmaps = new RowBitmap[rows.size()];
+            long position = FILE_HEADER_BYTES;
+            int count = 0;
+            for (var entry : rows.entrySet()) {
+                values[count] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                bitmaps[count] = entry.getValue().build();
+                position += Integer.BYTES + values[count].length + Long.BYTES;
+                count++;
+            }
+
+            Files.createDirectories(file.getParent());
+            var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            var output = new ColumnOutput(channel, ByteBuffer.allocateDirect(BUFFER_SIZE));
+            try {
+                output.reserve(FILE_HEADER_BYTES)
+                        .putInt(MAGIC)
+                        .put(VERSION)
+                        .putInt(values.length);
+                for (int i = 0; i < values.length; i++) {
+                    output.reserve(Integer.BYTES).putInt(values[i].length);
+                    output.put(values[i], 0, values[i].length);
+                    output.reserve(Long.BYTES).putLong(position);
+                    position += bitmaps[i].bytes();
+                }
+                for (var bitmap : bitmaps) {
+                    bitmap.write(output);
+                }
+                output.flush();
+            } finally {
+                output.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package column.store.inmemory;
+
+import static column.store.util.Conditions.checkState;
+import static column.store.util.Conditions.checkSupported;
+
+import column.store.api.column.IdColumn;
+import column.store.api.write.ColumnWriter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Collects the values of a column until a block is complete, and writes the block in the {@link ColumnFormat}.
+ */
+abstract class BlockWriter implements ColumnWriter {
+
+    protected final ColumnOutput output;
+    protected final int blockRows;
+    /** A set bit marks a present value of the current block. */
+    protected final long[] presence;
+    /** Number of rows in the current block. */
+    protected int rows;
+    /** Number of present values in the current block. */
+    protected int present;
+    /** Layout of the current block, known when the block is written, before {@link #encoding()} is called. */
+    protected byte layout;
+
+    private boolean written;
+    /** Number of records written ahead by {@link #appendBatch(BitSet, int, Run)}, which have not been finished yet. */
+    private int batched;
+    private boolean headerWritten;
+    /** Output of the {@link ZoneMap} of the column, {@code null} if the column has none. */
+    private ColumnOutput zones;
+    /** Output of the {@link BloomFilter} of the column, {@code null} if the column has none. */
+    private ColumnOutput blooms;
+    private BloomFilter.Builder bloomFilter;
+
+    protected BlockWriter(final ColumnOutput output, final int blockRows) {
+        this.output = output;
+        this.blockRows = blockRows;
+        this.presence = new long[ColumnFormat.words(blockRows)];
+    }
+
+    /**
+     * Writes a {@link ZoneMap} entry for every block to {@code zones}, which requires a {@link ZoneMapped} writer.
+     */
+    void writeZonesTo(final ColumnOutput zones) {
+        checkSupported(this instanceof ZoneMapped, getClass().getSimpleName() + " has no zone map");
+        checkState(!headerWritten, "Zone map has to be set before the first block");
+        this.zones = zones;
+        ZoneMap.writeFileHeader(zones);
+    }
+
+    /**
+     * Writes a {@link BloomFilter} entry for every block to {@code blooms}, which requires a {@link BloomFiltered} writer.
+     */
+    void writeBloomFiltersTo(final ColumnOutput blooms) {
+        checkSupported(this instanceof BloomFiltered, getClass().getSimpleName() + " has no Bloom filter");
+        checkState(!headerWritten, "Bloom filter has to be set before the first block");
+        this.blooms = blooms;
+        this.bloomFilter = new BloomFilter.Builder(blockRows);
+        BloomFilter.writeFileHeader(blooms);
+    }
+
+    @Override
+    public void writeNull() {
+        markWritten();
+    }
+
+    /**
+     * Marks the value of the current row as present.
+     *
+     * @return the index of the value among the present values of the current block.
+     */
+    protected int markPresent() {
+        markWritten();
+        ColumnFormat.set(presence, rows);
+        return present++;
+    }
+
+    private void markWritten() {
+        checkState(!written && batched == 0, "A value has already been written for the current record");
+        written = true;
+    }
+
+    /**
+     * Appends the values of the next {@code count} records. Runs of present values are handed to {@code run},
+     * which never crosses a block boundary.
+     */
+    protected void appendBatch(final BitSet nulls, final int count, final Run run) {
+        checkState(!written && batched == 0, "A value has already been written for the current record");
+        int done = 0;
+        while (done < count) {
+            int end = Math.min(count, done + blockRows - rows);
+            int from = nulls.nextClearBit(done);
+            while (from < end) {
+                int nextNull = nulls.nextSetBit(from);
+                int to = nextNull < 0 ? end : Math.min(end, nextNull);
+                int row = rows + from - done;
+                for (int i = row; i < row + to - from; i++) {
+                    ColumnFormat.set(presence, i);
+                }
+                run.append(from, to - from, row);
+                present += to - from;
+                from = nulls.nextClearBit(to);
+            }
+            rows += end - done;
+            done = end;
+            if (rows == blockRows) {
+                writeBlock();
+            }
+        }
+        batched = count;
+    }
+
+    /**
+     * @return the number of records, which have values but have not been finished yet.
+     */
+    int pendingRecords() {
+        return written ? 1 : batched;
+    }
+
+    /**
+     * Finishes the next {@code records} records, records without a value are {@code null}.
+     */
+    void endRecords(final int records) {
+        checkState(batched <= records, "More values than records in the batch");
+        int remaining = records - batched;
+        batched = 0;
+        if (written) {
+            written = false;
+            remaining--;
+            endRow();
+        }
+        while (remaining > 0) {
+            int skipped = Math.min(remaining, blockRows - rows);
+            rows += skipped;
+            remaining -= skipped;
+            if (rows == blockRows) {
+                writeBlock();
+            }
+        }
+    }
+
+    private void endRow() {
+        rows++;
+        if (rows == blockRows) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Writes the incomplete last block, if any.
+     */
+    void finish() {
+        if (rows > 0) {
+            writeBlock();
+        } else if (!headerWritten) {
+            writeFileHeader();
+        }
+    }
+
+    private void writeBlock() {
+        if (!headerWritten) {
+            writeFileHeader();
+        }
+        if (present == 0) {
+            layout = ColumnFormat.ALL_NULL;
+        } else if (present == rows) {
+            layout = ColumnFormat.ALL_PRESENT;
+        } else if (ColumnFormat.isSparse(present, rows, blockRows)) {
+            layout = ColumnFormat.SPARSE;
+        } else {
+            layout = ColumnFormat.BITMAP;
+        }
+        if (zones != null) {
+            ZoneMap.writeEntry(zones, output.position(), rows, rows - present);
+            if (present > 0) {
+                ((ZoneMapped) this).writeBounds(zones);
+            }
+        }
+        if (blooms != null) {
+            bloomFilter.reset(present);
+            if (present > 0) {
+                ((BloomFiltered) this).addValues(bloomFilter);
+            }
+            bloomFilter.write(blooms);
+        }
+        int presenceBytes = switch (layout) {
+            case ColumnFormat.BITMAP -> ColumnFormat.bitmapBytes(rows);
+            case ColumnFormat.SPARSE -> ColumnFormat.rowIdsBytes(present, blockRows);
+            default -> 0;
+        };
+        byte encoding = ColumnFormat.PLAIN;
+        int payloadBytes = 0;
+        if (present > 0) {
+            encoding = encoding();
+            payloadBytes = payloadBytes();
+        }
+
+        output.reserve(ColumnFormat.BLOCK_HEADER_BYTES)
+                .putInt(rows)
+                .put(layout)
+                .put(encoding)
+                .putInt(presenceBytes + payloadBytes);
+        if (layout == ColumnFormat.BITMAP) {
+            ColumnFormat.writeBitmap(output, presence, rows);
+        } else if (layout == ColumnFormat.SPARSE) {
+            ColumnFormat.writeRowIds(output, presence, present, blockRows);
+        }
+        if (present > 0) {
+            writePayload();
+        }
+
+        Arrays.fill(presence, 0);
+        rows = 0;
+        present = 0;
+        clear();
+    }
+
+    private void writeFileHeader() {
+        ColumnFormat.writeFileHeader(output, blockRows, width());
+        headerWritten = true;
+    }
+
+    /**
+     * @return the width of all values written to the file header, {@link IdColumn#VARIABLE_WIDTH} by default.
+     */
+    protected int width() {
+        return IdColumn.VARIABLE_WIDTH;
+    }
+
+    /**
+     * @return the encoding of the payload of the current block, which has at least one present value.
+     */
+    protected abstract byte encoding();
+
+    /**
+     * @return the size of the payload of the current block in bytes.
+     */
+    protected abstract int payloadBytes();
+
+    /**
+     * Writes the payload of the current block to {@link #output}.
+     */
+    protected abstract void writePayload();
+
+    /**
+     * Clears the values of the current block, after it has been written.
+     */
+    protected abstract void clear();
+
+    /**
+     * A {@link BlockWriter}, which can write a {@link ZoneMap} of its blocks.
+     */
+    interface ZoneMapped {
+
+        /**
+         * Writes the {@link ZoneMap} bounds of the present values of the current block to {@code zones}.
+         */
+        void writeBounds(ColumnOutput zones);
+    }
+
+    /**
+     * A {@link BlockWriter}, which can write a {@link BloomFilter} of its blocks.
+     */
+    interface BloomFiltered {
+
+        /**
+         * Adds the present values of the current block to {@code bloomFilter}.
+         */
+        void addValues(BloomFilter.Builder bloomFilter);
+    }
+
+    /**
+     * Consumer of a run of present values of a batch.
+     */
+    @FunctionalInterface
+    protected interface Run {
+
+        /**
+         * Appends {@code length} values of the batch starting at {@code from}, to the current block.
+         * The first value is the value of {@code row}, and the present value with index {@link #present}.
+         */
+        void append(int from, int length, int row);
+    }
+}
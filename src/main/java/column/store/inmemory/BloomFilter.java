@@ -0,0 +1,223 @@
+package column.store.inmemory;
+
+import static column.store.util.Conditions.checkState;
+
+import column.store.api.column.Column;
+import column.store.api.query.Filter;
+import column.store.api.query.IdFilter;
+import column.store.api.query.StringFilter;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Split-block Bloom filters of the blocks of an id or string column, stored in a sidecar file next to the column
+ * directories (see {@link #path(Path, Column)}), so that an {@link IdFilter} or a {@link StringFilter} of
+ * {@link StringFilter.MatchType#IS} skips the blocks, which do not contain its value, after reading a few filter bits.
+ *
+ * <pre>
+ * file header:  magic (int) | version (byte)
+ * entry:        filter blocks (int) | filter block ...
+ * filter block: word (int) x {@link #WORDS_PER_BLOCK}
+ * </pre>
+ * There is an entry for every block of the column file, without filter blocks if the block has no present value.
+ * A value sets one bit in every word of a single filter block, which is chosen by the high 32 bits of its 64 bit hash,
+ * the bits are chosen by the low 32 bits multiplied with a different salt per word. Values of string columns are added
+ * in lowercase, as {@link StringFilter}s are case-insensitive.
+ */
+final class BloomFilter {
+
+    /** "CSF1". */
+    static final int MAGIC = 0x43534631;
+    static final byte VERSION = 1;
+    static final int FILE_HEADER_BYTES = Integer.BYTES + Byte.BYTES;
+    static final int WORDS_PER_BLOCK = 8;
+    /** Gives a false positive rate of about 0.1 %, a filter takes 2 bytes per present value. */
+    static final int BITS_PER_VALUE = 16;
+
+    private static final String DIRECTORY = "blooms";
+    private static final int BLOCK_BITS = WORDS_PER_BLOCK * Integer.SIZE;
+    private static final int BIT_SHIFT = Integer.SIZE - 5;
+    private static final int[] SALT = {
+            0x47b6137b, 0x44974d91, 0x8824ad5b, 0xa2b7289d, 0x705495c7, 0x2df1424b, 0x9efc4947, 0x5c6bfb31,
+    };
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long MIX_1 = 0xff51afd7ed558ccdL;
+    private static final long MIX_2 = 0xc4ceb9fe1a85ec53L;
+    private static final int MIX_SHIFT = 33;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int CASE_OFFSET = 'a' - 'A';
+    private static final int INITIAL_BLOCKS = 16;
+
+    private final Bytes bytes;
+    private int blocks;
+    /** Position of the first filter block of every column block. */
+    private long[] positions = new long[INITIAL_BLOCKS];
+    private int[] filterBlocks = new int[INITIAL_BLOCKS];
+    /** The filter, whose value has been hashed last, values are hashed once and not once per block. */
+    private Filter hashed;
+    private long hash;
+
+    private BloomFilter(final Bytes bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * @return the path of the Bloom filters of {@code column}.
+     */
+    static Path path(final Path root, final Column column) {
+        return root.resolve(DIRECTORY).resolve(column.type().name()).resolve(column.name());
+    }
+
+    static void writeFileHeader(final ColumnOutput blooms) {
+        blooms.reserve(FILE_HEADER_BYTES)
+                .putInt(MAGIC)
+                .put(VERSION);
+    }
+
+    /**
+     * @return the 64 bit hash of the {@code length} bytes of {@code value} starting at {@code offset}. {@code fold}
+     * converts ASCII letters to lowercase.
+     */
+    static long hash(final byte[] value, final int offset, final int length, final boolean fold) {
+        // FNV-1a, whose bits are mixed by the finalizer of MurmurHash3, as the filter uses the high and the low bits
+        long hash = FNV_OFFSET;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = value[i];
+            if (fold && b >= 'A' && b <= 'Z') {
+                b += CASE_OFFSET;
+            }
+            hash = (hash ^ (b & BYTE_MASK)) * FNV_PRIME;
+        }
+        hash ^= hash >>> MIX_SHIFT;
+        hash *= MIX_1;
+        hash ^= hash >>> MIX_SHIFT;
+        hash *= MIX_2;
+        hash ^= hash >>> MIX_SHIFT;
+        return hash;
+    }
+
+    /**
+     * @return the number of filter blocks of {@code values} values, {@code 0} if there are none.
+     */
+    static int filterBlocks(final int values) {
+        return (int) (((long) values * BITS_PER_VALUE + BLOCK_BITS - 1) / BLOCK_BITS);
+    }
+
+    private static int filterBlock(final long hash, final int filterBlocks) {
+        return (int) (((hash >>> Integer.SIZE) * filterBlocks) >>> Integer.SIZE);
+    }
+
+    private static int mask(final long hash, final int word) {
+        return 1 << (((int) hash * SALT[word]) >>> BIT_SHIFT);
+    }
+
+    /**
+     * @return the Bloom filters read from {@code bytes}.
+     */
+    static BloomFilter read(final Bytes bytes) {
+        checkState(bytes.size() >= FILE_HEADER_BYTES && bytes.getInt(0) == MAGIC, "Not a Bloom filter");
+        byte version = bytes.get(Integer.BYTES);
+        checkState(version == VERSION, "Unsupported version " + version + " of Bloom filter");
+        var bloomFilter = new BloomFilter(bytes);
+        long position = FILE_HEADER_BYTES;
+        // an incomplete entry of a file, which is still written, is ignored
+        while (position + Integer.BYTES <= bytes.size()) {
+            int filterBlocks = bytes.getInt(position);
+            long end = position + Integer.BYTES + (long) filterBlocks * BLOCK_BITS / Byte.SIZE;
+            if (end > bytes.size()) {
+                break;
+            }
+            int block = bloomFilter.blocks;
+            if (block == bloomFilter.positions.length) {
+                bloomFilter.positions = Arrays.copyOf(bloomFilter.positions, block * 2);
+                bloomFilter.filterBlocks = Arrays.copyOf(bloomFilter.filterBlocks, block * 2);
+            }
+            bloomFilter.positions[block] = position + Integer.BYTES;
+            bloomFilter.filterBlocks[block] = filterBlocks;
+            bloomFilter.blocks++;
+            position = end;
+        }
+        return bloomFilter;
+    }
+
+    /**
+     * @return whether a value of {@code block} may match {@code filter}. {@code false} means that the value of the
+     * filter is not in the block.
+     */
+    boolean mayMatch(final int block, final Filter filter) {
+        if (block >= blocks) {
+            return true;
+        }
+        if (filter != hashed) {
+            byte[] value;
+            if (filter instanceof IdFilter idFilter) {
+                value = idFilter.id();
+            } else if (filter instanceof StringFilter stringFilter && stringFilter.matchType() == StringFilter.MatchType.IS) {
+                value = stringFilter.value().getBytes(StandardCharsets.UTF_8);
+            } else {
+                return true;
+            }
+            hash = hash(value, 0, value.length, false);
+            hashed = filter;
+        }
+        return mightContain(block, hash);
+    }
+
+    private boolean mightContain(final int block, final long hash) {
+        if (filterBlocks[block] == 0) {
+            return false;
+        }
+        long position = positions[block] + (long) filterBlock(hash, filterBlocks[block]) * BLOCK_BITS / Byte.SIZE;
+        for (int word = 0; word < WORDS_PER_BLOCK; word++) {
+            int mask = mask(hash, word);
+            if ((bytes.getInt(position + (long) word * Integer.BYTES) & mask) != mask) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects the hashes of the values of a block, and writes its entry.
+     */
+    static final class Builder {
+
+        private final int[] words;
+        private int filterBlocks;
+
+        /**
+         * @param maxValues the maximum number of values of a block.
+         */
+        Builder(final int maxValues) {
+            this.words = new int[filterBlocks(maxValues) * WORDS_PER_BLOCK];
+        }
+
+        /**
+         * Starts the filter of a block of {@code values} present values.
+         */
+        void reset(final int values) {
+            filterBlocks = filterBlocks(values);
+            Arrays.fill(words, 0, filterBlocks * WORDS_PER_BLOCK, 0);
+        }
+
+        /**
+         * Adds the value with the {@link #hash(byte[], int, int, boolean) hash} {@code hash}.
+         */
+        void add(final long hash) {
+            int first = filterBlock(hash, filterBlocks) * WORDS_PER_BLOCK;
+            for (int word = 0; word < WORDS_PER_BLOCK; word++) {
+                words[first + word] |= mask(hash, word);
+            }
+        }
+
+        void write(final ColumnOutput blooms) {
+            blooms.reserve(Integer.BYTES).putInt(filterBlocks);
+            for (int i = 0; i < filterBlocks * WORDS_PER_BLOCK; i++) {
+                blooms.reserve(Integer.BYTES).putInt(words[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package column.store.inmemory;
+
+import column.store.api.write.BooleanColumnWriter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Bit-packs the values of a {@link column.store.api.column.BooleanColumn}, one bit per row, or writes runs of equal
+ * values ({@link ColumnFormat#RUN_LENGTH}) if they are smaller.
+ */
+final class BooleanBlockWriter extends BlockWriter implements BooleanColumnWriter {
+
+    private final long[] values;
+    /** Encoding of the current block, chosen by {@link #encoding()}. */
+    private byte encoding;
+    private int runs;
+
+    BooleanBlockWriter(final ColumnOutput output, final int blockRows) {
+        super(output, blockRows);
+        this.values = new long[ColumnFormat.words(blockRows)];
+    }
+
+    @Override
+    public void write(final boolean value) {
+        markPresent();
+        if (value) {
+            ColumnFormat.set(values, rows);
+        }
+    }
+
+    @Override
+    public void writeAll(final boolean[] batch, final BitSet nulls, final int count) {
+        appendBatch(nulls, count, (from, length, row) -> {
+            for (int i = 0; i < length; i++) {
+                if (batch[from + i]) {
+                    ColumnFormat.set(values, row + i);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return {@link ColumnFormat#RUN_LENGTH} if it is smaller than {@link ColumnFormat#PLAIN} for the current block.
+     */
+    @Override
+    protected byte encoding() {
+        runs = 0;
+        boolean previous = false;
+        for (int row = ColumnFormat.nextSet(presence, 0); row >= 0; row = ColumnFormat.nextSet(presence, row + 1)) {
+            boolean value = ColumnFormat.isSet(values, row);
+            if (runs == 0 || value != previous) {
+                runs++;
+                previous = value;
+            }
+        }
+        encoding = runBytes() < ColumnFormat.bitmapBytes(rows) ? ColumnFormat.RUN_LENGTH : ColumnFormat.PLAIN;
+        return encoding;
+    }
+
+    private int runBytes() {
+        return Integer.BYTES + runs * (Integer.BYTES + Byte.BYTES);
+    }
+
+    @Override
+    protected int payloadBytes() {
+        return encoding == ColumnFormat.RUN_LENGTH ? runBytes() : ColumnFormat.bitmapBytes(rows);
+    }
+
+    @Override
+    protected void writePayload() {
+        if (encoding == ColumnFormat.RUN_LENGTH) {
+            writeRuns();
+            return;
+        }
+        ColumnFormat.writeBitmap(output, values, rows);
+    }
+
+    private void writeRuns() {
+        output.reserve(Integer.BYTES).putInt(runs);
+        int first = ColumnFormat.nextSet(presence, 0);
+        boolean value = ColumnFormat.isSet(values, first);
+        int count = 0;
+        for (int row = first; row >= 0; row = ColumnFormat.nextSet(presence, row + 1)) {
+            if (ColumnFormat.isSet(values, row) != value) {
+                writeRun(count, value);
+                value = !value;
+                count = 0;
+            }
+            count++;
+        }
+        writeRun(count, value);
+    }
+
+    private void writeRun(final int count, final boolean value) {
+        output.reserve(Integer.BYTES + Byte.BYTES)
+                .putInt(count)
+                .put(value ? (byte) 1 : (byte) 0);
+    }
+
+    @Override
+    protected void clear() {
+        Arrays.fill(values, 0);
+    }
+}
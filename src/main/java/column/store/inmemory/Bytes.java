@@ -0,0 +1,207 @@
+package column.store.inmemory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read-only, random access view on the content of a column file.
+ * Positions are {@code long}s, so a column is not limited to 2 GB.
+ * All multibyte values are read big-endian, which is the byte order written by {@link InMemoryWriter}.
+ */
+abstract class Bytes {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    /**
+     * @return the number of bytes in this view.
+     */
+    abstract long size();
+
+    abstract byte get(long index);
+
+    abstract int getInt(long index);
+
+    abstract long getLong(long index);
+
+    double getDouble(final long index) {
+        return Double.longBitsToDouble(getLong(index));
+    }
+
+    /**
+     * Copies {@code length} bytes starting at {@code index} into {@code dst}.
+     */
+    abstract void get(long index, byte[] dst, int offset, int length);
+
+    /**
+     * @return whether the {@code value.length} bytes starting at {@code index} are equal to {@code value}.
+     */
+    boolean equals(final long index, final byte[] value) {
+        for (int i = 0; i < value.length; i++) {
+            if (get(index + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the UTF-8 decoded {@link String} of {@code length} bytes starting at {@code index}.
+     */
+    String string(final long index, final int length) {
+        var dst = new byte[length];
+        get(index, dst, 0, length);
+        return new String(dst, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return a view on a byte array on the heap.
+     */
+    static Bytes heap(final byte[] bytes) {
+        return new HeapBytes(bytes);
+    }
+
+    /**
+     * @return a view on the memory mapped content of {@code file}. The file is mapped in chunks of 1 GB, which allows
+     * for files larger than 2 GB.
+     */
+    static Bytes map(final Path file) throws IOException {
+        return map(file, MappedBytes.CHUNK_SHIFT);
+    }
+
+    static Bytes map(final Path file, final int chunkShift) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // mappings stay valid after the channel has been closed
+            return new MappedBytes(channel, chunkShift);
+        }
+    }
+
+    private static final class HeapBytes extends Bytes {
+
+        private final byte[] bytes;
+        private final ByteBuffer buffer;
+
+        private HeapBytes(final byte[] bytes) {
+            this.bytes = bytes;
+            this.buffer = ByteBuffer.wrap(bytes);
+        }
+
+        @Override
+        long size() {
+            return bytes.length;
+        }
+
+        @Override
+        byte get(final long index) {
+            return bytes[(int) index];
+        }
+
+        @Override
+        int getInt(final long index) {
+            return buffer.getInt((int) index);
+        }
+
+        @Override
+        long getLong(final long index) {
+            return buffer.getLong((int) index);
+        }
+
+        @Override
+        void get(final long index, final byte[] dst, final int offset, final int length) {
+            System.arraycopy(bytes, (int) index, dst, offset, length);
+        }
+
+        @Override
+        boolean equals(final long index, final byte[] value) {
+            int from = (int) index;
+            return Arrays.equals(bytes, from, from + value.length, value, 0, value.length);
+        }
+
+        @Override
+        String string(final long index, final int length) {
+            return new String(bytes, (int) index, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class MappedBytes extends Bytes {
+
+        /** 1 GB per chunk, as a single {@link MappedByteBuffer} cannot exceed {@link Integer#MAX_VALUE} bytes. */
+        private static final int CHUNK_SHIFT = 30;
+
+        private final MappedByteBuffer[] chunks;
+        private final int chunkShift;
+        private final long chunkMask;
+        private final long size;
+
+        private MappedBytes(final FileChannel channel, final int chunkShift) throws IOException {
+            this.size = channel.size();
+            this.chunkShift = chunkShift;
+            this.chunkMask = (1L << chunkShift) - 1;
+            int numberOfChunks = (int) ((size + chunkMask) >>> chunkShift);
+            this.chunks = new MappedByteBuffer[numberOfChunks];
+            for (int i = 0; i < numberOfChunks; i++) {
+                long start = (long) i << chunkShift;
+                long length = Math.min(1L << chunkShift, size - start);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+        }
+
+        @Override
+        long size() {
+            return size;
+        }
+
+        @Override
+        byte get(final long index) {
+            return chunks[(int) (index >>> chunkShift)].get((int) (index & chunkMask));
+        }
+
+        @Override
+        int getInt(final long index) {
+            var chunk = chunks[(int) (index >>> chunkShift)];
+            int offset = (int) (index & chunkMask);
+            if (offset + Integer.BYTES <= chunk.limit()) {
+                return chunk.getInt(offset);
+            }
+            return (int) getAcrossChunks(index, Integer.BYTES);
+        }
+
+        @Override
+        long getLong(final long index) {
+            var chunk = chunks[(int) (index >>> chunkShift)];
+            int offset = (int) (index & chunkMask);
+            if (offset + Long.BYTES <= chunk.limit()) {
+                return chunk.getLong(offset);
+            }
+            return getAcrossChunks(index, Long.BYTES);
+        }
+
+        /** Slow path for values, which are split between two chunks. */
+        private long getAcrossChunks(final long index, final int length) {
+            long value = 0;
+            for (int i = 0; i < length; i++) {
+                value = (value << Byte.SIZE) | (get(index + i) & BYTE_MASK);
+            }
+            return value;
+        }
+
+        @Override
+        void get(final long index, final byte[] dst, final int offset, final int length) {
+            long position = index;
+            int copied = 0;
+            while (copied < length) {
+                var chunk = chunks[(int) (position >>> chunkShift)];
+                int chunkOffset = (int) (position & chunkMask);
+                int n = Math.min(length - copied, chunk.limit() - chunkOffset);
+                chunk.get(chunkOffset, dst, offset + copied, n);
+                copied += n;
+                position += n;
+            }
+        }
+    }
+}
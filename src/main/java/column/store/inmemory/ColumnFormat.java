@@ -0,0 +1,369 @@
+package column.store.inmemory;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * On-disk layout of column files written by {@link InMemoryWriter}.
+ *
+ * <p> Legacy (version 1) column files have no header and store every value as a presence byte
+ * ({@link Byte#MAX_VALUE} or {@link Byte#MIN_VALUE}), followed by the value if present.
+ *
+ * <p> Version 2 column files start with a file header, followed by blocks of {@code blockRows} rows
+ * (only the last block may have fewer rows):
+ * <pre>
+ * file header:  magic (int) | version (byte) | blockRows (int) | width (int)
+ * block:        rows (int) | layout (byte) | encoding (byte) | length (int) | null bitmap or row ids | payload
+ * </pre>
+ * {@code length} is the number of bytes following the block header, so blocks can be skipped without decoding them.
+ * The null bitmap is only present for the {@link #BITMAP} layout, and has a set bit for every present value.
+ * Row ids are only present for the {@link #SPARSE} layout, see {@link #writeRowIds(ColumnOutput, long[], int, int)}.
+ * {@code width} is the number of bytes of every value of a {@link #FIXED_WIDTH} encoded column,
+ * or {@link column.store.api.column.IdColumn#VARIABLE_WIDTH}.
+ * Bitmaps are packed least significant bit first, byte {@code i} holds the rows {@code 8i} to {@code 8i + 7}.
+ */
+final class ColumnFormat {
+
+    /** "CSB2", cannot be confused with the presence byte a legacy file starts with. */
+    static final int MAGIC = 0x43534232;
+    static final byte VERSION = 2;
+    static final int DEFAULT_BLOCK_ROWS = 4096;
+    /** Legacy files have no blocks, they are read in chunks of this many rows. */
+    static final int LEGACY_BLOCK_ROWS = 4096;
+
+    static final int FILE_HEADER_BYTES = Integer.BYTES + Byte.BYTES + Integer.BYTES + Integer.BYTES;
+    static final int VERSION_OFFSET = Integer.BYTES;
+    static final int BLOCK_ROWS_OFFSET = VERSION_OFFSET + Byte.BYTES;
+    static final int WIDTH_OFFSET = BLOCK_ROWS_OFFSET + Integer.BYTES;
+
+    static final int BLOCK_HEADER_BYTES = Integer.BYTES + Byte.BYTES + Byte.BYTES + Integer.BYTES;
+    static final int LAYOUT_OFFSET = Integer.BYTES;
+    static final int ENCODING_OFFSET = LAYOUT_OFFSET + Byte.BYTES;
+    static final int LENGTH_OFFSET = ENCODING_OFFSET + Byte.BYTES;
+
+    /** No value of the block is present, there is neither a null bitmap nor a payload. */
+    static final byte ALL_NULL = 0;
+    /** All values of the block are present, there is no null bitmap. */
+    static final byte ALL_PRESENT = 1;
+    /** The null bitmap marks the present values. */
+    static final byte BITMAP = 2;
+    /**
+     * The row ids of the present values are stored instead of a null bitmap, for blocks of mostly null values
+     * (see {@link #isSparse(int, int, int)}).
+     */
+    static final byte SPARSE = 3;
+
+    /** Values are stored as is, only present values are stored. Booleans are bit-packed, one bit per row. */
+    static final byte PLAIN = 0;
+    /**
+     * Values of the width stored in the file header, one slot per row, including null rows (zero filled).
+     * The value of a row is found without decoding the block. Blocks of the {@link #SPARSE} layout only have the slots
+     * of the present rows, in the order of their row ids.
+     */
+    static final byte FIXED_WIDTH = 1;
+    /**
+     * Longs as delta-of-deltas: the first present value as is, followed by the difference of each delta to the previous
+     * delta (the first delta to {@code 0}) as zig-zag varint. Nearly monotonic values, such as timestamps, need about
+     * one byte per value.
+     */
+    static final byte DELTA = 2;
+    /** Variable length values as codes of a dictionary of the block, see {@link DictionaryEncoder}. */
+    static final byte DICTIONARY = 3;
+    /**
+     * Doubles as XOR of consecutive values (Gorilla): the bits of the first present value, followed for every further
+     * value by {@code 0} if it is equal to the previous value, or by {@code 1} and the meaningful bits of the XOR with the
+     * previous value. These are prefixed with {@code 0} if they fit into the window of leading and trailing zeros of
+     * the previous XOR, with {@code 1}, the number of leading zeros ({@link #XOR_LEADING_BITS} bits) and the number of
+     * meaningful bits ({@link #XOR_LENGTH_BITS} bits, {@code 0} for 64) otherwise. The bits are packed into longs,
+     * most significant bit first.
+     */
+    static final byte XOR = 4;
+    static final int XOR_LEADING_BITS = 5;
+    static final int XOR_LENGTH_BITS = 6;
+    static final int XOR_MAX_LEADING = (1 << XOR_LEADING_BITS) - 1;
+    /**
+     * Longs as bit-packed offsets in miniblocks of {@link BitPacking#MINIBLOCK_VALUES} present values, every miniblock
+     * consists of its smallest value (long), the width of its offsets (byte) and the packed offsets,
+     * see {@link BitPacking}. Bounded values, such as status codes or counts, need a few bits per value.
+     */
+    static final byte FRAME_OF_REFERENCE = 5;
+    /**
+     * Runs of equal present values: the number of runs (int), followed by every run as the number of its values (int)
+     * and the value, which is a byte ({@code 0} or {@code 1}) for booleans, and the length (int) and the bytes for
+     * variable length values. Sorted or repetitive values need a few runs per block.
+     */
+    static final byte RUN_LENGTH = 6;
+    /**
+     * Strings of ASCII entries as codes of a dictionary of the block, whose entries are sorted case-insensitively and
+     * front coded, see {@link DictionaryEncoder}. Filters on a prefix or a suffix match a range of entries.
+     */
+    static final byte SORTED_DICTIONARY = 7;
+
+    /** Dictionaries with at most this many entries have codes of one byte. */
+    static final int MAX_BYTE_CODES = 1 << Byte.SIZE;
+    static final int MAX_DICTIONARY_ENTRIES = 1 << Short.SIZE;
+
+    /** A varint stores 7 bits per byte, the highest bit is set if another byte follows. */
+    static final int VARINT_BITS = 7;
+    static final int VARINT_MASK = 0x7F;
+    static final int VARINT_CONTINUATION = 0x80;
+    static final int MAX_VARINT_BYTES = (Long.SIZE + VARINT_BITS - 1) / VARINT_BITS;
+
+    private static final int BYTE_MASK = 0xFF;
+    private static final int WORD_SHIFT = 6;
+    private static final int HASH_MULTIPLIER = 31;
+    private static final int SPREAD_SHIFT = 16;
+
+    private ColumnFormat() {
+        // hidden util constructor
+    }
+
+    /**
+     * @return whether {@code bytes} start with a version 2 (or later) file header.
+     */
+    static boolean hasHeader(final Bytes bytes) {
+        return bytes.size() >= FILE_HEADER_BYTES && bytes.getInt(0) == MAGIC;
+    }
+
+    static void writeFileHeader(final ColumnOutput output, final int blockRows, final int width) {
+        output.reserve(FILE_HEADER_BYTES)
+                .putInt(MAGIC)
+                .put(VERSION)
+                .putInt(blockRows)
+                .putInt(width);
+    }
+
+    /**
+     * @return the number of bytes of a code of a dictionary with {@code entries} entries.
+     */
+    static int codeWidth(final int entries) {
+        return entries <= MAX_BYTE_CODES ? Byte.BYTES : Short.BYTES;
+    }
+
+    /**
+     * @return the unsigned code of {@code width} bytes at {@code position}.
+     */
+    static int readCode(final Bytes bytes, final long position, final int width) {
+        if (width == Byte.BYTES) {
+            return bytes.get(position) & BYTE_MASK;
+        }
+        return (bytes.get(position) & BYTE_MASK) << Byte.SIZE | bytes.get(position + 1) & BYTE_MASK;
+    }
+
+    /**
+     * @return {@code value} with the sign in the lowest bit, so that values close to zero have few significant bits.
+     */
+    static long zigZag(final long value) {
+        return (value << 1) ^ (value >> (Long.SIZE - 1));
+    }
+
+    static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * @return the number of bytes of the varint of {@code value}.
+     */
+    static int varintBytes(final long value) {
+        return (Long.SIZE - Long.numberOfLeadingZeros(value | 1) + VARINT_BITS - 1) / VARINT_BITS;
+    }
+
+    static void putVarint(final ByteBuffer buffer, final long value) {
+        long remaining = value;
+        while ((remaining & ~VARINT_MASK) != 0) {
+            buffer.put((byte) (remaining & VARINT_MASK | VARINT_CONTINUATION));
+            remaining >>>= VARINT_BITS;
+        }
+        buffer.put((byte) remaining);
+    }
+
+    /**
+     * @return the hash of the {@code length} bytes starting at {@code offset}, with the high bits spread to the low bits,
+     * which select the slot of a hash table.
+     */
+    static int hash(final byte[] data, final int offset, final int length) {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = HASH_MULTIPLIER * hash + data[i];
+        }
+        return hash ^ (hash >>> SPREAD_SHIFT);
+    }
+
+    /**
+     * @return the number of {@code long} words needed to store {@code bits} bits.
+     */
+    static int words(final int bits) {
+        return (bits + Long.SIZE - 1) >>> WORD_SHIFT;
+    }
+
+    /**
+     * Sets bit {@code index} in {@code words}.
+     */
+    static void set(final long[] words, final int index) {
+        words[index >>> WORD_SHIFT] |= 1L << index;
+    }
+
+    /**
+     * Clears bit {@code index} in {@code words}.
+     */
+    static void clear(final long[] words, final int index) {
+        words[index >>> WORD_SHIFT] &= ~(1L << index);
+    }
+
+    /**
+     * @return whether bit {@code index} in {@code words} is set.
+     */
+    static boolean isSet(final long[] words, final int index) {
+        return (words[index >>> WORD_SHIFT] & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets the bits {@code from} to {@code to - 1} in {@code words}, which are set in {@code mask}.
+     */
+    static void setRange(final long[] words, final long[] mask, final int from, final int to) {
+        for (int i = from >>> WORD_SHIFT; i <= (to - 1) >>> WORD_SHIFT; i++) {
+            words[i] |= mask[i] & rangeMask(i, from, to);
+        }
+    }
+
+    /**
+     * Clears the bits {@code from} to {@code to - 1} in {@code words}.
+     */
+    static void clearRange(final long[] words, final int from, final int to) {
+        for (int i = from >>> WORD_SHIFT; i <= (to - 1) >>> WORD_SHIFT; i++) {
+            words[i] &= ~rangeMask(i, from, to);
+        }
+    }
+
+    /**
+     * @return the bits of word {@code word}, which are in {@code [from, to)}.
+     */
+    private static long rangeMask(final int word, final int from, final int to) {
+        int start = word << WORD_SHIFT;
+        long mask = -1L;
+        if (from > start) {
+            // shifts only use the lowest 6 bits
+            mask &= -1L << from;
+        }
+        if (to < start + Long.SIZE) {
+            mask &= -1L >>> (Long.SIZE - to % Long.SIZE);
+        }
+        return mask;
+    }
+
+    /**
+     * Sets the bits {@code 0} to {@code bits - 1} in {@code words}, and clears all other bits.
+     */
+    static void setAll(final long[] words, final int bits) {
+        int fullWords = bits >>> WORD_SHIFT;
+        Arrays.fill(words, 0, fullWords, -1L);
+        Arrays.fill(words, fullWords, words.length, 0L);
+        if (fullWords < words.length && bits % Long.SIZE != 0) {
+            words[fullWords] = -1L >>> (Long.SIZE - bits % Long.SIZE);
+        }
+    }
+
+    /**
+     * @return the index of the first set bit in {@code words} at or after {@code from}, {@code -1} if there is none.
+     */
+    static int nextSet(final long[] words, final int from) {
+        int i = from >>> WORD_SHIFT;
+        if (i >= words.length) {
+            return -1;
+        }
+        long word = words[i] & (-1L << from);
+        while (word == 0) {
+            if (++i == words.length) {
+                return -1;
+            }
+            word = words[i];
+        }
+        return i * Long.SIZE + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * @return the index of the first clear bit in {@code words} at or after {@code from}.
+     */
+    static int nextClear(final long[] words, final int from) {
+        int i = from >>> WORD_SHIFT;
+        if (i >= words.length) {
+            return from;
+        }
+        long word = ~words[i] & (-1L << from);
+        while (word == 0) {
+            if (++i == words.length) {
+                return i * Long.SIZE;
+            }
+            word = ~words[i];
+        }
+        return i * Long.SIZE + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * @return whether the {@link #SPARSE} layout is smaller than the {@link #BITMAP} layout for a block with
+     * {@code present} of {@code rows} values present. With the default block size, this is the case if less than one
+     * out of 16 values is present.
+     */
+    static boolean isSparse(final int present, final int rows, final int blockRows) {
+        return blockRows <= MAX_DICTIONARY_ENTRIES && rowIdsBytes(present, blockRows) < bitmapBytes(rows);
+    }
+
+    /**
+     * @return the number of bytes of the row ids of {@code present} values.
+     */
+    static int rowIdsBytes(final int present, final int blockRows) {
+        return Integer.BYTES + present * codeWidth(blockRows);
+    }
+
+    /**
+     * Writes the row ids of the {@code present} bits set in {@code words}: their number (int), followed by every row id,
+     * in ascending order and as wide as the codes of a dictionary with {@code blockRows} entries.
+     */
+    static void writeRowIds(final ColumnOutput output, final long[] words, final int present, final int blockRows) {
+        output.reserve(Integer.BYTES).putInt(present);
+        boolean narrow = codeWidth(blockRows) == Byte.BYTES;
+        for (int row = nextSet(words, 0); row >= 0; row = nextSet(words, row + 1)) {
+            if (narrow) {
+                output.reserve(Byte.BYTES).put((byte) row);
+            } else {
+                output.reserve(Short.BYTES).putShort((short) row);
+            }
+        }
+    }
+
+    /**
+     * @return the number of bytes needed to store a bitmap of {@code bits} bits.
+     */
+    static int bitmapBytes(final int bits) {
+        return (bits + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
+    static void writeBitmap(final ColumnOutput output, final long[] words, final int bits) {
+        int bytes = bitmapBytes(bits);
+        int fullWords = bytes / Long.BYTES;
+        for (int i = 0; i < fullWords; i++) {
+            output.reserve(Long.BYTES).putLong(Long.reverseBytes(words[i]));
+        }
+        for (int i = fullWords * Long.BYTES; i < bytes; i++) {
+            output.reserve(Byte.BYTES).put((byte) (words[i / Long.BYTES] >>> ((i % Long.BYTES) * Byte.SIZE)));
+        }
+    }
+
+    /**
+     * Reads a bitmap of {@code bits} bits starting at {@code position} into {@code words}.
+     */
+    static void readBitmap(final Bytes bytes, final long position, final long[] words, final int bits) {
+        int length = bitmapBytes(bits);
+        int fullWords = length / Long.BYTES;
+        for (int i = 0; i < fullWords; i++) {
+            words[i] = Long.reverseBytes(bytes.getLong(position + (long) i * Long.BYTES));
+        }
+        if (fullWords * Long.BYTES < length) {
+            long word = 0;
+            for (int i = fullWords * Long.BYTES; i < length; i++) {
+                word |= (long) (bytes.get(position + i) & BYTE_MASK) << ((i % Long.BYTES) * Byte.SIZE);
+            }
+            words[fullWords] = word;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package column.store.inmemory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Buffered output of a single column file.
+ */
+final class ColumnOutput {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    /** Number of bytes written to the file so far. */
+    private long written;
+
+    ColumnOutput(final FileChannel channel, final ByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * @return the write buffer, which has at least {@code bytes} bytes remaining.
+     */
+    ByteBuffer reserve(final int bytes) {
+        if (buffer.remaining() < bytes) {
+            drainUnchecked();
+        }
+        return buffer;
+    }
+
+    /**
+     * @return the position in the file of the next byte put into the write buffer.
+     */
+    long position() {
+        return written + buffer.position();
+    }
+
+    /**
+     * Puts {@code length} bytes of {@code bytes} into the write buffer. Values larger than the buffer bypass it.
+     */
+    void put(final byte[] bytes, final int offset, final int length) {
+        if (buffer.remaining() < length) {
+            drainUnchecked();
+        }
+        if (length <= buffer.remaining()) {
+            buffer.put(bytes, offset, length);
+        } else {
+            try {
+                writeFully(ByteBuffer.wrap(bytes, offset, length));
+                written += length;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes the content of the write buffer to the file.
+     */
+    void drain() throws IOException {
+        buffer.flip();
+        try {
+            written += buffer.remaining();
+            writeFully(buffer);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Drains the write buffer and forces its content to the storage device.
+     */
+    void flush() throws IOException {
+        drain();
+        channel.force(true);
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    private void drainUnchecked() {
+        try {
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeFully(final ByteBuffer content) throws IOException {
+        while (content.hasRemaining()) {
+            channel.write(content);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package column.store.inmemory;
+
+import java.util.Arrays;
+
+/**
+ * Builds the {@link ColumnFormat#DICTIONARY} of the variable length values of a block. The payload consists of the
+ * number of entries (int), the lengths of the entries (one int each), their concatenated bytes and the code of every
+ * present value, one byte each if there are at most {@link ColumnFormat#MAX_BYTE_CODES} entries, two bytes otherwise.
+ *
+ * <p> Entries are kept in the order of their first occurrence, every block has its own dictionary, so that blocks
+ * can be read and skipped independently.
+ *
+ * <p> Dictionaries of ASCII entries can be sorted instead (see {@link #sort(byte[], int[], int)}), the
+ * {@link ColumnFormat#SORTED_DICTIONARY} payload consists of the number of entries (int), the front coded entries
+ * in case-insensitive order, the codes of the entries in case-insensitive order of their reversed bytes, and the code of
+ * every present value. A front coded entry is the length of the prefix it shares with the previous entry (varint),
+ * the length of the rest (varint) and the bytes of the rest. Readers find the entries with a prefix, or a suffix,
+ * by binary search.
+ */
+final class DictionaryEncoder {
+
+    private static final int NO_ENTRY = -1;
+
+    /** Open addressing hash table of entries, a power of two larger than twice the number of values. */
+    private final int[] table;
+    private final int mask;
+    /** Code of every value. */
+    private final int[] codes;
+    /** Index of the first value of every entry. */
+    private final int[] entryValues;
+    /** Offset of every value. */
+    private final int[] offsets;
+    private int entries;
+    private int entryBytes;
+    /** Whether all entries are ASCII, so that their lowercase order is the order of their folded bytes. */
+    private boolean ascii;
+    /** Entries in sorted order, and the sorted code of every entry, see {@link #sort(byte[], int[], int)}. */
+    private final int[] sorted;
+    private final int[] sortedCodes;
+    /** Sorted codes in the order of the reversed entries. */
+    private final int[] reversed;
+    /** Entries being sorted, and the merge buffer of {@link #sortOrder(byte[], int[], boolean)}. */
+    private final int[] order;
+    private final int[] merged;
+
+    DictionaryEncoder(final int blockRows) {
+        this.table = new int[Integer.highestOneBit(Math.max(1, blockRows)) << 2];
+        this.mask = table.length - 1;
+        this.codes = new int[blockRows];
+        this.entryValues = new int[blockRows];
+        this.offsets = new int[blockRows];
+        this.sorted = new int[blockRows];
+        this.sortedCodes = new int[blockRows];
+        this.reversed = new int[blockRows];
+        this.order = new int[blockRows];
+        this.merged = new int[blockRows];
+    }
+
+    /**
+     * Builds the dictionary of {@code count} values, which are stored in {@code data} one after the other.
+     *
+     * @return the size of the payload in bytes, or {@code -1} if there are more than
+     * {@link ColumnFormat#MAX_DICTIONARY_ENTRIES} entries.
+     */
+    int build(final byte[] data, final int[] lengths, final int count) {
+        Arrays.fill(table, NO_ENTRY);
+        entries = 0;
+        entryBytes = 0;
+        ascii = true;
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            offsets[i] = offset;
+            int length = lengths[i];
+            int slot = ColumnFormat.hash(data, offset, length) & mask;
+            while (table[slot] != NO_ENTRY && !equals(data, table[slot], offset, length, lengths)) {
+                slot = (slot + 1) & mask;
+            }
+            if (table[slot] == NO_ENTRY) {
+                if (entries == ColumnFormat.MAX_DICTIONARY_ENTRIES) {
+                    return -1;
+                }
+                table[slot] = entries;
+                entryValues[entries++] = i;
+                entryBytes += length;
+                ascii &= ZoneMap.isAscii(data, offset, length);
+            }
+            codes[i] = table[slot];
+            offset += length;
+        }
+        return Integer.BYTES + entries * Integer.BYTES + entryBytes + count * ColumnFormat.codeWidth(entries);
+    }
+
+    private boolean equals(final byte[] data, final int entry, final int offset, final int length, final int[] lengths) {
+        int value = entryValues[entry];
+        int entryOffset = offsets[value];
+        return lengths[value] == length && Arrays.equals(data, entryOffset, entryOffset + length, data, offset, offset + length);
+    }
+
+    /**
+     * @return whether the dictionary, which has been built last, can be sorted.
+     */
+    boolean isAscii() {
+        return ascii;
+    }
+
+    /**
+     * Sorts the entries of the dictionary, which has been built last, case-insensitively.
+     *
+     * @return the size of the {@link ColumnFormat#SORTED_DICTIONARY} payload in bytes.
+     */
+    int sort(final byte[] data, final int[] lengths, final int count) {
+        for (int entry = 0; entry < entries; entry++) {
+            order[entry] = entry;
+        }
+        sortOrder(data, lengths, false);
+        int size = Integer.BYTES;
+        for (int code = 0; code < entries; code++) {
+            int entry = order[code];
+            sorted[code] = entry;
+            sortedCodes[entry] = code;
+            int length = lengths[entryValues[entry]];
+            int shared = code == 0 ? 0 : sharedPrefix(data, lengths, sorted[code - 1], entry);
+            size += ColumnFormat.varintBytes(shared) + ColumnFormat.varintBytes(length - shared) + length - shared;
+        }
+        // entries, whose reversed bytes differ in case only, stay in sorted order
+        sortOrder(data, lengths, true);
+        for (int i = 0; i < entries; i++) {
+            reversed[i] = sortedCodes[order[i]];
+        }
+        return size + (entries + count) * ColumnFormat.codeWidth(entries);
+    }
+
+    /**
+     * Sorts the entries in {@link #order} by a stable bottom-up merge sort, which does not allocate, case-insensitively
+     * by their bytes or by their {@code reversedBytes}.
+     */
+    private void sortOrder(final byte[] data, final int[] lengths, final boolean reversedBytes) {
+        int[] from = order;
+        int[] to = merged;
+        for (int width = 1; width < entries; width *= 2) {
+            for (int start = 0; start < entries; start += 2 * width) {
+                int middle = Math.min(start + width, entries);
+                int end = Math.min(start + 2 * width, entries);
+                int left = start;
+                int right = middle;
+                for (int i = start; i < end; i++) {
+                    if (right == end || left < middle && compareEntries(data, lengths, from[left], from[right], reversedBytes) <= 0) {
+                        to[i] = from[left++];
+                    } else {
+                        to[i] = from[right++];
+                    }
+                }
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != order) {
+            System.arraycopy(from, 0, order, 0, entries);
+        }
+    }
+
+    private int compareEntries(final byte[] data, final int[] lengths, final int a, final int b, final boolean reversedBytes) {
+        if (reversedBytes) {
+            return compareReversed(data, lengths, a, b);
+        }
+        // values differing in case only are adjacent, in the order of their bytes
+        int folded = compare(data, lengths, a, b, true);
+        return folded != 0 ? folded : compare(data, lengths, a, b, false);
+    }
+
+    private int compare(final byte[] data, final int[] lengths, final int a, final int b, final boolean fold) {
+        int aValue = entryValues[a];
+        int bValue = entryValues[b];
+        return ZoneMap.compare(data, offsets[aValue], lengths[aValue], data, offsets[bValue], lengths[bValue], fold);
+    }
+
+    /**
+     * Compares the reversed bytes of two entries as unsigned bytes, ASCII letters case-insensitively.
+     */
+    private int compareReversed(final byte[] data, final int[] lengths, final int a, final int b) {
+        int aEnd = offsets[entryValues[a]] + lengths[entryValues[a]];
+        int bEnd = offsets[entryValues[b]] + lengths[entryValues[b]];
+        int length = Math.min(lengths[entryValues[a]], lengths[entryValues[b]]);
+        for (int i = 1; i <= length; i++) {
+            int difference = Byte.toUnsignedInt(ZoneMap.fold(data[aEnd - i])) - Byte.toUnsignedInt(ZoneMap.fold(data[bEnd - i]));
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return lengths[entryValues[a]] - lengths[entryValues[b]];
+    }
+
+    private int sharedPrefix(final byte[] data, final int[] lengths, final int a, final int b) {
+        int aOffset = offsets[entryValues[a]];
+        int bOffset = offsets[entryValues[b]];
+        int length = Math.min(lengths[entryValues[a]], lengths[entryValues[b]]);
+        int mismatch = Arrays.mismatch(data, aOffset, aOffset + length, data, bOffset, bOffset + length);
+        return mismatch < 0 ? length : mismatch;
+    }
+
+    /**
+     * Writes the {@link ColumnFormat#SORTED_DICTIONARY} payload of the dictionary, which has been sorted last.
+     */
+    void writeSorted(final ColumnOutput output, final byte[] data, final int[] lengths, final int count) {
+        output.reserve(Integer.BYTES).putInt(entries);
+        for (int code = 0; code < entries; code++) {
+            int value = entryValues[sorted[code]];
+            int shared = code == 0 ? 0 : sharedPrefix(data, lengths, sorted[code - 1], sorted[code]);
+            var buffer = output.reserve(2 * ColumnFormat.MAX_VARINT_BYTES);
+            ColumnFormat.putVarint(buffer, shared);
+            ColumnFormat.putVarint(buffer, lengths[value] - shared);
+            output.put(data, offsets[value] + shared, lengths[value] - shared);
+        }
+        int width = ColumnFormat.codeWidth(entries);
+        for (int i = 0; i < entries; i++) {
+            writeCode(output, reversed[i], width);
+        }
+        for (int i = 0; i < count; i++) {
+            writeCode(output, sortedCodes[codes[i]], width);
+        }
+    }
+
+    private static void writeCode(final ColumnOutput output, final int code, final int width) {
+        if (width == Byte.BYTES) {
+            output.reserve(Byte.BYTES).put((byte) code);
+        } else {
+            output.reserve(Short.BYTES).putShort((short) code);
+        }
+    }
+
+    /**
+     * Writes the payload of the dictionary, which has been built last.
+     */
+    void write(final ColumnOutput output, final byte[] data, final int[] lengths, final int count) {
+        output.reserve(Integer.BYTES).putInt(entries);
+        for (int entry = 0; entry < entries; entry++) {
+            output.reserve(Integer.BYTES).putInt(lengths[entryValues[entry]]);
+        }
+        for (int entry = 0; entry < entries; entry++) {
+            int value = entryValues[entry];
+            output.put(data, offsets[value], lengths[value]);
+        }
+        if (ColumnFormat.codeWidth(entries) == Byte.BYTES) {
+            for (int i = 0; i < count; i++) {
+                output.reserve(Byte.BYTES).put((byte) codes[i]);
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                output.reserve(Short.BYTES).putShort((short) codes[i]);
+            }
+        }
+    }
+}
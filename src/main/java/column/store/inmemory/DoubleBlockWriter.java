@@ -0,0 +1,142 @@
+package column.store.inmemory;
+
+import column.store.api.write.DoubleColumnWriter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+final class DoubleBlockWriter extends BlockWriter implements DoubleColumnWriter, BlockWriter.ZoneMapped {
+
+    /** Control bits of a XOR, whose meaningful bits fit into the window of the previous XOR. */
+    private static final int SAME_WINDOW = 0b10;
+    /** Control bits of a XOR with a new window. */
+    private static final int NEW_WINDOW = 0b11;
+    /** The largest value: the first value, control bits, window and all meaningful bits. */
+    private static final int MAX_BITS_PER_VALUE = 2 + ColumnFormat.XOR_LEADING_BITS + ColumnFormat.XOR_LENGTH_BITS + Long.SIZE;
+
+    private final double[] values;
+    /** The {@link ColumnFormat#XOR} encoded values of the current block. */
+    private final long[] bits;
+    private int bitLength;
+    /** Encoding of the current block, chosen by {@link #encoding()}. */
+    private byte encoding;
+
+    DoubleBlockWriter(final ColumnOutput output, final int blockRows) {
+        super(output, blockRows);
+        this.values = new double[blockRows];
+        this.bits = new long[ColumnFormat.words(Long.SIZE + blockRows * MAX_BITS_PER_VALUE)];
+    }
+
+    @Override
+    public void write(final double value) {
+        values[markPresent()] = value;
+    }
+
+    @Override
+    public void writeAll(final double[] batch, final BitSet nulls, final int count) {
+        appendBatch(nulls, count, (from, length, row) -> System.arraycopy(batch, from, values, present, length));
+    }
+
+    @Override
+    public void writeBounds(final ColumnOutput zones) {
+        // NaN never matches a filter, comparisons with NaN are false
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < present; i++) {
+            if (values[i] < min) {
+                min = values[i];
+            }
+            if (values[i] > max) {
+                max = values[i];
+            }
+        }
+        ZoneMap.writeBounds(zones, min, max);
+    }
+
+    /**
+     * @return {@link ColumnFormat#XOR} if it is smaller than {@link ColumnFormat#PLAIN} for the current block.
+     */
+    @Override
+    protected byte encoding() {
+        encodeXor();
+        encoding = xorBytes() < present * Double.BYTES ? ColumnFormat.XOR : ColumnFormat.PLAIN;
+        return encoding;
+    }
+
+    private void encodeXor() {
+        Arrays.fill(bits, 0L);
+        bitLength = 0;
+        long previous = Double.doubleToRawLongBits(values[0]);
+        writeBits(previous, Long.SIZE);
+        // no window yet
+        int windowLeading = -1;
+        int windowTrailing = 0;
+        for (int i = 1; i < present; i++) {
+            long next = Double.doubleToRawLongBits(values[i]);
+            long xor = next ^ previous;
+            previous = next;
+            if (xor == 0) {
+                writeBits(0, 1);
+                continue;
+            }
+            int leading = Math.min(Long.numberOfLeadingZeros(xor), ColumnFormat.XOR_MAX_LEADING);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (windowLeading >= 0 && leading >= windowLeading && trailing >= windowTrailing) {
+                writeBits(SAME_WINDOW, 2);
+                writeBits(xor >>> windowTrailing, Long.SIZE - windowLeading - windowTrailing);
+            } else {
+                int length = Long.SIZE - leading - trailing;
+                writeBits(NEW_WINDOW, 2);
+                writeBits(leading, ColumnFormat.XOR_LEADING_BITS);
+                // a length of 64 does not fit into the length bits, it is written as 0
+                writeBits(length, ColumnFormat.XOR_LENGTH_BITS);
+                writeBits(xor >>> trailing, length);
+                windowLeading = leading;
+                windowTrailing = trailing;
+            }
+        }
+    }
+
+    /**
+     * Appends the lowest {@code count} bits of {@code value}.
+     */
+    private void writeBits(final long value, final int count) {
+        long masked = count == Long.SIZE ? value : value & ((1L << count) - 1);
+        int word = bitLength / Long.SIZE;
+        int free = Long.SIZE - bitLength % Long.SIZE;
+        if (count <= free) {
+            bits[word] |= masked << (free - count);
+        } else {
+            bits[word] |= masked >>> (count - free);
+            bits[word + 1] |= masked << (Long.SIZE - (count - free));
+        }
+        bitLength += count;
+    }
+
+    private int xorBytes() {
+        return ColumnFormat.words(bitLength) * Long.BYTES;
+    }
+
+    @Override
+    protected int payloadBytes() {
+        return encoding == ColumnFormat.XOR ? xorBytes() : present * Double.BYTES;
+    }
+
+    @Override
+    protected void writePayload() {
+        if (encoding == ColumnFormat.XOR) {
+            for (int i = 0; i < ColumnFormat.words(bitLength); i++) {
+                output.reserve(Long.BYTES).putLong(bits[i]);
+            }
+            return;
+        }
+        for (int i = 0; i < present; i++) {
+            output.reserve(Double.BYTES).putDouble(values[i]);
+        }
+    }
+
+    @Override
+    protected void clear() {
+        // values are overwritten
+    }
+}
@@ -0,0 +1,102 @@
+package column.store.inmemory;
+
+import static column.store.util.Conditions.checkArgument;
+
+import column.store.api.write.IdColumnWriter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Writes ids of a fixed width. The width is stored once in the file header, the {@link ColumnFormat#FIXED_WIDTH}
+ * payload has a slot for every row, so the value of a row is found by its index alone. Blocks of the
+ * {@link ColumnFormat#SPARSE} layout only have slots for the present rows.
+ */
+final class FixedWidthIdBlockWriter extends BlockWriter implements IdColumnWriter, BlockWriter.ZoneMapped, BlockWriter.BloomFiltered {
+
+    private final int width;
+    private final byte[] slots;
+
+    FixedWidthIdBlockWriter(final ColumnOutput output, final int blockRows, final int width) {
+        super(output, blockRows);
+        this.width = width;
+        this.slots = new byte[blockRows * width];
+    }
+
+    @Override
+    public void write(final byte[] value) {
+        checkArgument(value.length == width, "Id must have " + width + " bytes, but has " + value.length);
+        markPresent();
+        System.arraycopy(value, 0, slots, rows * width, width);
+    }
+
+    @Override
+    public void writeAll(final byte[] bytes, final int[] offsets, final BitSet nulls, final int count) {
+        for (int i = nulls.nextClearBit(0); i < count; i = nulls.nextClearBit(i + 1)) {
+            int length = offsets[i + 1] - offsets[i];
+            checkArgument(length == width, "Id must have " + width + " bytes, but has " + length);
+        }
+        appendBatch(nulls, count, (from, length, row) ->
+                System.arraycopy(bytes, offsets[from], slots, row * width, offsets[from + length] - offsets[from]));
+    }
+
+    @Override
+    public void writeBounds(final ColumnOutput zones) {
+        int min = -1;
+        int max = -1;
+        for (int row = 0; row < rows; row++) {
+            if (!ColumnFormat.isSet(presence, row)) {
+                continue;
+            }
+            int slot = row * width;
+            if (min < 0 || ZoneMap.compare(slots, slot, width, slots, min, width, false) < 0) {
+                min = slot;
+            }
+            if (max < 0 || ZoneMap.compare(slots, slot, width, slots, max, width, false) > 0) {
+                max = slot;
+            }
+        }
+        ZoneMap.writeBound(zones, slots, min, width, false, false);
+        ZoneMap.writeBound(zones, slots, max, width, false, true);
+    }
+
+    @Override
+    public void addValues(final BloomFilter.Builder bloomFilter) {
+        for (int row = ColumnFormat.nextSet(presence, 0); row >= 0; row = ColumnFormat.nextSet(presence, row + 1)) {
+            bloomFilter.add(BloomFilter.hash(slots, row * width, width, false));
+        }
+    }
+
+    @Override
+    protected int width() {
+        return width;
+    }
+
+    @Override
+    protected byte encoding() {
+        return ColumnFormat.FIXED_WIDTH;
+    }
+
+    @Override
+    protected int payloadBytes() {
+        return (layout == ColumnFormat.SPARSE ? present : rows) * width;
+    }
+
+    @Override
+    protected void writePayload() {
+        if (layout != ColumnFormat.SPARSE) {
+            output.put(slots, 0, rows * width);
+            return;
+        }
+        // in the order of the row ids
+        for (int row = ColumnFormat.nextSet(presence, 0); row >= 0; row = ColumnFormat.nextSet(presence, row + 1)) {
+            output.put(slots, row * width, width);
+        }
+    }
+
+    @Override
+    protected void clear() {
+        // slots of null rows are written, so they must not keep values of the previous block
+        Arrays.fill(slots, (byte) 0);
+    }
+}
@@ -0,0 +1,33 @@
+package column.store.inmemory;
+
+import column.store.api.write.IdColumnWriter;
+
+import java.util.BitSet;
+
+final class IdBlockWriter extends BinaryBlockWriter implements IdColumnWriter {
+
+    IdBlockWriter(final ColumnOutput output, final int blockRows) {
+        super(output, blockRows);
+    }
+
+    @Override
+    public void write(final byte[] value) {
+        append(value);
+    }
+
+    @Override
+    public void writeAll(final byte[] bytes, final int[] offsets, final BitSet nulls, final int count) {
+        appendAll(bytes, offsets, nulls, count);
+    }
+
+    @Override
+    protected boolean dictionaryEncoded() {
+        // ids are mostly unique
+        return false;
+    }
+
+    @Override
+    protected boolean caseInsensitive() {
+        return false;
+    }
+}
@@ -0,0 +1,262 @@
+package column.store.inmemory;
+
+import static column.store.util.Conditions.checkState;
+
+import column.store.api.column.Column;
+import column.store.api.column.IdColumn;
+import column.store.api.query.IdFilter;
+import column.store.api.query.Query;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Persistent hash index of an {@link IdColumn}, which maps every id to the rows it is present in, so that an
+ * {@link IdFilter} only has to read the blocks of these rows. It is stored in a sidecar file next to the column
+ * directories (see {@link #path(Path, Column)}), and built by {@link InMemoryWriter#index(IdColumn)} or for existing
+ * data by {@link #build(Path, IdColumn)}.
+ *
+ * <pre>
+ * file header:  magic (int) | version (byte) | slots (int)
+ * slot:         hash (int) | position of the entry (long), -1 if the slot is empty
+ * entry:        id length (int) | id | rows (int) | row (long) ...
+ * </pre>
+ * The slots are an open addressing hash table with linear probing, the number of slots is a power of two larger than
+ * twice the number of ids. Rows are the numbers of the records, in ascending order.
+ */
+public final class IdIndex {
+
+    /** "CSI1". */
+    static final int MAGIC = 0x43534931;
+    static final byte VERSION = 1;
+    static final int FILE_HEADER_BYTES = Integer.BYTES + Byte.BYTES + Integer.BYTES;
+    static final int SLOT_BYTES = Integer.BYTES + Long.BYTES;
+
+    private static final String DIRECTORY = "index";
+    private static final long EMPTY = -1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Bytes bytes;
+    private final int slots;
+
+    private IdIndex(final Bytes bytes, final int slots) {
+        this.bytes = bytes;
+        this.slots = slots;
+    }
+
+    /**
+     * @return the path of the index of {@code column}.
+     */
+    static Path path(final Path root, final Column column) {
+        return root.resolve(DIRECTORY).resolve(column.type().name()).resolve(column.name());
+    }
+
+    /**
+     * Builds the index of {@code column} of the records in {@code root}, replacing an existing index.
+     */
+    public static void build(final Path root, final IdColumn column) throws IOException {
+        var builder = new Builder();
+        try (var reader = new InMemoryReader(InMemoryReader.Mode.MAPPED)) {
+            reader.query(Query.from(root).select(column).allOf());
+            var vector = reader.of(column).vector();
+            long row = 0;
+            int rows;
+            while ((rows = reader.nextBatch(ColumnFormat.DEFAULT_BLOCK_ROWS)) > 0) {
+                for (int i = 0; i < rows; i++) {
+                    if (!vector.isNull(i)) {
+                        builder.add(vector.bytes(), vector.offset(i), vector.length(i), row + i);
+                    }
+                }
+                row += rows;
+            }
+        }
+        builder.write(path(root, column));
+    }
+
+    /**
+     * @return the index read from {@code bytes}.
+     */
+    static IdIndex read(final Bytes bytes) {
+        checkState(bytes.size() >= FILE_HEADER_BYTES && bytes.getInt(0) == MAGIC, "Not an id index");
+        byte version = bytes.get(Integer.BYTES);
+        checkState(version == VERSION, "Unsupported version " + version + " of id index");
+        return new IdIndex(bytes, bytes.getInt(Integer.BYTES + Byte.BYTES));
+    }
+
+    /**
+     * @return the rows of {@code id} in ascending order, empty if it is not present in any row.
+     */
+    long[] rows(final byte[] id) {
+        int hash = ColumnFormat.hash(id, 0, id.length);
+        int mask = slots - 1;
+        for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+            long position = FILE_HEADER_BYTES + (long) slot * SLOT_BYTES;
+            long entry = bytes.getLong(position + Integer.BYTES);
+            if (entry == EMPTY) {
+                return new long[0];
+            }
+            if (bytes.getInt(position) == hash && bytes.getInt(entry) == id.length && bytes.equals(entry + Integer.BYTES, id)) {
+                long rowsPosition = entry + Integer.BYTES + id.length;
+                var rows = new long[bytes.getInt(rowsPosition)];
+                for (int i = 0; i < rows.length; i++) {
+                    rows[i] = bytes.getLong(rowsPosition + Integer.BYTES + (long) i * Long.BYTES);
+                }
+                return rows;
+            }
+        }
+    }
+
+    /**
+     * Collects the rows of every id in memory, in the order they are added.
+     */
+    static final class Builder {
+
+        private static final int NONE = -1;
+        private static final int INITIAL_IDS = 1024;
+        private static final int INITIAL_BYTES = 64 * 1024;
+
+        /** Open addressing hash table of ids, at most half full. */
+        private int[] table = new int[2 * INITIAL_IDS];
+        private byte[] data = new byte[INITIAL_BYTES];
+        private int dataLength;
+        private int ids;
+        private int[] offsets = new int[INITIAL_IDS];
+        private int[] lengths = new int[INITIAL_IDS];
+        private int[] hashes = new int[INITIAL_IDS];
+        private int[] rowCounts = new int[INITIAL_IDS];
+        /** First and last posting of every id, postings of an id are linked by {@link #nextPostings}. */
+        private int[] firstPostings = new int[INITIAL_IDS];
+        private int[] lastPostings = new int[INITIAL_IDS];
+        private int postings;
+        private long[] postingRows = new long[INITIAL_IDS];
+        private int[] nextPostings = new int[INITIAL_IDS];
+
+        Builder() {
+            Arrays.fill(table, NONE);
+        }
+
+        /**
+         * Adds {@code row} to the rows of the id of {@code length} bytes starting at {@code offset}.
+         * Rows have to be added in ascending order.
+         */
+        void add(final byte[] value, final int offset, final int length, final long row) {
+            int hash = ColumnFormat.hash(value, offset, length);
+            int slot = slotOf(table, hash);
+            while (table[slot] != NONE && !equals(table[slot], hash, value, offset, length)) {
+                slot = (slot + 1) & (table.length - 1);
+            }
+            int id = table[slot];
+            if (id == NONE) {
+                id = newId(value, offset, length, hash);
+                table[slot] = id;
+                if (2 * ids > table.length) {
+                    table = rehash(table.length * 2);
+                }
+            }
+            if (postings == postingRows.length) {
+                postingRows = Arrays.copyOf(postingRows, postings * 2);
+                nextPostings = Arrays.copyOf(nextPostings, postings * 2);
+            }
+            postingRows[postings] = row;
+            nextPostings[postings] = NONE;
+            if (rowCounts[id] == 0) {
+                firstPostings[id] = postings;
+            } else {
+                nextPostings[lastPostings[id]] = postings;
+            }
+            lastPostings[id] = postings;
+            rowCounts[id]++;
+            postings++;
+        }
+
+        private static int slotOf(final int[] table, final int hash) {
+            return hash & (table.length - 1);
+        }
+
+        private boolean equals(final int id, final int hash, final byte[] value, final int offset, final int length) {
+            return hashes[id] == hash && lengths[id] == length
+                    && Arrays.equals(data, offsets[id], offsets[id] + length, value, offset, offset + length);
+        }
+
+        private int newId(final byte[] value, final int offset, final int length, final int hash) {
+            if (ids == offsets.length) {
+                offsets = Arrays.copyOf(offsets, ids * 2);
+                lengths = Arrays.copyOf(lengths, ids * 2);
+                hashes = Arrays.copyOf(hashes, ids * 2);
+                rowCounts = Arrays.copyOf(rowCounts, ids * 2);
+                firstPostings = Arrays.copyOf(firstPostings, ids * 2);
+                lastPostings = Arrays.copyOf(lastPostings, ids * 2);
+            }
+            if (dataLength + length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, dataLength + length));
+            }
+            System.arraycopy(value, offset, data, dataLength, length);
+            offsets[ids] = dataLength;
+            lengths[ids] = length;
+            hashes[ids] = hash;
+            dataLength += length;
+            return ids++;
+        }
+
+        /**
+         * @return a hash table of all ids with {@code slots} slots.
+         */
+        private int[] rehash(final int slots) {
+            var rehashed = new int[slots];
+            Arrays.fill(rehashed, NONE);
+            for (int id = 0; id < ids; id++) {
+                int slot = slotOf(rehashed, hashes[id]);
+                while (rehashed[slot] != NONE) {
+                    slot = (slot + 1) & (slots - 1);
+                }
+                rehashed[slot] = id;
+            }
+            return rehashed;
+        }
+
+        /**
+         * Writes the index to {@code file}.
+         */
+        void write(final Path file) throws IOException {
+            int[] slots = rehash(Math.max(table.length, Integer.highestOneBit(Math.max(1, ids)) << 2));
+            var entries = new long[ids];
+            long position = FILE_HEADER_BYTES + (long) slots.length * SLOT_BYTES;
+            for (int id = 0; id < ids; id++) {
+                entries[id] = position;
+                position += Integer.BYTES + lengths[id] + Integer.BYTES + (long) rowCounts[id] * Long.BYTES;
+            }
+
+            Files.createDirectories(file.getParent());
+            var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            var output = new ColumnOutput(channel, ByteBuffer.allocateDirect(BUFFER_SIZE));
+            try {
+                output.reserve(FILE_HEADER_BYTES)
+                        .putInt(MAGIC)
+                        .put(VERSION)
+                        .putInt(slots.length);
+                for (int id : slots) {
+                    output.reserve(SLOT_BYTES)
+                            .putInt(id == NONE ? 0 : hashes[id])
+                            .putLong(id == NONE ? EMPTY : entries[id]);
+                }
+                for (int id = 0; id < ids; id++) {
+                    output.reserve(Integer.BYTES).putInt(lengths[id]);
+                    output.put(data, offsets[id], lengths[id]);
+                    output.reserve(Integer.BYTES).putInt(rowCounts[id]);
+                    for (int posting = firstPostings[id]; posting != NONE; posting = nextPostings[posting]) {
+                        output.reserve(Long.BYTES).putLong(postingRows[posting]);
+                    }
+                }
+                output.flush();
+            } finally {
+                output.close();
+            }
+        }
+    }
+}
@@ -1,240 +1,1522 @@
 package column.store.inmemory;
 
 import column.store.api.column.*;
-import column.store.api.query.Query;
+import column.store.api.query.*;
 import column.store.api.read.*;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import static column.store.util.Conditions.checkState;
+
 /**
  * Reads all records into memory column by column.
+ *
+ * <p> Column files are either read onto the heap ({@link Mode#HEAP}), which limits a column to 2 GB, or memory mapped
+ * ({@link Mode#MAPPED}), which reads values straight from the mapping and does not copy the column onto the heap.
+ *
+ * <p> Both legacy and versioned {@link ColumnFormat}s are supported, the format is detected per column file.
+ * Column readers decode a whole block at once, when one of its values is accessed for the first time.
+ *
+ * <p> Filters are evaluated block by block: the filter columns are read first, and the records of the block, which
+ * match the {@link Query}, are marked in a selection bitmap. Only the selected records are visited afterwards,
+ * so the other columns decode only the values of selected records, and blocks without any selected record
+ * are not decoded at all.
  */
 public class InMemoryReader implements Reader {
 
     private final Map<Column, ByteReader> readers;
+    private final Mode mode;
+    private final Cursor cursor = new Cursor();
+    private final List<Selector> selectors = new ArrayList<>();
     private Path root;
+    private Query.QueryType type;
+    /** A set bit marks a record of the current block, which matches the filters. {@code null} if there are no filters. */
+    private long[] selection;
+    /** A set bit marks one of the {@link #indexedRows} in the current block. */
+    private long[] candidates;
+    /** The candidates matching a filter of an {@link Query.QueryType#AT_LEAST_ONE} query. */
+    private long[] matches;
+    /**
+     * The candidate rows of the query found in the indexes of its filters, only their blocks are read, and only they
+     * are tested. {@code null} if no index is used.
+     */
+    private long[] indexedRows;
+    /** Index of the first of the {@link #indexedRows}, which is not in a previous block. */
+    private int nextIndexed;
 
     private boolean consumed = true;
     private boolean hasNext;
 
     public InMemoryReader() {
+        this(Mode.HEAP);
+    }
+
+    public InMemoryReader(final Mode mode) {
         this.readers = new HashMap<>();
+        this.mode = mode;
+    }
+
+    /**
+     * How column files are brought into memory.
+     */
+    public enum Mode {
+        /** Reads the whole column file onto the heap. */
+        HEAP,
+        /** Memory maps the column file, the OS pages it in on demand. */
+        MAPPED,
     }
 
     @Override
     public void query(final Query query) {
-        if (!query.filters().isEmpty()) {
-            throw new UnsupportedOperationException("For performance reasons, this reader does not support filters");
-        }
         readers.clear();
+        selectors.clear();
         root = query.filePath();
+        type = query.type();
+        for (var filter : query.filters()) {
+            var reader = readerOf(filter.column());
+            selectors.add(new Selector(reader, filter, reader.matching(filter)));
+        }
+        selection = selectors.isEmpty() ? null : new long[ColumnFormat.words(ColumnFormat.DEFAULT_BLOCK_ROWS)];
+        indexedRows = selectors.isEmpty() ? null : indexedRows();
+        reset();
+    }
+
+    /**
+     * @return the rows, which may match the filters according to their indexes: the intersection of the rows of the
+     * filters with an index for {@link Query.QueryType#ALL_OF}, the union of the rows of all filters for
+     * {@link Query.QueryType#AT_LEAST_ONE}. {@code null} if the indexes do not restrict the rows. The selectors of
+     * filters, which their index answers exactly, are removed, if their values do not have to be tested any more.
+     */
+    private long[] indexedRows() {
+        RowBitmap rows = null;
+        var answered = new ArrayList<Selector>();
+        for (var selector : selectors) {
+            var filterRows = indexedRows(selector.filter());
+            if (type == Query.QueryType.AT_LEAST_ONE && filterRows == null) {
+                // any row may match the filter without an index
+                return null;
+            }
+            if (filterRows != null) {
+                if (rows == null) {
+                    rows = filterRows.rows();
+                } else {
+                    rows = type == Query.QueryType.ALL_OF ? rows.and(filterRows.rows()) : rows.or(filterRows.rows());
+                }
+                if (filterRows.exact()) {
+                    answered.add(selector);
+                }
+            }
+        }
+        if (type == Query.QueryType.ALL_OF || answered.size() == selectors.size()) {
+            // only rows matching these filters are selected
+            selectors.removeAll(answered);
+        }
+        return rows == null ? null : rows.toArray();
+    }
+
+    /**
+     * @return the rows of a {@link StringFilter} or a {@link BooleanFilter} with a {@link BitmapIndex}, the rows of the
+     * id of an {@link IdFilter} with an {@link IdIndex}, or the candidate rows of a {@link StringFilter} with a
+     * {@link TokenIndex} or a {@link TrigramIndex}, {@code null} if the filter has no usable index.
+     */
+    private IndexedRows indexedRows(final Filter filter) {
+        var bitmapFile = BitmapIndex.path(root, filter.column());
+        if ((filter instanceof StringFilter || filter instanceof BooleanFilter) && Files.exists(bitmapFile)) {
+            return new IndexedRows(BitmapIndex.read(bytesOf(bitmapFile)).rows(filter), true);
+        }
+        if (filter instanceof IdFilter idFilter) {
+            var indexFile = IdIndex.path(root, filter.column());
+            if (Files.exists(indexFile)) {
+                return new IndexedRows(RowBitmap.of(IdIndex.read(bytesOf(indexFile)).rows(idFilter.id())), true);
+            }
+        } else if (filter instanceof StringFilter stringFilter && stringFilter.matchType() == StringFilter.MatchType.PHRASE) {
+            var indexFile = TokenIndex.path(root, filter.column());
+            if (Files.exists(indexFile)) {
+                return new IndexedRows(RowBitmap.of(TokenIndex.read(bytesOf(indexFile)).rows(stringFilter.tokens())), false);
+            }
+        } else if (filter instanceof StringFilter stringFilter) {
+            // terms of a phrase may be separated by other characters than in the filter value
+            var indexFile = TrigramIndex.path(root, filter.column());
+            long[] rows = Files.exists(indexFile) ? TrigramIndex.read(bytesOf(indexFile)).rows(stringFilter.value()) : null;
+            if (rows != null) {
+                return new IndexedRows(RowBitmap.of(rows), false);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The rows found in the index of a filter, {@code exact} if they are the rows matching the filter, not only
+     * candidates.
+     */
+    private record IndexedRows(RowBitmap rows, boolean exact) {
     }
 
     @Override
     public BooleanByteReader of(final BooleanColumn column) {
-        return (BooleanByteReader) readers.computeIfAbsent(column, col -> {
-            var bytes = readAllBytesOf(column);
-            return new BooleanByteReader(column, bytes);
-        });
+        return (BooleanByteReader) readers.computeIfAbsent(column, col -> new BooleanByteReader(column, bytesOf(column), cursor));
     }
 
     @Override
     public DoubleByteReader of(final DoubleColumn column) {
-        return (DoubleByteReader) readers.computeIfAbsent(column, col -> {
-            var bytes = readAllBytesOf(column);
-            return new DoubleByteReader(column, bytes);
-        });
+        return (DoubleByteReader) readers.computeIfAbsent(column,
+                col -> new DoubleByteReader(column, bytesOf(column), zonesOf(column), cursor));
     }
 
     @Override
     public IdByteReader of(final IdColumn column) {
-        return (IdByteReader) readers.computeIfAbsent(column, col -> {
-            var bytes = readAllBytesOf(column);
-            return new IdByteReader(column, bytes);
-        });
+        return (IdByteReader) readers.computeIfAbsent(column,
+                col -> new IdByteReader(column, bytesOf(column), zonesOf(column), bloomFilterOf(column), cursor));
     }
 
     @Override
     public LongByteReader of(final LongColumn column) {
-        return (LongByteReader) readers.computeIfAbsent(column, col -> {
-            var bytes = readAllBytesOf(column);
-            return new LongByteReader(column, bytes);
-        });
+        return (LongByteReader) readers.computeIfAbsent(column,
+                col -> new LongByteReader(column, bytesOf(column), zonesOf(column), cursor));
     }
 
     @Override
     public StringByteReader of(final StringColumn column) {
-        return (StringByteReader) readers.computeIfAbsent(column, col -> {
-            var bytes = readAllBytesOf(column);
-            return new StringByteReader(column, bytes);
-        });
+        return (StringByteReader) readers.computeIfAbsent(column,
+                col -> new StringByteReader(column, bytesOf(column), zonesOf(column), bloomFilterOf(column), cursor));
+    }
+
+    private ByteReader readerOf(final Column column) {
+        return switch (column.type()) {
+            case BOOLEAN -> of((BooleanColumn) column);
+            case DOUBLE -> of((DoubleColumn) column);
+            case ID -> of((IdColumn) column);
+            case LONG -> of((LongColumn) column);
+            case STRING -> of((StringColumn) column);
+        };
     }
 
-    private byte[] readAllBytesOf(final Column column) {
-        var columnFile = root.resolve(column.type().name()).resolve(column.name());
+    private Bytes bytesOf(final Column column) {
+        return bytesOf(root.resolve(column.type().name()).resolve(column.name()));
+    }
+
+    /**
+     * @return the {@link ZoneMap} of {@code column}, {@code null} if it has none (e.g. legacy column files).
+     */
+    private ZoneMap zonesOf(final Column column) {
+        var zoneFile = ZoneMap.path(root, column);
+        return Files.exists(zoneFile) ? ZoneMap.read(bytesOf(zoneFile), column.type()) : null;
+    }
+
+    /**
+     * @return the {@link BloomFilter} of {@code column}, {@code null} if it has none.
+     */
+    private BloomFilter bloomFilterOf(final Column column) {
+        var bloomFile = BloomFilter.path(root, column);
+        return Files.exists(bloomFile) ? BloomFilter.read(bytesOf(bloomFile)) : null;
+    }
+
+    private Bytes bytesOf(final Path file) {
         try {
-            return Files.readAllBytes(columnFile);
+            return switch (mode) {
+                case HEAP -> Bytes.heap(Files.readAllBytes(file));
+                case MAPPED -> Bytes.map(file);
+            };
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
 
+    /**
+     * The current record, shared by all column readers.
+     */
+    private static final class Cursor {
+        private int block = -1;
+        private int row = -1;
+        private int rows;
+        /** A set bit marks a row of the current block, whose values have to be decoded. {@code null} for all rows. */
+        private long[] decode;
+    }
+
+    /**
+     * A filter of the query, evaluated on the values of {@code reader}.
+     */
+    private record Selector(ByteReader reader, Filter filter, IntPredicate predicate) {
+    }
+
     private abstract static class ByteReader implements ColumnReader {
 
+        private static final int INITIAL_BLOCKS = 16;
+
         private final Column column;
-        protected final byte[] bytes;
-        private int index = -1;
+        protected final Bytes bytes;
+        protected final Cursor cursor;
+        private final boolean legacy;
+        protected final int blockRows;
+        /** Width of all values from the file header, {@link IdColumn#VARIABLE_WIDTH} for legacy files. */
+        protected final int width;
+        /** Statistics of the blocks, {@code null} if there are none. */
+        private final ZoneMap zones;
+
+        /** A set bit marks a present value of the loaded block. */
+        protected final long[] presence;
+        /** The rows of the present values of the loaded block, in ascending order. */
+        protected final int[] presentRows;
+        protected int present;
+        /** Whether the loaded block has the {@link ColumnFormat#SPARSE} layout. */
+        protected boolean sparse;
+        /**
+         * Index of the first present value of every run of a {@link ColumnFormat#RUN_LENGTH} block, followed by
+         * {@link #present}. {@code null} for readers of columns without runs.
+         */
+        protected int[] runStarts;
+        /** Number of runs of the loaded block, {@code 0} if it is not {@link ColumnFormat#RUN_LENGTH} encoded. */
+        protected int runs;
 
-        private ByteReader(final Column column, final byte[] bytes) {
+        /** Positions of the blocks found so far. */
+        private long[] blockPositions = new long[INITIAL_BLOCKS];
+        private int knownBlocks = 1;
+        private int loadedBlock = -1;
+        private int loadedRows;
+
+        private ByteReader(final Column column, final Bytes bytes, final ZoneMap zones, final Cursor cursor) {
             this.column = column;
             this.bytes = bytes;
+            this.zones = zones;
+            this.cursor = cursor;
+            this.legacy = !ColumnFormat.hasHeader(bytes);
+            if (legacy) {
+                this.blockRows = ColumnFormat.LEGACY_BLOCK_ROWS;
+                this.width = IdColumn.VARIABLE_WIDTH;
+                this.blockPositions[0] = 0;
+            } else {
+                byte version = bytes.get(ColumnFormat.VERSION_OFFSET);
+                checkState(version == ColumnFormat.VERSION, "Unsupported version " + version + " of column " + column.name());
+                this.blockRows = bytes.getInt(ColumnFormat.BLOCK_ROWS_OFFSET);
+                this.width = bytes.getInt(ColumnFormat.WIDTH_OFFSET);
+                this.blockPositions[0] = ColumnFormat.FILE_HEADER_BYTES;
+            }
+            this.presence = new long[ColumnFormat.words(blockRows)];
+            this.presentRows = new int[blockRows];
+            if (zones != null && !legacy && zones.blocks() > 0) {
+                // the zone map knows the positions of the blocks, they do not have to be found block by block
+                blockPositions = new long[zones.blocks()];
+                for (int block = 0; block < zones.blocks(); block++) {
+                    blockPositions[block] = zones.position(block);
+                }
+                knownBlocks = zones.blocks();
+            }
         }
 
         public Column column() {
             return column;
         }
 
-        public void reset() {
-            index = -1;
-        }
-
         @Override
         public boolean isPresent() {
-            return bytes[index] == Byte.MAX_VALUE;
+            load();
+            return ColumnFormat.isSet(presence, cursor.row);
+        }
+
+        /**
+         * @return whether a value of the current block may match {@code filter}, {@code false} if the zone map rules it out.
+         */
+        boolean mayMatch(final Filter filter) {
+            return zones == null || zones.mayMatch(cursor.block, filter);
         }
 
-        protected abstract int currentSize();
+        /**
+         * Clears the selected rows of the current block, whose values do not match {@code predicate}.
+         * Readers may override it to evaluate the predicate on encoded values.
+         *
+         * @return whether any row is still selected.
+         */
+        boolean retain(final long[] selection, final IntPredicate predicate) {
+            load();
+            if (runs > 0) {
+                return retainRuns(selection, predicate);
+            }
+            boolean any = false;
+            for (int i = 0; i < selection.length; i++) {
+                long candidates = i < presence.length ? selection[i] & presence[i] : 0;
+                long kept = candidates;
+                while (candidates != 0) {
+                    int bit = Long.numberOfTrailingZeros(candidates);
+                    if (!predicate.test(i * Long.SIZE + bit)) {
+                        kept &= ~(1L << bit);
+                    }
+                    candidates &= candidates - 1;
+                }
+                selection[i] = kept;
+                any |= kept != 0;
+            }
+            return any;
+        }
+
+        /**
+         * Selects the rows of the current block, which are not selected yet and whose values match {@code predicate}.
+         * Readers may override it to evaluate the predicate on encoded values.
+         */
+        void add(final long[] selection, final IntPredicate predicate) {
+            load();
+            if (runs > 0) {
+                addRuns(selection, predicate);
+                return;
+            }
+            int words = Math.min(selection.length, presence.length);
+            for (int i = 0; i < words; i++) {
+                long candidates = ~selection[i] & presence[i];
+                while (candidates != 0) {
+                    int bit = Long.numberOfTrailingZeros(candidates);
+                    if (predicate.test(i * Long.SIZE + bit)) {
+                        selection[i] |= 1L << bit;
+                    }
+                    candidates &= candidates - 1;
+                }
+            }
+        }
 
-        protected int start() {
-            return index + Byte.BYTES;
+        /**
+         * Tests {@code predicate} once per run, and clears the rows of the runs which do not match in one step.
+         */
+        private boolean retainRuns(final long[] selection, final IntPredicate predicate) {
+            boolean any = false;
+            for (int i = 0; i < selection.length; i++) {
+                selection[i] &= i < presence.length ? presence[i] : 0;
+            }
+            for (int run = 0; run < runs; run++) {
+                int first = presentRows[runStarts[run]];
+                if (!predicate.test(first)) {
+                    ColumnFormat.clearRange(selection, first, presentRows[runStarts[run + 1] - 1] + 1);
+                }
+            }
+            for (long word : selection) {
+                any |= word != 0;
+            }
+            return any;
         }
 
-        private boolean hasNext() {
-            if (index == -1) {
-                return bytes.length > 0;
+        /**
+         * Tests {@code predicate} once per run, and selects the present rows of the runs which match in one step.
+         */
+        private void addRuns(final long[] selection, final IntPredicate predicate) {
+            for (int run = 0; run < runs; run++) {
+                int first = presentRows[runStarts[run]];
+                if (predicate.test(first)) {
+                    ColumnFormat.setRange(selection, presence, first, presentRows[runStarts[run + 1] - 1] + 1);
+                }
             }
-            if (isPresent()) {
-                return index + Byte.BYTES + currentSize() < bytes.length;
+        }
+
+        /**
+         * @return whether the value of {@code row} does not have to be decoded, as no filter selects its record.
+         */
+        protected final boolean skips(final int row) {
+            return cursor.decode != null && !ColumnFormat.isSet(cursor.decode, row);
+        }
+
+        /**
+         * Decodes the block of the current record, if it has not been decoded yet.
+         */
+        protected final void load() {
+            if (loadedBlock != cursor.block) {
+                load(cursor.block);
             }
-            return index + Byte.BYTES < bytes.length;
         }
 
-        private void next() {
-            if (index == -1) {
-                index = 0;
+        /**
+         * @return the number of rows of {@code block}, {@code 0} if there is no such block.
+         */
+        private int rowsOf(final int block) {
+            if (legacy) {
+                // legacy files have no block headers, the rows are only known after decoding the block
+                load(block);
+                return loadedRows;
+            }
+            long position = positionOf(block);
+            return position < 0 ? 0 : bytes.getInt(position);
+        }
+
+        private void load(final int block) {
+            Arrays.fill(presence, 0);
+            present = 0;
+            runs = 0;
+            loadedBlock = block;
+            loadedRows = 0;
+            long position = positionOf(block);
+            if (position < 0) {
                 return;
             }
-            if (isPresent()) {
-                index += currentSize();
+            if (legacy) {
+                loadLegacy(position);
+            } else {
+                loadBlock(position);
+            }
+        }
+
+        private void loadBlock(final long position) {
+            loadedRows = bytes.getInt(position);
+            byte layout = bytes.get(position + ColumnFormat.LAYOUT_OFFSET);
+            byte encoding = bytes.get(position + ColumnFormat.ENCODING_OFFSET);
+            sparse = layout == ColumnFormat.SPARSE;
+            long payload = position + ColumnFormat.BLOCK_HEADER_BYTES;
+            switch (layout) {
+                case ColumnFormat.ALL_NULL -> {
+                    return;
+                }
+                case ColumnFormat.ALL_PRESENT -> {
+                    for (int row = 0; row < loadedRows; row++) {
+                        ColumnFormat.set(presence, row);
+                    }
+                }
+                case ColumnFormat.BITMAP -> {
+                    ColumnFormat.readBitmap(bytes, payload, presence, loadedRows);
+                    payload += ColumnFormat.bitmapBytes(loadedRows);
+                }
+                case ColumnFormat.SPARSE -> {
+                    readRowIds(payload);
+                    decode(payload + ColumnFormat.rowIdsBytes(present, blockRows), encoding, loadedRows);
+                    return;
+                }
+                default -> throw new IllegalStateException("Unsupported layout " + layout + " of column " + column.name());
+            }
+            for (int i = 0; i < presence.length; i++) {
+                long word = presence[i];
+                while (word != 0) {
+                    presentRows[present++] = i * Long.SIZE + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            decode(payload, encoding, loadedRows);
+        }
+
+        /**
+         * Reads the row ids of a {@link ColumnFormat#SPARSE} block, only the present rows are visited.
+         */
+        private void readRowIds(final long position) {
+            present = bytes.getInt(position);
+            int idWidth = ColumnFormat.codeWidth(blockRows);
+            for (int i = 0; i < present; i++) {
+                int row = ColumnFormat.readCode(bytes, position + Integer.BYTES + (long) i * idWidth, idWidth);
+                presentRows[i] = row;
+                ColumnFormat.set(presence, row);
             }
-            index += Byte.BYTES;
+        }
+
+        private void loadLegacy(final long start) {
+            long position = start;
+            while (loadedRows < blockRows && position < bytes.size()) {
+                if (bytes.get(position) == Byte.MAX_VALUE) {
+                    ColumnFormat.set(presence, loadedRows);
+                    presentRows[present++] = loadedRows;
+                    decodeLegacy(position + Byte.BYTES, loadedRows);
+                    position += legacySize(position + Byte.BYTES);
+                }
+                position += Byte.BYTES;
+                loadedRows++;
+            }
+        }
+
+        /**
+         * @return the position of {@code block}, or {@code -1} if there is no such block.
+         */
+        private long positionOf(final int block) {
+            while (knownBlocks <= block) {
+                long previous = blockPositions[knownBlocks - 1];
+                if (previous >= bytes.size()) {
+                    return -1;
+                }
+                if (knownBlocks == blockPositions.length) {
+                    blockPositions = Arrays.copyOf(blockPositions, knownBlocks * 2);
+                }
+                blockPositions[knownBlocks++] = legacy ? skipLegacy(previous) : skipBlock(previous);
+            }
+            long position = blockPositions[block];
+            return position < bytes.size() ? position : -1;
+        }
+
+        private long skipBlock(final long position) {
+            return position + ColumnFormat.BLOCK_HEADER_BYTES + bytes.getInt(position + ColumnFormat.LENGTH_OFFSET);
+        }
+
+        private long skipLegacy(final long start) {
+            long position = start;
+            for (int row = 0; row < blockRows && position < bytes.size(); row++) {
+                if (bytes.get(position) == Byte.MAX_VALUE) {
+                    position += legacySize(position + Byte.BYTES);
+                }
+                position += Byte.BYTES;
+            }
+            return position;
+        }
+
+        /**
+         * Appends the values of {@code count} rows of the current block, starting at {@code from}, to the {@link #vector()}.
+         */
+        final void appendToVector(final int from, final int count) {
+            load();
+            var vector = vector();
+            int start = vector.size();
+            appendValues(from, count);
+            for (int i = 0; i < count; i++) {
+                if (!ColumnFormat.isSet(presence, from + i)) {
+                    vector.setNull(start + i);
+                }
+            }
+        }
+
+        /**
+         * @return a predicate on the present rows of the loaded block, which matches the rows whose value matches {@code filter}.
+         */
+        protected abstract IntPredicate matching(Filter filter);
+
+        /**
+         * Appends the values of {@code count} rows of the loaded block to the {@link #vector()}, including null rows.
+         */
+        protected abstract void appendValues(int from, int count);
+
+        /**
+         * Decodes the payload of a versioned block, after {@link #presence} and {@link #presentRows} have been filled.
+         */
+        protected abstract void decode(long payload, byte encoding, int rows);
+
+        /**
+         * Decodes the legacy value at {@code position} as the value of {@code row}.
+         */
+        protected abstract void decodeLegacy(long position, int row);
+
+        /**
+         * @return the size of the legacy value at {@code position}.
+         */
+        protected abstract int legacySize(long position);
+
+        protected IllegalStateException unsupported(final byte encoding) {
+            return new IllegalStateException("Unsupported encoding " + encoding + " of column " + column.name());
         }
     }
 
     public static final class BooleanByteReader extends ByteReader implements BooleanColumnReader {
 
-        private BooleanByteReader(final BooleanColumn column, final byte[] bytes) {
-            super(column, bytes);
+        private final long[] values;
+        private final BooleanVector vector = new BooleanVector();
+
+        private BooleanByteReader(final BooleanColumn column, final Bytes bytes, final Cursor cursor) {
+            // boolean columns have no zone map
+            super(column, bytes, null, cursor);
+            this.values = new long[presence.length];
+            this.runStarts = new int[blockRows + 1];
         }
 
         @Override
         public boolean get() {
-            return bytes[start()] == Byte.MAX_VALUE;
+            load();
+            return ColumnFormat.isSet(values, cursor.row);
+        }
+
+        @Override
+        public BooleanVector vector() {
+            return vector;
+        }
+
+        @Override
+        protected void appendValues(final int from, final int count) {
+            for (int row = from; row < from + count; row++) {
+                vector.append(ColumnFormat.isSet(values, row));
+            }
         }
 
         @Override
-        protected int currentSize() {
+        protected IntPredicate matching(final Filter filter) {
+            boolean value = ((BooleanFilter) filter).value();
+            return row -> ColumnFormat.isSet(values, row) == value;
+        }
+
+        @Override
+        protected void decode(final long payload, final byte encoding, final int rows) {
+            switch (encoding) {
+                case ColumnFormat.PLAIN -> ColumnFormat.readBitmap(bytes, payload, values, rows);
+                case ColumnFormat.RUN_LENGTH -> decodeRuns(payload);
+                default -> throw unsupported(encoding);
+            }
+        }
+
+        private void decodeRuns(final long payload) {
+            Arrays.fill(values, 0);
+            runs = bytes.getInt(payload);
+            long position = payload + Integer.BYTES;
+            int start = 0;
+            for (int run = 0; run < runs; run++) {
+                int count = bytes.getInt(position);
+                if (bytes.get(position + Integer.BYTES) != 0) {
+                    for (int i = start; i < start + count; i++) {
+                        ColumnFormat.set(values, presentRows[i]);
+                    }
+                }
+                runStarts[run] = start;
+                start += count;
+                position += Integer.BYTES + Byte.BYTES;
+            }
+            runStarts[runs] = start;
+        }
+
+        @Override
+        protected void decodeLegacy(final long position, final int row) {
+            if (bytes.get(position) == Byte.MAX_VALUE) {
+                ColumnFormat.set(values, row);
+            } else {
+                ColumnFormat.clear(values, row);
+            }
+        }
+
+        @Override
+        protected int legacySize(final long position) {
             return Byte.BYTES;
         }
     }
 
     public static final class DoubleByteReader extends ByteReader implements DoubleColumnReader {
 
-        private final ByteBuffer buffer = ByteBuffer.wrap(new byte[Double.BYTES]);
+        private final double[] values;
+        private final DoubleVector vector = new DoubleVector();
+        /** State of the bit reader of a {@link ColumnFormat#XOR} payload: the next word and the bits left in the current word. */
+        private long bitsPosition;
+        private long bits;
+        private int bitsLeft;
 
-        private DoubleByteReader(final DoubleColumn column, final byte[] bytes) {
-            super(column, bytes);
+        private DoubleByteReader(final DoubleColumn column, final Bytes bytes, final ZoneMap zones, final Cursor cursor) {
+            super(column, bytes, zones, cursor);
+            this.values = new double[blockRows];
         }
 
         @Override
         public double get() {
-            return buffer.clear().put(bytes, start(), Double.BYTES).flip().getDouble();
+            load();
+            return values[cursor.row];
         }
 
         @Override
-        protected int currentSize() {
+        public DoubleVector vector() {
+            return vector;
+        }
+
+        @Override
+        protected void appendValues(final int from, final int count) {
+            vector.appendAll(values, from, count);
+        }
+
+        @Override
+        protected IntPredicate matching(final Filter filter) {
+            var doubleFilter = (DoubleFilter) filter;
+            return switch (doubleFilter.matchType()) {
+                case LESS_THAN -> {
+                    double upperBound = doubleFilter.upperBound();
+                    yield row -> values[row] < upperBound;
+                }
+                case GREATER_THAN -> {
+                    double lowerBound = doubleFilter.lowerBound();
+                    yield row -> values[row] > lowerBound;
+                }
+                case BETWEEN -> {
+                    double lowerBound = doubleFilter.lowerBound();
+                    double upperBound = doubleFilter.upperBound();
+                    yield row -> values[row] >= lowerBound && values[row] < upperBound;
+                }
+            };
+        }
+
+        @Override
+        protected void decode(final long payload, final byte encoding, final int rows) {
+            switch (encoding) {
+                case ColumnFormat.PLAIN -> {
+                    for (int i = 0; i < present; i++) {
+                        int row = presentRows[i];
+                        if (!skips(row)) {
+                            values[row] = bytes.getDouble(payload + (long) i * Double.BYTES);
+                        }
+                    }
+                }
+                case ColumnFormat.XOR -> decodeXor(payload);
+                default -> throw unsupported(encoding);
+            }
+        }
+
+        /**
+         * Decodes the {@link ColumnFormat#XOR} payload in one pass, every value depends on the previous value.
+         */
+        private void decodeXor(final long payload) {
+            bitsPosition = payload;
+            bitsLeft = 0;
+            long previous = readBits(Long.SIZE);
+            values[presentRows[0]] = Double.longBitsToDouble(previous);
+            int leading = 0;
+            int trailing = 0;
+            for (int i = 1; i < present; i++) {
+                if (readBits(1) != 0) {
+                    if (readBits(1) != 0) {
+                        leading = (int) readBits(ColumnFormat.XOR_LEADING_BITS);
+                        int length = (int) readBits(ColumnFormat.XOR_LENGTH_BITS);
+                        trailing = Long.SIZE - leading - (length == 0 ? Long.SIZE : length);
+                    }
+                    previous ^= readBits(Long.SIZE - leading - trailing) << trailing;
+                }
+                values[presentRows[i]] = Double.longBitsToDouble(previous);
+            }
+        }
+
+        /**
+         * @return the next {@code count} bits of the payload.
+         */
+        private long readBits(final int count) {
+            if (count <= bitsLeft) {
+                bitsLeft -= count;
+                return (bits >>> bitsLeft) & mask(count);
+            }
+            long high = bits & mask(bitsLeft);
+            int remaining = count - bitsLeft;
+            bits = bytes.getLong(bitsPosition);
+            bitsPosition += Long.BYTES;
+            bitsLeft = Long.SIZE - remaining;
+            // remaining is 64 only if no bits were left, so the shift of high does not matter
+            return high << remaining | (bits >>> bitsLeft) & mask(remaining);
+        }
+
+        private static long mask(final int count) {
+            return count == Long.SIZE ? -1L : (1L << count) - 1;
+        }
+
+        @Override
+        protected void decodeLegacy(final long position, final int row) {
+            values[row] = bytes.getDouble(position);
+        }
+
+        @Override
+        protected int legacySize(final long position) {
             return Double.BYTES;
         }
     }
 
-    public static final class IdByteReader extends ByteReader implements IdColumnReader {
+    /**
+     * Base for variable length values. Values are not copied when a block is decoded, only their positions.
+     */
+    private abstract static class BinaryByteReader extends ByteReader {
 
-        private final ByteBuffer buffer = ByteBuffer.wrap(new byte[Integer.BYTES]);
+        private static final int INITIAL_ENTRY_BYTES = 16 * 1024;
 
-        private IdByteReader(final IdColumn column, final byte[] bytes) {
-            super(column, bytes);
+        /** Positions of the values of the rows in {@link #valueBytes}. */
+        protected final long[] positions;
+        protected final int[] lengths;
+        /** The bytes of the values of the loaded block, the column or the decoded entries of a sorted dictionary. */
+        protected Bytes valueBytes;
+        protected final BinaryVector vector = new BinaryVector();
+        /** Dictionary code of every present row of a {@link ColumnFormat#DICTIONARY} block. */
+        protected final int[] codes;
+        /** Number of entries of the dictionary of the loaded block, {@code -1} if the block has no dictionary. */
+        protected int entries = -1;
+        /** Whether the dictionary of the loaded block is a {@link ColumnFormat#SORTED_DICTIONARY}. */
+        protected boolean sorted;
+        /** Codes of a sorted dictionary in the order of their reversed entries. */
+        protected final int[] reversed;
+        private final long[] entryPositions;
+        private final int[] entryLengths;
+        /** The front coded entries of a sorted dictionary, decoded. */
+        private byte[] entryData = new byte[INITIAL_ENTRY_BYTES];
+        private Bytes entryBytes = Bytes.heap(entryData);
+        /** Bloom filters of the blocks, {@code null} if there are none. */
+        private final BloomFilter bloomFilter;
+
+        private BinaryByteReader(final Column column, final Bytes bytes, final ZoneMap zones, final BloomFilter bloomFilter,
+                                 final Cursor cursor) {
+            super(column, bytes, zones, cursor);
+            this.bloomFilter = bloomFilter;
+            this.positions = new long[blockRows];
+            this.lengths = new int[blockRows];
+            this.codes = new int[blockRows];
+            this.reversed = new int[blockRows];
+            this.entryPositions = new long[blockRows];
+            this.entryLengths = new int[blockRows];
+            this.runStarts = new int[blockRows + 1];
+        }
+
+        /**
+         * @return whether a value of the current block may match {@code filter}, {@code false} if the zone map or the
+         * Bloom filter rules it out.
+         */
+        @Override
+        boolean mayMatch(final Filter filter) {
+            return super.mayMatch(filter) && (bloomFilter == null || bloomFilter.mayMatch(cursor.block, filter));
+        }
+
+        @Override
+        protected void decode(final long payload, final byte encoding, final int rows) {
+            entries = -1;
+            sorted = false;
+            valueBytes = bytes;
+            switch (encoding) {
+                case ColumnFormat.PLAIN -> decodePlain(payload);
+                case ColumnFormat.DICTIONARY -> decodeDictionary(payload);
+                case ColumnFormat.SORTED_DICTIONARY -> decodeSortedDictionary(payload);
+                case ColumnFormat.RUN_LENGTH -> decodeRuns(payload);
+                default -> throw unsupported(encoding);
+            }
+        }
+
+        /**
+         * Decodes the runs, the values of the rows of a run point to the bytes of the run.
+         */
+        private void decodeRuns(final long payload) {
+            runs = bytes.getInt(payload);
+            long position = payload + Integer.BYTES;
+            int start = 0;
+            for (int run = 0; run < runs; run++) {
+                int count = bytes.getInt(position);
+                int length = bytes.getInt(position + Integer.BYTES);
+                long value = position + 2 * Integer.BYTES;
+                for (int i = start; i < start + count; i++) {
+                    int row = presentRows[i];
+                    positions[row] = value;
+                    lengths[row] = length;
+                }
+                runStarts[run] = start;
+                start += count;
+                position = value + length;
+            }
+            runStarts[runs] = start;
+        }
+
+        /**
+         * Decodes the entries of the dictionary and the codes of the present rows. The values of the rows are not
+         * copied, they point to the bytes of their entry.
+         */
+        private void decodeDictionary(final long payload) {
+            entries = bytes.getInt(payload);
+            long position = payload + Integer.BYTES + (long) entries * Integer.BYTES;
+            for (int entry = 0; entry < entries; entry++) {
+                entryLengths[entry] = bytes.getInt(payload + Integer.BYTES + (long) entry * Integer.BYTES);
+                entryPositions[entry] = position;
+                position += entryLengths[entry];
+            }
+            decodeCodes(position);
+        }
+
+        /**
+         * Decodes the front coded entries of the sorted dictionary onto the heap, the reversed order of the entries
+         * and the codes of the present rows.
+         */
+        private void decodeSortedDictionary(final long payload) {
+            entries = bytes.getInt(payload);
+            sorted = true;
+            long position = payload + Integer.BYTES;
+            int offset = 0;
+            for (int entry = 0; entry < entries; entry++) {
+                int shared = readVarint(position);
+                position += ColumnFormat.varintBytes(shared);
+                int suffix = readVarint(position);
+                position += ColumnFormat.varintBytes(suffix);
+                if (offset + shared + suffix > entryData.length) {
+                    entryData = Arrays.copyOf(entryData, Math.max(2 * entryData.length, offset + shared + suffix));
+                    entryBytes = Bytes.heap(entryData);
+                }
+                if (shared > 0) {
+                    System.arraycopy(entryData, (int) entryPositions[entry - 1], entryData, offset, shared);
+                }
+                bytes.get(position, entryData, offset + shared, suffix);
+                position += suffix;
+                entryPositions[entry] = offset;
+                entryLengths[entry] = shared + suffix;
+                offset += shared + suffix;
+            }
+            int width = ColumnFormat.codeWidth(entries);
+            for (int i = 0; i < entries; i++) {
+                reversed[i] = ColumnFormat.readCode(bytes, position + (long) i * width, width);
+            }
+            valueBytes = entryBytes;
+            decodeCodes(position + (long) entries * width);
+        }
+
+        private int readVarint(final long position) {
+            long next = position;
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes.get(next++);
+                value |= (b & ColumnFormat.VARINT_MASK) << shift;
+                shift += ColumnFormat.VARINT_BITS;
+            } while (b < 0);
+            return value;
+        }
+
+        /**
+         * Decodes the codes of the present rows, stored at {@code position}, the rows point to their entry.
+         */
+        private void decodeCodes(final long position) {
+            int width = ColumnFormat.codeWidth(entries);
+            for (int i = 0; i < present; i++) {
+                int row = presentRows[i];
+                int code = ColumnFormat.readCode(bytes, position + (long) i * width, width);
+                codes[row] = code;
+                positions[row] = entryPositions[code];
+                lengths[row] = entryLengths[code];
+            }
+        }
+
+        /**
+         * Binary search in the sorted dictionary of the loaded block for the lowercase {@code value}, in the order of the
+         * entries, or of the {@link #reversed} entries comparing their ends.
+         *
+         * @return the index of the first entry, which is not smaller than {@code value} (or larger, if {@code after}).
+         * Only the first (or last) bytes of an entry are compared for a {@code prefix}.
+         */
+        protected int search(final byte[] value, final boolean prefix, final boolean fromEnd, final boolean after) {
+            int low = 0;
+            int high = entries;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                int difference = compare(fromEnd ? reversed[middle] : middle, value, prefix, fromEnd);
+                if (difference < 0 || after && difference == 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private int compare(final int entry, final byte[] value, final boolean prefix, final boolean fromEnd) {
+            int length = Math.min(entryLengths[entry], value.length);
+            long end = entryPositions[entry] + entryLengths[entry] - 1;
+            for (int i = 0; i < length; i++) {
+                byte b = entryBytes.get(fromEnd ? end - i : entryPositions[entry] + i);
+                int difference = Byte.toUnsignedInt(ZoneMap.fold(b)) - Byte.toUnsignedInt(value[fromEnd ? value.length - 1 - i : i]);
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+            return prefix && entryLengths[entry] >= value.length ? 0 : entryLengths[entry] - value.length;
+        }
+
+        private void decodePlain(final long payload) {
+            long position = payload + (long) present * Integer.BYTES;
+            for (int i = 0; i < present; i++) {
+                int row = presentRows[i];
+                int length = bytes.getInt(payload + (long) i * Integer.BYTES);
+                positions[row] = position;
+                lengths[row] = length;
+                position += length;
+            }
+        }
+
+        @Override
+        public BinaryVector vector() {
+            return vector;
+        }
+
+        @Override
+        protected void appendValues(final int from, final int count) {
+            for (int row = from; row < from + count; row++) {
+                if (ColumnFormat.isSet(presence, row)) {
+                    int length = lengths[row];
+                    int offset = vector.allocate(length);
+                    valueBytes.get(positions[row], vector.bytes(), offset, length);
+                } else {
+                    vector.appendNull();
+                }
+            }
+        }
+
+        @Override
+        protected void decodeLegacy(final long position, final int row) {
+            entries = -1;
+            sorted = false;
+            valueBytes = bytes;
+            positions[row] = position + Integer.BYTES;
+            lengths[row] = bytes.getInt(position);
+        }
+
+        @Override
+        protected int legacySize(final long position) {
+            return Integer.BYTES + bytes.getInt(position);
+        }
+    }
+
+    public static final class IdByteReader extends BinaryByteReader implements IdColumnReader {
+
+        /** Position of the slot of the first row of a {@link ColumnFormat#FIXED_WIDTH} block, {@code -1} otherwise. */
+        private long slots = -1;
+
+        private IdByteReader(final IdColumn column, final Bytes bytes, final ZoneMap zones, final BloomFilter bloomFilter,
+                             final Cursor cursor) {
+            super(column, bytes, zones, bloomFilter, cursor);
         }
 
         @Override
         public byte[] get() {
-            int length = buffer.clear().put(bytes, start(), Integer.BYTES).flip().getInt();
-            int start = start() + Integer.BYTES;
-            return Arrays.copyOfRange(bytes, start, start + length);
+            load();
+            int row = cursor.row;
+            if (slots >= 0) {
+                var value = new byte[width];
+                bytes.get(slots + (long) row * width, value, 0, width);
+                return value;
+            }
+            var value = new byte[lengths[row]];
+            valueBytes.get(positions[row], value, 0, value.length);
+            return value;
+        }
+
+        @Override
+        protected IntPredicate matching(final Filter filter) {
+            byte[] id = ((IdFilter) filter).id();
+            return row -> slots >= 0
+                    ? width == id.length && bytes.equals(slots + (long) row * width, id)
+                    : lengths[row] == id.length && valueBytes.equals(positions[row], id);
         }
 
         @Override
-        protected int currentSize() {
-            int length = buffer.clear().put(bytes, start(), Integer.BYTES).flip().getInt();
-            return Integer.BYTES + length;
+        protected void decode(final long payload, final byte encoding, final int rows) {
+            if (encoding == ColumnFormat.FIXED_WIDTH && !sparse) {
+                // nothing to decode, the slot of a row is computed from its index
+                slots = payload;
+            } else if (encoding == ColumnFormat.FIXED_WIDTH) {
+                slots = -1;
+                decodeSparseSlots(payload);
+            } else {
+                slots = -1;
+                super.decode(payload, encoding, rows);
+            }
+        }
+
+        /**
+         * Decodes the slots of the present rows of a {@link ColumnFormat#SPARSE} block, the rows point to their slot.
+         */
+        private void decodeSparseSlots(final long payload) {
+            entries = -1;
+            sorted = false;
+            valueBytes = bytes;
+            for (int i = 0; i < present; i++) {
+                int row = presentRows[i];
+                positions[row] = payload + (long) i * width;
+                lengths[row] = width;
+            }
+        }
+
+        @Override
+        protected void appendValues(final int from, final int count) {
+            if (slots < 0) {
+                super.appendValues(from, count);
+                return;
+            }
+            for (int row = from; row < from + count; row++) {
+                if (ColumnFormat.isSet(presence, row)) {
+                    int offset = vector.allocate(width);
+                    bytes.get(slots + (long) row * width, vector.bytes(), offset, width);
+                } else {
+                    vector.appendNull();
+                }
+            }
+        }
+
+        @Override
+        protected void decodeLegacy(final long position, final int row) {
+            slots = -1;
+            super.decodeLegacy(position, row);
         }
     }
 
     public static final class LongByteReader extends ByteReader implements LongColumnReader {
 
-        private final ByteBuffer buffer = ByteBuffer.wrap(new byte[Long.BYTES]);
+        private final long[] values;
+        private final LongVector vector = new LongVector();
+        /** Miniblocks of a {@link ColumnFormat#FRAME_OF_REFERENCE} block: references, widths and positions of the offsets. */
+        private final long[] references;
+        private final int[] widths;
+        private final long[] packedPositions;
+        /** Packed offsets of a miniblock, followed by a {@code 0} for {@link BitPacking#unpack}. */
+        private final long[] packed = new long[BitPacking.packedWords(BitPacking.MINIBLOCK_VALUES, Long.SIZE) + 1];
+        private final long[] offsets = new long[BitPacking.MINIBLOCK_VALUES];
+        /** Whether the values of the loaded block are still packed, they are only unpacked when they are read. */
+        private boolean isPacked;
 
-        private LongByteReader(final LongColumn column, final byte[] bytes) {
-            super(column, bytes);
+        private LongByteReader(final LongColumn column, final Bytes bytes, final ZoneMap zones, final Cursor cursor) {
+            super(column, bytes, zones, cursor);
+            this.values = new long[blockRows];
+            int miniblocks = (blockRows + BitPacking.MINIBLOCK_VALUES - 1) / BitPacking.MINIBLOCK_VALUES;
+            this.references = new long[miniblocks];
+            this.widths = new int[miniblocks];
+            this.packedPositions = new long[miniblocks];
         }
 
         @Override
         public long get() {
-            return buffer.clear().put(bytes, start(), Long.BYTES).flip().getLong();
+            load();
+            unpack();
+            return values[cursor.row];
+        }
+
+        @Override
+        public LongVector vector() {
+            return vector;
+        }
+
+        @Override
+        protected void appendValues(final int from, final int count) {
+            unpack();
+            vector.appendAll(values, from, count);
+        }
+
+        @Override
+        protected IntPredicate matching(final Filter filter) {
+            var longFilter = (LongFilter) filter;
+            return switch (longFilter.matchType()) {
+                case LESS_THAN -> longFilter.upperBound() == Long.MIN_VALUE
+                        ? new RangePredicate(Long.MAX_VALUE, Long.MIN_VALUE)
+                        : new RangePredicate(Long.MIN_VALUE, longFilter.upperBound() - 1);
+                case GREATER_THAN -> longFilter.lowerBound() == Long.MAX_VALUE
+                        ? new RangePredicate(Long.MAX_VALUE, Long.MIN_VALUE)
+                        : new RangePredicate(longFilter.lowerBound() + 1, Long.MAX_VALUE);
+                case BETWEEN -> new RangePredicate(longFilter.lowerBound(), longFilter.upperBound() - 1);
+            };
+        }
+
+        @Override
+        boolean retain(final long[] selection, final IntPredicate predicate) {
+            load();
+            if (!isPacked || !(predicate instanceof RangePredicate range)) {
+                return super.retain(selection, predicate);
+            }
+            for (int i = 0; i < selection.length; i++) {
+                selection[i] &= i < presence.length ? presence[i] : 0;
+            }
+            for (int miniblock = 0; miniblock * BitPacking.MINIBLOCK_VALUES < present; miniblock++) {
+                int from = miniblock * BitPacking.MINIBLOCK_VALUES;
+                int count = Math.min(BitPacking.MINIBLOCK_VALUES, present - from);
+                switch (range.classify(miniblock)) {
+                    case NONE -> {
+                        for (int i = from; i < from + count; i++) {
+                            ColumnFormat.clear(selection, presentRows[i]);
+                        }
+                    }
+                    case SOME -> {
+                        unpackOffsets(miniblock, count);
+                        for (int i = 0; i < count; i++) {
+                            if (!range.matchesOffset(offsets[i])) {
+                                ColumnFormat.clear(selection, presentRows[from + i]);
+                            }
+                        }
+                    }
+                    case ALL -> {
+                        // all selected rows stay selected
+                    }
+                }
+            }
+            for (long word : selection) {
+                if (word != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        void add(final long[] selection, final IntPredicate predicate) {
+            load();
+            if (!isPacked || !(predicate instanceof RangePredicate range)) {
+                super.add(selection, predicate);
+                return;
+            }
+            for (int miniblock = 0; miniblock * BitPacking.MINIBLOCK_VALUES < present; miniblock++) {
+                int from = miniblock * BitPacking.MINIBLOCK_VALUES;
+                int count = Math.min(BitPacking.MINIBLOCK_VALUES, present - from);
+                switch (range.classify(miniblock)) {
+                    case ALL -> {
+                        for (int i = from; i < from + count; i++) {
+                            ColumnFormat.set(selection, presentRows[i]);
+                        }
+                    }
+                    case SOME -> {
+                        unpackOffsets(miniblock, count);
+                        for (int i = 0; i < count; i++) {
+                            if (range.matchesOffset(offsets[i])) {
+                                ColumnFormat.set(selection, presentRows[from + i]);
+                            }
+                        }
+                    }
+                    case NONE -> {
+                        // no row is added
+                    }
+                }
+            }
+        }
+
+        private void unpackOffsets(final int miniblock, final int count) {
+            readPacked(miniblock, count);
+            BitPacking.unpack(packed, widths[miniblock], 0, count, offsets, 0);
+        }
+
+        private void readPacked(final int miniblock, final int count) {
+            int words = BitPacking.packedWords(count, widths[miniblock]);
+            long position = packedPositions[miniblock];
+            for (int i = 0; i < words; i++) {
+                packed[i] = bytes.getLong(position + (long) i * Long.BYTES);
+            }
+            packed[words] = 0;
+        }
+
+        /**
+         * Unpacks the values of the loaded {@link ColumnFormat#FRAME_OF_REFERENCE} block, if they are still packed.
+         */
+        private void unpack() {
+            if (!isPacked) {
+                return;
+            }
+            isPacked = false;
+            for (int miniblock = 0; miniblock * BitPacking.MINIBLOCK_VALUES < present; miniblock++) {
+                int from = miniblock * BitPacking.MINIBLOCK_VALUES;
+                int count = Math.min(BitPacking.MINIBLOCK_VALUES, present - from);
+                readPacked(miniblock, count);
+                if (presentRows[from + count - 1] == from + count - 1) {
+                    // no null before the end of the miniblock, the rows are the indexes of the values
+                    BitPacking.unpack(packed, widths[miniblock], references[miniblock], count, values, from);
+                } else {
+                    BitPacking.unpack(packed, widths[miniblock], references[miniblock], count, offsets, 0);
+                    for (int i = 0; i < count; i++) {
+                        values[presentRows[from + i]] = offsets[i];
+                    }
+                }
+            }
+        }
+
+        @Override
+        protected void decode(final long payload, final byte encoding, final int rows) {
+            isPacked = false;
+            switch (encoding) {
+                case ColumnFormat.PLAIN -> {
+                    for (int i = 0; i < present; i++) {
+                        int row = presentRows[i];
+                        if (!skips(row)) {
+                            values[row] = bytes.getLong(payload + (long) i * Long.BYTES);
+                        }
+                    }
+                }
+                case ColumnFormat.DELTA -> decodeDeltas(payload);
+                case ColumnFormat.FRAME_OF_REFERENCE -> readMiniblocks(payload);
+                default -> throw unsupported(encoding);
+            }
+        }
+
+        /**
+         * Reads the miniblock headers of the {@link ColumnFormat#FRAME_OF_REFERENCE} payload, the values stay packed.
+         */
+        private void readMiniblocks(final long payload) {
+            long position = payload;
+            for (int miniblock = 0; miniblock * BitPacking.MINIBLOCK_VALUES < present; miniblock++) {
+                int count = Math.min(BitPacking.MINIBLOCK_VALUES, present - miniblock * BitPacking.MINIBLOCK_VALUES);
+                references[miniblock] = bytes.getLong(position);
+                widths[miniblock] = bytes.get(position + Long.BYTES);
+                packedPositions[miniblock] = position + BitPacking.MINIBLOCK_HEADER_BYTES;
+                position += BitPacking.MINIBLOCK_HEADER_BYTES + (long) BitPacking.packedWords(count, widths[miniblock]) * Long.BYTES;
+            }
+            isPacked = true;
+        }
+
+        /**
+         * Decodes the {@link ColumnFormat#DELTA} payload in one pass, every value depends on all previous values.
+         */
+        private void decodeDeltas(final long payload) {
+            long position = payload;
+            long value = bytes.getLong(position);
+            position += Long.BYTES;
+            values[presentRows[0]] = value;
+            long delta = 0;
+            for (int i = 1; i < present; i++) {
+                long zigZag = 0;
+                int shift = 0;
+                byte next;
+                do {
+                    next = bytes.get(position++);
+                    zigZag |= (long) (next & ColumnFormat.VARINT_MASK) << shift;
+                    shift += ColumnFormat.VARINT_BITS;
+                } while (next < 0);
+                delta += ColumnFormat.unZigZag(zigZag);
+                value += delta;
+                values[presentRows[i]] = value;
+            }
         }
 
         @Override
-        protected int currentSize() {
+        protected void decodeLegacy(final long position, final int row) {
+            values[row] = bytes.getLong(position);
+        }
+
+        /**
+         * How the values of a miniblock match a {@link RangePredicate}, judged by the reference and width of the miniblock.
+         */
+        private enum Coverage {
+            NONE,
+            SOME,
+            ALL,
+        }
+
+        /**
+         * Matches values in {@code [min, max]}, which is empty if {@code min > max}. Packed values are matched by their
+         * offsets, without unpacking them.
+         */
+        private final class RangePredicate implements IntPredicate {
+
+            private final long min;
+            private final long max;
+            /** Bounds of the offsets of the last classified miniblock, as unsigned longs. */
+            private long minOffset;
+            private long maxOffset;
+
+            private RangePredicate(final long min, final long max) {
+                this.min = min;
+                this.max = max;
+            }
+
+            @Override
+            public boolean test(final int row) {
+                unpack();
+                return values[row] >= min && values[row] <= max;
+            }
+
+            /**
+             * @return which values of {@code miniblock} may match, and prepares {@link #matchesOffset(long)} for it.
+             */
+            Coverage classify(final int miniblock) {
+                long reference = references[miniblock];
+                long largest = BitPacking.maxOffset(widths[miniblock]);
+                if (max < reference) {
+                    return Coverage.NONE;
+                }
+                // the differences are exact as unsigned longs, as the minuends are not smaller
+                minOffset = min <= reference ? 0 : min - reference;
+                maxOffset = max - reference;
+                if (Long.compareUnsigned(minOffset, maxOffset) > 0 || Long.compareUnsigned(minOffset, largest) > 0) {
+                    return Coverage.NONE;
+                }
+                return minOffset == 0 && Long.compareUnsigned(maxOffset, largest) >= 0 ? Coverage.ALL : Coverage.SOME;
+            }
+
+            boolean matchesOffset(final long offset) {
+                return Long.compareUnsigned(offset - minOffset, maxOffset - minOffset) <= 0;
+            }
+        }
+
+        @Override
+        protected int legacySize(final long position) {
             return Long.BYTES;
         }
     }
 
-    public static final class StringByteReader extends ByteReader implements StringColumnReader {
-
-        private final ByteBuffer buffer = ByteBuffer.wrap(new byte[Integer.BYTES]);
+    public static final class StringByteReader extends BinaryByteReader implements StringColumnReader {
 
-        private StringByteReader(final StringColumn column, final byte[] bytes) {
-            super(column, bytes);
+        private StringByteReader(final StringColumn column, final Bytes bytes, final ZoneMap zones,
+                                 final BloomFilter bloomFilter, final Cursor cursor) {
+            super(column, bytes, zones, bloomFilter, cursor);
         }
 
         @Override
         public String get() {
-            int length = buffer.clear().put(bytes, start(), Integer.BYTES).flip().getInt();
-            int start = start() + Integer.BYTES;
-            return new String(bytes, start, length, StandardCharsets.UTF_8);
+            load();
+            int row = cursor.row;
+            return valueBytes.string(positions[row], lengths[row]);
         }
 
         @Override
-        protected int currentSize() {
-            int length = buffer.clear().put(bytes, start(), Integer.BYTES).flip().getInt();
-            return Integer.BYTES + length;
+        protected IntPredicate matching(final Filter filter) {
+            var stringFilter = (StringFilter) filter;
+            return new EntryPredicate(stringFilter.matchType(), stringFilter.value().getBytes(StandardCharsets.UTF_8),
+                    matches(stringFilter));
+        }
+
+        /**
+         * @return a predicate on lowercase values, which matches the values matching {@code filter}.
+         */
+        static Predicate<String> matches(final StringFilter filter) {
+            var value = filter.value();
+            return switch (filter.matchType()) {
+                case IS -> value::equals;
+                case STARTS_WITH -> string -> string.startsWith(value);
+                case ENDS_WITH -> string -> string.endsWith(value);
+                case CONTAINS -> string -> string.contains(value);
+                case PHRASE -> string -> Tokens.containsPhrase(string, filter.tokens());
+            };
+        }
+
+        /**
+         * Tests the values of rows, the value of a dictionary entry is only tested once per block. The entries of a
+         * sorted dictionary, which match an {@link StringFilter.MatchType#IS IS} or
+         * {@link StringFilter.MatchType#STARTS_WITH STARTS_WITH} filter, are a range of codes found by binary search,
+         * those matching an {@link StringFilter.MatchType#ENDS_WITH ENDS_WITH} filter a range of the reversed entries.
+         */
+        private final class EntryPredicate implements IntPredicate {
+
+            private static final byte UNKNOWN = 0;
+            private static final byte MATCH = 1;
+            private static final byte NO_MATCH = 2;
+
+            private final StringFilter.MatchType matchType;
+            /** The lowercase filter value. */
+            private final byte[] value;
+            private final Predicate<String> matches;
+            /** Result of every dictionary entry of {@link #block}. */
+            private final byte[] results = new byte[blockRows];
+            private int block = -1;
+            /** Whether the matching codes of {@link #block} are {@link #from} (inclusive) to {@link #to} (exclusive). */
+            private boolean ranged;
+            private int from;
+            private int to;
+
+            private EntryPredicate(final StringFilter.MatchType matchType, final byte[] value, final Predicate<String> matches) {
+                this.matchType = matchType;
+                this.value = value;
+                this.matches = matches;
+            }
+
+            @Override
+            public boolean test(final int row) {
+                if (entries < 0) {
+                    return testValue(row);
+                }
+                if (block != cursor.block) {
+                    startBlock();
+                }
+                int code = codes[row];
+                if (ranged) {
+                    return code >= from && code < to;
+                }
+                if (results[code] == UNKNOWN) {
+                    results[code] = testValue(row) ? MATCH : NO_MATCH;
+                }
+                return results[code] == MATCH;
+            }
+
+            private void startBlock() {
+                block = cursor.block;
+                ranged = sorted && (matchType == StringFilter.MatchType.IS || matchType == StringFilter.MatchType.STARTS_WITH);
+                if (ranged) {
+                    boolean prefix = matchType == StringFilter.MatchType.STARTS_WITH;
+                    from = search(value, prefix, false, false);
+                    to = search(value, prefix, false, true);
+                } else if (sorted && matchType == StringFilter.MatchType.ENDS_WITH) {
+                    Arrays.fill(results, 0, entries, NO_MATCH);
+                    int end = search(value, true, true, true);
+                    for (int i = search(value, true, true, false); i < end; i++) {
+                        results[reversed[i]] = MATCH;
+                    }
+                } else {
+                    Arrays.fill(results, 0, entries, UNKNOWN);
+                }
+            }
+
+            private boolean testValue(final int row) {
+                // filter values are lowercase, see StringFilter
+                return matches.test(valueBytes.string(positions[row], lengths[row]).toLowerCase(Locale.ROOT));
+            }
         }
     }
 
@@ -249,14 +1531,131 @@ public class InMemoryReader implements Reader {
             return hasNext;
         }
         consumed = false;
-        hasNext = false;
-        for (ByteReader reader : readers.values()) {
-            if (reader.hasNext()) {
-                reader.next();
-                hasNext = true;
+        hasNext = advance();
+        return hasNext;
+    }
+
+    /**
+     * Moves the {@link #cursor} to the next (selected) record.
+     */
+    private boolean advance() {
+        int row = cursor.row + 1;
+        while (true) {
+            if (row < cursor.rows) {
+                int next = selection == null ? row : ColumnFormat.nextSet(selection, row);
+                if (next >= 0) {
+                    cursor.row = next;
+                    return true;
+                }
+            }
+            if (!nextBlock()) {
+                return false;
             }
+            row = 0;
+        }
+    }
+
+    /**
+     * Moves the {@link #cursor} to the next block, and selects its records. The number of rows of a block is
+     * the maximum of all columns, missing values of shorter (legacy) columns are {@code null}.
+     */
+    private boolean nextBlock() {
+        int block = cursor.block + 1;
+        if (indexedRows != null) {
+            // no other block has a record with the indexed id
+            while (nextIndexed < indexedRows.length && indexedRows[nextIndexed] < (long) block * ColumnFormat.DEFAULT_BLOCK_ROWS) {
+                nextIndexed++;
+            }
+            if (nextIndexed == indexedRows.length) {
+                return false;
+            }
+            block = (int) (indexedRows[nextIndexed] / ColumnFormat.DEFAULT_BLOCK_ROWS);
+        }
+        int rows = 0;
+        for (var reader : readers.values()) {
+            rows = Math.max(rows, reader.rowsOf(block));
+        }
+        if (rows == 0) {
+            return false;
+        }
+        cursor.block = block;
+        cursor.row = -1;
+        cursor.rows = rows;
+        if (selection != null) {
+            select(rows);
+        }
+        return true;
+    }
+
+    /**
+     * Evaluates the filters on the current block. With {@link Query.QueryType#ALL_OF}, every filter only tests the
+     * records selected by the previous filters, and only their values are decoded. With
+     * {@link Query.QueryType#AT_LEAST_ONE}, every filter only tests the records not selected yet.
+     */
+    private void select(final int rows) {
+        if (selection.length < ColumnFormat.words(rows)) {
+            selection = new long[ColumnFormat.words(rows)];
+        }
+        if (type == Query.QueryType.ALL_OF || selectors.isEmpty()) {
+            // without selectors, the indexes have answered all filters
+            Arrays.fill(selection, 0);
+            for (var selector : selectors) {
+                if (!selector.reader().mayMatch(selector.filter())) {
+                    // no record of the block is selected, no column has to be read
+                    return;
+                }
+            }
+            if (indexedRows == null) {
+                ColumnFormat.setAll(selection, rows);
+            } else {
+                setIndexed(selection, rows);
+            }
+            cursor.decode = selection;
+            for (var selector : selectors) {
+                if (!selector.reader().retain(selection, selector.predicate())) {
+                    break;
+                }
+            }
+        } else if (indexedRows != null) {
+            // every filter has an index, only the candidates are tested by every filter
+            if (candidates == null || candidates.length != selection.length) {
+                candidates = new long[selection.length];
+                matches = new long[selection.length];
+            }
+            Arrays.fill(selection, 0);
+            Arrays.fill(candidates, 0);
+            setIndexed(candidates, rows);
+            cursor.decode = candidates;
+            for (var selector : selectors) {
+                if (selector.reader().mayMatch(selector.filter())) {
+                    System.arraycopy(candidates, 0, matches, 0, candidates.length);
+                    selector.reader().retain(matches, selector.predicate());
+                    for (int i = 0; i < selection.length; i++) {
+                        selection[i] |= matches[i];
+                    }
+                }
+            }
+            cursor.decode = selection;
+        } else {
+            Arrays.fill(selection, 0);
+            cursor.decode = null;
+            for (var selector : selectors) {
+                if (selector.reader().mayMatch(selector.filter())) {
+                    selector.reader().add(selection, selector.predicate());
+                }
+            }
+            cursor.decode = selection;
+        }
+    }
+
+    /**
+     * Sets the bits of the {@link #indexedRows} of the current block in {@code bits}.
+     */
+    private void setIndexed(final long[] bits, final int rows) {
+        long start = (long) cursor.block * ColumnFormat.DEFAULT_BLOCK_ROWS;
+        for (int i = nextIndexed; i < indexedRows.length && indexedRows[i] < start + rows; i++) {
+            ColumnFormat.set(bits, (int) (indexedRows[i] - start));
         }
-        return hasNext;
     }
 
     @Override
@@ -271,13 +1670,37 @@ public class InMemoryReader implements Reader {
         consumed = true;
     }
 
+    @Override
+    public int nextBatch(final int maxRows) {
+        for (var reader : readers.values()) {
+            reader.vector().clear();
+        }
+        int rows = 0;
+        while (rows < maxRows && hasNext()) {
+            // the cursor is at the next record, take as many (selected) records of its block as possible
+            int end = selection == null ? cursor.rows : Math.min(cursor.rows, ColumnFormat.nextClear(selection, cursor.row));
+            int count = Math.min(maxRows - rows, end - cursor.row);
+            for (var reader : readers.values()) {
+                reader.appendToVector(cursor.row, count);
+            }
+            cursor.row += count - 1;
+            consumed = true;
+            rows += count;
+        }
+        return rows;
+    }
+
     @Override
     public void close() {
         readers.clear();
     }
 
     public void reset() {
-        readers.values().forEach(ByteReader::reset);
+        nextIndexed = 0;
+        cursor.block = -1;
+        cursor.row = -1;
+        cursor.rows = 0;
+        cursor.decode = null;
         consumed = true;
         hasNext = false;
     }
@@ -7,199 +7,249 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
 
+import static column.store.util.Conditions.checkArgument;
 import static column.store.util.Conditions.checkState;
 
+/**
+ * Writes records column by column, each column into its own file in the {@link ColumnFormat}.
+ *
+ * <p> Values are collected in blocks of {@link ColumnFormat#DEFAULT_BLOCK_ROWS} rows, which are written, once complete,
+ * with a separate null bitmap. Every column has a reusable write buffer, which is only written to the file when it is
+ * full, or on {@link #flush()} and {@link #close()}. Incomplete blocks stay in memory until they are complete or the
+ * writer is closed, so that the blocks of all columns stay aligned.
+ *
+ * <p> Long, double, id and string columns get a {@link ZoneMap} with the bounds and null count of every block,
+ * which lets readers skip blocks, which cannot match a filter. Id columns and requested string columns
+ * (see {@link #bloomFilter(StringColumn)}) get a {@link BloomFilter} of every block, which lets readers skip blocks
+ * without the value of an equality filter. Id columns get an {@link IdIndex} and string
+ * columns a {@link TrigramIndex} or a {@link TokenIndex} on request (see {@link #index(IdColumn)},
+ * {@link #trigramIndex(StringColumn)} and {@link #tokenIndex(StringColumn)}). Low-cardinality string and boolean
+ * columns get a {@link BitmapIndex} on request (see {@link #bitmapIndex(StringColumn)}).
+ */
 public class InMemoryWriter implements Writer {
 
+    /** Large enough to amortize the cost of a write syscall, small enough for span schemas with many columns. */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    /** A buffer has to hold at least a block header or a long. */
+    public static final int MIN_BUFFER_SIZE = 2 * Long.BYTES;
+    /** Zone maps have a few bytes per block, they do not need a large buffer. */
+    private static final int ZONE_BUFFER_SIZE = 4 * 1024;
+    /** Bloom filters have 2 bytes per value, up to 8 KB per block. */
+    private static final int BLOOM_BUFFER_SIZE = 16 * 1024;
+
     private final Path root;
-    private final Map<Column, ColumnWriter> writers;
-    private final Map<Column, FileChannel> channels;
+    private final int bufferSize;
+    private final Map<Column, BlockWriter> writers;
+    private final List<ColumnOutput> outputs;
+    private final Set<IdColumn> indexed = new LinkedHashSet<>();
+    private final Set<StringColumn> bloomFiltered = new LinkedHashSet<>();
+    private final Set<StringColumn> trigramIndexed = new LinkedHashSet<>();
+    private final Set<StringColumn> tokenIndexed = new LinkedHashSet<>();
+    private final Set<Column> bitmapIndexed = new LinkedHashSet<>();
+    private long records;
 
     public InMemoryWriter(final Path root) {
+        this(root, DEFAULT_BUFFER_SIZE);
+    }
+
+    public InMemoryWriter(final Path root, final int bufferSize) {
+        checkArgument(bufferSize >= MIN_BUFFER_SIZE, "Buffer size must be at least " + MIN_BUFFER_SIZE + " bytes");
         this.root = root;
-        this.writers = new HashMap<>();
-        this.channels = new HashMap<>();
+        this.bufferSize = bufferSize;
+        this.writers = new LinkedHashMap<>();
+        this.outputs = new ArrayList<>();
+    }
+
+    /**
+     * Builds an {@link IdIndex} of {@code column} on {@link #close()}, so that readers find the records of an id without
+     * testing the values of all blocks.
+     */
+    public InMemoryWriter index(final IdColumn column) {
+        indexed.add(column);
+        return this;
+    }
+
+    /**
+     * Builds a {@link TrigramIndex} of {@code column} on {@link #close()}, so that readers only test the records, which
+     * contain all trigrams of the value of a {@link column.store.api.query.StringFilter}.
+     */
+    public InMemoryWriter trigramIndex(final StringColumn column) {
+        trigramIndexed.add(column);
+        return this;
+    }
+
+    /**
+     * Builds a {@link TokenIndex} of {@code column} on {@link #close()}, so that readers only test the records, which
+     * have all terms of a {@link column.store.api.query.StringFilter.MatchType#PHRASE} filter.
+     */
+    public InMemoryWriter tokenIndex(final StringColumn column) {
+        tokenIndexed.add(column);
+        return this;
+    }
+
+    /**
+     * Builds a {@link BitmapIndex} of {@code column} on {@link #close()}, so that readers answer filters on it from the
+     * index, without testing any value. Columns with too many distinct values get no index.
+     */
+    public InMemoryWriter bitmapIndex(final StringColumn column) {
+        bitmapIndexed.add(column);
+        return this;
+    }
+
+    /**
+     * Builds a {@link BitmapIndex} of {@code column} on {@link #close()}, see {@link #bitmapIndex(StringColumn)}.
+     */
+    public InMemoryWriter bitmapIndex(final BooleanColumn column) {
+        bitmapIndexed.add(column);
+        return this;
+    }
+
+    /**
+     * Writes a {@link BloomFilter} of every block of {@code column}, so that readers skip the blocks without the value
+     * of a {@link column.store.api.query.StringFilter.MatchType#IS} filter. It has to be requested before the first
+     * value of the column is written.
+     */
+    public InMemoryWriter bloomFilter(final StringColumn column) {
+        checkState(!writers.containsKey(column), "Bloom filter of column " + column.name() + " requested after the first value");
+        bloomFiltered.add(column);
+        return this;
     }
 
     @Override
     public BooleanColumnWriter of(final BooleanColumn column) {
-        return (BooleanColumnWriter) writers.computeIfAbsent(column, col -> {
-            var channel = openChannelFor(column); // is added to channels
-            var buffer = ByteBuffer.allocateDirect(Byte.BYTES + Byte.BYTES);
-            return new BooleanColumnWriter() {
-               @Override
-               public void write(final boolean value) {
-                   buffer.put(Byte.MAX_VALUE);
-                   buffer.put(value ? Byte.MAX_VALUE : Byte.MIN_VALUE);
-                   InMemoryWriter.write(channel, buffer);
-               }
-
-               @Override
-               public void writeNull() {
-                   buffer.put(Byte.MIN_VALUE);
-                   InMemoryWriter.write(channel, buffer);
-               }
-           };
-        });
+        return (BooleanColumnWriter) writers.computeIfAbsent(column, col -> open(col, BooleanBlockWriter::new));
     }
 
     @Override
     public DoubleColumnWriter of(final DoubleColumn column) {
-        return (DoubleColumnWriter) writers.computeIfAbsent(column, col -> {
-            var channel = openChannelFor(column); // is added to channels
-            var buffer = ByteBuffer.allocateDirect(Byte.BYTES + Double.BYTES);
-            return new DoubleColumnWriter() {
-                @Override
-                public void write(final double value) {
-                    buffer.put(Byte.MAX_VALUE);
-                    buffer.putDouble(value);
-                    InMemoryWriter.write(channel, buffer);
-                }
-
-                @Override
-                public void writeNull() {
-                    buffer.put(Byte.MIN_VALUE);
-                    InMemoryWriter.write(channel, buffer);
-                }
-            };
-        });
+        return (DoubleColumnWriter) writers.computeIfAbsent(column, col -> open(col, DoubleBlockWriter::new));
     }
 
     @Override
     public IdColumnWriter of(final IdColumn column) {
-        return (IdColumnWriter) writers.computeIfAbsent(column, col -> {
-            var channel = openChannelFor(column); // is added to channels
-            return new IdColumnWriter() {
-                @Override
-                public void write(final byte[] value) {
-                    var buffer = ByteBuffer.allocateDirect(Byte.BYTES + Integer.BYTES + value.length);
-                    buffer.put(Byte.MAX_VALUE);
-                    buffer.putInt(value.length);
-                    buffer.put(value);
-                    InMemoryWriter.write(channel, buffer);
-                }
-
-                @Override
-                public void writeNull() {
-                    var buffer = ByteBuffer.allocateDirect(Byte.BYTES);
-                    buffer.put(Byte.MIN_VALUE);
-                    InMemoryWriter.write(channel, buffer);
-                }
-            };
-        });
+        if (column.isFixedWidth()) {
+            return (IdColumnWriter) writers.computeIfAbsent(column,
+                    col -> open(col, (output, blockRows) -> new FixedWidthIdBlockWriter(output, blockRows, column.width())));
+        }
+        return (IdColumnWriter) writers.computeIfAbsent(column, col -> open(col, IdBlockWriter::new));
     }
 
     @Override
     public LongColumnWriter of(final LongColumn column) {
-        return (LongColumnWriter) writers.computeIfAbsent(column, col -> {
-            var channel = openChannelFor(column); // is added to channels
-            var buffer = ByteBuffer.allocateDirect(Byte.BYTES + Long.BYTES);
-            return new LongColumnWriter() {
-                @Override
-                public void write(final long value) {
-                    buffer.put(Byte.MAX_VALUE);
-                    buffer.putLong(value);
-                    InMemoryWriter.write(channel, buffer);
-                }
-
-                @Override
-                public void writeNull() {
-                    buffer.put(Byte.MIN_VALUE);
-                    InMemoryWriter.write(channel, buffer);
-                }
-            };
-        });
+        return (LongColumnWriter) writers.computeIfAbsent(column, col -> open(col, LongBlockWriter::new));
     }
 
     @Override
     public StringColumnWriter of(final StringColumn column) {
-        return (StringColumnWriter) writers.computeIfAbsent(column, col -> {
-            var channel = openChannelFor(column); // is added to channels
-            return new StringColumnWriter() {
-                @Override
-                public void write(final String value) {
-                    var bytes = value.getBytes(StandardCharsets.UTF_8);
-                    var buffer = ByteBuffer.allocateDirect(Byte.BYTES + Integer.BYTES + bytes.length);
-                    buffer.put(Byte.MAX_VALUE);
-                    buffer.putInt(bytes.length);
-                    buffer.put(bytes);
-                    InMemoryWriter.write(channel, buffer);
-                }
-
-                @Override
-                public void writeNull() {
-                    var buffer = ByteBuffer.allocateDirect(Byte.BYTES);
-                    buffer.put(Byte.MIN_VALUE);
-                    InMemoryWriter.write(channel, buffer);
-                }
-            };
-        });
-    }
-
-    private FileChannel openChannelFor(final Column column) {
-        var columnFile = root.resolve(column.type().name()).resolve(column.name());
-        try {
-            Files.createDirectories(columnFile.getParent()); // does not throw if directory already exists
-            Files.createFile(columnFile);
-            var channel = FileChannel.open(columnFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
-            checkState(channels.put(column, channel) == null, "Channel has already been opened");
-            return channel;
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+        return (StringColumnWriter) writers.computeIfAbsent(column, col -> open(col, StringBlockWriter::new));
+    }
+
+    private BlockWriter open(final Column column, final BiFunction<ColumnOutput, Integer, BlockWriter> factory) {
+        var writer = factory.apply(openOutput(root.resolve(column.type().name()).resolve(column.name()), bufferSize),
+                ColumnFormat.DEFAULT_BLOCK_ROWS);
+        if (column.type() != Column.Type.BOOLEAN) {
+            writer.writeZonesTo(openOutput(ZoneMap.path(root, column), Math.min(bufferSize, ZONE_BUFFER_SIZE)));
+        }
+        if (column.type() == Column.Type.ID || bloomFiltered.contains(column)) {
+            writer.writeBloomFiltersTo(openOutput(BloomFilter.path(root, column), Math.min(bufferSize, BLOOM_BUFFER_SIZE)));
         }
+        // all previous records are null for a column added while records are added
+        for (long skipped = 0; skipped < records; skipped += ColumnFormat.DEFAULT_BLOCK_ROWS) {
+            writer.endRecords((int) Math.min(records - skipped, ColumnFormat.DEFAULT_BLOCK_ROWS));
+        }
+        return writer;
     }
 
-    private static void write(final FileChannel channel, final ByteBuffer content) {
-        content.flip();
+    private ColumnOutput openOutput(final Path file, final int size) {
         try {
-            channel.write(content);
+            Files.createDirectories(file.getParent()); // does not throw if directory already exists
+            Files.createFile(file); // throws if the file has already been opened
+            var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            var output = new ColumnOutput(channel, ByteBuffer.allocateDirect(size));
+            outputs.add(output);
+            return output;
         } catch (IOException e) {
             throw new UncheckedIOException(e);
-        } finally {
-            content.clear();
         }
     }
 
     @Override
-    public void next() {
-        // no-op
+    public void next() throws IOException {
+        nextBatch(1);
     }
 
     @Override
-    public void flush() throws IOException {
+    public void nextBatch(final int rows) throws IOException {
         try {
-            channels.values().forEach(channel -> {
-                try {
-                    channel.force(true);
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                }
-            });
+            for (var writer : writers.values()) {
+                writer.endRecords(rows);
+            }
         } catch (UncheckedIOException e) {
             throw e.getCause();
         }
+        records += rows;
+    }
+
+    /**
+     * Writes all complete blocks to disk. The incomplete block of each column stays in memory.
+     */
+    @Override
+    public void flush() throws IOException {
+        for (var output : outputs) {
+            output.flush();
+        }
     }
 
     @Override
     public void close() throws IOException {
-        flush();
+        int pending = writers.values().stream().mapToInt(BlockWriter::pendingRecords).max().orElse(0);
+        if (pending > 0) {
+            // values of the last records are kept, even if next() has not been called for them
+            nextBatch(pending);
+        }
         try {
-            channels.values().forEach(channel -> {
-                try {
-                    channel.close();
-                } catch (IOException e) {
-                    throw new UncheckedIOException(e);
-                }
-            });
+            for (var writer : writers.values()) {
+                writer.finish();
+            }
         } catch (UncheckedIOException e) {
             throw e.getCause();
         }
+        flush();
+        for (var output : outputs) {
+            output.close();
+        }
+        for (var column : indexed) {
+            if (writers.containsKey(column)) {
+                IdIndex.build(root, column);
+            }
+        }
+        for (var column : trigramIndexed) {
+            if (writers.containsKey(column)) {
+                TrigramIndex.build(root, column);
+            }
+        }
+        for (var column : tokenIndexed) {
+            if (writers.containsKey(column)) {
+                TokenIndex.build(root, column);
+            }
+        }
+        for (var column : bitmapIndexed) {
+            if (writers.containsKey(column) && column instanceof StringColumn stringColumn) {
+                BitmapIndex.build(root, stringColumn);
+            } else if (writers.containsKey(column)) {
+                BitmapIndex.build(root, (BooleanColumn) column);
+            }
+        }
     }
 }
@@ -0,0 +1,147 @@
+package column.store.inmemory;
+
+import column.store.api.write.LongColumnWriter;
+
+import java.util.BitSet;
+
+final class LongBlockWriter extends BlockWriter implements LongColumnWriter, BlockWriter.ZoneMapped {
+
+    private final long[] values;
+    /** Packed offsets of a miniblock. */
+    private final long[] packed = new long[BitPacking.packedWords(BitPacking.MINIBLOCK_VALUES, Long.SIZE)];
+    /** Encoding of the current block, chosen by {@link #encoding()}. */
+    private byte encoding;
+    private int deltaBytes;
+    private int frameOfReferenceBytes;
+
+    LongBlockWriter(final ColumnOutput output, final int blockRows) {
+        super(output, blockRows);
+        this.values = new long[blockRows];
+    }
+
+    @Override
+    public void write(final long value) {
+        values[markPresent()] = value;
+    }
+
+    @Override
+    public void writeAll(final long[] batch, final BitSet nulls, final int count) {
+        appendBatch(nulls, count, (from, length, row) -> System.arraycopy(batch, from, values, present, length));
+    }
+
+    @Override
+    public void writeBounds(final ColumnOutput zones) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < present; i++) {
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+        }
+        ZoneMap.writeBounds(zones, min, max);
+    }
+
+    /**
+     * @return the smallest of {@link ColumnFormat#PLAIN}, {@link ColumnFormat#DELTA} and
+     * {@link ColumnFormat#FRAME_OF_REFERENCE} for the current block.
+     */
+    @Override
+    protected byte encoding() {
+        deltaBytes = Long.BYTES;
+        long previous = values[0];
+        long delta = 0;
+        for (int i = 1; i < present; i++) {
+            long next = values[i] - previous;
+            deltaBytes += ColumnFormat.varintBytes(ColumnFormat.zigZag(next - delta));
+            delta = next;
+            previous = values[i];
+        }
+        frameOfReferenceBytes = 0;
+        for (int from = 0; from < present; from += BitPacking.MINIBLOCK_VALUES) {
+            int count = Math.min(BitPacking.MINIBLOCK_VALUES, present - from);
+            frameOfReferenceBytes += BitPacking.MINIBLOCK_HEADER_BYTES
+                    + BitPacking.packedWords(count, width(from, count)) * Long.BYTES;
+        }
+        encoding = ColumnFormat.PLAIN;
+        if (deltaBytes < payloadBytes()) {
+            encoding = ColumnFormat.DELTA;
+        }
+        if (frameOfReferenceBytes < payloadBytes()) {
+            encoding = ColumnFormat.FRAME_OF_REFERENCE;
+        }
+        return encoding;
+    }
+
+    private long reference(final int from, final int count) {
+        long min = values[from];
+        for (int i = from + 1; i < from + count; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    private int width(final int from, final int count) {
+        long min = values[from];
+        long max = values[from];
+        for (int i = from + 1; i < from + count; i++) {
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+        }
+        // the range does not fit into a long if the values have different signs, but it does as unsigned long
+        return BitPacking.width(max - min);
+    }
+
+    @Override
+    protected int payloadBytes() {
+        return switch (encoding) {
+            case ColumnFormat.DELTA -> deltaBytes;
+            case ColumnFormat.FRAME_OF_REFERENCE -> frameOfReferenceBytes;
+            default -> present * Long.BYTES;
+        };
+    }
+
+    @Override
+    protected void writePayload() {
+        if (encoding == ColumnFormat.DELTA) {
+            writeDeltas();
+            return;
+        }
+        if (encoding == ColumnFormat.FRAME_OF_REFERENCE) {
+            writeFrameOfReference();
+            return;
+        }
+        for (int i = 0; i < present; i++) {
+            output.reserve(Long.BYTES).putLong(values[i]);
+        }
+    }
+
+    private void writeDeltas() {
+        output.reserve(Long.BYTES).putLong(values[0]);
+        long delta = 0;
+        for (int i = 1; i < present; i++) {
+            // overflows cancel out when decoding, as the decoder wraps around the same way
+            long next = values[i] - values[i - 1];
+            ColumnFormat.putVarint(output.reserve(ColumnFormat.MAX_VARINT_BYTES), ColumnFormat.zigZag(next - delta));
+            delta = next;
+        }
+    }
+
+    private void writeFrameOfReference() {
+        for (int from = 0; from < present; from += BitPacking.MINIBLOCK_VALUES) {
+            int count = Math.min(BitPacking.MINIBLOCK_VALUES, present - from);
+            long reference = reference(from, count);
+            int width = width(from, count);
+            output.reserve(BitPacking.MINIBLOCK_HEADER_BYTES)
+                    .putLong(reference)
+                    .put((byte) width);
+            BitPacking.pack(values, from, count, reference, width, packed);
+            for (int i = 0; i < BitPacking.packedWords(count, width); i++) {
+                output.reserve(Long.BYTES).putLong(packed[i]);
+            }
+        }
+    }
+
+    @Override
+    protected void clear() {
+        // values are overwritten
+    }
+}
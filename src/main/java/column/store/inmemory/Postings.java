@@ -0,0 +1,75 @@
+package column.store.inmemory;
+
+import java.util.Arrays;
+
+/**
+ * Lists of rows in ascending order, as found in the {@link TrigramIndex} and the {@link TokenIndex}. A stored list is
+ * a varint of the difference to the previous row for every row, the first row is the difference to row {@code 0}.
+ */
+final class Postings {
+
+    private Postings() {
+        // hidden util constructor
+    }
+
+    /**
+     * Writes the varint of {@code delta} to {@code bytes} starting at {@code offset}, which needs room for
+     * {@link ColumnFormat#MAX_VARINT_BYTES}.
+     *
+     * @return the offset after the varint.
+     */
+    static int putVarint(final byte[] bytes, final int offset, final long delta) {
+        int position = offset;
+        long remaining = delta;
+        while ((remaining & ~ColumnFormat.VARINT_MASK) != 0) {
+            bytes[position++] = (byte) (remaining & ColumnFormat.VARINT_MASK | ColumnFormat.VARINT_CONTINUATION);
+            remaining >>>= ColumnFormat.VARINT_BITS;
+        }
+        bytes[position++] = (byte) remaining;
+        return position;
+    }
+
+    /**
+     * @return the {@code count} rows stored at {@code position}.
+     */
+    static long[] read(final Bytes bytes, final long position, final int count) {
+        var rows = new long[count];
+        long next = position;
+        long row = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes.get(next++);
+                delta |= (long) (b & ColumnFormat.VARINT_MASK) << shift;
+                shift += ColumnFormat.VARINT_BITS;
+            } while (b < 0);
+            row += delta;
+            rows[i] = row;
+        }
+        return rows;
+    }
+
+    /**
+     * @return the rows in both {@code a} and {@code b}.
+     */
+    static long[] intersect(final long[] a, final long[] b) {
+        var both = new long[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                both[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(both, count);
+    }
+}
@@ -0,0 +1,378 @@
+package column.store.inmemory;
+
+import java.util.Arrays;
+
+/**
+ * Compressed set of rows (Roaring bitmap). Rows are split into chunks of {@link #CHUNK_ROWS} rows by their high bits,
+ * the low bits of the rows of a chunk are kept in a container: a sorted array for at most {@link #MAX_ARRAY_ROWS}
+ * rows, a bitmap of all rows of the chunk otherwise. Both need at most 8 KB per chunk, sparse chunks 2 bytes per row.
+ * Intersections and unions are computed container by container, without visiting single rows of bitmaps.
+ *
+ * <pre>
+ * bitmap:     chunks (int) | chunk ...
+ * chunk:      key (int) | rows (int) | low bits of every row (short), or the words of the bitmap (long) for more than
+ *             {@link #MAX_ARRAY_ROWS} rows
+ * </pre>
+ */
+final class RowBitmap {
+
+    static final int CHUNK_BITS = 16;
+    static final int CHUNK_ROWS = 1 << CHUNK_BITS;
+    static final int MAX_ARRAY_ROWS = 4096;
+
+    private static final int BITMAP_WORDS = CHUNK_ROWS / Long.SIZE;
+    private static final int LOW_MASK = CHUNK_ROWS - 1;
+    private static final RowBitmap EMPTY = new RowBitmap(new int[0], new Object[0], 0);
+
+    /** The high bits of the rows of every chunk, in ascending order. */
+    private final int[] keys;
+    /** The container of every chunk, a {@code char[]} of the low bits of its rows or a {@code long[]} bitmap. */
+    private final Object[] containers;
+    private final int chunks;
+
+    private RowBitmap(final int[] keys, final Object[] containers, final int chunks) {
+        this.keys = keys;
+        this.containers = containers;
+        this.chunks = chunks;
+    }
+
+    /**
+     * @return a bitmap without rows.
+     */
+    static RowBitmap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return a bitmap of {@code rows}, which are in ascending order.
+     */
+    static RowBitmap of(final long[] rows) {
+        var builder = new Builder();
+        for (long row : rows) {
+            builder.add(row);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the bitmap stored at {@code position}.
+     */
+    static RowBitmap read(final Bytes bytes, final long position) {
+        int chunks = bytes.getInt(position);
+        var keys = new int[chunks];
+        var containers = new Object[chunks];
+        long next = position + Integer.BYTES;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            keys[chunk] = bytes.getInt(next);
+            int rows = bytes.getInt(next + Integer.BYTES);
+            next += 2 * Integer.BYTES;
+            if (rows <= MAX_ARRAY_ROWS) {
+                var array = new char[rows];
+                for (int i = 0; i < rows; i++) {
+                    array[i] = (char) ColumnFormat.readCode(bytes, next, Short.BYTES);
+                    next += Short.BYTES;
+                }
+                containers[chunk] = array;
+            } else {
+                var words = new long[BITMAP_WORDS];
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    words[i] = bytes.getLong(next);
+                    next += Long.BYTES;
+                }
+                containers[chunk] = words;
+            }
+        }
+        return new RowBitmap(keys, containers, chunks);
+    }
+
+    /**
+     * Writes the bitmap to {@code output}.
+     */
+    void write(final ColumnOutput output) {
+        output.reserve(Integer.BYTES).putInt(chunks);
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            output.reserve(2 * Integer.BYTES).putInt(keys[chunk]).putInt(cardinality(containers[chunk]));
+            if (containers[chunk] instanceof char[] array) {
+                for (char low : array) {
+                    output.reserve(Short.BYTES).putShort((short) low);
+                }
+            } else {
+                for (long word : (long[]) containers[chunk]) {
+                    output.reserve(Long.BYTES).putLong(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the size of the bitmap in bytes, see {@link #write(ColumnOutput)}.
+     */
+    long bytes() {
+        long bytes = Integer.BYTES;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            bytes += 2 * Integer.BYTES;
+            bytes += containers[chunk] instanceof char[] array ? array.length * Short.BYTES : BITMAP_WORDS * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the number of rows.
+     */
+    long cardinality() {
+        long cardinality = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            cardinality += cardinality(containers[chunk]);
+        }
+        return cardinality;
+    }
+
+    /**
+     * @return the rows in ascending order.
+     */
+    long[] toArray() {
+        var rows = new long[Math.toIntExact(cardinality())];
+        int count = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            long high = (long) keys[chunk] << CHUNK_BITS;
+            if (containers[chunk] instanceof char[] array) {
+                for (char low : array) {
+                    rows[count++] = high | low;
+                }
+            } else {
+                var words = (long[]) containers[chunk];
+                for (int i = 0; i < BITMAP_WORDS; i++) {
+                    long word = words[i];
+                    while (word != 0) {
+                        rows[count++] = high | (long) i * Long.SIZE + Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @return the rows in this and the {@code other} bitmap.
+     */
+    RowBitmap and(final RowBitmap other) {
+        int capacity = Math.min(chunks, other.chunks);
+        var andKeys = new int[capacity];
+        var andContainers = new Object[capacity];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < chunks && j < other.chunks) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                var container = and(containers[i], other.containers[j]);
+                if (cardinality(container) > 0) {
+                    andKeys[count] = keys[i];
+                    andContainers[count++] = container;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new RowBitmap(andKeys, andContainers, count);
+    }
+
+    /**
+     * @return the rows in this or the {@code other} bitmap.
+     */
+    RowBitmap or(final RowBitmap other) {
+        int capacity = chunks + other.chunks;
+        var orKeys = new int[capacity];
+        var orContainers = new Object[capacity];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < chunks || j < other.chunks) {
+            if (j == other.chunks || i < chunks && keys[i] < other.keys[j]) {
+                orKeys[count] = keys[i];
+                orContainers[count++] = containers[i++];
+            } else if (i == chunks || other.keys[j] < keys[i]) {
+                orKeys[count] = other.keys[j];
+                orContainers[count++] = other.containers[j++];
+            } else {
+                orKeys[count] = keys[i];
+                orContainers[count++] = or(containers[i++], other.containers[j++]);
+            }
+        }
+        return new RowBitmap(orKeys, orContainers, count);
+    }
+
+    private static int cardinality(final Object container) {
+        if (container instanceof char[] array) {
+            return array.length;
+        }
+        int cardinality = 0;
+        for (long word : (long[]) container) {
+            cardinality += Long.bitCount(word);
+        }
+        return cardinality;
+    }
+
+    private static Object and(final Object a, final Object b) {
+        if (a instanceof char[] x && b instanceof char[] y) {
+            var both = new char[Math.min(x.length, y.length)];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < x.length && j < y.length) {
+                if (x[i] < y[j]) {
+                    i++;
+                } else if (x[i] > y[j]) {
+                    j++;
+                } else {
+                    both[count++] = x[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(both, count);
+        }
+        if (a instanceof char[] x) {
+            return retain(x, (long[]) b);
+        }
+        if (b instanceof char[] y) {
+            return retain(y, (long[]) a);
+        }
+        var x = (long[]) a;
+        var y = (long[]) b;
+        var words = new long[BITMAP_WORDS];
+        for (int i = 0; i < BITMAP_WORDS; i++) {
+            words[i] = x[i] & y[i];
+        }
+        return compact(words);
+    }
+
+    /**
+     * @return the rows of {@code array}, which are set in {@code words}.
+     */
+    private static char[] retain(final char[] array, final long[] words) {
+        var retained = new char[array.length];
+        int count = 0;
+        for (char low : array) {
+            if (ColumnFormat.isSet(words, low)) {
+                retained[count++] = low;
+            }
+        }
+        return Arrays.copyOf(retained, count);
+    }
+
+    private static Object or(final Object a, final Object b) {
+        if (a instanceof char[] x && b instanceof char[] y) {
+            var either = new char[x.length + y.length];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < x.length || j < y.length) {
+                if (j == y.length || i < x.length && x[i] < y[j]) {
+                    either[count++] = x[i++];
+                } else if (i == x.length || y[j] < x[i]) {
+                    either[count++] = y[j++];
+                } else {
+                    either[count++] = x[i];
+                    i++;
+                    j++;
+                }
+            }
+            return count <= MAX_ARRAY_ROWS ? Arrays.copyOf(either, count) : toBitmap(either, count);
+        }
+        var words = (a instanceof long[] x ? x : (long[]) b).clone();
+        var other = a instanceof long[] ? b : a;
+        if (other instanceof char[] array) {
+            for (char low : array) {
+                ColumnFormat.set(words, low);
+            }
+        } else {
+            var otherWords = (long[]) other;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                words[i] |= otherWords[i];
+            }
+        }
+        return words;
+    }
+
+    private static long[] toBitmap(final char[] array, final int count) {
+        var words = new long[BITMAP_WORDS];
+        for (int i = 0; i < count; i++) {
+            ColumnFormat.set(words, array[i]);
+        }
+        return words;
+    }
+
+    /**
+     * @return the container of the rows set in {@code words}, an array if there are few of them.
+     */
+    private static Object compact(final long[] words) {
+        int cardinality = cardinality(words);
+        if (cardinality > MAX_ARRAY_ROWS) {
+            return words;
+        }
+        var array = new char[cardinality];
+        int count = 0;
+        for (int i = 0; i < BITMAP_WORDS; i++) {
+            long word = words[i];
+            while (word != 0) {
+                array[count++] = (char) (i * Long.SIZE + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Collects rows in ascending order, chunk by chunk.
+     */
+    static final class Builder {
+
+        private static final int INITIAL_CHUNKS = 16;
+
+        private int[] keys = new int[INITIAL_CHUNKS];
+        private Object[] containers = new Object[INITIAL_CHUNKS];
+        private int chunks;
+        /** The rows of the current chunk. */
+        private final long[] words = new long[BITMAP_WORDS];
+        private int key = -1;
+
+        /**
+         * Adds {@code row}, which is not smaller than the rows added before.
+         */
+        void add(final long row) {
+            int rowKey = (int) (row >>> CHUNK_BITS);
+            if (rowKey != key) {
+                finishChunk();
+                key = rowKey;
+            }
+            ColumnFormat.set(words, (int) row & LOW_MASK);
+        }
+
+        private void finishChunk() {
+            if (key < 0) {
+                return;
+            }
+            if (chunks == keys.length) {
+                keys = Arrays.copyOf(keys, chunks * 2);
+                containers = Arrays.copyOf(containers, chunks * 2);
+            }
+            keys[chunks] = key;
+            containers[chunks++] = compact(words.clone());
+            Arrays.fill(words, 0);
+        }
+
+        /**
+         * @return the bitmap of the rows added so far.
+         */
+        RowBitmap build() {
+            finishChunk();
+            key = -1;
+            return new RowBitmap(Arrays.copyOf(keys, chunks), Arrays.copyOf(containers, chunks), chunks);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package column.store.inmemory;
+
+import column.store.api.write.StringColumnWriter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+final class StringBlockWriter extends BinaryBlockWriter implements StringColumnWriter {
+
+    StringBlockWriter(final ColumnOutput output, final int blockRows) {
+        super(output, blockRows);
+    }
+
+    @Override
+    public void write(final String value) {
+        append(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void writeAll(final byte[] bytes, final int[] offsets, final BitSet nulls, final int count) {
+        appendAll(bytes, offsets, nulls, count);
+    }
+
+    @Override
+    protected boolean dictionaryEncoded() {
+        return true;
+    }
+
+    @Override
+    protected boolean caseInsensitive() {
+        // StringFilters are case-insensitive
+        return true;
+    }
+}
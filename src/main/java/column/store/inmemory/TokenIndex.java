@@ -0,0 +1,319 @@
+package column.store.inmemory;
+
+import static column.store.util.Conditions.checkState;
+
+import column.store.api.column.Column;
+import column.store.api.column.StringColumn;
+import column.store.api.query.Query;
+import column.store.api.query.StringFilter;
+import column.store.api.query.Tokens;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Persistent full-text index of a {@link StringColumn}, which maps every term (see {@link Tokens}) to the rows it is in.
+ * A {@link StringFilter.MatchType#PHRASE} filter only matches a row, if the row has all terms of the phrase, so the
+ * intersection of their rows are the candidates, which have to be tested for the order of the terms.
+ *
+ * <p> It is stored in a sidecar file next to the column directories (see {@link #path(Path, Column)}), and built by
+ * {@link InMemoryWriter#tokenIndex(StringColumn)} or for existing data by {@link #build(Path, StringColumn)}.
+ *
+ * <pre>
+ * file header:  magic (int) | version (byte) | slots (int)
+ * slot:         hash (int) | position of the entry (long), -1 if the slot is empty
+ * entry:        term length (int) | term | rows (int) | rows: {@link Postings}
+ * </pre>
+ * The slots are an open addressing hash table with linear probing, the number of slots is a power of two larger than
+ * twice the number of terms. Terms are UTF-8 encoded.
+ */
+public final class TokenIndex {
+
+    /** "CSX1". */
+    static final int MAGIC = 0x43535831;
+    static final byte VERSION = 1;
+    static final int FILE_HEADER_BYTES = Integer.BYTES + Byte.BYTES + Integer.BYTES;
+    static final int SLOT_BYTES = Integer.BYTES + Long.BYTES;
+
+    private static final String DIRECTORY = "tokens";
+    private static final long EMPTY = -1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Bytes bytes;
+    private final int slots;
+
+    private TokenIndex(final Bytes bytes, final int slots) {
+        this.bytes = bytes;
+        this.slots = slots;
+    }
+
+    /**
+     * @return the path of the index of {@code column}.
+     */
+    static Path path(final Path root, final Column column) {
+        return root.resolve(DIRECTORY).resolve(column.type().name()).resolve(column.name());
+    }
+
+    /**
+     * Builds the index of {@code column} of the records in {@code root}, replacing an existing index.
+     */
+    public static void build(final Path root, final StringColumn column) throws IOException {
+        var builder = new Builder();
+        try (var reader = new InMemoryReader(InMemoryReader.Mode.MAPPED)) {
+            reader.query(Query.from(root).select(column).allOf());
+            var vector = reader.of(column).vector();
+            long row = 0;
+            int rows;
+            while ((rows = reader.nextBatch(ColumnFormat.DEFAULT_BLOCK_ROWS)) > 0) {
+                for (int i = 0; i < rows; i++) {
+                    if (!vector.isNull(i)) {
+                        builder.add(vector.bytes(), vector.offset(i), vector.length(i), row + i);
+                    }
+                }
+                row += rows;
+            }
+        }
+        builder.write(path(root, column));
+    }
+
+    /**
+     * @return the index read from {@code bytes}.
+     */
+    static TokenIndex read(final Bytes bytes) {
+        checkState(bytes.size() >= FILE_HEADER_BYTES && bytes.getInt(0) == MAGIC, "Not a token index");
+        byte version = bytes.get(Integer.BYTES);
+        checkState(version == VERSION, "Unsupported version " + version + " of token index");
+        return new TokenIndex(bytes, bytes.getInt(Integer.BYTES + Byte.BYTES));
+    }
+
+    /**
+     * @return the rows with all {@code terms} in ascending order, empty if a term is not in any row.
+     */
+    long[] rows(final List<String> terms) {
+        var entries = new long[terms.size()];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = entryOf(terms.get(i).getBytes(StandardCharsets.UTF_8));
+            if (entries[i] == EMPTY) {
+                return new long[0];
+            }
+        }
+        // the rarest term first, so that the candidates only get fewer
+        var byRows = Arrays.stream(entries).distinct().boxed()
+                .sorted(Comparator.comparingInt(this::rowCount))
+                .mapToLong(Long::longValue)
+                .toArray();
+        long[] rows = rowsOf(byRows[0]);
+        for (int i = 1; i < byRows.length && rows.length > 0; i++) {
+            rows = Postings.intersect(rows, rowsOf(byRows[i]));
+        }
+        return rows;
+    }
+
+    /**
+     * @return the position of the number of rows of the entry of {@code term}, {@link #EMPTY} if it has no entry.
+     */
+    private long entryOf(final byte[] term) {
+        int hash = ColumnFormat.hash(term, 0, term.length);
+        int mask = slots - 1;
+        for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+            long position = FILE_HEADER_BYTES + (long) slot * SLOT_BYTES;
+            long entry = bytes.getLong(position + Integer.BYTES);
+            if (entry == EMPTY) {
+                return EMPTY;
+            }
+            if (bytes.getInt(position) == hash && bytes.getInt(entry) == term.length && bytes.equals(entry + Integer.BYTES, term)) {
+                return entry + Integer.BYTES + term.length;
+            }
+        }
+    }
+
+    private int rowCount(final long entry) {
+        return bytes.getInt(entry);
+    }
+
+    private long[] rowsOf(final long entry) {
+        return Postings.read(bytes, entry + Integer.BYTES, rowCount(entry));
+    }
+
+    /**
+     * Collects the rows of every term in memory, in the order they are added.
+     */
+    static final class Builder {
+
+        private static final int NONE = -1;
+        private static final int INITIAL_TERMS = 1024;
+        private static final int INITIAL_BYTES = 64 * 1024;
+        private static final int INITIAL_ROW_BYTES = 16;
+        private static final int CASE_OFFSET = 'a' - 'A';
+
+        /** Open addressing hash table of terms, at most half full. */
+        private int[] table = new int[2 * INITIAL_TERMS];
+        private byte[] data = new byte[INITIAL_BYTES];
+        private int dataLength;
+        private int terms;
+        private int[] offsets = new int[INITIAL_TERMS];
+        private int[] lengths = new int[INITIAL_TERMS];
+        private int[] hashes = new int[INITIAL_TERMS];
+        private int[] rowCounts = new int[INITIAL_TERMS];
+        private long[] lastRows = new long[INITIAL_TERMS];
+        /** {@link Postings} of every term. */
+        private byte[][] rows = new byte[INITIAL_TERMS][];
+        private int[] rowBytes = new int[INITIAL_TERMS];
+        /** The current term of an ASCII value, converted to lowercase. */
+        private byte[] term = new byte[INITIAL_ROW_BYTES];
+
+        Builder() {
+            Arrays.fill(table, NONE);
+        }
+
+        /**
+         * Adds {@code row} to the rows of the terms of the value of {@code length} bytes starting at {@code offset}.
+         * Rows have to be added in ascending order.
+         */
+        void add(final byte[] value, final int offset, final int length, final long row) {
+            if (!ZoneMap.isAscii(value, offset, length)) {
+                // terms of non ASCII characters are not split byte by byte
+                for (var token : Tokens.of(new String(value, offset, length, StandardCharsets.UTF_8))) {
+                    var utf8 = token.getBytes(StandardCharsets.UTF_8);
+                    add(utf8, utf8.length, row);
+                }
+                return;
+            }
+            int termLength = 0;
+            for (int i = offset; i < offset + length; i++) {
+                byte b = value[i];
+                if (Tokens.isTokenChar(b)) {
+                    if (termLength == term.length) {
+                        term = Arrays.copyOf(term, term.length * 2);
+                    }
+                    term[termLength++] = b >= 'A' && b <= 'Z' ? (byte) (b + CASE_OFFSET) : b;
+                } else if (termLength > 0) {
+                    add(term, termLength, row);
+                    termLength = 0;
+                }
+            }
+            if (termLength > 0) {
+                add(term, termLength, row);
+            }
+        }
+
+        private void add(final byte[] value, final int length, final long row) {
+            int id = idOf(value, length);
+            if (rowCounts[id] > 0 && lastRows[id] == row) {
+                return;
+            }
+            if (rowBytes[id] + ColumnFormat.MAX_VARINT_BYTES > rows[id].length) {
+                rows[id] = Arrays.copyOf(rows[id], rows[id].length * 2);
+            }
+            rowBytes[id] = Postings.putVarint(rows[id], rowBytes[id], row - lastRows[id]);
+            lastRows[id] = row;
+            rowCounts[id]++;
+        }
+
+        private int idOf(final byte[] value, final int length) {
+            int hash = ColumnFormat.hash(value, 0, length);
+            int slot = hash & (table.length - 1);
+            while (table[slot] != NONE && !equals(table[slot], hash, value, length)) {
+                slot = (slot + 1) & (table.length - 1);
+            }
+            if (table[slot] != NONE) {
+                return table[slot];
+            }
+            int id = newTerm(value, length, hash);
+            table[slot] = id;
+            if (2 * terms > table.length) {
+                table = rehash(table.length * 2);
+            }
+            return id;
+        }
+
+        private boolean equals(final int id, final int hash, final byte[] value, final int length) {
+            return hashes[id] == hash && lengths[id] == length
+                    && Arrays.equals(data, offsets[id], offsets[id] + length, value, 0, length);
+        }
+
+        private int newTerm(final byte[] value, final int length, final int hash) {
+            if (terms == offsets.length) {
+                offsets = Arrays.copyOf(offsets, terms * 2);
+                lengths = Arrays.copyOf(lengths, terms * 2);
+                hashes = Arrays.copyOf(hashes, terms * 2);
+                rowCounts = Arrays.copyOf(rowCounts, terms * 2);
+                lastRows = Arrays.copyOf(lastRows, terms * 2);
+                rows = Arrays.copyOf(rows, terms * 2);
+                rowBytes = Arrays.copyOf(rowBytes, terms * 2);
+            }
+            if (dataLength + length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, dataLength + length));
+            }
+            System.arraycopy(value, 0, data, dataLength, length);
+            offsets[terms] = dataLength;
+            lengths[terms] = length;
+            hashes[terms] = hash;
+            rows[terms] = new byte[INITIAL_ROW_BYTES];
+            dataLength += length;
+            return terms++;
+        }
+
+        /**
+         * @return a hash table of all terms with {@code slots} slots.
+         */
+        private int[] rehash(final int slots) {
+            var rehashed = new int[slots];
+            Arrays.fill(rehashed, NONE);
+            for (int id = 0; id < terms; id++) {
+                int slot = hashes[id] & (slots - 1);
+                while (rehashed[slot] != NONE) {
+                    slot = (slot + 1) & (slots - 1);
+                }
+                rehashed[slot] = id;
+            }
+            return rehashed;
+        }
+
+        /**
+         * Writes the index to {@code file}.
+         */
+        void write(final Path file) throws IOException {
+            int[] slots = rehash(Math.max(table.length, Integer.highestOneBit(Math.max(1, terms)) << 2));
+            var entries = new long[terms];
+            long position = FILE_HEADER_BYTES + (long) slots.length * SLOT_BYTES;
+            for (int id = 0; id < terms; id++) {
+                entries[id] = position;
+                position += Integer.BYTES + lengths[id] + Integer.BYTES + rowBytes[id];
+            }
+
+            Files.createDirectories(file.getParent());
+            var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            var output = new ColumnOutput(channel, ByteBuffer.allocateDirect(BUFFER_SIZE));
+            try {
+                output.reserve(FILE_HEADER_BYTES)
+                        .putInt(MAGIC)
+                        .put(VERSION)
+                        .putInt(slots.length);
+                for (int id : slots) {
+                    output.reserve(SLOT_BYTES)
+                            .putInt(id == NONE ? 0 : hashes[id])
+                            .putLong(id == NONE ? EMPTY : entries[id]);
+                }
+                for (int id = 0; id < terms; id++) {
+                    output.reserve(Integer.BYTES).putInt(lengths[id]);
+                    output.put(data, offsets[id], lengths[id]);
+                    output.reserve(Integer.BYTES).putInt(rowCounts[id]);
+                    output.put(rows[id], 0, rowBytes[id]);
+                }
+                output.flush();
+            } finally {
+                output.close();
+            }
+        }
+    }
+}
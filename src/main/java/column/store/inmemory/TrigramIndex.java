@@ -0,0 +1,321 @@
+package column.store.inmemory;
+
+import static column.store.util.Conditions.checkState;
+
+import column.store.api.column.Column;
+import column.store.api.column.StringColumn;
+import column.store.api.query.Query;
+import column.store.api.query.StringFilter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Persistent inverted index of the trigrams of a {@link StringColumn}, which maps every three bytes of the UTF-8 encoded
+ * lowercase values to the rows they are in. A {@link StringFilter} only matches a row, if the row contains all trigrams
+ * of the filter value, so the intersection of their rows are the candidates, which have to be tested.
+ * {@link StringFilter.MatchType#CONTAINS} does not have to test any other row; it also holds for the other match types.
+ * Values shorter than a trigram cannot be looked up.
+ *
+ * <p> It is stored in a sidecar file next to the column directories (see {@link #path(Path, Column)}), and built by
+ * {@link InMemoryWriter#trigramIndex(StringColumn)} or for existing data by {@link #build(Path, StringColumn)}.
+ *
+ * <pre>
+ * file header:  magic (int) | version (byte) | trigrams (int)
+ * entry:        trigram (int) | position of the rows (long) | rows (int)
+ * rows:         {@link Postings}
+ * </pre>
+ * Entries are sorted by trigram, whose bytes are the three low bytes of the int.
+ */
+public final class TrigramIndex {
+
+    /** "CST1". */
+    static final int MAGIC = 0x43535431;
+    static final byte VERSION = 1;
+    static final int FILE_HEADER_BYTES = Integer.BYTES + Byte.BYTES + Integer.BYTES;
+    static final int ENTRY_BYTES = Integer.BYTES + Long.BYTES + Integer.BYTES;
+    static final int TRIGRAM_BYTES = 3;
+
+    private static final String DIRECTORY = "trigrams";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int CASE_OFFSET = 'a' - 'A';
+
+    private final Bytes bytes;
+    private final int trigrams;
+
+    private TrigramIndex(final Bytes bytes, final int trigrams) {
+        this.bytes = bytes;
+        this.trigrams = trigrams;
+    }
+
+    /**
+     * @return the path of the index of {@code column}.
+     */
+    static Path path(final Path root, final Column column) {
+        return root.resolve(DIRECTORY).resolve(column.type().name()).resolve(column.name());
+    }
+
+    /**
+     * Builds the index of {@code column} of the records in {@code root}, replacing an existing index.
+     */
+    public static void build(final Path root, final StringColumn column) throws IOException {
+        var builder = new Builder();
+        try (var reader = new InMemoryReader(InMemoryReader.Mode.MAPPED)) {
+            reader.query(Query.from(root).select(column).allOf());
+            var vector = reader.of(column).vector();
+            long row = 0;
+            int rows;
+            while ((rows = reader.nextBatch(ColumnFormat.DEFAULT_BLOCK_ROWS)) > 0) {
+                for (int i = 0; i < rows; i++) {
+                    if (!vector.isNull(i)) {
+                        builder.add(vector.bytes(), vector.offset(i), vector.length(i), row + i);
+                    }
+                }
+                row += rows;
+            }
+        }
+        builder.write(path(root, column));
+    }
+
+    /**
+     * @return the index read from {@code bytes}.
+     */
+    static TrigramIndex read(final Bytes bytes) {
+        checkState(bytes.size() >= FILE_HEADER_BYTES && bytes.getInt(0) == MAGIC, "Not a trigram index");
+        byte version = bytes.get(Integer.BYTES);
+        checkState(version == VERSION, "Unsupported version " + version + " of trigram index");
+        return new TrigramIndex(bytes, bytes.getInt(Integer.BYTES + Byte.BYTES));
+    }
+
+    private static int trigram(final byte[] value, final int offset) {
+        return (value[offset] & BYTE_MASK) << (2 * Byte.SIZE) | (value[offset + 1] & BYTE_MASK) << Byte.SIZE
+                | value[offset + 2] & BYTE_MASK;
+    }
+
+    /**
+     * @return the rows, which contain all trigrams of the lowercase {@code value}, in ascending order, {@code null} if
+     * {@code value} is shorter than a trigram.
+     */
+    long[] rows(final String value) {
+        var utf8 = value.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length < TRIGRAM_BYTES) {
+            return null;
+        }
+        var entries = new int[utf8.length - TRIGRAM_BYTES + 1];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = entryOf(trigram(utf8, i));
+            if (entries[i] < 0) {
+                return new long[0];
+            }
+        }
+        // the rarest trigram first, so that the candidates only get fewer
+        var byRows = Arrays.stream(entries).distinct().boxed()
+                .sorted((a, b) -> Integer.compare(rowCount(a), rowCount(b)))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        long[] rows = rowsOf(byRows[0]);
+        for (int i = 1; i < byRows.length && rows.length > 0; i++) {
+            rows = Postings.intersect(rows, rowsOf(byRows[i]));
+        }
+        return rows;
+    }
+
+    /**
+     * @return the entry of {@code trigram}, {@code -1} if no row contains it.
+     */
+    private int entryOf(final int trigram) {
+        int low = 0;
+        int high = trigrams - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int found = bytes.getInt(FILE_HEADER_BYTES + (long) middle * ENTRY_BYTES);
+            if (found < trigram) {
+                low = middle + 1;
+            } else if (found > trigram) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int rowCount(final int entry) {
+        return bytes.getInt(FILE_HEADER_BYTES + (long) entry * ENTRY_BYTES + Integer.BYTES + Long.BYTES);
+    }
+
+    private long[] rowsOf(final int entry) {
+        long position = bytes.getLong(FILE_HEADER_BYTES + (long) entry * ENTRY_BYTES + Integer.BYTES);
+        return Postings.read(bytes, position, rowCount(entry));
+    }
+
+    /**
+     * Collects the rows of every trigram in memory, in the order they are added.
+     */
+    static final class Builder {
+
+        private static final int NONE = -1;
+        private static final int INITIAL_TRIGRAMS = 1024;
+        private static final int INITIAL_ROW_BYTES = 16;
+        /** Spreads the bytes of a trigram to the low bits, which select the slot. */
+        private static final int HASH_MULTIPLIER = 0x9E3779B9;
+
+        /** Open addressing hash table of trigrams, at most half full. */
+        private int[] table = new int[2 * INITIAL_TRIGRAMS];
+        private int ids;
+        private int[] trigrams = new int[INITIAL_TRIGRAMS];
+        private int[] rowCounts = new int[INITIAL_TRIGRAMS];
+        private long[] lastRows = new long[INITIAL_TRIGRAMS];
+        /** Varint differences of the rows of every trigram. */
+        private byte[][] rows = new byte[INITIAL_TRIGRAMS][];
+        private int[] rowBytes = new int[INITIAL_TRIGRAMS];
+        /** The value converted to lowercase. */
+        private byte[] lowercase = new byte[INITIAL_ROW_BYTES];
+
+        Builder() {
+            Arrays.fill(table, NONE);
+        }
+
+        /**
+         * Adds {@code row} to the rows of the trigrams of the lowercase value of {@code length} bytes starting at
+         * {@code offset}. Rows have to be added in ascending order.
+         */
+        void add(final byte[] value, final int offset, final int length, final long row) {
+            int lowercaseLength = toLowercase(value, offset, length);
+            for (int i = 0; i + TRIGRAM_BYTES <= lowercaseLength; i++) {
+                int id = idOf(trigram(lowercase, i));
+                if (rowCounts[id] > 0 && lastRows[id] == row) {
+                    continue;
+                }
+                addRow(id, row - lastRows[id]);
+                lastRows[id] = row;
+                rowCounts[id]++;
+            }
+        }
+
+        /**
+         * Converts the value to lowercase into {@link #lowercase}, as {@link StringFilter} values are lowercase.
+         *
+         * @return the number of bytes of the lowercase value.
+         */
+        private int toLowercase(final byte[] value, final int offset, final int length) {
+            if (!ZoneMap.isAscii(value, offset, length)) {
+                // lowercase of non ASCII characters is not a byte by byte conversion
+                var converted = new String(value, offset, length, StandardCharsets.UTF_8)
+                        .toLowerCase(Locale.ROOT)
+                        .getBytes(StandardCharsets.UTF_8);
+                ensureCapacity(converted.length);
+                System.arraycopy(converted, 0, lowercase, 0, converted.length);
+                return converted.length;
+            }
+            ensureCapacity(length);
+            for (int i = 0; i < length; i++) {
+                byte b = value[offset + i];
+                lowercase[i] = b >= 'A' && b <= 'Z' ? (byte) (b + CASE_OFFSET) : b;
+            }
+            return length;
+        }
+
+        private void ensureCapacity(final int length) {
+            if (length > lowercase.length) {
+                lowercase = new byte[Math.max(length, lowercase.length * 2)];
+            }
+        }
+
+        private static int slotOf(final int trigram, final int slots) {
+            int hash = trigram * HASH_MULTIPLIER;
+            return (hash ^ hash >>> Short.SIZE) & (slots - 1);
+        }
+
+        private int idOf(final int trigram) {
+            int slot = slotOf(trigram, table.length);
+            while (table[slot] != NONE && trigrams[table[slot]] != trigram) {
+                slot = (slot + 1) & (table.length - 1);
+            }
+            if (table[slot] != NONE) {
+                return table[slot];
+            }
+            if (ids == trigrams.length) {
+                trigrams = Arrays.copyOf(trigrams, ids * 2);
+                rowCounts = Arrays.copyOf(rowCounts, ids * 2);
+                lastRows = Arrays.copyOf(lastRows, ids * 2);
+                rows = Arrays.copyOf(rows, ids * 2);
+                rowBytes = Arrays.copyOf(rowBytes, ids * 2);
+            }
+            trigrams[ids] = trigram;
+            rows[ids] = new byte[INITIAL_ROW_BYTES];
+            table[slot] = ids;
+            ids++;
+            if (2 * ids > table.length) {
+                rehash(table.length * 2);
+            }
+            return ids - 1;
+        }
+
+        private void rehash(final int slots) {
+            table = new int[slots];
+            Arrays.fill(table, NONE);
+            for (int id = 0; id < ids; id++) {
+                int slot = slotOf(trigrams[id], slots);
+                while (table[slot] != NONE) {
+                    slot = (slot + 1) & (slots - 1);
+                }
+                table[slot] = id;
+            }
+        }
+
+        private void addRow(final int id, final long delta) {
+            if (rowBytes[id] + ColumnFormat.MAX_VARINT_BYTES > rows[id].length) {
+                rows[id] = Arrays.copyOf(rows[id], rows[id].length * 2);
+            }
+            rowBytes[id] = Postings.putVarint(rows[id], rowBytes[id], delta);
+        }
+
+        /**
+         * Writes the index to {@code file}.
+         */
+        void write(final Path file) throws IOException {
+            // trigrams are positive, the id is in the low bits
+            var sorted = new long[ids];
+            for (int id = 0; id < ids; id++) {
+                sorted[id] = (long) trigrams[id] << Integer.SIZE | id;
+            }
+            Arrays.sort(sorted);
+
+            Files.createDirectories(file.getParent());
+            var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            var output = new ColumnOutput(channel, ByteBuffer.allocateDirect(BUFFER_SIZE));
+            try {
+                output.reserve(FILE_HEADER_BYTES)
+                        .putInt(MAGIC)
+                        .put(VERSION)
+                        .putInt(ids);
+                long position = FILE_HEADER_BYTES + (long) ids * ENTRY_BYTES;
+                for (long entry : sorted) {
+                    int id = (int) entry;
+                    output.reserve(ENTRY_BYTES)
+                            .putInt(trigrams[id])
+                            .putLong(position)
+                            .putInt(rowCounts[id]);
+                    position += rowBytes[id];
+                }
+                for (long entry : sorted) {
+                    int id = (int) entry;
+                    output.put(rows[id], 0, rowBytes[id]);
+                }
+                output.flush();
+            } finally {
+                output.close();
+            }
+        }
+    }
+}
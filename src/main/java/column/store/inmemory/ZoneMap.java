@@ -0,0 +1,301 @@
+package column.store.inmemory;
+
+import static column.store.util.Conditions.checkState;
+
+import column.store.api.column.Column;
+import column.store.api.query.DoubleFilter;
+import column.store.api.query.Filter;
+import column.store.api.query.IdFilter;
+import column.store.api.query.LongFilter;
+import column.store.api.query.StringFilter;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Per-block statistics of a column file, stored in a sidecar file next to the column directories
+ * (see {@link #path(Path, Column)}), so that blocks can be skipped without reading them.
+ *
+ * <pre>
+ * file header:  magic (int) | version (byte)
+ * entry:        position (long) | rows (int) | nulls (int) | bounds
+ * </pre>
+ * There is an entry for every block of the column file, {@code position} is the position of the block in the column file.
+ * Bounds are only written if the block has a present value:
+ * <ul>
+ *     <li>long and double columns: min | max, ignoring {@code NaN}s</li>
+ *     <li>id and string columns: min length (int) | min | max length (int) | max. String bounds are bounds of the
+ *     lowercase values, as {@link StringFilter}s are case-insensitive. Bounds longer than {@link #MAX_BOUND_BYTES} are
+ *     truncated, the max bound is incremented, so that it is still larger than all values.</li>
+ * </ul>
+ * Boolean columns have no zone map.
+ */
+final class ZoneMap {
+
+    /** "CSZ1". */
+    static final int MAGIC = 0x43535A31;
+    static final byte VERSION = 1;
+    static final int FILE_HEADER_BYTES = Integer.BYTES + Byte.BYTES;
+    static final int ENTRY_BYTES = Long.BYTES + Integer.BYTES + Integer.BYTES;
+    static final int MAX_BOUND_BYTES = 32;
+
+    private static final String DIRECTORY = "zones";
+    private static final int INITIAL_BLOCKS = 16;
+    private static final int BYTE_MASK = 0xFF;
+    private static final int ASCII_MASK = 0x80;
+    private static final int CASE_OFFSET = 'a' - 'A';
+
+    private final Column.Type type;
+    private int blocks;
+    private long[] positions = new long[INITIAL_BLOCKS];
+    private int[] rows = new int[INITIAL_BLOCKS];
+    private int[] nulls = new int[INITIAL_BLOCKS];
+    /** Bounds of long columns, or the raw bits of the bounds of double columns. */
+    private long[] mins;
+    private long[] maxs;
+    private byte[][] minBytes;
+    private byte[][] maxBytes;
+
+    private ZoneMap(final Column.Type type) {
+        this.type = type;
+    }
+
+    /**
+     * @return the path of the zone map of {@code column}.
+     */
+    static Path path(final Path root, final Column column) {
+        return root.resolve(DIRECTORY).resolve(column.type().name()).resolve(column.name());
+    }
+
+    static void writeFileHeader(final ColumnOutput zones) {
+        zones.reserve(FILE_HEADER_BYTES)
+                .putInt(MAGIC)
+                .put(VERSION);
+    }
+
+    static void writeEntry(final ColumnOutput zones, final long position, final int rows, final int nulls) {
+        zones.reserve(ENTRY_BYTES)
+                .putLong(position)
+                .putInt(rows)
+                .putInt(nulls);
+    }
+
+    static void writeBounds(final ColumnOutput zones, final long min, final long max) {
+        zones.reserve(2 * Long.BYTES)
+                .putLong(min)
+                .putLong(max);
+    }
+
+    static void writeBounds(final ColumnOutput zones, final double min, final double max) {
+        zones.reserve(2 * Double.BYTES)
+                .putDouble(min)
+                .putDouble(max);
+    }
+
+    /**
+     * Writes the {@code length} bytes of {@code value} starting at {@code offset} as a bound, truncated to
+     * {@link #MAX_BOUND_BYTES}. {@code fold} converts ASCII letters to lowercase.
+     */
+    static void writeBound(final ColumnOutput zones, final byte[] value, final int offset, final int length,
+                           final boolean fold, final boolean upper) {
+        var bound = Arrays.copyOfRange(value, offset, offset + length);
+        if (fold) {
+            for (int i = 0; i < bound.length; i++) {
+                bound[i] = fold(bound[i]);
+            }
+        }
+        if (bound.length > MAX_BOUND_BYTES) {
+            bound = upper ? truncateUpper(bound) : Arrays.copyOf(bound, MAX_BOUND_BYTES);
+        }
+        zones.reserve(Integer.BYTES).putInt(bound.length);
+        zones.put(bound, 0, bound.length);
+    }
+
+    /**
+     * @return the shortest prefix of {@code bound} with at most {@link #MAX_BOUND_BYTES} bytes, whose last byte is
+     * incremented, or {@code bound} itself if there is no such prefix.
+     */
+    private static byte[] truncateUpper(final byte[] bound) {
+        for (int i = MAX_BOUND_BYTES - 1; i >= 0; i--) {
+            if (bound[i] != (byte) BYTE_MASK) {
+                var truncated = Arrays.copyOf(bound, i + 1);
+                truncated[i]++;
+                return truncated;
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * @return whether the {@code length} bytes starting at {@code offset} are ASCII, so that converting them to lowercase
+     * is the same as {@link #fold(byte) folding} every byte.
+     */
+    static boolean isAscii(final byte[] value, final int offset, final int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if ((value[i] & ASCII_MASK) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares two byte ranges as unsigned bytes, {@code fold} compares ASCII letters case-insensitively.
+     */
+    static int compare(final byte[] a, final int aOffset, final int aLength,
+                       final byte[] b, final int bOffset, final int bLength, final boolean fold) {
+        if (!fold) {
+            return Arrays.compareUnsigned(a, aOffset, aOffset + aLength, b, bOffset, bOffset + bLength);
+        }
+        int length = Math.min(aLength, bLength);
+        for (int i = 0; i < length; i++) {
+            int difference = (fold(a[aOffset + i]) & BYTE_MASK) - (fold(b[bOffset + i]) & BYTE_MASK);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return aLength - bLength;
+    }
+
+    static byte fold(final byte value) {
+        return value >= 'A' && value <= 'Z' ? (byte) (value + CASE_OFFSET) : value;
+    }
+
+    /**
+     * @return the zone map of a column of {@code type}, read from {@code bytes}.
+     */
+    static ZoneMap read(final Bytes bytes, final Column.Type type) {
+        checkState(bytes.size() >= FILE_HEADER_BYTES && bytes.getInt(0) == MAGIC, "Not a zone map");
+        byte version = bytes.get(Integer.BYTES);
+        checkState(version == VERSION, "Unsupported version " + version + " of zone map");
+        var zoneMap = new ZoneMap(type);
+        boolean binary = type == Column.Type.ID || type == Column.Type.STRING;
+        if (binary) {
+            zoneMap.minBytes = new byte[INITIAL_BLOCKS][];
+            zoneMap.maxBytes = new byte[INITIAL_BLOCKS][];
+        } else {
+            zoneMap.mins = new long[INITIAL_BLOCKS];
+            zoneMap.maxs = new long[INITIAL_BLOCKS];
+        }
+        long position = FILE_HEADER_BYTES;
+        // an incomplete entry of a file, which is still written, is ignored
+        while (position + ENTRY_BYTES <= bytes.size()) {
+            int block = zoneMap.blocks;
+            zoneMap.ensureCapacity(block + 1);
+            zoneMap.positions[block] = bytes.getLong(position);
+            zoneMap.rows[block] = bytes.getInt(position + Long.BYTES);
+            zoneMap.nulls[block] = bytes.getInt(position + Long.BYTES + Integer.BYTES);
+            position += ENTRY_BYTES;
+            if (zoneMap.nulls[block] < zoneMap.rows[block]) {
+                if (binary) {
+                    zoneMap.minBytes[block] = readBound(bytes, position);
+                    position += Integer.BYTES + zoneMap.minBytes[block].length;
+                    zoneMap.maxBytes[block] = readBound(bytes, position);
+                    position += Integer.BYTES + zoneMap.maxBytes[block].length;
+                } else {
+                    zoneMap.mins[block] = bytes.getLong(position);
+                    zoneMap.maxs[block] = bytes.getLong(position + Long.BYTES);
+                    position += 2 * Long.BYTES;
+                }
+            }
+            zoneMap.blocks++;
+        }
+        return zoneMap;
+    }
+
+    private static byte[] readBound(final Bytes bytes, final long position) {
+        var bound = new byte[bytes.getInt(position)];
+        bytes.get(position + Integer.BYTES, bound, 0, bound.length);
+        return bound;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity <= positions.length) {
+            return;
+        }
+        int length = positions.length * 2;
+        positions = Arrays.copyOf(positions, length);
+        rows = Arrays.copyOf(rows, length);
+        nulls = Arrays.copyOf(nulls, length);
+        if (mins != null) {
+            mins = Arrays.copyOf(mins, length);
+            maxs = Arrays.copyOf(maxs, length);
+        } else {
+            minBytes = Arrays.copyOf(minBytes, length);
+            maxBytes = Arrays.copyOf(maxBytes, length);
+        }
+    }
+
+    /**
+     * @return the number of blocks with an entry.
+     */
+    int blocks() {
+        return blocks;
+    }
+
+    /**
+     * @return the position of {@code block} in the column file.
+     */
+    long position(final int block) {
+        return positions[block];
+    }
+
+    /**
+     * @return whether a value of {@code block} may match {@code filter}. {@code false} means that no value matches.
+     */
+    boolean mayMatch(final int block, final Filter filter) {
+        if (block >= blocks) {
+            return true;
+        }
+        if (nulls[block] == rows[block]) {
+            // null never matches
+            return false;
+        }
+        return switch (filter) {
+            case DoubleFilter doubleFilter -> type == Column.Type.DOUBLE && mayMatch(block, doubleFilter);
+            case IdFilter idFilter -> type == Column.Type.ID && mayMatch(block, idFilter);
+            case LongFilter longFilter -> type == Column.Type.LONG && mayMatch(block, longFilter);
+            case StringFilter stringFilter -> type == Column.Type.STRING && mayMatch(block, stringFilter);
+            default -> true;
+        };
+    }
+
+    private boolean mayMatch(final int block, final DoubleFilter filter) {
+        double min = Double.longBitsToDouble(mins[block]);
+        double max = Double.longBitsToDouble(maxs[block]);
+        return switch (filter.matchType()) {
+            case LESS_THAN -> min < filter.upperBound();
+            case GREATER_THAN -> max > filter.lowerBound();
+            case BETWEEN -> max >= filter.lowerBound() && min < filter.upperBound();
+        };
+    }
+
+    private boolean mayMatch(final int block, final IdFilter filter) {
+        var id = filter.id();
+        return Arrays.compareUnsigned(id, minBytes[block]) >= 0 && Arrays.compareUnsigned(id, maxBytes[block]) <= 0;
+    }
+
+    private boolean mayMatch(final int block, final LongFilter filter) {
+        long min = mins[block];
+        long max = maxs[block];
+        return switch (filter.matchType()) {
+            case LESS_THAN -> min < filter.upperBound();
+            case GREATER_THAN -> max > filter.lowerBound();
+            case BETWEEN -> max >= filter.lowerBound() && min < filter.upperBound();
+        };
+    }
+
+    private boolean mayMatch(final int block, final StringFilter filter) {
+        var value = filter.value().getBytes(StandardCharsets.UTF_8);
+        var min = minBytes[block];
+        var max = maxBytes[block];
+        return switch (filter.matchType()) {
+            case IS -> Arrays.compareUnsigned(value, min) >= 0 && Arrays.compareUnsigned(value, max) <= 0;
+            // all values with the prefix are in [value, value + 0xFF...)
+            case STARTS_WITH -> Arrays.compareUnsigned(max, value) >= 0
+                    && Arrays.compareUnsigned(min, 0, Math.min(min.length, value.length), value, 0, value.length) <= 0;
+            case ENDS_WITH, CONTAINS, PHRASE -> true;
+        };
+    }
+}
@@ -0,0 +1,209 @@
+package column.store.parquet;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.SeekableInputStream;
+
+/**
+ * {@link InputFile} of a local file, which is read with a {@link FileChannel} instead of a hadoop file system. There is
+ * no checksum file and no hadoop configuration involved.
+ */
+public final class LocalInputFile implements InputFile {
+
+  private final Path path;
+  private final Mode mode;
+
+  public LocalInputFile(final Path path, final Mode mode) {
+    this.path = path;
+    this.mode = mode;
+  }
+
+  public LocalInputFile(final Path path) {
+    this(path, Mode.CHANNEL);
+  }
+
+  public enum Mode {
+    /** Reads every requested range of the file with a positional read. */
+    CHANNEL,
+    /** Memory maps the file, the OS pages it in on demand. */
+    MAPPED,
+  }
+
+  @Override
+  public long getLength() throws IOException {
+    return Files.size(path);
+  }
+
+  @Override
+  public SeekableInputStream newStream() throws IOException {
+    var channel = FileChannel.open(path, StandardOpenOption.READ);
+    if (mode == Mode.CHANNEL) {
+      return new ChannelInputStream(channel);
+    }
+    try (channel) {
+      // the mapping stays valid after the channel is closed
+      return new MappedInputStream(channel);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return path.toString();
+  }
+
+  /**
+   * {@link SeekableInputStream} of {@link #length} bytes, which reads at its position.
+   */
+  private abstract static class LocalInputStream extends SeekableInputStream {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private final long length;
+    private final ByteBuffer single = ByteBuffer.allocate(1);
+    private long position;
+
+    LocalInputStream(final long length) {
+      this.length = length;
+    }
+
+    /**
+     * Reads at least one and at most {@code dst.remaining()} bytes at {@code at}, which is before the end.
+     *
+     * @return the number of bytes read.
+     */
+    protected abstract int read(long at, ByteBuffer dst) throws IOException;
+
+    @Override
+    public long getPos() {
+      return position;
+    }
+
+    @Override
+    public void seek(final long newPos) {
+      position = newPos;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (position >= length) {
+        return -1;
+      }
+      single.clear();
+      position += read(position, single);
+      return single.get(0) & BYTE_MASK;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int len) throws IOException {
+      return read(ByteBuffer.wrap(bytes, offset, len));
+    }
+
+    @Override
+    public int read(final ByteBuffer buf) throws IOException {
+      if (!buf.hasRemaining()) {
+        return 0;
+      }
+      if (position >= length) {
+        return -1;
+      }
+      int count = read(position, buf.slice().limit((int) Math.min(buf.remaining(), length - position)));
+      buf.position(buf.position() + count);
+      position += count;
+      return count;
+    }
+
+    @Override
+    public void readFully(final byte[] bytes) throws IOException {
+      readFully(ByteBuffer.wrap(bytes));
+    }
+
+    @Override
+    public void readFully(final byte[] bytes, final int start, final int len) throws IOException {
+      readFully(ByteBuffer.wrap(bytes, start, len));
+    }
+
+    @Override
+    public void readFully(final ByteBuffer buf) throws IOException {
+      if (buf.remaining() > length - position) {
+        throw new EOFException("Reached the end of the file before reading " + buf.remaining() + " bytes");
+      }
+      while (buf.hasRemaining()) {
+        position += read(position, buf);
+      }
+    }
+
+    @Override
+    public long skip(final long n) {
+      long skipped = Math.max(0, Math.min(n, length - position));
+      position += skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(Math.max(0, length - position), Integer.MAX_VALUE);
+    }
+  }
+
+  private static final class ChannelInputStream extends LocalInputStream {
+
+    private final FileChannel channel;
+
+    ChannelInputStream(final FileChannel channel) throws IOException {
+      super(channel.size());
+      this.channel = channel;
+    }
+
+    @Override
+    protected int read(final long at, final ByteBuffer dst) throws IOException {
+      int count = channel.read(dst, at);
+      if (count <= 0) {
+        throw new EOFException("File has been truncated before position " + at);
+      }
+      return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+
+  /**
+   * Reads a file mapped in segments of {@link #SEGMENT_BYTES} bytes, a single mapping is limited to 2 GB.
+   */
+  private static final class MappedInputStream extends LocalInputStream {
+
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_BYTES = 1L << SEGMENT_BITS;
+
+    private final MappedByteBuffer[] segments;
+
+    MappedInputStream(final FileChannel channel) throws IOException {
+      super(channel.size());
+      long size = channel.size();
+      this.segments = new MappedByteBuffer[(int) ((size + SEGMENT_BYTES - 1) >>> SEGMENT_BITS)];
+      for (int i = 0; i < segments.length; i++) {
+        long start = i * SEGMENT_BYTES;
+        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_BYTES, size - start));
+      }
+    }
+
+    @Override
+    protected int read(final long at, final ByteBuffer dst) {
+      var segment = segments[(int) (at >>> SEGMENT_BITS)];
+      int offset = (int) (at & (SEGMENT_BYTES - 1));
+      int count = Math.min(dst.remaining(), segment.capacity() - offset);
+      dst.put(segment.slice(offset, count));
+      return count;
+    }
+  }
+}
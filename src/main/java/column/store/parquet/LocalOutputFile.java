@@ -0,0 +1,97 @@
+package column.store.parquet;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+
+/**
+ * {@link OutputFile} of a local file, which is written with a buffered NIO stream instead of a hadoop file system.
+ * Unlike the local hadoop file system, no checksum file is written next to it.
+ */
+public final class LocalOutputFile implements OutputFile {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final Path path;
+
+  public LocalOutputFile(final Path path) {
+    this.path = path;
+  }
+
+  @Override
+  public PositionOutputStream create(final long blockSizeHint) throws IOException {
+    return open(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+  }
+
+  @Override
+  public PositionOutputStream createOrOverwrite(final long blockSizeHint) throws IOException {
+    return open(StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+  }
+
+  @Override
+  public boolean supportsBlockSize() {
+    return false;
+  }
+
+  @Override
+  public long defaultBlockSize() {
+    return 0;
+  }
+
+  @Override
+  public String toString() {
+    return path.toString();
+  }
+
+  private PositionOutputStream open(final OpenOption... options) throws IOException {
+    var parent = path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    return new LocalOutputStream(new BufferedOutputStream(Files.newOutputStream(path, options), BUFFER_SIZE));
+  }
+
+  private static final class LocalOutputStream extends PositionOutputStream {
+
+    private final OutputStream out;
+    private long position;
+
+    LocalOutputStream(final OutputStream out) {
+      this.out = out;
+    }
+
+    @Override
+    public long getPos() {
+      return position;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      out.write(b);
+      position++;
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+      out.write(bytes, offset, length);
+      position += length;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      out.close();
+    }
+  }
+}
@@ -2,13 +2,12 @@ package column.store.parquet;
 
 import column.store.api.column.Column;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.stream.Stream;
 
-import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.FileSystem;
-
-import com.globalmentor.apache.hadoop.fs.BareLocalFileSystem;
-
 public final class ParquetUtils {
 
   public static String schemaFrom(final Stream<Column> columns) {
@@ -34,19 +33,22 @@ public final class ParquetUtils {
     };
   }
 
-  public static void patchConfigForWindows(final Configuration configuration) {
-    if (isWindows()) {
-      // workaround for windows, as hadoop does not work on windows fs
-      configuration.setClass("fs.file.impl", BareLocalFileSystem.class, FileSystem.class);
-    } else {
-      // whatever this is: https://stackoverflow.com/questions/17265002/hadoop-no-filesystem-for-scheme-file
-      configuration.set("fs.hdfs.impl", org.apache.hadoop.hdfs.DistributedFileSystem.class.getName());
-      configuration.set("fs.file.impl", org.apache.hadoop.fs.LocalFileSystem.class.getName());
+  /**
+   * @return {@code path}, or the parquet files in the directory {@code path} ordered by their name.
+   */
+  public static List<Path> files(final Path path) throws IOException {
+    if (!Files.isDirectory(path)) {
+      return List.of(path);
+    }
+    try (Stream<Path> children = Files.list(path)) {
+      // like hadoop, files starting with '_' or '.' are hidden
+      return children
+              .filter(Files::isRegularFile)
+              .filter(child -> !child.getFileName().toString().startsWith("_")
+                      && !child.getFileName().toString().startsWith("."))
+              .sorted()
+              .toList();
     }
-  }
-
-  private static boolean isWindows() {
-    return System.getProperty("os.name").startsWith("Windows");
   }
 
   private ParquetUtils() {
@@ -1,9 +1,11 @@
 package column.store.parquet.read;
 
 import column.store.api.read.BooleanColumnReader;
+import column.store.api.read.BooleanVector;
 
 class BooleanReader extends BaseReader implements BooleanColumnReader {
 
+  private final BooleanVector vector = new BooleanVector();
   private boolean value;
 
   @Override
@@ -17,4 +19,9 @@ class BooleanReader extends BaseReader implements BooleanColumnReader {
     markAsPresent();
     this.value = value;
   }
+
+  @Override
+  public BooleanVector vector() {
+    return vector;
+  }
 }
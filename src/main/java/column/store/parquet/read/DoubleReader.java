@@ -1,9 +1,11 @@
 package column.store.parquet.read;
 
 import column.store.api.read.DoubleColumnReader;
+import column.store.api.read.DoubleVector;
 
 class DoubleReader extends BaseReader implements DoubleColumnReader {
 
+  private final DoubleVector vector = new DoubleVector();
   private double value;
 
   @Override
@@ -17,4 +19,9 @@ class DoubleReader extends BaseReader implements DoubleColumnReader {
     markAsPresent();
     this.value = value;
   }
+
+  @Override
+  public DoubleVector vector() {
+    return vector;
+  }
 }
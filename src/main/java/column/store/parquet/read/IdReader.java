@@ -1,11 +1,13 @@
 package column.store.parquet.read;
 
+import column.store.api.read.BinaryVector;
 import column.store.api.read.IdColumnReader;
 
 import org.apache.parquet.io.api.Binary;
 
 class IdReader extends BaseReader implements IdColumnReader {
 
+  private final BinaryVector vector = new BinaryVector();
   private byte[] value;
 
   @Override
@@ -19,4 +21,9 @@ class IdReader extends BaseReader implements IdColumnReader {
     markAsPresent();
     this.value = value.getBytes();
   }
+
+  @Override
+  public BinaryVector vector() {
+    return vector;
+  }
 }
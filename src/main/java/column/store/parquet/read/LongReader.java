@@ -1,9 +1,11 @@
 package column.store.parquet.read;
 
 import column.store.api.read.LongColumnReader;
+import column.store.api.read.LongVector;
 
 class LongReader extends BaseReader implements LongColumnReader {
 
+  private final LongVector vector = new LongVector();
   private long value;
 
   @Override
@@ -17,4 +19,9 @@ class LongReader extends BaseReader implements LongColumnReader {
     markAsPresent();
     this.value = value;
   }
+
+  @Override
+  public LongVector vector() {
+    return vector;
+  }
 }
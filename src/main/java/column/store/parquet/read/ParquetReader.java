@@ -9,23 +9,24 @@ import static org.apache.parquet.filter2.predicate.FilterApi.gtEq;
 import static org.apache.parquet.filter2.predicate.FilterApi.longColumn;
 import static org.apache.parquet.filter2.predicate.FilterApi.lt;
 import static org.apache.parquet.filter2.predicate.FilterApi.userDefined;
-import static org.apache.parquet.hadoop.ParquetReader.builder;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.function.UnaryOperator;
 import java.util.stream.StreamSupport;
 
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.fs.Path;
 import org.apache.parquet.filter2.compat.FilterCompat;
 import org.apache.parquet.filter2.predicate.FilterApi;
 import org.apache.parquet.filter2.predicate.FilterPredicate;
 import org.apache.parquet.filter2.predicate.Statistics;
 import org.apache.parquet.filter2.predicate.UserDefinedPredicate;
 import org.apache.parquet.hadoop.api.ReadSupport;
+import org.apache.parquet.io.InputFile;
 import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.PrimitiveComparator;
 
 import column.store.api.column.BooleanColumn;
 import column.store.api.column.DoubleColumn;
@@ -45,6 +46,7 @@ import column.store.api.read.IdColumnReader;
 import column.store.api.read.LongColumnReader;
 import column.store.api.read.Reader;
 import column.store.api.read.StringColumnReader;
+import column.store.parquet.LocalInputFile;
 import column.store.parquet.ParquetUtils;
 
 @SuppressWarnings("checkstyle:OperatorWrap")
@@ -53,13 +55,24 @@ public class ParquetReader implements Reader {
     private final Map<String, BaseReader> readers = new HashMap<>();
     private final ReadSupportImpl readSupport = new ReadSupportImpl(readers);
     private final UnaryOperator<org.apache.parquet.hadoop.ParquetReader.Builder<Object>> config;
+    private final LocalInputFile.Mode mode;
+    private final Deque<Path> files = new ArrayDeque<>();
+    private Configuration conf;
+    private FilterCompat.Filter filter;
+    /** The reader of the current file, {@code null} before it is opened. */
     private org.apache.parquet.hadoop.ParquetReader<Object> parquetReader;
 
     private boolean consumed = true;
     private boolean hasNext;
 
-    public ParquetReader(final UnaryOperator<org.apache.parquet.hadoop.ParquetReader.Builder<Object>> config) {
+    public ParquetReader(final UnaryOperator<org.apache.parquet.hadoop.ParquetReader.Builder<Object>> config,
+                         final LocalInputFile.Mode mode) {
         this.config = config;
+        this.mode = mode;
+    }
+
+    public ParquetReader(final UnaryOperator<org.apache.parquet.hadoop.ParquetReader.Builder<Object>> config) {
+        this(config, LocalInputFile.Mode.CHANNEL);
     }
 
     @Override
@@ -68,27 +81,47 @@ public class ParquetReader implements Reader {
         readers.clear();
         close();
 
-        var path = new Path(query.filePath().toUri());
-        var builder = config.apply(builder(readSupport, path));
-
-        var conf = new Configuration();
-        ParquetUtils.patchConfigForWindows(conf);
-
+        conf = new Configuration();
         if (!query.selectAll()) {
             // set read schema to only read the requested columns
             var schema = ParquetUtils.schemaFrom(StreamSupport.stream(query.columns().spliterator(), false));
             conf.set(ReadSupport.PARQUET_READ_SCHEMA, schema);
         }
 
-        builder.withConf(conf);
+        filter = filterOf(query);
+        files.addAll(ParquetUtils.files(query.filePath()));
+    }
 
-        switch (query.type()) {
-            case ALL_OF -> builder.withFilter(and(query.filters()));
-            case AT_LEAST_ONE -> builder.withFilter(or(query.filters()));
-            default -> throw new IllegalArgumentException("Unsupported filter type: " + query.type());
+    /**
+     * @return the next record of the current file or of the following files, {@code null} after the last file.
+     */
+    private Object read() throws IOException {
+        while (true) {
+            if (parquetReader == null) {
+                if (files.isEmpty()) {
+                    return null;
+                }
+                // the options of the config are reset by a new conf
+                var builder = config.apply(new BuilderImpl(new LocalInputFile(files.poll(), mode), readSupport).withConf(conf));
+                parquetReader = builder.withFilter(filter).build();
+            }
+            var record = parquetReader.read();
+            if (record != null) {
+                return record;
+            }
+            parquetReader.close();
+            parquetReader = null;
         }
+    }
 
-        parquetReader = builder.build();
+    /**
+     * @return the parquet filter of the filters of {@code query}.
+     */
+    static FilterCompat.Filter filterOf(final Query query) {
+        return switch (query.type()) {
+            case ALL_OF -> and(query.filters());
+            case AT_LEAST_ONE -> or(query.filters());
+        };
     }
 
     @Override
@@ -128,7 +161,7 @@ public class ParquetReader implements Reader {
         }
         consumed = false;
         readers.values().forEach(BaseReader::reset);
-        hasNext = parquetReader.read() != null;
+        hasNext = read() != null;
         return hasNext;
     }
 
@@ -147,10 +180,28 @@ public class ParquetReader implements Reader {
         consumed = true;
     }
 
+    @Override
+    public int nextBatch(final int maxRows) throws IOException {
+        for (var reader : readers.values()) {
+            reader.vector().clear();
+        }
+        int rows = 0;
+        while (rows < maxRows && hasNext()) {
+            next();
+            for (var reader : readers.values()) {
+                reader.appendToVector();
+            }
+            rows++;
+        }
+        return rows;
+    }
+
     @Override
     public void close() throws IOException {
+        files.clear();
         if (parquetReader != null) {
             parquetReader.close();
+            parquetReader = null;
         }
     }
 
@@ -212,27 +263,106 @@ public class ParquetReader implements Reader {
                 .orElse(FilterCompat.NOOP);
     }
 
+    /**
+     * {@link UserDefinedPredicate} of a {@link StringFilter}. Row groups and pages are dropped based on their minimum and
+     * maximum for {@link StringFilter.MatchType#IS} and {@link StringFilter.MatchType#STARTS_WITH} with an ASCII value.
+     * These compare the bytes of the values unsigned, see {@link PrimitiveComparator#UNSIGNED_LEXICOGRAPHICAL_BINARY_COMPARATOR}.
+     *
+     * <p> A value matches if its lowercase value is (or starts with) the filter value. Its characters at the positions of
+     * the filter value have to be the same or the ASCII uppercase variant, so the value is not smaller than the uppercase
+     * filter value. The only other characters, which are converted to ASCII ones, are the Kelvin sign ({@code K}) and
+     * the capital I with dot ({@code i} and a combining dot), which are multi-byte, so greater than any ASCII character.
+     * The value (or its prefix) is not greater than the lowercase filter value, unless it contains one of these.
+     *
+     * <p> Column chunks, whose values are all dictionary encoded, are dropped by parquet if no dictionary entry is kept
+     * (see {@code ParquetReader.Builder#useDictionaryFilter()}). Their rows are passed to {@link #keep(Binary)} as the
+     * {@link Binary} of their dictionary entry, the same instance for every row. So the result is cached by identity, and
+     * every entry is only matched once. Other values are different instances, the cache is cleared, once it has missed
+     * as many times in a row as it has entries, to not retain their pages.
+     *
+     * <p> This relies on parquet 1.13: {@code FilteringPrimitiveConverter} has no dictionary support, so
+     * {@code ColumnReaderBase} passes {@code Dictionary#decodeToBinary(int)} of every row, which is the entry of
+     * {@code PlainValuesDictionary.PlainBinaryDictionary}. Values, whose bytes are reused for other values, are not
+     * cached. If parquet passed copies instead, the cache would only miss.
+     */
     private static final class StringPredicate extends UserDefinedPredicate<Binary> implements Serializable {
 
-        private final StringFilter filter;
+        private static final int ASCII_END = 0x80;
+        private static final int CACHE_SIZE = 1024;
+
+        private final StringMatcher matcher;
+        private final StringFilter.MatchType matchType;
+        /** The uppercase filter value, {@code null} if row groups cannot be dropped. */
+        private final Binary lowerBound;
+        /** The lowercase filter value, {@code null} if row groups cannot be dropped because of their minimum. */
+        private final Binary upperBound;
+        /** The last values kept or not, by their identity hash code, and whether they are kept. */
+        private final Binary[] cachedValues = new Binary[CACHE_SIZE];
+        private final boolean[] cachedKeeps = new boolean[CACHE_SIZE];
+        private int misses;
 
         private StringPredicate(final StringFilter filter) {
-            this.filter = filter;
+            this.matcher = new StringMatcher(filter);
+            this.matchType = filter.matchType();
+            var value = filter.value();
+            boolean bounded = (matchType == StringFilter.MatchType.IS || matchType == StringFilter.MatchType.STARTS_WITH)
+                    && value.chars().allMatch(c -> c < ASCII_END);
+            this.lowerBound = bounded ? Binary.fromString(value.toUpperCase(Locale.ROOT)) : null;
+            this.upperBound = bounded && value.indexOf('k') < 0 && value.indexOf('i') < 0 ? Binary.fromString(value) : null;
         }
 
         @Override
         public boolean keep(final Binary value) {
-            return switch (filter.matchType()) {
-                case IS -> value.toStringUsingUTF8().toLowerCase(Locale.ROOT).equals(filter.value());
-                case STARTS_WITH -> value.toStringUsingUTF8().toLowerCase(Locale.ROOT).startsWith(filter.value());
-                case ENDS_WITH -> value.toStringUsingUTF8().toLowerCase(Locale.ROOT).endsWith(filter.value());
-                case CONTAINS -> value.toStringUsingUTF8().toLowerCase(Locale.ROOT).contains(filter.value());
-            };
+            if (value == null) {
+                // null values do not match any string filter
+                return false;
+            }
+            if (value.isBackingBytesReused()) {
+                // the same instance may have other bytes for the next row
+                return matches(value);
+            }
+            int slot = System.identityHashCode(value) & (CACHE_SIZE - 1);
+            if (cachedValues[slot] == value) {
+                misses = 0;
+                return cachedKeeps[slot];
+            }
+            if (++misses > CACHE_SIZE) {
+                Arrays.fill(cachedValues, null);
+                misses = 0;
+            }
+            boolean keep = matches(value);
+            cachedValues[slot] = value;
+            cachedKeeps[slot] = keep;
+            return keep;
+        }
+
+        private boolean matches(final Binary value) {
+            // the values of a page are slices of its bytes, they are matched without copying or decoding them
+            var buffer = value.toByteBuffer();
+            if (buffer.hasArray()) {
+                return matcher.matches(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            }
+            var bytes = value.getBytesUnsafe();
+            return matcher.matches(bytes, 0, bytes.length);
         }
 
         @Override
         public boolean canDrop(final Statistics<Binary> statistics) {
-            return false;
+            if (lowerBound == null) {
+                return false;
+            }
+            var comparator = PrimitiveComparator.UNSIGNED_LEXICOGRAPHICAL_BINARY_COMPARATOR;
+            if (comparator.compare(statistics.getMax(), lowerBound) < 0) {
+                return true;
+            }
+            if (upperBound == null) {
+                return false;
+            }
+            var min = statistics.getMin();
+            if (matchType == StringFilter.MatchType.STARTS_WITH && min.length() > upperBound.length()) {
+                min = min.slice(0, upperBound.length());
+            }
+            return comparator.compare(min, upperBound) > 0;
         }
 
         @Override
@@ -240,4 +370,22 @@ public class ParquetReader implements Reader {
             return false;
         }
     }
+
+    /**
+     * Builder of a parquet reader of a {@link LocalInputFile}, hadoop's builder of a path reads through a file system.
+     */
+    private static final class BuilderImpl extends org.apache.parquet.hadoop.ParquetReader.Builder<Object> {
+
+        private final ReadSupportImpl readSupport;
+
+        private BuilderImpl(final InputFile file, final ReadSupportImpl readSupport) {
+            super(file);
+            this.readSupport = readSupport;
+        }
+
+        @Override
+        protected ReadSupport<Object> getReadSupport() {
+            return readSupport;
+        }
+    }
 }
@@ -0,0 +1,183 @@
+package column.store.parquet.read;
+
+import column.store.api.query.StringFilter;
+import column.store.api.query.Tokens;
+
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Matches UTF-8 encoded values against a {@link StringFilter} without decoding them. ASCII bytes are compared
+ * case-insensitively by folding {@code A-Z} to lowercase, which is what {@link String#toLowerCase(Locale)} does for
+ * ASCII characters. Only values, whose match depends on non ASCII characters, are decoded and converted to lowercase.
+ *
+ * <p> {@link StringFilter.MatchType#CONTAINS} searches with Boyer-Moore-Horspool, which skips up to the length of the
+ * filter value per comparison.
+ */
+final class StringMatcher implements Serializable {
+
+  private static final int ASCII_MASK = 0x80;
+  private static final long ASCII_MASKS = 0x8080808080808080L;
+  private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final int BYTE_MASK = 0xFF;
+  private static final int BYTE_VALUES = 256;
+  private static final int CASE_OFFSET = 'a' - 'A';
+
+  private final StringFilter.MatchType matchType;
+  /** The lowercase filter value as UTF-8. */
+  private final byte[] needle;
+  private final String value;
+  private final List<String> tokens;
+  /** The lowercase terms of a phrase as UTF-8. */
+  private final byte[][] terms;
+  /** Boyer-Moore-Horspool shift for every byte of a value, aligned with the last byte of the needle. */
+  private final int[] shifts;
+
+  StringMatcher(final StringFilter filter) {
+    this.matchType = filter.matchType();
+    this.value = filter.value();
+    this.tokens = filter.tokens();
+    this.needle = value.getBytes(StandardCharsets.UTF_8);
+    this.terms = tokens.stream().map(token -> token.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+    this.shifts = new int[BYTE_VALUES];
+    Arrays.fill(shifts, needle.length);
+    for (int i = 0; i < needle.length - 1; i++) {
+      shifts[needle[i] & BYTE_MASK] = needle.length - 1 - i;
+    }
+  }
+
+  /**
+   * @return whether the lowercase value of {@code length} bytes starting at {@code offset} matches the filter.
+   */
+  boolean matches(final byte[] bytes, final int offset, final int length) {
+    return switch (matchType) {
+      case IS -> isAscii(bytes, offset, length)
+          ? length == needle.length && startsWith(bytes, offset, needle)
+          : matchesLowercase(bytes, offset, length);
+      // ASCII characters are converted to a single character each, whatever follows them
+      case STARTS_WITH -> length >= needle.length && isAscii(bytes, offset, needle.length)
+          ? startsWith(bytes, offset, needle)
+          : matchesLowercase(bytes, offset, length);
+      case ENDS_WITH -> length >= needle.length && isAscii(bytes, offset + length - needle.length, needle.length)
+          ? startsWith(bytes, offset + length - needle.length, needle)
+          : matchesLowercase(bytes, offset, length);
+      // a match of ASCII bytes is a match of the lowercase value, non ASCII characters may become ASCII ones
+      case CONTAINS -> indexOf(bytes, offset, length) >= 0
+          || !isAscii(bytes, offset, length) && matchesLowercase(bytes, offset, length);
+      case PHRASE -> isAscii(bytes, offset, length)
+          ? containsPhrase(bytes, offset, length)
+          : matchesLowercase(bytes, offset, length);
+    };
+  }
+
+  private boolean matchesLowercase(final byte[] bytes, final int offset, final int length) {
+    var lowercase = new String(bytes, offset, length, StandardCharsets.UTF_8).toLowerCase(Locale.ROOT);
+    return switch (matchType) {
+      case IS -> lowercase.equals(value);
+      case STARTS_WITH -> lowercase.startsWith(value);
+      case ENDS_WITH -> lowercase.endsWith(value);
+      case CONTAINS -> lowercase.contains(value);
+      case PHRASE -> Tokens.containsPhrase(lowercase, tokens);
+    };
+  }
+
+  /**
+   * @return the index of the first occurrence of the needle in the value, {@code -1} if there is none.
+   */
+  private int indexOf(final byte[] bytes, final int offset, final int length) {
+    int last = needle.length - 1;
+    int end = offset + length - last;
+    int start = offset;
+    while (start < end) {
+      int i = last;
+      while (i >= 0 && fold(bytes[start + i]) == needle[i]) {
+        i--;
+      }
+      if (i < 0) {
+        return start - offset;
+      }
+      start += shifts[fold(bytes[start + last]) & BYTE_MASK];
+    }
+    return -1;
+  }
+
+  /**
+   * @return whether the ASCII value contains the terms of the phrase in the same order, without other terms in between.
+   */
+  private boolean containsPhrase(final byte[] bytes, final int offset, final int length) {
+    int end = offset + length;
+    for (int start = nextTerm(bytes, offset, end); start < end; start = nextTerm(bytes, termEnd(bytes, start, end), end)) {
+      if (startsWithPhrase(bytes, start, end)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean startsWithPhrase(final byte[] bytes, final int start, final int end) {
+    int position = start;
+    for (var term : terms) {
+      int termEnd = termEnd(bytes, position, end);
+      if (termEnd - position != term.length || !startsWith(bytes, position, term)) {
+        return false;
+      }
+      position = nextTerm(bytes, termEnd, end);
+    }
+    return true;
+  }
+
+  private static int nextTerm(final byte[] bytes, final int from, final int end) {
+    int i = from;
+    while (i < end && !Tokens.isTokenChar(bytes[i])) {
+      i++;
+    }
+    return i;
+  }
+
+  private static int termEnd(final byte[] bytes, final int from, final int end) {
+    int i = from;
+    while (i < end && Tokens.isTokenChar(bytes[i])) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * @return whether the ASCII bytes starting at {@code offset} are {@code prefix}, ignoring their case.
+   */
+  private static boolean startsWith(final byte[] bytes, final int offset, final byte[] prefix) {
+    for (int i = 0; i < prefix.length; i++) {
+      if (fold(bytes[offset + i]) != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isAscii(final byte[] bytes, final int offset, final int length) {
+    int end = offset + length;
+    int i = offset;
+    // eight bytes at a time
+    for (; i + Long.BYTES <= end; i += Long.BYTES) {
+      if (((long) LONGS.get(bytes, i) & ASCII_MASKS) != 0) {
+        return false;
+      }
+    }
+    for (; i < end; i++) {
+      if ((bytes[i] & ASCII_MASK) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static byte fold(final byte b) {
+    return b >= 'A' && b <= 'Z' ? (byte) (b + CASE_OFFSET) : b;
+  }
+}
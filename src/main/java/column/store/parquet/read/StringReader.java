@@ -1,11 +1,13 @@
 package column.store.parquet.read;
 
+import column.store.api.read.BinaryVector;
 import column.store.api.read.StringColumnReader;
 
 import org.apache.parquet.io.api.Binary;
 
 class StringReader extends BaseReader implements StringColumnReader {
 
+  private final BinaryVector vector = new BinaryVector();
   private Binary value;
 
   @Override
@@ -19,4 +21,19 @@ class StringReader extends BaseReader implements StringColumnReader {
     markAsPresent();
     this.value = value;
   }
+
+  @Override
+  public BinaryVector vector() {
+    return vector;
+  }
+
+  @Override
+  public void appendToVector() {
+    if (isPresent()) {
+      // no need to decode the string
+      vector.append(value.getBytesUnsafe());
+    } else {
+      vector.appendNull();
+    }
+  }
 }
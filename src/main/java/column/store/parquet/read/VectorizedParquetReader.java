@@ -0,0 +1,760 @@
+package column.store.parquet.read;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.function.UnaryOperator;
+
+import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.impl.ColumnReadStoreImpl;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.Converter;
+import org.apache.parquet.io.api.GroupConverter;
+import org.apache.parquet.io.api.PrimitiveConverter;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+
+import column.store.api.column.BooleanColumn;
+import column.store.api.column.Column;
+import column.store.api.column.DoubleColumn;
+import column.store.api.column.IdColumn;
+import column.store.api.column.LongColumn;
+import column.store.api.column.NoSuchColumnException;
+import column.store.api.column.StringColumn;
+import column.store.api.query.BooleanFilter;
+import column.store.api.query.DoubleFilter;
+import column.store.api.query.Filter;
+import column.store.api.query.IdFilter;
+import column.store.api.query.LongFilter;
+import column.store.api.query.Query;
+import column.store.api.query.StringFilter;
+import column.store.api.read.BinaryVector;
+import column.store.api.read.BooleanColumnReader;
+import column.store.api.read.BooleanVector;
+import column.store.api.read.ColumnReader;
+import column.store.api.read.ColumnVector;
+import column.store.api.read.DoubleColumnReader;
+import column.store.api.read.DoubleVector;
+import column.store.api.read.IdColumnReader;
+import column.store.api.read.LongColumnReader;
+import column.store.api.read.LongVector;
+import column.store.api.read.Reader;
+import column.store.api.read.StringColumnReader;
+import column.store.parquet.LocalInputFile;
+import column.store.parquet.ParquetUtils;
+
+/**
+ * {@link Reader} of Parquet files, which reads the column chunks of a row group column by column with a
+ * {@link ColumnReadStoreImpl}, instead of assembling records value by value like {@link ParquetReader}. The values of
+ * {@link #DECODED_ROWS} rows of every column are decoded at once into a {@link ColumnVector}, the filters of the query
+ * are evaluated on these, and the matching rows are copied into the vectors of {@link #nextBatch(int)}.
+ *
+ * <p> Row groups and pages are dropped by parquet like for {@link ParquetReader}, based on their statistics,
+ * dictionaries, bloom filters and column indexes (see {@link ParquetReadOptions}). Columns without filters are only
+ * decoded, if a row of the decoded rows matches the filters.
+ */
+public class VectorizedParquetReader implements Reader {
+
+    /** The number of rows of every column, which are decoded at once. */
+    static final int DECODED_ROWS = 1024;
+
+    /** Values are read from the column readers directly, not passed to converters. */
+    private static final GroupConverter NO_CONVERTER = new GroupConverter() {
+
+        private final PrimitiveConverter primitive = new PrimitiveConverter() {
+        };
+
+        @Override
+        public Converter getConverter(final int fieldIndex) {
+            return primitive;
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void end() {
+        }
+    };
+
+    private final UnaryOperator<ParquetReadOptions.Builder> config;
+    private final LocalInputFile.Mode mode;
+    private final Map<String, VectorReader> readers = new LinkedHashMap<>();
+    private final List<Selector> selectors = new ArrayList<>();
+    /** The readers of columns with filters, which are decoded first. */
+    private final List<VectorReader> filtered = new ArrayList<>();
+    /** The readers of columns without filters. */
+    private final List<VectorReader> unfiltered = new ArrayList<>();
+    private final Cursor cursor = new Cursor();
+    /** A set bit marks a decoded row, which matches the filters. Not used without filters. */
+    private final BitSet selection = new BitSet(DECODED_ROWS);
+    private final Deque<Path> files = new ArrayDeque<>();
+
+    private Query.QueryType type;
+    private ParquetReadOptions options;
+    private ParquetFileReader fileReader;
+    /** The schema of the selected columns of the current file. */
+    private MessageType schema;
+    /** The number of rows of the current row group, which have not been decoded yet. */
+    private long remainingRows;
+
+    private boolean consumed = true;
+    private boolean hasNext;
+
+    public VectorizedParquetReader(final UnaryOperator<ParquetReadOptions.Builder> config, final LocalInputFile.Mode mode) {
+        this.config = config;
+        this.mode = mode;
+    }
+
+    public VectorizedParquetReader(final UnaryOperator<ParquetReadOptions.Builder> config) {
+        this(config, LocalInputFile.Mode.CHANNEL);
+    }
+
+    public VectorizedParquetReader() {
+        this(UnaryOperator.identity());
+    }
+
+    @Override
+    public void query(final Query query) throws IOException {
+        // reset from a previous query
+        close();
+        readers.clear();
+        selectors.clear();
+        filtered.clear();
+        unfiltered.clear();
+        files.clear();
+        remainingRows = 0;
+        cursor.rows = 0;
+        cursor.row = -1;
+        consumed = true;
+        hasNext = false;
+
+        type = query.type();
+        options = config.apply(ParquetReadOptions.builder().withRecordFilter(ParquetReader.filterOf(query))).build();
+        files.addAll(ParquetUtils.files(query.filePath()));
+
+        if (query.selectAll()) {
+            if (!files.isEmpty()) {
+                var fileSchema = open(files.peek());
+                for (var column : fileSchema.getColumns()) {
+                    var reader = readerOf(columnOf(column.getPrimitiveType()));
+                    readers.put(reader.name, reader);
+                }
+                // reopened with the schema of the readers
+                close();
+            }
+        } else {
+            for (var column : query.columns()) {
+                readers.put(column.name(), readerOf(column));
+            }
+        }
+        for (var filter : query.filters()) {
+            // with all columns selected, the filter column may not be one of the first file
+            var reader = existingReader(filter.column());
+            selectors.add(new Selector(reader, reader.matching(filter)));
+        }
+        for (var reader : readers.values()) {
+            if (selectors.stream().anyMatch(selector -> selector.reader() == reader)) {
+                filtered.add(reader);
+            } else {
+                unfiltered.add(reader);
+            }
+        }
+    }
+
+    /**
+     * Opens {@code file} and selects the columns of the {@link #readers}, if there are any.
+     *
+     * @return the schema of the file.
+     */
+    private MessageType open(final Path file) throws IOException {
+        close();
+        fileReader = ParquetFileReader.open(new LocalInputFile(file, mode), options);
+        var fileSchema = fileReader.getFileMetaData().getSchema();
+        if (!readers.isEmpty()) {
+            schema = new MessageType(fileSchema.getName(), readers.keySet().stream().map(fileSchema::getType).toList());
+            fileReader.setRequestedSchema(schema);
+        }
+        return fileSchema;
+    }
+
+    /**
+     * @return the column of a parquet column, see {@link ReadSupportImpl}.
+     */
+    private static Column columnOf(final PrimitiveType column) {
+        var name = column.getName();
+        return switch (column.getPrimitiveTypeName()) {
+            case INT64 -> Column.forLong(name);
+            case BOOLEAN -> Column.forBoolean(name);
+            case DOUBLE -> Column.forDouble(name);
+            case BINARY -> name.endsWith("-string") ? Column.forString(name) : Column.forId(name);
+            default -> throw new IllegalStateException("Unknown type: " + column);
+        };
+    }
+
+    private VectorReader readerOf(final Column column) {
+        return switch (column.type()) {
+            case BOOLEAN -> new BooleanVectorReader(column.name(), cursor);
+            case DOUBLE -> new DoubleVectorReader(column.name(), cursor);
+            case ID -> new IdVectorReader(column.name(), cursor);
+            case LONG -> new LongVectorReader(column.name(), cursor);
+            case STRING -> new StringVectorReader(column.name(), cursor);
+        };
+    }
+
+    @Override
+    public BooleanColumnReader of(final BooleanColumn column) {
+        return (BooleanColumnReader) existingReader(column);
+    }
+
+    @Override
+    public DoubleColumnReader of(final DoubleColumn column) {
+        return (DoubleColumnReader) existingReader(column);
+    }
+
+    @Override
+    public IdColumnReader of(final IdColumn column) {
+        return (IdColumnReader) existingReader(column);
+    }
+
+    @Override
+    public LongColumnReader of(final LongColumn column) {
+        return (LongColumnReader) existingReader(column);
+    }
+
+    @Override
+    public StringColumnReader of(final StringColumn column) {
+        return (StringColumnReader) existingReader(column);
+    }
+
+    private VectorReader existingReader(final Column column) {
+        var reader = readers.get(column.name());
+        if (reader == null) {
+            throw new NoSuchColumnException(column);
+        }
+        return reader;
+    }
+
+    @Override
+    public Set<String> columnNames() {
+        return readers.keySet();
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        if (!consumed) {
+            return hasNext;
+        }
+        consumed = false;
+        hasNext = advance();
+        return hasNext;
+    }
+
+    /**
+     * Moves the {@link #cursor} to the next decoded row matching the filters.
+     */
+    private boolean advance() throws IOException {
+        while (true) {
+            int next = selectors.isEmpty() ? cursor.row + 1 : selection.nextSetBit(cursor.row + 1);
+            if (next >= 0 && next < cursor.rows) {
+                cursor.row = next;
+                return true;
+            }
+            if (!decode()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Decodes the next rows of the current or the next row group, and selects the rows matching the filters.
+     */
+    private boolean decode() throws IOException {
+        if (remainingRows == 0 && !nextRowGroup()) {
+            return false;
+        }
+        int rows = (int) Math.min(DECODED_ROWS, remainingRows);
+        remainingRows -= rows;
+        for (var reader : filtered) {
+            reader.decode(rows);
+        }
+        select(rows);
+        boolean selected = selectors.isEmpty() || !selection.isEmpty();
+        for (var reader : unfiltered) {
+            if (selected) {
+                reader.decode(rows);
+            } else {
+                reader.skip(rows);
+            }
+        }
+        cursor.rows = rows;
+        cursor.row = -1;
+        return true;
+    }
+
+    /**
+     * Sets the {@link #selection} to the decoded rows matching the filters, filter by filter.
+     */
+    private void select(final int rows) {
+        if (selectors.isEmpty()) {
+            return;
+        }
+        selection.clear();
+        if (type == Query.QueryType.ALL_OF) {
+            selection.set(0, rows);
+            for (var selector : selectors) {
+                var predicate = selector.predicate();
+                for (int row = selection.nextSetBit(0); row >= 0; row = selection.nextSetBit(row + 1)) {
+                    if (!predicate.test(row)) {
+                        selection.clear(row);
+                    }
+                }
+            }
+        } else {
+            for (var selector : selectors) {
+                var predicate = selector.predicate();
+                for (int row = selection.nextClearBit(0); row < rows; row = selection.nextClearBit(row + 1)) {
+                    if (predicate.test(row)) {
+                        selection.set(row);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves to the next row group with rows, of the current or the next files.
+     */
+    private boolean nextRowGroup() throws IOException {
+        while (true) {
+            var pages = fileReader == null ? null : fileReader.readNextFilteredRowGroup();
+            if (pages == null) {
+                if (files.isEmpty()) {
+                    return false;
+                }
+                open(files.poll());
+            } else if (pages.getRowCount() > 0) {
+                var store = new ColumnReadStoreImpl(pages, NO_CONVERTER, schema, fileReader.getFileMetaData().getCreatedBy());
+                for (var reader : readers.values()) {
+                    reader.load(store, schema);
+                }
+                remainingRows = pages.getRowCount();
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void next() throws IOException {
+        if (!consumed && !hasNext) {
+            throw new NoSuchElementException("No next value");
+        }
+        if (consumed && !hasNext()) {
+            throw new NoSuchElementException("No next value");
+        }
+        assert !consumed;
+        consumed = true;
+    }
+
+    @Override
+    public int nextBatch(final int maxRows) throws IOException {
+        for (var reader : readers.values()) {
+            reader.vector().clear();
+        }
+        int rows = 0;
+        while (rows < maxRows && hasNext()) {
+            // the cursor is at the next row, take as many (selected) rows of the decoded rows as possible
+            int end = selectors.isEmpty() ? cursor.rows : Math.min(cursor.rows, selection.nextClearBit(cursor.row));
+            int count = Math.min(maxRows - rows, end - cursor.row);
+            for (var reader : readers.values()) {
+                reader.appendToVector(cursor.row, count);
+            }
+            cursor.row += count - 1;
+            consumed = true;
+            rows += count;
+        }
+        return rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fileReader != null) {
+            fileReader.close();
+            fileReader = null;
+        }
+    }
+
+    /**
+     * The decoded rows, shared by all readers.
+     */
+    private static final class Cursor {
+        private int rows;
+        private int row = -1;
+    }
+
+    /**
+     * A filter of the query, evaluated on the decoded values of {@code reader}.
+     */
+    private record Selector(VectorReader reader, IntPredicate predicate) {
+    }
+
+    private abstract static class VectorReader implements ColumnReader {
+
+        private final String name;
+        protected final Cursor cursor;
+        protected org.apache.parquet.column.ColumnReader values;
+        /** The definition level of present values, lower levels are {@code null} values. */
+        protected int presentLevel;
+
+        VectorReader(final String name, final Cursor cursor) {
+            this.name = name;
+            this.cursor = cursor;
+        }
+
+        /**
+         * Reads the values of the column chunk of the row group of {@code store} from now on.
+         */
+        final void load(final ColumnReadStoreImpl store, final MessageType schema) {
+            ColumnDescriptor descriptor = schema.getColumnDescription(new String[] {name});
+            values = store.getColumnReader(descriptor);
+            presentLevel = descriptor.getMaxDefinitionLevel();
+        }
+
+        /**
+         * Skips the values of the next {@code rows} rows without decoding them.
+         */
+        final void skip(final int rows) {
+            for (int i = 0; i < rows; i++) {
+                if (values.getCurrentDefinitionLevel() == presentLevel) {
+                    values.skip();
+                }
+                values.consume();
+            }
+        }
+
+        @Override
+        public boolean isPresent() {
+            return decoded().isPresent(cursor.row);
+        }
+
+        protected void ensureIsPresent() {
+            if (isNull()) {
+                throw new NoSuchElementException("Current value is null");
+            }
+        }
+
+        @Override
+        public void appendToVector() {
+            appendToVector(cursor.row, 1);
+        }
+
+        /**
+         * Appends the values of {@code count} decoded rows, starting at {@code from}, to the {@link #vector()}.
+         */
+        final void appendToVector(final int from, final int count) {
+            var vector = vector();
+            int start = vector.size();
+            appendValues(from, count);
+            var nulls = decoded().nulls();
+            for (int row = nulls.nextSetBit(from); row >= 0 && row < from + count; row = nulls.nextSetBit(row + 1)) {
+                vector.setNull(start + row - from);
+            }
+        }
+
+        /**
+         * Replaces the decoded values by the values of the next {@code rows} rows.
+         */
+        abstract void decode(int rows);
+
+        /**
+         * @return the values of the decoded rows.
+         */
+        protected abstract ColumnVector decoded();
+
+        /**
+         * Appends the values of {@code count} decoded rows to the {@link #vector()}, including null rows.
+         */
+        protected abstract void appendValues(int from, int count);
+
+        /**
+         * @return a predicate on the decoded rows, which matches the rows whose value matches {@code filter}.
+         */
+        protected abstract IntPredicate matching(Filter filter);
+    }
+
+    private static final class BooleanVectorReader extends VectorReader implements BooleanColumnReader {
+
+        private final BooleanVector decoded = new BooleanVector();
+        private final BooleanVector vector = new BooleanVector();
+
+        BooleanVectorReader(final String name, final Cursor cursor) {
+            super(name, cursor);
+        }
+
+        @Override
+        public boolean get() {
+            ensureIsPresent();
+            return decoded.get(cursor.row);
+        }
+
+        @Override
+        public BooleanVector vector() {
+            return vector;
+        }
+
+        @Override
+        void decode(final int rows) {
+            decoded.clear();
+            for (int i = 0; i < rows; i++) {
+                if (values.getCurrentDefinitionLevel() == presentLevel) {
+                    decoded.append(values.getBoolean());
+                } else {
+                    decoded.appendNull();
+                }
+                values.consume();
+            }
+        }
+
+        @Override
+        protected BooleanVector decoded() {
+            return decoded;
+        }
+
+        @Override
+        protected void appendValues(final int from, final int count) {
+            vector.appendAll(decoded.values(), from, count);
+        }
+
+        @Override
+        protected IntPredicate matching(final Filter filter) {
+            boolean value = ((BooleanFilter) filter).value();
+            return row -> decoded.isPresent(row) && decoded.get(row) == value;
+        }
+    }
+
+    private static final class DoubleVectorReader extends VectorReader implements DoubleColumnReader {
+
+        private final DoubleVector decoded = new DoubleVector();
+        private final DoubleVector vector = new DoubleVector();
+
+        DoubleVectorReader(final String name, final Cursor cursor) {
+            super(name, cursor);
+        }
+
+        @Override
+        public double get() {
+            ensureIsPresent();
+            return decoded.get(cursor.row);
+        }
+
+        @Override
+        public DoubleVector vector() {
+            return vector;
+        }
+
+        @Override
+        void decode(final int rows) {
+            decoded.clear();
+            for (int i = 0; i < rows; i++) {
+                if (values.getCurrentDefinitionLevel() == presentLevel) {
+                    decoded.append(values.getDouble());
+                } else {
+                    decoded.appendNull();
+                }
+                values.consume();
+            }
+        }
+
+        @Override
+        protected DoubleVector decoded() {
+            return decoded;
+        }
+
+        @Override
+        protected void appendValues(final int from, final int count) {
+            vector.appendAll(decoded.values(), from, count);
+        }
+
+        @Override
+        protected IntPredicate matching(final Filter filter) {
+            var doubleFilter = (DoubleFilter) filter;
+            return switch (doubleFilter.matchType()) {
+                case LESS_THAN -> {
+                    double upperBound = doubleFilter.upperBound();
+                    yield row -> decoded.isPresent(row) && decoded.get(row) < upperBound;
+                }
+                case GREATER_THAN -> {
+                    double lowerBound = doubleFilter.lowerBound();
+                    yield row -> decoded.isPresent(row) && decoded.get(row) > lowerBound;
+                }
+                case BETWEEN -> {
+                    double lowerBound = doubleFilter.lowerBound();
+                    double upperBound = doubleFilter.upperBound();
+                    yield row -> decoded.isPresent(row) && decoded.get(row) >= lowerBound && decoded.get(row) < upperBound;
+                }
+            };
+        }
+    }
+
+    private static final class LongVectorReader extends VectorReader implements LongColumnReader {
+
+        private final LongVector decoded = new LongVector();
+        private final LongVector vector = new LongVector();
+
+        LongVectorReader(final String name, final Cursor cursor) {
+            super(name, cursor);
+        }
+
+        @Override
+        public long get() {
+            ensureIsPresent();
+            return decoded.get(cursor.row);
+        }
+
+        @Override
+        public LongVector vector() {
+            return vector;
+        }
+
+        @Override
+        void decode(final int rows) {
+            decoded.clear();
+            for (int i = 0; i < rows; i++) {
+                if (values.getCurrentDefinitionLevel() == presentLevel) {
+                    decoded.append(values.getLong());
+                } else {
+                    decoded.appendNull();
+                }
+                values.consume();
+            }
+        }
+
+        @Override
+        protected LongVector decoded() {
+            return decoded;
+        }
+
+        @Override
+        protected void appendValues(final int from, final int count) {
+            vector.appendAll(decoded.values(), from, count);
+        }
+
+        @Override
+        protected IntPredicate matching(final Filter filter) {
+            var longFilter = (LongFilter) filter;
+            return switch (longFilter.matchType()) {
+                case LESS_THAN -> {
+                    long upperBound = longFilter.upperBound();
+                    yield row -> decoded.isPresent(row) && decoded.get(row) < upperBound;
+                }
+                case GREATER_THAN -> {
+                    long lowerBound = longFilter.lowerBound();
+                    yield row -> decoded.isPresent(row) && decoded.get(row) > lowerBound;
+                }
+                case BETWEEN -> {
+                    long lowerBound = longFilter.lowerBound();
+                    long upperBound = longFilter.upperBound();
+                    yield row -> decoded.isPresent(row) && decoded.get(row) >= lowerBound && decoded.get(row) < upperBound;
+                }
+            };
+        }
+    }
+
+    /**
+     * Reader of binary values, which are copied from the pages into a {@link BinaryVector}.
+     */
+    private abstract static class BinaryVectorReader extends VectorReader {
+
+        protected final BinaryVector decoded = new BinaryVector();
+        protected final BinaryVector vector = new BinaryVector();
+
+        BinaryVectorReader(final String name, final Cursor cursor) {
+            super(name, cursor);
+        }
+
+        @Override
+        public BinaryVector vector() {
+            return vector;
+        }
+
+        @Override
+        void decode(final int rows) {
+            decoded.clear();
+            for (int i = 0; i < rows; i++) {
+                if (values.getCurrentDefinitionLevel() == presentLevel) {
+                    Binary value = values.getBinary();
+                    int length = value.length();
+                    int start = decoded.allocate(length);
+                    value.toByteBuffer().get(decoded.bytes(), start, length);
+                } else {
+                    decoded.appendNull();
+                }
+                values.consume();
+            }
+        }
+
+        @Override
+        protected BinaryVector decoded() {
+            return decoded;
+        }
+
+        @Override
+        protected void appendValues(final int from, final int count) {
+            for (int row = from; row < from + count; row++) {
+                vector.append(decoded.bytes(), decoded.offset(row), decoded.length(row));
+            }
+        }
+    }
+
+    private static final class IdVectorReader extends BinaryVectorReader implements IdColumnReader {
+
+        IdVectorReader(final String name, final Cursor cursor) {
+            super(name, cursor);
+        }
+
+        @Override
+        public byte[] get() {
+            ensureIsPresent();
+            return decoded.get(cursor.row);
+        }
+
+        @Override
+        protected IntPredicate matching(final Filter filter) {
+            var id = ((IdFilter) filter).id();
+            return row -> decoded.isPresent(row)
+                    && Arrays.equals(decoded.bytes(), decoded.offset(row), decoded.offset(row + 1), id, 0, id.length);
+        }
+    }
+
+    private static final class StringVectorReader extends BinaryVectorReader implements StringColumnReader {
+
+        StringVectorReader(final String name, final Cursor cursor) {
+            super(name, cursor);
+        }
+
+        @Override
+        public String get() {
+            ensureIsPresent();
+            return decoded.getString(cursor.row);
+        }
+
+        @Override
+        protected IntPredicate matching(final Filter filter) {
+            var matcher = new StringMatcher((StringFilter) filter);
+            return row -> decoded.isPresent(row) && matcher.matches(decoded.bytes(), decoded.offset(row), decoded.length(row));
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package column.store.parquet.write;
 
+import static column.store.util.Conditions.checkState;
+
 import column.store.api.column.Column;
 import column.store.api.write.ColumnWriter;
 
+import java.util.BitSet;
+
 import org.apache.parquet.io.api.RecordConsumer;
 
 abstract class BaseWriter implements ColumnWriter {
@@ -12,6 +16,10 @@ abstract class BaseWriter implements ColumnWriter {
 
   protected boolean isPresent;
 
+  /** Number of records of the current batch, {@code 0} if there is none. */
+  private int batched;
+  private final BitSet batchNulls = new BitSet();
+
   protected BaseWriter(final Column column, final int field) {
     this.column = column;
     this.field = field;
@@ -31,8 +39,41 @@ abstract class BaseWriter implements ColumnWriter {
     }
   }
 
+  /**
+   * Starts a batch of {@code count} records, the values have to be copied by the caller.
+   */
+  protected void startBatch(final BitSet nulls, final int count) {
+    checkState(batched == 0, "A batch has already been written for the current records");
+    batchNulls.clear();
+    batchNulls.or(nulls);
+    batched = count;
+  }
+
+  /**
+   * Makes the value of {@code row} of the current batch the value of the current record.
+   * Records beyond the batch are {@code null}. Without a batch, the written value is kept.
+   */
+  void selectBatchRow(final int row) {
+    if (batched == 0) {
+      return;
+    }
+    isPresent = row < batched && !batchNulls.get(row);
+    if (isPresent) {
+      select(row);
+    }
+  }
+
+  void endBatch() {
+    batched = 0;
+  }
+
   protected abstract void add(RecordConsumer recordConsumer);
 
+  /**
+   * Makes the value of {@code row} of the current batch the value to be {@link #add(RecordConsumer) added}.
+   */
+  protected abstract void select(int row);
+
   Column column() {
     return column;
   }
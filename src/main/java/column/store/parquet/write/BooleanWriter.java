@@ -3,11 +3,14 @@ package column.store.parquet.write;
 import column.store.api.column.BooleanColumn;
 import column.store.api.write.BooleanColumnWriter;
 
+import java.util.BitSet;
+
 import org.apache.parquet.io.api.RecordConsumer;
 
 class BooleanWriter extends BaseWriter implements BooleanColumnWriter {
 
   private boolean value;
+  private boolean[] batch = new boolean[0];
 
   BooleanWriter(final BooleanColumn column, final int field) {
     super(column, field);
@@ -19,6 +22,20 @@ class BooleanWriter extends BaseWriter implements BooleanColumnWriter {
     this.isPresent = true;
   }
 
+  @Override
+  public void writeAll(final boolean[] values, final BitSet nulls, final int count) {
+    startBatch(nulls, count);
+    if (batch.length < count) {
+      batch = new boolean[count];
+    }
+    System.arraycopy(values, 0, batch, 0, count);
+  }
+
+  @Override
+  protected void select(final int row) {
+    value = batch[row];
+  }
+
   @Override
   protected void add(final RecordConsumer recordConsumer) {
     recordConsumer.addBoolean(value);
@@ -3,11 +3,14 @@ package column.store.parquet.write;
 import column.store.api.column.DoubleColumn;
 import column.store.api.write.DoubleColumnWriter;
 
+import java.util.BitSet;
+
 import org.apache.parquet.io.api.RecordConsumer;
 
 class DoubleWriter extends BaseWriter implements DoubleColumnWriter {
 
   private double value;
+  private double[] batch = new double[0];
 
   DoubleWriter(final DoubleColumn column, final int field) {
     super(column, field);
@@ -19,6 +22,20 @@ class DoubleWriter extends BaseWriter implements DoubleColumnWriter {
     this.isPresent = true;
   }
 
+  @Override
+  public void writeAll(final double[] values, final BitSet nulls, final int count) {
+    startBatch(nulls, count);
+    if (batch.length < count) {
+      batch = new double[count];
+    }
+    System.arraycopy(values, 0, batch, 0, count);
+  }
+
+  @Override
+  protected void select(final int row) {
+    value = batch[row];
+  }
+
   @Override
   protected void add(final RecordConsumer recordConsumer) {
     recordConsumer.addDouble(value);
@@ -3,11 +3,14 @@ package column.store.parquet.write;
 import column.store.api.column.LongColumn;
 import column.store.api.write.LongColumnWriter;
 
+import java.util.BitSet;
+
 import org.apache.parquet.io.api.RecordConsumer;
 
 class LongWriter extends BaseWriter implements LongColumnWriter {
 
   private long value;
+  private long[] batch = new long[0];
 
   LongWriter(final LongColumn column, final int field) {
     super(column, field);
@@ -19,6 +22,20 @@ class LongWriter extends BaseWriter implements LongColumnWriter {
     this.isPresent = true;
   }
 
+  @Override
+  public void writeAll(final long[] values, final BitSet nulls, final int count) {
+    startBatch(nulls, count);
+    if (batch.length < count) {
+      batch = new long[count];
+    }
+    System.arraycopy(values, 0, batch, 0, count);
+  }
+
+  @Override
+  protected void select(final int row) {
+    value = batch[row];
+  }
+
   @Override
   protected void add(final RecordConsumer recordConsumer) {
     recordConsumer.addLong(value);
@@ -21,7 +21,7 @@ import column.store.api.write.IdColumnWriter;
 import column.store.api.write.LongColumnWriter;
 import column.store.api.write.StringColumnWriter;
 import column.store.api.write.Writer;
-import column.store.parquet.ParquetUtils;
+import column.store.parquet.LocalOutputFile;
 
 public class ParquetWriter implements Writer  {
 
@@ -101,6 +101,19 @@ public class ParquetWriter implements Writer  {
     writer.write(columnWriters);
   }
 
+  @Override
+  public void nextBatch(final int rows) throws IOException {
+    for (int row = 0; row < rows; row++) {
+      for (var columnWriter : columnWriters) {
+        columnWriter.selectBatchRow(row);
+      }
+      writer.write(columnWriters);
+    }
+    for (var columnWriter : columnWriters) {
+      columnWriter.endBatch();
+    }
+  }
+
   @Override
   public void flush() {
     // NOOP
@@ -116,11 +129,8 @@ public class ParquetWriter implements Writer  {
     private final BaseWriter[] columnWriters;
 
     private BuilderImpl(final Path path, final BaseWriter[] columnWriters) {
-      super(new org.apache.hadoop.fs.Path(path.toAbsolutePath().toUri()));
+      super(new LocalOutputFile(path));
       this.columnWriters = columnWriters;
-      var conf = new Configuration();
-      ParquetUtils.patchConfigForWindows(conf);
-      withConf(conf);
     }
 
     @Override
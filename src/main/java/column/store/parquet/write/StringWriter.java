@@ -3,12 +3,16 @@ package column.store.parquet.write;
 import column.store.api.column.StringColumn;
 import column.store.api.write.StringColumnWriter;
 
+import java.util.BitSet;
+
 import org.apache.parquet.io.api.Binary;
 import org.apache.parquet.io.api.RecordConsumer;
 
 class StringWriter extends BaseWriter implements StringColumnWriter {
 
-  private String value;
+  private Binary value;
+  private byte[] batchBytes = new byte[0];
+  private int[] batchOffsets = new int[0];
 
   StringWriter(final StringColumn column, final int field) {
     super(column, field);
@@ -16,12 +20,32 @@ class StringWriter extends BaseWriter implements StringColumnWriter {
 
   @Override
   public void write(final String value) {
-    this.value = value;
+    this.value = Binary.fromString(value);
     this.isPresent = true;
   }
 
+  @Override
+  public void writeAll(final byte[] bytes, final int[] offsets, final BitSet nulls, final int count) {
+    startBatch(nulls, count);
+    int size = offsets[count];
+    if (batchBytes.length < size) {
+      batchBytes = new byte[size];
+    }
+    if (batchOffsets.length < count + 1) {
+      batchOffsets = new int[count + 1];
+    }
+    System.arraycopy(bytes, 0, batchBytes, 0, size);
+    System.arraycopy(offsets, 0, batchOffsets, 0, count + 1);
+  }
+
+  @Override
+  protected void select(final int row) {
+    // the batch arrays are reused, so parquet has to copy values it keeps, e.g. for statistics
+    value = Binary.fromReusedByteArray(batchBytes, batchOffsets[row], batchOffsets[row + 1] - batchOffsets[row]);
+  }
+
   @Override
   protected void add(final RecordConsumer recordConsumer) {
-    recordConsumer.addBinary(Binary.fromString(value));
+    recordConsumer.addBinary(value);
   }
 }
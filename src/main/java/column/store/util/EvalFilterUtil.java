@@ -4,6 +4,7 @@ import column.store.api.query.*;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
+import java.util.Locale;
 
 public final class EvalFilterUtil {
 
@@ -107,6 +108,9 @@ public final class EvalFilterUtil {
             case CONTAINS -> {
                 return columnValue.contains(filterValue);
             }
+            case PHRASE -> {
+                return Tokens.containsPhrase(columnValue.toLowerCase(Locale.ROOT), filter.tokens());
+            }
 
             default -> {
                 return false;
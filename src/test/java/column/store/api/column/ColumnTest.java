@@ -13,6 +13,7 @@ import static column.store.api.column.Column.Type.ID;
 import static column.store.api.column.Column.Type.LONG;
 import static column.store.api.column.Column.Type.STRING;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class ColumnTest {
 
@@ -41,6 +42,14 @@ class ColumnTest {
         assertThat(Column.forString("string").type()).isEqualTo(STRING);
     }
 
+    @Test
+    void idColumnsMayHaveFixedWidth() {
+        assertThat(Column.forId("id").isFixedWidth()).isFalse();
+        assertThat(Column.forId("id", Long.BYTES).width()).isEqualTo(Long.BYTES);
+        assertThat(Column.forId("id", Long.BYTES)).isEqualTo(Column.forId("id"));
+        assertThatThrownBy(() -> Column.forId("id", 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     void allColumnsAreTested() {
         var columns = Utils.subclasses(Column.class);
@@ -2,12 +2,14 @@ package column.store.api.query;
 
 import column.store.api.column.Column;
 import column.store.api.column.StringColumn;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import java.util.Locale;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class StringFilterTest {
 
@@ -49,6 +51,28 @@ class StringFilterTest {
         assertThat(contains.matchType()).isEqualTo(StringFilter.MatchType.CONTAINS);
     }
 
+    @Test
+    void phraseFilter() {
+        var phrase = Filter.whereString(column).hasPhrase("java.lang.NullPointer-Exception");
+        assertThat(phrase.value()).isEqualTo("java.lang.nullpointer-exception");
+        assertThat(phrase.tokens()).containsExactly("java", "lang", "nullpointer", "exception");
+        assertThat(phrase.column()).isEqualTo(column);
+        assertThat(phrase.matchType()).isEqualTo(StringFilter.MatchType.PHRASE);
+        assertThatThrownBy(() -> Filter.whereString(column).hasPhrase(" - ")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void phraseMatchesConsecutiveTerms() {
+        var phrase = Filter.whereString(column).hasPhrase("NullPointer exception").tokens();
+        assertThat(Tokens.containsPhrase("caught nullpointer-exception at main", phrase)).isTrue();
+        assertThat(Tokens.containsPhrase("nullpointer exception", phrase)).isTrue();
+        assertThat(Tokens.containsPhrase("nullpointerexception", phrase)).isFalse();
+        assertThat(Tokens.containsPhrase("nullpointer in exception", phrase)).isFalse();
+        assertThat(Tokens.containsPhrase("my_nullpointer exception", phrase)).isFalse();
+        assertThat(Tokens.containsPhrase("nullpointer nullpointer exceptions exception", phrase)).isFalse();
+        assertThat(Tokens.containsPhrase("nullpointer nullpointer exception", phrase)).isTrue();
+    }
+
     @ParameterizedTest
     @ValueSource(strings = { "FoO", "HelLO WORLd" })
     void stringsAreConvertedToLowercase(final String mixedCase) {
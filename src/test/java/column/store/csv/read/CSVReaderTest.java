@@ -95,4 +95,33 @@ public class CSVReaderTest {
             assertThat(vendorIdReader.get()).isEqualTo(resultRecords.poll());
         }
     }
+
+    @Test
+    void batchesContainAllRecords() throws IOException {
+        var query = queryBuilder.select(vendorId, tripDistance).allOf();
+        var vendorIdReader = csvReader.of(vendorId);
+        var tripDistanceReader = csvReader.of(tripDistance);
+
+        csvReader.query(query);
+        Queue<String> vendorIds = new LinkedList<>();
+        Queue<Double> tripDistances = new LinkedList<>();
+        while (csvReader.hasNext()) {
+            csvReader.next();
+            vendorIds.add(vendorIdReader.isPresent() ? vendorIdReader.get() : null);
+            tripDistances.add(tripDistanceReader.isPresent() ? tripDistanceReader.get() : null);
+        }
+
+        csvReader.query(query);
+        int rows;
+        while ((rows = csvReader.nextBatch(10)) > 0) {
+            var vendorIdVector = vendorIdReader.vector();
+            var tripDistanceVector = tripDistanceReader.vector();
+            assertThat(vendorIdVector.size()).isEqualTo(rows);
+            for (int row = 0; row < rows; row++) {
+                assertThat(vendorIdVector.isPresent(row) ? vendorIdVector.getString(row) : null).isEqualTo(vendorIds.poll());
+                assertThat(tripDistanceVector.isPresent(row) ? tripDistanceVector.get(row) : null).isEqualTo(tripDistances.poll());
+            }
+        }
+        assertThat(vendorIds).isEmpty();
+    }
 }
@@ -0,0 +1,156 @@
+package column.store.inmemory;
+
+import static column.store.api.query.Filter.whereBoolean;
+import static column.store.api.query.Filter.whereLong;
+import static column.store.api.query.Filter.whereString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import column.store.api.column.BooleanColumn;
+import column.store.api.column.Column;
+import column.store.api.column.LongColumn;
+import column.store.api.column.StringColumn;
+import column.store.api.query.Query;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BitmapIndexTest {
+
+    private static final int RECORDS = 20 * ColumnFormat.DEFAULT_BLOCK_ROWS + 17;
+    private static final String[] LEVELS = {"INFO", "Warn", "error"};
+    private static final int ERRORS = 1000;
+
+    private final StringColumn level = Column.forString("loglevel-string");
+    private final BooleanColumn failed = Column.forBoolean("request_is_failed-boolean");
+    private final StringColumn host = Column.forString("host");
+    private final LongColumn count = Column.forLong("count");
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void rowsOfMatchingValues() throws IOException {
+        write();
+
+        var levels = BitmapIndex.read(Bytes.heap(Files.readAllBytes(BitmapIndex.path(tempDir, level))));
+        var failures = BitmapIndex.read(Bytes.heap(Files.readAllBytes(BitmapIndex.path(tempDir, failed))));
+
+        assertThat(levels.rows(whereString(level).is("WARN")).toArray()).containsExactly(expected(this::isWarning));
+        assertThat(levels.rows(whereString(level).endsWith("o")).toArray()).containsExactly(expected(this::isInfo));
+        assertThat(levels.rows(whereString(level).is("fatal")).cardinality()).isZero();
+        assertThat(failures.rows(whereBoolean(failed).is(true)).toArray()).containsExactly(expected(this::isFailed));
+        assertThat(failures.rows(whereBoolean(failed).is(false)).toArray())
+                .containsExactly(expected(row -> row % 3 != 0 && !isFailed(row)));
+    }
+
+    @Test
+    void indexOfExistingRecordsIsTheSame() throws IOException {
+        write();
+        var written = Files.readAllBytes(BitmapIndex.path(tempDir, level));
+        Files.delete(BitmapIndex.path(tempDir, level));
+
+        BitmapIndex.build(tempDir, level);
+
+        assertThat(Files.readAllBytes(BitmapIndex.path(tempDir, level))).isEqualTo(written);
+    }
+
+    @Test
+    void readerAnswersFiltersWithAndWithoutIndex() throws IOException {
+        write();
+        assertAnswers();
+
+        Files.delete(BitmapIndex.path(tempDir, level));
+        Files.delete(BitmapIndex.path(tempDir, failed));
+        assertAnswers();
+    }
+
+    private void assertAnswers() {
+        assertThat(counts(Query.from(tempDir)
+                .select(count)
+                .filter(whereString(level).is("error"))
+                .filter(whereBoolean(failed).is(true))
+                .allOf())).containsExactly(toObjects(expected(row -> isError(row) && isFailed(row))));
+        assertThat(counts(Query.from(tempDir)
+                .select(count)
+                .filter(whereString(level).is("warn"))
+                .filter(whereBoolean(failed).is(true))
+                .atLeastOne())).containsExactly(toObjects(expected(row -> isWarning(row) || isFailed(row))));
+        // the count has no index, only the indexed rows are tested
+        assertThat(counts(Query.from(tempDir)
+                .select(count)
+                .filter(whereString(level).startsWith("err"))
+                .filter(whereLong(count).isLessThan(10 * ERRORS))
+                .allOf())).containsExactly(toObjects(expected(row -> isError(row) && row < 10 * ERRORS)));
+    }
+
+    @Test
+    void columnsWithManyValuesHaveNoIndex() throws IOException {
+        write();
+
+        assertThat(BitmapIndex.path(tempDir, level)).exists();
+        assertThat(BitmapIndex.path(tempDir, host)).doesNotExist();
+    }
+
+    /**
+     * Writes a level for every record, and whether it failed for every record but every third. Every
+     * {@link #ERRORS}th record is an error, which failed.
+     */
+    private void write() throws IOException {
+        try (var writer = new InMemoryWriter(tempDir).bitmapIndex(level).bitmapIndex(failed).bitmapIndex(host)) {
+            for (int i = 0; i < RECORDS; i++) {
+                writer.of(level).write(i % ERRORS == 0 ? LEVELS[2] : LEVELS[i % 2 == 0 ? 0 : 1]);
+                if (i % 3 != 0) {
+                    writer.of(failed).write(i % ERRORS == 0);
+                }
+                writer.of(host).write("host-" + i);
+                writer.of(count).write(i);
+                writer.next();
+            }
+        }
+    }
+
+    private boolean isInfo(final long row) {
+        return row % ERRORS != 0 && row % 2 == 0;
+    }
+
+    private boolean isWarning(final long row) {
+        return row % ERRORS != 0 && row % 2 == 1;
+    }
+
+    private boolean isError(final long row) {
+        return row % ERRORS == 0;
+    }
+
+    private boolean isFailed(final long row) {
+        return row % 3 != 0 && row % ERRORS == 0;
+    }
+
+    private static long[] expected(final LongPredicate matches) {
+        return LongStream.range(0, RECORDS).filter(matches).toArray();
+    }
+
+    private static Long[] toObjects(final long[] rows) {
+        return Arrays.stream(rows).boxed().toArray(Long[]::new);
+    }
+
+    private List<Long> counts(final Query query) {
+        var reader = new InMemoryReader();
+        reader.query(query);
+        var countReader = reader.of(count);
+        var counts = new ArrayList<Long>();
+        while (reader.hasNext()) {
+            reader.next();
+            counts.add(countReader.get());
+        }
+        return counts;
+    }
+}
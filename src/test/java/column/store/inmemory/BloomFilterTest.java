@@ -0,0 +1,162 @@
+package column.store.inmemory;
+
+import static column.store.api.query.Filter.whereId;
+import static column.store.api.query.Filter.whereString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import column.store.api.column.Column;
+import column.store.api.column.IdColumn;
+import column.store.api.column.LongColumn;
+import column.store.api.column.StringColumn;
+import column.store.api.query.Query;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BloomFilterTest {
+
+    private static final int BLOCK_ROWS = ColumnFormat.DEFAULT_BLOCK_ROWS;
+    private static final int RECORDS = 3 * BLOCK_ROWS + 17;
+
+    private final IdColumn traceId = Column.forId("trace_id-id_128", 2 * Long.BYTES);
+    private final IdColumn id = Column.forId("id");
+    private final StringColumn name = Column.forString("name");
+    private final StringColumn kind = Column.forString("kind");
+    private final LongColumn count = Column.forLong("count");
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void everyIdIsInTheFilterOfItsBlock() throws IOException {
+        write();
+        var traceIds = read(traceId);
+        var ids = read(id);
+
+        for (int i = 1; i < RECORDS; i++) {
+            assertThat(traceIds.mayMatch(i / BLOCK_ROWS, whereId(traceId).is(traceOf(i)))).isTrue();
+            assertThat(ids.mayMatch(i / BLOCK_ROWS, whereId(id).is(idOf(i)))).isTrue();
+        }
+    }
+
+    @Test
+    void missingIdsAreRuledOut() throws IOException {
+        write();
+        var traceIds = read(traceId);
+
+        int falsePositives = 0;
+        for (int i = RECORDS; i < 2 * RECORDS; i++) {
+            if (traceIds.mayMatch(0, whereId(traceId).is(traceOf(i)))) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(RECORDS / 100);
+    }
+
+    @Test
+    void stringFilterIsCaseInsensitive() throws IOException {
+        write();
+        var names = read(name);
+
+        assertThat(names.mayMatch(0, whereString(name).is("SERVICE-1"))).isTrue();
+        assertThat(names.mayMatch(1, whereString(name).is("\u00C4rger-" + (BLOCK_ROWS + 2)))).isTrue();
+        assertThat(names.mayMatch(2, whereString(name).is("service-1"))).isFalse();
+        // other match types cannot be ruled out by a hash
+        assertThat(names.mayMatch(2, whereString(name).startsWith("service-1"))).isTrue();
+        assertThat(BloomFilter.path(tempDir, kind)).doesNotExist();
+    }
+
+    @Test
+    void readerFindsRecordsWithAndWithoutBloomFilter() throws IOException {
+        write();
+        var filter = whereId(traceId).is(traceOf(2 * BLOCK_ROWS + 1));
+
+        assertThat(counts(Query.from(tempDir).select(count).filter(filter).allOf())).containsExactly(2L * BLOCK_ROWS + 1);
+        assertThat(counts(Query.from(tempDir).select(count).filter(whereString(name).is("service-5")).atLeastOne()))
+                .containsExactly(5L);
+        assertThat(counts(Query.from(tempDir).select(count).filter(whereId(traceId).is(traceOf(RECORDS))).allOf())).isEmpty();
+
+        Files.delete(BloomFilter.path(tempDir, traceId));
+        assertThat(counts(Query.from(tempDir).select(count).filter(filter).allOf())).containsExactly(2L * BLOCK_ROWS + 1);
+    }
+
+    @Test
+    void bloomFilterHasToBeRequestedBeforeTheFirstValue() throws IOException {
+        try (var writer = new InMemoryWriter(tempDir)) {
+            writer.of(name).write("a");
+
+            assertThatThrownBy(() -> writer.bloomFilter(name)).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void bloomFilterOfAColumnWithoutOneFailsWhenItIsRequested() throws IOException {
+        var output = new ColumnOutput(FileChannel.open(tempDir.resolve("blooms"), StandardOpenOption.CREATE, StandardOpenOption.WRITE),
+                ByteBuffer.allocateDirect(InMemoryWriter.MIN_BUFFER_SIZE));
+        try {
+            var writer = new LongBlockWriter(output, BLOCK_ROWS);
+
+            assertThatThrownBy(() -> writer.writeBloomFiltersTo(output)).isInstanceOf(UnsupportedOperationException.class);
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Writes a record per trace, the first record has no trace id. Every even name of the second block is not ASCII.
+     */
+    private void write() throws IOException {
+        try (var writer = new InMemoryWriter(tempDir)) {
+            writer.bloomFilter(name);
+            for (int i = 0; i < RECORDS; i++) {
+                if (i > 0) {
+                    writer.of(traceId).write(traceOf(i));
+                }
+                writer.of(id).write(idOf(i));
+                boolean ascii = i / BLOCK_ROWS != 1 || i % 2 == 1;
+                writer.of(name).write((ascii ? "Service-" : "\u00C4RGER-") + i);
+                writer.of(kind).write("server");
+                writer.of(count).write(i);
+                writer.next();
+            }
+        }
+    }
+
+    private BloomFilter read(final Column column) throws IOException {
+        return BloomFilter.read(Bytes.heap(Files.readAllBytes(BloomFilter.path(tempDir, column))));
+    }
+
+    private static byte[] traceOf(final int record) {
+        var trace = new byte[2 * Long.BYTES];
+        for (int i = 0; i < Integer.BYTES; i++) {
+            trace[trace.length - 1 - i] = (byte) (record >> i * Byte.SIZE);
+        }
+        return trace;
+    }
+
+    private static byte[] idOf(final int record) {
+        return Integer.toString(record).getBytes();
+    }
+
+    private List<Long> counts(final Query query) {
+        var reader = new InMemoryReader();
+        reader.query(query);
+        var countReader = reader.of(count);
+        var counts = new ArrayList<Long>();
+        while (reader.hasNext()) {
+            reader.next();
+            counts.add(countReader.get());
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,60 @@
+package column.store.inmemory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BytesTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void mappedBytesReadValuesSpanningChunks() throws IOException {
+        var content = ByteBuffer.allocate(100);
+        for (int i = 0; i < content.capacity(); i++) {
+            content.put((byte) (i * 31));
+        }
+        var file = Files.write(tempDir.resolve("column"), content.array());
+
+        var heap = Bytes.heap(content.array());
+        // 16 byte chunks, so almost every long and int is split between two chunks
+        var mapped = Bytes.map(file, 4);
+
+        assertThat(mapped.size()).isEqualTo(heap.size());
+        for (long i = 0; i + Long.BYTES <= heap.size(); i++) {
+            assertThat(mapped.get(i)).isEqualTo(heap.get(i));
+            assertThat(mapped.getInt(i)).isEqualTo(heap.getInt(i));
+            assertThat(mapped.getLong(i)).isEqualTo(heap.getLong(i));
+            assertThat(mapped.getDouble(i)).isEqualTo(heap.getDouble(i));
+        }
+    }
+
+    @Test
+    void mappedBytesCopyAcrossChunks() throws IOException {
+        var content = "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8);
+        var file = Files.write(tempDir.resolve("column"), content);
+
+        var mapped = Bytes.map(file, 3);
+        var copy = new byte[content.length - 5];
+        mapped.get(5, copy, 0, copy.length);
+
+        assertThat(copy).isEqualTo(Arrays.copyOfRange(content, 5, content.length));
+        assertThat(mapped.string(4, 5)).isEqualTo("quick");
+    }
+
+    @Test
+    void emptyFileCanBeMapped() throws IOException {
+        var file = Files.createFile(tempDir.resolve("column"));
+
+        assertThat(Bytes.map(file).size()).isZero();
+    }
+}
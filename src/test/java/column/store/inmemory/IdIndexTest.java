@@ -0,0 +1,120 @@
+package column.store.inmemory;
+
+import static column.store.api.query.Filter.whereId;
+import static column.store.api.query.Filter.whereLong;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import column.store.api.column.Column;
+import column.store.api.column.IdColumn;
+import column.store.api.column.LongColumn;
+import column.store.api.query.Query;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class IdIndexTest {
+
+    private static final int RECORDS = 5 * ColumnFormat.DEFAULT_BLOCK_ROWS + 17;
+    private static final int SPANS_PER_TRACE = 30;
+
+    private final IdColumn traceId = Column.forId("trace_id-id_128", 2 * Long.BYTES);
+    private final LongColumn count = Column.forLong("count");
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void indexHasTheRowsOfEveryId() throws IOException {
+        write(true);
+
+        var index = IdIndex.read(Bytes.heap(Files.readAllBytes(IdIndex.path(tempDir, traceId))));
+
+        assertThat(index.rows(traceOf(0))).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19,
+                20, 21, 22, 23, 24, 25, 26, 27, 28, 29);
+        assertThat(index.rows(traceOf(RECORDS - 1))).hasSize(RECORDS % SPANS_PER_TRACE);
+        assertThat(index.rows(new byte[2 * Long.BYTES])).isEmpty();
+    }
+
+    @Test
+    void indexOfExistingRecordsIsTheSame() throws IOException {
+        write(true);
+        var written = Files.readAllBytes(IdIndex.path(tempDir, traceId));
+        Files.delete(IdIndex.path(tempDir, traceId));
+
+        IdIndex.build(tempDir, traceId);
+
+        assertThat(Files.readAllBytes(IdIndex.path(tempDir, traceId))).isEqualTo(written);
+    }
+
+    @Test
+    void readerFindsRecordsWithAndWithoutIndex() throws IOException {
+        write(true);
+        var trace = traceOf(3 * ColumnFormat.DEFAULT_BLOCK_ROWS);
+        var expected = new ArrayList<Long>();
+        for (long i = 3 * ColumnFormat.DEFAULT_BLOCK_ROWS / SPANS_PER_TRACE * SPANS_PER_TRACE; expected.size() < SPANS_PER_TRACE; i++) {
+            expected.add(i);
+        }
+
+        assertThat(counts(Query.from(tempDir).select(count).filter(whereId(traceId).is(trace)).allOf())).isEqualTo(expected);
+        assertThat(counts(Query.from(tempDir)
+                .select(count)
+                .filter(whereLong(count).isGreaterThan(expected.get(1)))
+                .filter(whereId(traceId).is(trace))
+                .allOf())).isEqualTo(expected.subList(2, SPANS_PER_TRACE));
+        assertThat(counts(Query.from(tempDir).select(count).filter(whereId(traceId).is(new byte[2 * Long.BYTES])).allOf())).isEmpty();
+
+        Files.delete(IdIndex.path(tempDir, traceId));
+        assertThat(counts(Query.from(tempDir).select(count).filter(whereId(traceId).is(trace)).allOf())).isEqualTo(expected);
+    }
+
+    @Test
+    void indexIsOptional() throws IOException {
+        write(false);
+
+        assertThat(IdIndex.path(tempDir, traceId)).doesNotExist();
+    }
+
+    /**
+     * Writes traces of {@link #SPANS_PER_TRACE} consecutive records, the first record has no trace id.
+     */
+    private void write(final boolean index) throws IOException {
+        try (var writer = new InMemoryWriter(tempDir)) {
+            if (index) {
+                writer.index(traceId);
+            }
+            for (int i = 0; i < RECORDS; i++) {
+                if (i > 0) {
+                    writer.of(traceId).write(traceOf(i));
+                }
+                writer.of(count).write(i);
+                writer.next();
+            }
+        }
+    }
+
+    private static byte[] traceOf(final int record) {
+        var trace = new byte[2 * Long.BYTES];
+        trace[0] = 1;
+        trace[trace.length - 2] = (byte) (record / SPANS_PER_TRACE >> Byte.SIZE);
+        trace[trace.length - 1] = (byte) (record / SPANS_PER_TRACE);
+        return trace;
+    }
+
+    private List<Long> counts(final Query query) {
+        var reader = new InMemoryReader();
+        reader.query(query);
+        var countReader = reader.of(count);
+        var counts = new ArrayList<Long>();
+        while (reader.hasNext()) {
+            reader.next();
+            counts.add(countReader.get());
+        }
+        return counts;
+    }
+}
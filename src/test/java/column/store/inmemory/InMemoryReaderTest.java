@@ -0,0 +1,734 @@
+package column.store.inmemory;
+
+import static column.store.api.query.Filter.whereBoolean;
+import static column.store.api.query.Filter.whereId;
+import static column.store.api.query.Filter.whereLong;
+import static column.store.api.query.Filter.whereString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import column.store.api.column.BooleanColumn;
+import column.store.api.column.Column;
+import column.store.api.column.DoubleColumn;
+import column.store.api.column.IdColumn;
+import column.store.api.column.LongColumn;
+import column.store.api.column.StringColumn;
+import column.store.api.query.Filter;
+import column.store.api.query.Query;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class InMemoryReaderTest {
+
+    private static final int RECORDS = 3 * ColumnFormat.DEFAULT_BLOCK_ROWS + 17;
+
+    private final BooleanColumn flag = Column.forBoolean("flag");
+    private final DoubleColumn ratio = Column.forDouble("ratio");
+    private final IdColumn id = Column.forId("id");
+    private final LongColumn count = Column.forLong("count");
+    private final StringColumn name = Column.forString("name");
+
+    @TempDir
+    private Path tempDir;
+
+    @ParameterizedTest
+    @EnumSource(InMemoryReader.Mode.class)
+    void readsWhatWasWritten(final InMemoryReader.Mode mode) throws IOException {
+        try (var writer = new InMemoryWriter(tempDir, InMemoryWriter.MIN_BUFFER_SIZE)) {
+            var flagWriter = writer.of(flag);
+            var ratioWriter = writer.of(ratio);
+            var idWriter = writer.of(id);
+            var countWriter = writer.of(count);
+            var nameWriter = writer.of(name);
+            for (int i = 0; i < RECORDS; i++) {
+                if (i % 3 != 0) {
+                    flagWriter.write(i % 2 == 0);
+                }
+                if (i >= ColumnFormat.DEFAULT_BLOCK_ROWS) {
+                    // first block is all null
+                    ratioWriter.write(i / 2.0);
+                }
+                idWriter.write(new byte[] {(byte) i, (byte) (i >> Byte.SIZE)});
+                if (i % 7 == 0) {
+                    countWriter.write(i);
+                } else {
+                    countWriter.writeNull();
+                }
+                // name is never written for the last block
+                if (i < 3 * ColumnFormat.DEFAULT_BLOCK_ROWS) {
+                    nameWriter.write("name-" + i);
+                }
+                writer.next();
+            }
+        }
+
+        var reader = new InMemoryReader(mode);
+        reader.query(Query.from(tempDir).select(flag, ratio, id, count, name).allOf());
+        var flagReader = reader.of(flag);
+        var ratioReader = reader.of(ratio);
+        var idReader = reader.of(id);
+        var countReader = reader.of(count);
+        var nameReader = reader.of(name);
+
+        for (int i = 0; i < RECORDS; i++) {
+            assertThat(reader.hasNext()).isTrue();
+            reader.next();
+
+            assertThat(flagReader.isPresent()).isEqualTo(i % 3 != 0);
+            if (flagReader.isPresent()) {
+                assertThat(flagReader.get()).isEqualTo(i % 2 == 0);
+            }
+            assertThat(ratioReader.isPresent()).isEqualTo(i >= ColumnFormat.DEFAULT_BLOCK_ROWS);
+            if (ratioReader.isPresent()) {
+                assertThat(ratioReader.get()).isEqualTo(i / 2.0);
+            }
+            assertThat(idReader.get()).containsExactly((byte) i, (byte) (i >> Byte.SIZE));
+            assertThat(countReader.isPresent()).isEqualTo(i % 7 == 0);
+            if (countReader.isPresent()) {
+                assertThat(countReader.get()).isEqualTo(i);
+            }
+            assertThat(nameReader.isPresent()).isEqualTo(i < 3 * ColumnFormat.DEFAULT_BLOCK_ROWS);
+            if (nameReader.isPresent()) {
+                assertThat(nameReader.get()).isEqualTo("name-" + i);
+            }
+        }
+        assertThat(reader.hasNext()).isFalse();
+    }
+
+    @ParameterizedTest
+    @EnumSource(InMemoryReader.Mode.class)
+    void readsBatchesAcrossBlocks(final InMemoryReader.Mode mode) throws IOException {
+        try (var writer = new InMemoryWriter(tempDir)) {
+            for (int i = 0; i < RECORDS; i++) {
+                if (i % 3 != 0) {
+                    writer.of(count).write(i);
+                    writer.of(name).write("name-" + i);
+                }
+                writer.of(id).write(new byte[i % 5]);
+                writer.next();
+            }
+        }
+
+        var reader = new InMemoryReader(mode);
+        reader.query(Query.from(tempDir).select(count, name, id).allOf());
+        var counts = reader.of(count).vector();
+        var names = reader.of(name).vector();
+        var ids = reader.of(id).vector();
+
+        int record = 0;
+        int rows;
+        while ((rows = reader.nextBatch(1000)) > 0) {
+            assertThat(counts.size()).isEqualTo(rows);
+            assertThat(names.size()).isEqualTo(rows);
+            assertThat(ids.size()).isEqualTo(rows);
+            for (int row = 0; row < rows; row++, record++) {
+                assertThat(counts.isNull(row)).isEqualTo(record % 3 == 0);
+                assertThat(names.isNull(row)).isEqualTo(record % 3 == 0);
+                if (counts.isPresent(row)) {
+                    assertThat(counts.get(row)).isEqualTo(record);
+                    assertThat(names.getString(row)).isEqualTo("name-" + record);
+                }
+                assertThat(ids.length(row)).isEqualTo(record % 5);
+            }
+            assertThat(reader.of(count).get()).isEqualTo(record - 1);
+        }
+        assertThat(record).isEqualTo(RECORDS);
+    }
+
+    @ParameterizedTest
+    @EnumSource(InMemoryReader.Mode.class)
+    void readsOnlyRecordsMatchingAllFilters(final InMemoryReader.Mode mode) throws IOException {
+        writeFilterRecords();
+
+        var reader = new InMemoryReader(mode);
+        reader.query(Query.from(tempDir)
+                .select(ratio)
+                .filter(whereLong(count).isBetween(ColumnFormat.DEFAULT_BLOCK_ROWS + 10, 2 * ColumnFormat.DEFAULT_BLOCK_ROWS + 10))
+                .filter(whereString(name).endsWith("3"))
+                .allOf());
+        var countReader = reader.of(count);
+        var ratioReader = reader.of(ratio);
+
+        var expected = new ArrayList<Long>();
+        for (int i = ColumnFormat.DEFAULT_BLOCK_ROWS + 10; i < 2 * ColumnFormat.DEFAULT_BLOCK_ROWS + 10; i++) {
+            if (i % 7 != 0 && i % 10 == 3) {
+                expected.add((long) i);
+            }
+        }
+        var actual = new ArrayList<Long>();
+        while (reader.hasNext()) {
+            reader.next();
+            actual.add(countReader.get());
+            assertThat(ratioReader.get()).isEqualTo(countReader.get() / 2.0);
+        }
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @EnumSource(InMemoryReader.Mode.class)
+    void readsRecordsMatchingAtLeastOneFilter(final InMemoryReader.Mode mode) throws IOException {
+        writeFilterRecords();
+
+        var reader = new InMemoryReader(mode);
+        reader.query(Query.from(tempDir)
+                .select(count)
+                .filter(whereLong(count).isLessThan(3))
+                .filter(whereString(name).is("NAME-9000"))
+                .filter(whereId(id).is(new byte[] {(byte) ((RECORDS - 1) % 3), (byte) (RECORDS - 1 >> Byte.SIZE), (byte) (RECORDS - 1)}))
+                .atLeastOne());
+        var countReader = reader.of(count);
+
+        var actual = new ArrayList<Long>();
+        while (reader.hasNext()) {
+            reader.next();
+            actual.add(countReader.isPresent() ? countReader.get() : -1);
+        }
+        // records 0 and 7 do not have a count, record 0 has no name as well
+        assertThat(actual).containsExactly(1L, 2L, 9000L, (long) RECORDS - 1);
+    }
+
+    @Test
+    void readsBatchesOfMatchingRecords() throws IOException {
+        writeFilterRecords();
+
+        var reader = new InMemoryReader();
+        reader.query(Query.from(tempDir)
+                .select(ratio, name)
+                .filter(whereLong(count).isGreaterThan(2 * ColumnFormat.DEFAULT_BLOCK_ROWS - 100))
+                .allOf());
+        var ratios = reader.of(ratio).vector();
+
+        var expected = new ArrayList<Double>();
+        for (int i = 2 * ColumnFormat.DEFAULT_BLOCK_ROWS - 99; i < RECORDS; i++) {
+            if (i % 7 != 0) {
+                expected.add(i / 2.0);
+            }
+        }
+        var actual = new ArrayList<Double>();
+        int rows;
+        while ((rows = reader.nextBatch(1000)) > 0) {
+            assertThat(reader.of(name).vector().size()).isEqualTo(rows);
+            for (int row = 0; row < rows; row++) {
+                actual.add(ratios.get(row));
+            }
+        }
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    /**
+     * Writes records with a count (null for every 7th record), a ratio of half the count, a name ("Name-" and
+     * the count, null for the first record) and an id of 3 bytes.
+     */
+    private void writeFilterRecords() throws IOException {
+        try (var writer = new InMemoryWriter(tempDir)) {
+            for (int i = 0; i < RECORDS; i++) {
+                if (i % 7 != 0) {
+                    writer.of(count).write(i);
+                }
+                writer.of(ratio).write(i / 2.0);
+                if (i > 0) {
+                    writer.of(name).write("Name-" + i);
+                }
+                writer.of(id).write(new byte[] {(byte) (i % 3), (byte) (i >> Byte.SIZE), (byte) i});
+                writer.next();
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(InMemoryReader.Mode.class)
+    void readsDeltaEncodedLongs(final InMemoryReader.Mode mode) throws IOException {
+        var timestamp = Column.forLong("timestamp");
+        var expected = new Long[RECORDS];
+        long start = 1_704_357_275_983_219_000L;
+        try (var writer = new InMemoryWriter(tempDir)) {
+            for (int i = 0; i < RECORDS; i++) {
+                if (i % 11 != 0) {
+                    // nearly monotonic, with a jitter and a few values, whose deltas overflow
+                    expected[i] = i % 1000 == 1 ? Long.MIN_VALUE : i % 1000 == 2 ? Long.MAX_VALUE : start + 1000L * i + i % 3;
+                    writer.of(timestamp).write(expected[i]);
+                }
+                writer.next();
+            }
+        }
+        long plainBytes = (long) RECORDS * Long.BYTES;
+        assertThat(Files.size(tempDir.resolve(Column.Type.LONG.name()).resolve(timestamp.name()))).isLessThan(plainBytes / 4);
+
+        var reader = new InMemoryReader(mode);
+        reader.query(Query.from(tempDir).select(timestamp).allOf());
+        var timestampReader = reader.of(timestamp);
+        for (int i = 0; i < RECORDS; i++) {
+            reader.next();
+            assertThat(timestampReader.isPresent()).isEqualTo(expected[i] != null);
+            if (expected[i] != null) {
+                assertThat(timestampReader.get()).isEqualTo(expected[i]);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(InMemoryReader.Mode.class)
+    void filtersBitPackedLongs(final InMemoryReader.Mode mode) throws IOException {
+        var status = Column.forLong("http_response_status_code-long");
+        var statusCodes = new long[] {200, 201, 204, 404, 500, 503};
+        try (var writer = new InMemoryWriter(tempDir)) {
+            for (int i = 0; i < RECORDS; i++) {
+                if (i % 5 != 0) {
+                    // the first block has no server errors, so its miniblocks are ruled out without unpacking them
+                    writer.of(status).write(statusCodes[i % (i < ColumnFormat.DEFAULT_BLOCK_ROWS ? 4 : statusCodes.length)]);
+                }
+                writer.of(count).write(i);
+                writer.next();
+            }
+        }
+        long plainBytes = (long) RECORDS * Long.BYTES;
+        assertThat(Files.size(tempDir.resolve(Column.Type.LONG.name()).resolve(status.name()))).isLessThan(plainBytes / 4);
+
+        var reader = new InMemoryReader(mode);
+        reader.query(Query.from(tempDir).select(count, status).filter(whereLong(status).isBetween(500, 600)).allOf());
+        var countReader = reader.of(count);
+        var statusReader = reader.of(status);
+        var expected = new ArrayList<Long>();
+        for (int i = ColumnFormat.DEFAULT_BLOCK_ROWS; i < RECORDS; i++) {
+            if (i % 5 != 0 && statusCodes[i % statusCodes.length] >= 500) {
+                expected.add((long) i);
+            }
+        }
+        var counts = new ArrayList<Long>();
+        while (reader.hasNext()) {
+            reader.next();
+            counts.add(countReader.get());
+            assertThat(statusReader.get()).isEqualTo(statusCodes[(int) countReader.get() % statusCodes.length]);
+        }
+
+        assertThat(counts).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @EnumSource(InMemoryReader.Mode.class)
+    void readsXorEncodedDoubles(final InMemoryReader.Mode mode) throws IOException {
+        var expected = new Double[RECORDS];
+        try (var writer = new InMemoryWriter(tempDir)) {
+            for (int i = 0; i < RECORDS; i++) {
+                if (i % 7 != 0) {
+                    // a slowly changing gauge with a few special values
+                    expected[i] = i % 1000 == 1 ? Double.NaN : i % 1000 == 2 ? -0.0 : 20.5 + (i / 50 % 13) * 0.25;
+                    writer.of(ratio).write(expected[i]);
+                }
+                writer.next();
+            }
+        }
+        long plainBytes = (long) RECORDS * Double.BYTES;
+        assertThat(Files.size(tempDir.resolve(Column.Type.DOUBLE.name()).resolve(ratio.name()))).isLessThan(plainBytes / 4);
+
+        var reader = new InMemoryReader(mode);
+        reader.query(Query.from(tempDir).select(ratio).allOf());
+        var ratioReader = reader.of(ratio);
+        for (int i = 0; i < RECORDS; i++) {
+            reader.next();
+            assertThat(ratioReader.isPresent()).isEqualTo(expected[i] != null);
+            if (expected[i] != null) {
+                assertThat(ratioReader.get()).isEqualTo(expected[i]);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(InMemoryReader.Mode.class)
+    void readsDictionaryEncodedStrings(final InMemoryReader.Mode mode) throws IOException {
+        var levels = new String[] {"INFO", "Warn", "error"};
+        var host = Column.forString("host");
+        try (var writer = new InMemoryWriter(tempDir)) {
+            for (int i = 0; i < RECORDS; i++) {
+                if (i % 5 != 0) {
+                    writer.of(name).write(levels[i % levels.length]);
+                }
+                // the cardinality explodes after the first block
+                writer.of(host).write(i < ColumnFormat.DEFAULT_BLOCK_ROWS ? "host-" + i % 2 : "host-" + i);
+                writer.next();
+            }
+        }
+        assertThat(encodings(name)).containsOnly(ColumnFormat.SORTED_DICTIONARY);
+        assertThat(encodings(host))
+                .containsExactly(ColumnFormat.SORTED_DICTIONARY, ColumnFormat.PLAIN, ColumnFormat.PLAIN, ColumnFormat.PLAIN);
+
+        var reader = new InMemoryReader(mode);
+        reader.query(Query.from(tempDir).select(name, host).filter(whereString(name).is("WARN")).allOf());
+        var nameReader = reader.of(name);
+        var hostReader = reader.of(host);
+        int records = 0;
+        while (reader.hasNext()) {
+            reader.next();
+            assertThat(nameReader.get()).isEqualTo("Warn");
+            assertThat(hostReader.get()).startsWith("host-");
+            records++;
+        }
+        int expected = 0;
+        for (int i = 0; i < RECORDS; i++) {
+            if (i % 5 != 0 && i % levels.length == 1) {
+                expected++;
+            }
+        }
+        assertThat(records).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @EnumSource(InMemoryReader.Mode.class)
+    void filtersSortedDictionaries(final InMemoryReader.Mode mode) throws IOException {
+        var values = new String[RECORDS];
+        try (var writer = new InMemoryWriter(tempDir)) {
+            for (int i = 0; i < RECORDS; i++) {
+                // the third block is not ASCII
+                var prefix = i / ColumnFormat.DEFAULT_BLOCK_ROWS == 2 ? "G\u00C9T" : i % 2 == 0 ? "GET" : "get";
+                values[i] = prefix + " /api/v" + i % 3 + "/users/" + i % 50;
+                writer.of(name).write(values[i]);
+                writer.of(count).write(i);
+                writer.next();
+            }
+        }
+        assertThat(encodings(name)).containsExactly(ColumnFormat.SORTED_DICTIONARY, ColumnFormat.SORTED_DICTIONARY,
+                ColumnFormat.DICTIONARY, ColumnFormat.PLAIN);
+
+        assertThat(counts(mode, whereString(name).is("get /API/v1/users/7")))
+                .isEqualTo(expected(values, v -> v.equals("get /api/v1/users/7")));
+        assertThat(counts(mode, whereString(name).startsWith("GET /api/v2/users/1")))
+                .isEqualTo(expected(values, v -> v.startsWith("get /api/v2/users/1")));
+        assertThat(counts(mode, whereString(name).endsWith("S/7"))).isEqualTo(expected(values, v -> v.endsWith("s/7")));
+        assertThat(counts(mode, whereString(name).endsWith("")).size()).isEqualTo(RECORDS);
+        assertThat(counts(mode, whereString(name).contains("v0/users/4"))).isEqualTo(expected(values, v -> v.contains("v0/users/4")));
+        assertThat(counts(mode, whereString(name).startsWith("g\u00E9t"))).isEqualTo(expected(values, v -> v.startsWith("g\u00E9t")));
+        assertThat(counts(mode, whereString(name).startsWith("post"))).isEmpty();
+    }
+
+    @ParameterizedTest
+    @EnumSource(InMemoryReader.Mode.class)
+    void dictionaryEncodesBlocksAfterASparseBlock(final InMemoryReader.Mode mode) throws IOException {
+        var levels = new String[] {"INFO", "WARN", "ERROR"};
+        var expected = new ArrayList<Long>();
+        try (var writer = new InMemoryWriter(tempDir)) {
+            for (int i = 0; i < RECORDS; i++) {
+                // a dictionary of the single value of the first block is larger than the value
+                if (i == 7 || i >= ColumnFormat.DEFAULT_BLOCK_ROWS) {
+                    writer.of(name).write(levels[i % levels.length]);
+                    if (i % levels.length == 1) {
+                        expected.add((long) i);
+                    }
+                }
+                writer.of(count).write(i);
+                writer.next();
+            }
+        }
+        assertThat(encodings(name)).containsExactly(ColumnFormat.PLAIN, ColumnFormat.SORTED_DICTIONARY,
+                ColumnFormat.SORTED_DICTIONARY, ColumnFormat.SORTED_DICTIONARY);
+
+        assertThat(counts(mode, whereString(name).is("warn"))).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @EnumSource(InMemoryReader.Mode.class)
+    void stopsBuildingDictionariesOfUniqueValues(final InMemoryReader.Mode mode) throws IOException {
+        var levels = new String[] {"INFO", "WARN", "ERROR"};
+        var expected = new ArrayList<Long>();
+        int uniqueRows = 3 * ColumnFormat.DEFAULT_BLOCK_ROWS;
+        try (var writer = new InMemoryWriter(tempDir)) {
+            for (int i = 0; i < uniqueRows + 2 * ColumnFormat.DEFAULT_BLOCK_ROWS; i++) {
+                // the dictionaries of the following blocks would be smaller, but are not built any more
+                writer.of(name).write(i < uniqueRows ? "payload " + i : levels[i % levels.length]);
+                if (i >= uniqueRows && i % levels.length == 1) {
+                    expected.add((long) i);
+                }
+                writer.of(count).write(i);
+                writer.next();
+            }
+        }
+        assertThat(encodings(name)).containsOnly(ColumnFormat.PLAIN).hasSize(5);
+
+        assertThat(counts(mode, whereString(name).is("warn"))).isEqualTo(expected);
+    }
+
+    private List<Long> counts(final InMemoryReader.Mode mode, final Filter filter) {
+        var reader = new InMemoryReader(mode);
+        reader.query(Query.from(tempDir).select(count).filter(filter).allOf());
+        var countReader = reader.of(count);
+        var counts = new ArrayList<Long>();
+        while (reader.hasNext()) {
+            reader.next();
+            counts.add(countReader.get());
+        }
+        return counts;
+    }
+
+    private static List<Long> expected(final String[] values, final Predicate<String> matches) {
+        var expected = new ArrayList<Long>();
+        for (int i = 0; i < values.length; i++) {
+            if (matches.test(values[i].toLowerCase(Locale.ROOT))) {
+                expected.add((long) i);
+            }
+        }
+        return expected;
+    }
+
+    @ParameterizedTest
+    @EnumSource(InMemoryReader.Mode.class)
+    void filtersRunLengthEncodedColumns(final InMemoryReader.Mode mode) throws IOException {
+        var host = Column.forString("dt_entity_host-string");
+        var failed = Column.forBoolean("request_is_failed-boolean");
+        try (var writer = new InMemoryWriter(tempDir)) {
+            for (int i = 0; i < RECORDS; i++) {
+                // sorted by host, a few requests per host failed
+                writer.of(host).write("HOST-" + i / 100);
+                if (i % 100 != 0) {
+                    writer.of(failed).write(i % 100 >= 90);
+                }
+                writer.of(count).write(i);
+                writer.next();
+            }
+        }
+        assertThat(encodings(host)).containsOnly(ColumnFormat.RUN_LENGTH);
+        assertThat(encodings(failed).subList(0, 3)).containsOnly(ColumnFormat.RUN_LENGTH);
+
+        var reader = new InMemoryReader(mode);
+        reader.query(Query.from(tempDir)
+                .select(count)
+                .filter(whereString(host).is("host-42"))
+                .filter(whereBoolean(failed).is(true))
+                .allOf());
+        var countReader = reader.of(count);
+        var counts = new ArrayList<Long>();
+        while (reader.hasNext()) {
+            reader.next();
+            counts.add(countReader.get());
+        }
+
+        assertThat(counts).containsExactly(4290L, 4291L, 4292L, 4293L, 4294L, 4295L, 4296L, 4297L, 4298L, 4299L);
+    }
+
+    @ParameterizedTest
+    @EnumSource(InMemoryReader.Mode.class)
+    void readsSparseColumns(final InMemoryReader.Mode mode) throws IOException {
+        var statement = Column.forString("db_statement-string");
+        try (var writer = new InMemoryWriter(tempDir)) {
+            for (int i = 0; i < RECORDS; i++) {
+                // only every 100th span is a database call in the first block
+                if (i % (i < ColumnFormat.DEFAULT_BLOCK_ROWS ? 100 : 2) == 0) {
+                    writer.of(statement).write("select " + i);
+                    writer.of(count).write(i);
+                }
+                writer.next();
+            }
+        }
+        assertThat(layouts(statement).get(0)).isEqualTo(ColumnFormat.SPARSE);
+        assertThat(layouts(count)).containsExactly(ColumnFormat.SPARSE, ColumnFormat.BITMAP, ColumnFormat.BITMAP, ColumnFormat.BITMAP);
+
+        var reader = new InMemoryReader(mode);
+        reader.query(Query.from(tempDir).select(statement, count).allOf());
+        var statementReader = reader.of(statement);
+        var countReader = reader.of(count);
+        for (int i = 0; i < RECORDS; i++) {
+            reader.next();
+            boolean present = i % (i < ColumnFormat.DEFAULT_BLOCK_ROWS ? 100 : 2) == 0;
+            assertThat(statementReader.isPresent()).isEqualTo(present);
+            assertThat(countReader.isPresent()).isEqualTo(present);
+            if (present) {
+                assertThat(statementReader.get()).isEqualTo("select " + i);
+                assertThat(countReader.get()).isEqualTo(i);
+            }
+        }
+        assertThat(reader.hasNext()).isFalse();
+
+        reader = new InMemoryReader(mode);
+        reader.query(Query.from(tempDir).select(count).filter(whereString(statement).is("SELECT 4200")).allOf());
+        countReader = reader.of(count);
+        assertThat(reader.hasNext()).isTrue();
+        reader.next();
+        assertThat(countReader.get()).isEqualTo(4200);
+        assertThat(reader.hasNext()).isFalse();
+    }
+
+    /**
+     * @return the encodings of the blocks of {@code column}.
+     */
+    private List<Byte> encodings(final Column column) throws IOException {
+        return blockHeaders(column, ColumnFormat.ENCODING_OFFSET);
+    }
+
+    /**
+     * @return the layouts of the blocks of {@code column}.
+     */
+    private List<Byte> layouts(final Column column) throws IOException {
+        return blockHeaders(column, ColumnFormat.LAYOUT_OFFSET);
+    }
+
+    /**
+     * @return the byte at {@code offset} of the header of every block of {@code column}.
+     */
+    private List<Byte> blockHeaders(final Column column, final int offset) throws IOException {
+        var bytes = Bytes.heap(Files.readAllBytes(tempDir.resolve(column.type().name()).resolve(column.name())));
+        var headers = new ArrayList<Byte>();
+        long position = ColumnFormat.FILE_HEADER_BYTES;
+        while (position < bytes.size()) {
+            headers.add(bytes.get(position + offset));
+            position += ColumnFormat.BLOCK_HEADER_BYTES + bytes.getInt(position + ColumnFormat.LENGTH_OFFSET);
+        }
+        return headers;
+    }
+
+    @Test
+    void columnsAddedLaterStartWithNulls() throws IOException {
+        try (var writer = new InMemoryWriter(tempDir)) {
+            writer.of(count).write(1L);
+            writer.next();
+            writer.of(name).write("late");
+            writer.of(count).write(2L);
+            writer.next();
+        }
+
+        var reader = new InMemoryReader();
+        reader.query(Query.from(tempDir).select(count, name).allOf());
+        var countReader = reader.of(count);
+        var nameReader = reader.of(name);
+
+        reader.next();
+        assertThat(countReader.get()).isEqualTo(1L);
+        assertThat(nameReader.isPresent()).isFalse();
+        reader.next();
+        assertThat(countReader.get()).isEqualTo(2L);
+        assertThat(nameReader.get()).isEqualTo("late");
+        assertThat(reader.hasNext()).isFalse();
+    }
+
+    @ParameterizedTest
+    @EnumSource(InMemoryReader.Mode.class)
+    void readsFixedWidthIds(final InMemoryReader.Mode mode) throws IOException {
+        var traceId = Column.forId("trace_id-id_128", 2 * Long.BYTES);
+        try (var writer = new InMemoryWriter(tempDir)) {
+            var traceIdWriter = writer.of(traceId);
+            for (int i = 0; i < RECORDS; i++) {
+                if (i % 5 != 0) {
+                    traceIdWriter.write(ByteBuffer.allocate(2 * Long.BYTES).putLong(i).putLong(-i).array());
+                }
+                writer.next();
+            }
+        }
+
+        var reader = new InMemoryReader(mode);
+        // the width is read from the file, it does not have to be known when reading
+        reader.query(Query.from(tempDir).select(Column.forId("trace_id-id_128")).allOf());
+        var traceIdReader = reader.of(Column.forId("trace_id-id_128"));
+
+        for (int i = 0; i < RECORDS; i++) {
+            assertThat(reader.hasNext()).isTrue();
+            reader.next();
+            assertThat(traceIdReader.isPresent()).isEqualTo(i % 5 != 0);
+            if (traceIdReader.isPresent()) {
+                var value = ByteBuffer.wrap(traceIdReader.get());
+                assertThat(value.getLong()).isEqualTo(i);
+                assertThat(value.getLong()).isEqualTo(-i);
+                assertThat(value.hasRemaining()).isFalse();
+            }
+        }
+        assertThat(reader.hasNext()).isFalse();
+    }
+
+    @ParameterizedTest
+    @EnumSource(InMemoryReader.Mode.class)
+    void readsSparseFixedWidthIds(final InMemoryReader.Mode mode) throws IOException {
+        var traceId = Column.forId("trace_id-id_128", 2 * Long.BYTES);
+        try (var writer = new InMemoryWriter(tempDir)) {
+            for (int i = 0; i < RECORDS; i++) {
+                if (i % 100 == 3) {
+                    writer.of(traceId).write(ByteBuffer.allocate(2 * Long.BYTES).putLong(i).putLong(-i).array());
+                }
+                writer.of(count).write(i);
+                writer.next();
+            }
+        }
+        assertThat(layouts(traceId)).containsOnly(ColumnFormat.SPARSE);
+        // slots of the present rows only
+        assertThat(Files.size(tempDir.resolve(Column.Type.ID.name()).resolve(traceId.name())))
+                .isLessThan((long) RECORDS * 2 * Long.BYTES / 50);
+
+        var reader = new InMemoryReader(mode);
+        reader.query(Query.from(tempDir).select(traceId).allOf());
+        var traceIdReader = reader.of(traceId);
+        for (int i = 0; i < RECORDS; i++) {
+            reader.next();
+            assertThat(traceIdReader.isPresent()).isEqualTo(i % 100 == 3);
+            if (traceIdReader.isPresent()) {
+                var value = ByteBuffer.wrap(traceIdReader.get());
+                assertThat(value.getLong()).isEqualTo(i);
+                assertThat(value.getLong()).isEqualTo(-i);
+            }
+        }
+
+        var id = ByteBuffer.allocate(2 * Long.BYTES).putLong(8403).putLong(-8403).array();
+        assertThat(counts(mode, whereId(traceId).is(id))).containsExactly(8403L);
+    }
+
+    @Test
+    void fixedWidthIdsRejectOtherWidths() throws IOException {
+        try (var writer = new InMemoryWriter(tempDir)) {
+            var spanIdWriter = writer.of(Column.forId("span_id-id_64", Long.BYTES));
+
+            assertThatThrownBy(() -> spanIdWriter.write(new byte[Integer.BYTES])).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void writingTwiceForOneRecordFails() throws IOException {
+        try (var writer = new InMemoryWriter(tempDir)) {
+            var countWriter = writer.of(count);
+            countWriter.write(1L);
+
+            assertThatThrownBy(() -> countWriter.write(2L)).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void readsLegacyColumnFiles() throws IOException {
+        var legacy = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(legacy)) {
+            for (int i = 0; i < ColumnFormat.LEGACY_BLOCK_ROWS + 2; i++) {
+                if (i % 2 == 0) {
+                    var value = ("v" + i).getBytes(StandardCharsets.UTF_8);
+                    out.writeByte(Byte.MAX_VALUE);
+                    out.writeInt(value.length);
+                    out.write(value);
+                } else {
+                    out.writeByte(Byte.MIN_VALUE);
+                }
+            }
+        }
+        var directory = Files.createDirectories(tempDir.resolve(Column.Type.STRING.name()));
+        Files.write(directory.resolve(name.name()), legacy.toByteArray());
+
+        var reader = new InMemoryReader();
+        reader.query(Query.from(tempDir).select(name).allOf());
+        var nameReader = reader.of(name);
+
+        for (int i = 0; i < ColumnFormat.LEGACY_BLOCK_ROWS + 2; i++) {
+            assertThat(reader.hasNext()).isTrue();
+            reader.next();
+            assertThat(nameReader.isPresent()).isEqualTo(i % 2 == 0);
+            if (nameReader.isPresent()) {
+                assertThat(nameReader.get()).isEqualTo("v" + i);
+            }
+        }
+        assertThat(reader.hasNext()).isFalse();
+    }
+}
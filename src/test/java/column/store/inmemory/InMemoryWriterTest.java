@@ -0,0 +1,160 @@
+package column.store.inmemory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import column.store.api.column.BooleanColumn;
+import column.store.api.column.Column;
+import column.store.api.column.IdColumn;
+import column.store.api.column.LongColumn;
+import column.store.api.column.StringColumn;
+import column.store.api.query.Query;
+import column.store.api.read.BinaryVector;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class InMemoryWriterTest {
+
+    private static final int RECORDS = 2 * ColumnFormat.DEFAULT_BLOCK_ROWS + 100;
+
+    private final BooleanColumn flag = Column.forBoolean("flag");
+    private final IdColumn spanId = Column.forId("span_id-id_64", Long.BYTES);
+    private final LongColumn count = Column.forLong("count");
+    private final StringColumn name = Column.forString("name");
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void batchesAreWrittenAcrossBlocks() throws IOException {
+        var counts = new long[RECORDS];
+        var flags = new boolean[RECORDS];
+        var names = new BinaryVector();
+        var spanIds = new BinaryVector();
+        var nulls = new BitSet();
+        for (int i = 0; i < RECORDS; i++) {
+            counts[i] = i;
+            flags[i] = i % 2 == 0;
+            if (i % 3 == 0) {
+                nulls.set(i);
+                names.appendNull();
+                spanIds.appendNull();
+            } else {
+                names.append("name-" + i);
+                spanIds.append(new byte[] {0, 0, 0, 0, 0, 0, (byte) (i >> Byte.SIZE), (byte) i});
+            }
+        }
+
+        try (var writer = new InMemoryWriter(tempDir)) {
+            // a record before the batch, so the batch does not start at a block boundary
+            writer.of(count).write(-1);
+            writer.next();
+
+            writer.of(count).writeAll(counts, nulls, RECORDS);
+            writer.of(flag).writeAll(flags, nulls, RECORDS);
+            writer.of(name).writeAll(names);
+            writer.of(spanId).writeAll(spanIds);
+            writer.nextBatch(RECORDS);
+        }
+
+        var reader = new InMemoryReader();
+        reader.query(Query.from(tempDir).select(count, flag, name, spanId).allOf());
+        var countReader = reader.of(count);
+        var flagReader = reader.of(flag);
+        var nameReader = reader.of(name);
+        var spanIdReader = reader.of(spanId);
+
+        reader.next();
+        assertThat(countReader.get()).isEqualTo(-1);
+        assertThat(flagReader.isPresent()).isFalse();
+        for (int i = 0; i < RECORDS; i++) {
+            reader.next();
+            assertThat(countReader.isPresent()).isEqualTo(i % 3 != 0);
+            if (i % 3 != 0) {
+                assertThat(countReader.get()).isEqualTo(i);
+                assertThat(flagReader.get()).isEqualTo(i % 2 == 0);
+                assertThat(nameReader.get()).isEqualTo("name-" + i);
+                assertThat(spanIdReader.get()).endsWith((byte) (i >> Byte.SIZE), (byte) i);
+            } else {
+                assertThat(flagReader.isPresent()).isFalse();
+                assertThat(nameReader.isPresent()).isFalse();
+                assertThat(spanIdReader.isPresent()).isFalse();
+            }
+        }
+        assertThat(reader.hasNext()).isFalse();
+    }
+
+    @Test
+    void recordsWithoutBatchValuesAreNull() throws IOException {
+        try (var writer = new InMemoryWriter(tempDir)) {
+            writer.of(name);
+            writer.of(count).writeAll(new long[] {1, 2}, new BitSet(), 2);
+            writer.nextBatch(3);
+        }
+
+        var reader = new InMemoryReader();
+        reader.query(Query.from(tempDir).select(count, name).allOf());
+        assertThat(reader.nextBatch(10)).isEqualTo(3);
+        var counts = reader.of(count).vector();
+        assertThat(counts.get(0)).isEqualTo(1);
+        assertThat(counts.get(1)).isEqualTo(2);
+        assertThat(counts.isNull(2)).isTrue();
+        assertThat(reader.of(name).vector().nulls().cardinality()).isEqualTo(3);
+    }
+
+    @Test
+    void valuesLargerThanTheBufferAreWrittenOnFlushAndClose() throws IOException {
+        var padding = "x".repeat(10 * InMemoryWriter.MIN_BUFFER_SIZE);
+        var file = tempDir.resolve(name.type().name()).resolve(name.name());
+        try (var writer = new InMemoryWriter(tempDir, InMemoryWriter.MIN_BUFFER_SIZE)) {
+            for (int i = 0; i < RECORDS; i++) {
+                writer.of(name).write(i + padding);
+                writer.next();
+            }
+            writer.flush();
+
+            // the incomplete block stays in memory
+            assertThat(blocks(file)).isEqualTo(2);
+        }
+        assertThat(blocks(file)).isEqualTo(3);
+
+        var reader = new InMemoryReader();
+        reader.query(Query.from(tempDir).select(name).allOf());
+        var nameReader = reader.of(name);
+        for (int i = 0; i < RECORDS; i++) {
+            reader.next();
+            assertThat(nameReader.get()).isEqualTo(i + padding);
+        }
+        assertThat(reader.hasNext()).isFalse();
+    }
+
+    /**
+     * @return the number of blocks in the column {@code file}.
+     */
+    private static int blocks(final Path file) throws IOException {
+        var bytes = Bytes.heap(Files.readAllBytes(file));
+        int blocks = 0;
+        long position = ColumnFormat.FILE_HEADER_BYTES;
+        while (position < bytes.size()) {
+            blocks++;
+            position += ColumnFormat.BLOCK_HEADER_BYTES + bytes.getInt(position + ColumnFormat.LENGTH_OFFSET);
+        }
+        return blocks;
+    }
+
+    @Test
+    void batchMustNotBeLargerThanRecords() throws IOException {
+        try (var writer = new InMemoryWriter(tempDir)) {
+            writer.of(count).writeAll(new long[] {1, 2}, new BitSet(), 2);
+
+            assertThatThrownBy(() -> writer.nextBatch(1)).isInstanceOf(IllegalStateException.class);
+            writer.nextBatch(2);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package column.store.inmemory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RowBitmapTest {
+
+    /** Every row of the first chunk, sparse rows of the second chunk and a few rows far apart. */
+    private static final long[] DENSE_AND_SPARSE = LongStream.concat(
+            LongStream.range(0, RowBitmap.CHUNK_ROWS + 100 * RowBitmap.CHUNK_ROWS / RowBitmap.MAX_ARRAY_ROWS)
+                    .filter(row -> row < RowBitmap.CHUNK_ROWS || row % 100 == 0),
+            LongStream.of(1L << 40, (1L << 40) + 1)).toArray();
+    /** Every odd row of the first two chunks. */
+    private static final long[] ODD = LongStream.range(0, 2 * RowBitmap.CHUNK_ROWS).filter(row -> row % 2 == 1).toArray();
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void intersectsAndUnitesContainers() {
+        var denseAndSparse = RowBitmap.of(DENSE_AND_SPARSE);
+        var odd = RowBitmap.of(ODD);
+
+        assertThat(denseAndSparse.toArray()).containsExactly(DENSE_AND_SPARSE);
+        assertThat(denseAndSparse.and(odd).toArray())
+                .containsExactly(LongStream.of(DENSE_AND_SPARSE).filter(row -> row % 2 == 1 && row < 2 * RowBitmap.CHUNK_ROWS).toArray());
+        assertThat(denseAndSparse.or(odd).toArray()).containsExactly(
+                LongStream.concat(LongStream.of(DENSE_AND_SPARSE), LongStream.of(ODD)).sorted().distinct().toArray());
+        assertThat(odd.and(RowBitmap.of(new long[] {2, 4})).cardinality()).isZero();
+        assertThat(RowBitmap.empty().or(odd).cardinality()).isEqualTo(ODD.length);
+    }
+
+    @Test
+    void readsWhatWasWritten() throws IOException {
+        var bitmap = RowBitmap.of(DENSE_AND_SPARSE);
+        var file = tempDir.resolve("bitmap");
+        var output = new ColumnOutput(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE),
+                ByteBuffer.allocateDirect(InMemoryWriter.DEFAULT_BUFFER_SIZE));
+        try {
+            bitmap.write(output);
+            output.flush();
+        } finally {
+            output.close();
+        }
+
+        assertThat(Files.size(file)).isEqualTo(bitmap.bytes());
+        assertThat(RowBitmap.read(Bytes.heap(Files.readAllBytes(file)), 0).toArray()).containsExactly(DENSE_AND_SPARSE);
+    }
+}
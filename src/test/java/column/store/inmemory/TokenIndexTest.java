@@ -0,0 +1,130 @@
+package column.store.inmemory;
+
+import static column.store.api.query.Filter.whereLong;
+import static column.store.api.query.Filter.whereString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import column.store.api.column.Column;
+import column.store.api.column.LongColumn;
+import column.store.api.column.StringColumn;
+import column.store.api.query.Query;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TokenIndexTest {
+
+    private static final int RECORDS = 3 * ColumnFormat.DEFAULT_BLOCK_ROWS + 17;
+    private static final int ERRORS = 1000;
+
+    private final StringColumn payload = Column.forString("payload");
+    private final StringColumn host = Column.forString("host");
+    private final LongColumn count = Column.forLong("count");
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void rowsHaveAllTerms() throws IOException {
+        write(true);
+
+        var index = TokenIndex.read(Bytes.heap(Files.readAllBytes(TokenIndex.path(tempDir, payload))));
+
+        assertThat(index.rows(List.of("nullpointerexception"))).hasSize(RECORDS / ERRORS);
+        assertThat(index.rows(List.of("request", "2001"))).containsExactly(2001);
+        // candidates are a superset of the matches
+        assertThat(index.rows(List.of("nullpointerexception", "request"))).hasSize(RECORDS / ERRORS);
+        assertThat(index.rows(List.of("\u00FCber"))).hasSize(RECORDS / 2);
+        assertThat(index.rows(List.of("missing", "request"))).isEmpty();
+    }
+
+    @Test
+    void indexOfExistingRecordsIsTheSame() throws IOException {
+        write(true);
+        var written = Files.readAllBytes(TokenIndex.path(tempDir, payload));
+        Files.delete(TokenIndex.path(tempDir, payload));
+
+        TokenIndex.build(tempDir, payload);
+
+        assertThat(Files.readAllBytes(TokenIndex.path(tempDir, payload))).isEqualTo(written);
+    }
+
+    @Test
+    void readerFindsRecordsWithAndWithoutIndex() throws IOException {
+        write(true);
+        var expected = new ArrayList<Long>();
+        for (long i = ERRORS; i < RECORDS; i += ERRORS) {
+            expected.add(i);
+        }
+        var nullPointer = whereString(payload).hasPhrase("java.lang.NullPointerException");
+
+        assertThat(counts(Query.from(tempDir).select(count).filter(nullPointer).allOf())).isEqualTo(expected);
+        assertThat(counts(Query.from(tempDir)
+                .select(count)
+                .filter(whereLong(count).isGreaterThan(ERRORS))
+                .filter(nullPointer)
+                .allOf())).isEqualTo(expected.subList(1, expected.size()));
+        assertThat(counts(Query.from(tempDir).select(count).filter(whereString(payload).hasPhrase("NullPointerException request")).allOf()))
+                .isEmpty();
+        assertThat(counts(Query.from(tempDir)
+                .select(count)
+                .filter(nullPointer)
+                .filter(whereString(payload).hasPhrase("request 7"))
+                .atLeastOne())).hasSize(expected.size() + 1).contains(7L);
+        // the host has no index, every record has to be tested
+        assertThat(counts(Query.from(tempDir)
+                .select(count)
+                .filter(nullPointer)
+                .filter(whereString(host).is("host-7"))
+                .atLeastOne())).hasSize(expected.size() + 1).contains(7L);
+
+        Files.delete(TokenIndex.path(tempDir, payload));
+        assertThat(counts(Query.from(tempDir).select(count).filter(nullPointer).allOf())).isEqualTo(expected);
+    }
+
+    @Test
+    void indexIsOptional() throws IOException {
+        write(false);
+
+        assertThat(TokenIndex.path(tempDir, payload)).doesNotExist();
+    }
+
+    /**
+     * Writes a payload for every record, the first record has none. Every {@link #ERRORS}th payload is an error,
+     * every odd payload is not ASCII.
+     */
+    private void write(final boolean index) throws IOException {
+        try (var writer = new InMemoryWriter(tempDir)) {
+            if (index) {
+                writer.tokenIndex(payload);
+            }
+            for (int i = 0; i < RECORDS; i++) {
+                if (i > 0) {
+                    var payloadOf = (i % 2 == 1 ? "\u00DCber " : "") + "Request " + i + ": ";
+                    writer.of(payload).write(payloadOf + (i % ERRORS == 0 ? "java.lang.NullPointerException" : "ok"));
+                }
+                writer.of(host).write("host-" + i);
+                writer.of(count).write(i);
+                writer.next();
+            }
+        }
+    }
+
+    private List<Long> counts(final Query query) {
+        var reader = new InMemoryReader();
+        reader.query(query);
+        var countReader = reader.of(count);
+        var counts = new ArrayList<Long>();
+        while (reader.hasNext()) {
+            reader.next();
+            counts.add(countReader.get());
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,121 @@
+package column.store.inmemory;
+
+import static column.store.api.query.Filter.whereLong;
+import static column.store.api.query.Filter.whereString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import column.store.api.column.Column;
+import column.store.api.column.LongColumn;
+import column.store.api.column.StringColumn;
+import column.store.api.query.Query;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TrigramIndexTest {
+
+    private static final int RECORDS = 3 * ColumnFormat.DEFAULT_BLOCK_ROWS + 17;
+    private static final int TIMEOUTS = 1000;
+
+    private final StringColumn payload = Column.forString("payload");
+    private final LongColumn count = Column.forLong("count");
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void rowsContainAllTrigramsOfTheValue() throws IOException {
+        write(true);
+
+        var index = TrigramIndex.read(Bytes.heap(Files.readAllBytes(TrigramIndex.path(tempDir, payload))));
+
+        assertThat(index.rows("timeout")).hasSize(RECORDS / TIMEOUTS);
+        assertThat(index.rows("request 2001 ")).containsExactly(2001);
+        // candidates are a superset of the matches
+        assertThat(index.rows("request 1000 timeout")).containsExactly(1000, 10000);
+        assertThat(index.rows("\u00FCber")).hasSize(RECORDS / 2);
+        assertThat(index.rows("missing")).isEmpty();
+        assertThat(index.rows("ti")).isNull();
+    }
+
+    @Test
+    void indexOfExistingRecordsIsTheSame() throws IOException {
+        write(true);
+        var written = Files.readAllBytes(TrigramIndex.path(tempDir, payload));
+        Files.delete(TrigramIndex.path(tempDir, payload));
+
+        TrigramIndex.build(tempDir, payload);
+
+        assertThat(Files.readAllBytes(TrigramIndex.path(tempDir, payload))).isEqualTo(written);
+    }
+
+    @Test
+    void readerFindsRecordsWithAndWithoutIndex() throws IOException {
+        write(true);
+        var expected = new ArrayList<Long>();
+        for (long i = TIMEOUTS; i < RECORDS; i += TIMEOUTS) {
+            expected.add(i);
+        }
+
+        assertThat(counts(Query.from(tempDir).select(count).filter(whereString(payload).contains("TIMEOUT")).allOf()))
+                .isEqualTo(expected);
+        assertThat(counts(Query.from(tempDir)
+                .select(count)
+                .filter(whereLong(count).isGreaterThan(TIMEOUTS))
+                .filter(whereString(payload).contains("timeout"))
+                .allOf())).isEqualTo(expected.subList(1, expected.size()));
+        assertThat(counts(Query.from(tempDir).select(count).filter(whereString(payload).contains("request 1000 timeout")).allOf()))
+                .containsExactly((long) TIMEOUTS);
+        assertThat(counts(Query.from(tempDir).select(count).filter(whereString(payload).contains("b")).allOf()))
+                .hasSize(RECORDS / 2);
+
+        Files.delete(TrigramIndex.path(tempDir, payload));
+        assertThat(counts(Query.from(tempDir).select(count).filter(whereString(payload).contains("timeout")).allOf()))
+                .isEqualTo(expected);
+    }
+
+    @Test
+    void indexIsOptional() throws IOException {
+        write(false);
+
+        assertThat(TrigramIndex.path(tempDir, payload)).doesNotExist();
+    }
+
+    /**
+     * Writes a payload for every record, the first record has none. Every {@link #TIMEOUTS}th payload is a timeout,
+     * every odd payload is not ASCII.
+     */
+    private void write(final boolean index) throws IOException {
+        try (var writer = new InMemoryWriter(tempDir)) {
+            if (index) {
+                writer.trigramIndex(payload);
+            }
+            for (int i = 0; i < RECORDS; i++) {
+                if (i > 0) {
+                    var payloadOf = (i % 2 == 1 ? "\u00DCber " : "") + "Request " + i + " ";
+                    writer.of(payload).write(payloadOf + (i % TIMEOUTS == 0 ? "TIMEOUT" : "ok"));
+                }
+                writer.of(count).write(i);
+                writer.next();
+            }
+        }
+    }
+
+    private List<Long> counts(final Query query) {
+        var reader = new InMemoryReader();
+        reader.query(query);
+        var countReader = reader.of(count);
+        var counts = new ArrayList<Long>();
+        while (reader.hasNext()) {
+            reader.next();
+            counts.add(countReader.get());
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,119 @@
+package column.store.inmemory;
+
+import static column.store.api.query.Filter.whereId;
+import static column.store.api.query.Filter.whereLong;
+import static column.store.api.query.Filter.whereString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import column.store.api.column.Column;
+import column.store.api.column.IdColumn;
+import column.store.api.column.LongColumn;
+import column.store.api.column.StringColumn;
+import column.store.api.query.Query;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ZoneMapTest {
+
+    private static final int BLOCK_ROWS = ColumnFormat.DEFAULT_BLOCK_ROWS;
+    private static final int RECORDS = 3 * BLOCK_ROWS + 17;
+    private static final long STEP = 1000L;
+
+    private final IdColumn id = Column.forId("id");
+    private final LongColumn timestamp = Column.forLong("timestamp");
+    private final StringColumn name = Column.forString("name");
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void longBoundsRuleOutBlocks() throws IOException {
+        write();
+        var zones = read(timestamp);
+
+        assertThat(zones.blocks()).isEqualTo(4);
+        var timeframe = whereLong(timestamp).isBetween(STEP * BLOCK_ROWS, STEP * (BLOCK_ROWS + 1));
+        assertThat(zones.mayMatch(0, timeframe)).isFalse();
+        assertThat(zones.mayMatch(1, timeframe)).isTrue();
+        assertThat(zones.mayMatch(2, timeframe)).isFalse();
+        assertThat(zones.mayMatch(3, whereLong(timestamp).isGreaterThan(STEP * (RECORDS - 1)))).isFalse();
+        assertThat(zones.mayMatch(3, whereLong(timestamp).isGreaterThan(STEP * (RECORDS - 2)))).isTrue();
+    }
+
+    @Test
+    void stringBoundsAreCaseInsensitive() throws IOException {
+        write();
+        var zones = read(name);
+
+        assertThat(zones.mayMatch(0, whereString(name).startsWith("ALPHA"))).isTrue();
+        assertThat(zones.mayMatch(1, whereString(name).startsWith("ALPHA"))).isFalse();
+        assertThat(zones.mayMatch(0, whereString(name).is("beta-4097"))).isFalse();
+        assertThat(zones.mayMatch(1, whereString(name).is("beta-4097"))).isTrue();
+        // the kelvin sign is lowercase k
+        assertThat(zones.mayMatch(2, whereString(name).startsWith("kelvin"))).isTrue();
+        assertThat(zones.mayMatch(1, whereString(name).endsWith("1"))).isTrue();
+    }
+
+    @Test
+    void longIdBoundsAreTruncated() throws IOException {
+        write();
+        var zones = read(id);
+
+        var largest = new byte[2 * ZoneMap.MAX_BOUND_BYTES];
+        Arrays.fill(largest, (byte) 1);
+        largest[largest.length - 1] = (byte) (BLOCK_ROWS - 1);
+        assertThat(zones.mayMatch(0, whereId(id).is(largest))).isTrue();
+        largest[ZoneMap.MAX_BOUND_BYTES - 1] = 2;
+        assertThat(zones.mayMatch(0, whereId(id).is(largest))).isFalse();
+    }
+
+    @Test
+    void readerSkipsBlocksOutsideTheTimeframe() throws IOException {
+        write();
+
+        var reader = new InMemoryReader();
+        reader.query(Query.from(tempDir)
+                .select(name)
+                .filter(whereLong(timestamp).isBetween(STEP * (BLOCK_ROWS - 2), STEP * (BLOCK_ROWS + 2)))
+                .allOf());
+        var names = new ArrayList<String>();
+        while (reader.hasNext()) {
+            reader.next();
+            names.add(reader.of(name).get());
+        }
+
+        assertThat(names).containsExactly("Alpha-4094", "Alpha-4095", "beta-4096", "beta-4097");
+    }
+
+    /**
+     * Writes sorted timestamps and names starting with "Alpha-" in the first block, "beta-" in the second block and
+     * the kelvin sign after that. Ids of the first block are longer than {@link ZoneMap#MAX_BOUND_BYTES}.
+     */
+    private void write() throws IOException {
+        try (var writer = new InMemoryWriter(tempDir)) {
+            for (int i = 0; i < RECORDS; i++) {
+                writer.of(timestamp).write(STEP * i);
+                var prefix = i < BLOCK_ROWS ? "Alpha-" : i < 2 * BLOCK_ROWS ? "beta-" : "\u212Aelvin-";
+                writer.of(name).write(prefix + i);
+                if (i < BLOCK_ROWS) {
+                    var value = new byte[2 * ZoneMap.MAX_BOUND_BYTES];
+                    Arrays.fill(value, (byte) 1);
+                    value[value.length - 1] = (byte) i;
+                    writer.of(id).write(value);
+                }
+                writer.next();
+            }
+        }
+    }
+
+    private ZoneMap read(final Column column) throws IOException {
+        return ZoneMap.read(Bytes.heap(Files.readAllBytes(ZoneMap.path(tempDir, column))), column.type());
+    }
+}
@@ -0,0 +1,67 @@
+package column.store.parquet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class LocalInputFileTest {
+
+  private static final byte[] CONTENT = "0123456789abcdefghij".getBytes();
+
+  @TempDir
+  private Path tempDir;
+
+  @ParameterizedTest
+  @EnumSource(LocalInputFile.Mode.class)
+  void readsAtTheSoughtPosition(final LocalInputFile.Mode mode) throws IOException {
+    var file = Files.write(tempDir.resolve("data"), CONTENT);
+    var inputFile = new LocalInputFile(file, mode);
+
+    assertThat(inputFile.getLength()).isEqualTo(CONTENT.length);
+    try (var stream = inputFile.newStream()) {
+      assertThat(stream.read()).isEqualTo('0');
+      stream.seek(10);
+      var bytes = new byte[4];
+      stream.readFully(bytes);
+      assertThat(new String(bytes)).isEqualTo("abcd");
+      assertThat(stream.getPos()).isEqualTo(14);
+
+      var buffer = ByteBuffer.allocate(10);
+      assertThat(stream.read(buffer)).isEqualTo(6);
+      assertThat(new String(buffer.array(), 0, buffer.position())).isEqualTo("efghij");
+      assertThat(stream.read()).isEqualTo(-1);
+      assertThat(stream.read(buffer)).isEqualTo(-1);
+
+      stream.seek(15);
+      assertThatThrownBy(() -> stream.readFully(ByteBuffer.allocate(6))).isInstanceOf(EOFException.class);
+    }
+  }
+
+  @Test
+  void writesTheFileOfAnOutputFile() throws IOException {
+    var file = tempDir.resolve("directory").resolve("data");
+
+    try (var stream = new LocalOutputFile(file).create(0)) {
+      stream.write(CONTENT, 0, 10);
+      stream.write('a');
+      assertThat(stream.getPos()).isEqualTo(11);
+    }
+
+    assertThat(Files.readAllBytes(file)).isEqualTo("0123456789a".getBytes());
+    assertThatThrownBy(() -> new LocalOutputFile(file).create(0)).isInstanceOf(IOException.class);
+    try (var stream = new LocalOutputFile(file).createOrOverwrite(0)) {
+      stream.write('b');
+    }
+    assertThat(Files.readAllBytes(file)).isEqualTo("b".getBytes());
+  }
+}
@@ -0,0 +1,182 @@
+package column.store.parquet.read;
+
+import static column.store.api.query.Filter.whereString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import column.store.api.column.Column;
+import column.store.api.column.StringColumn;
+import column.store.api.query.Query;
+import column.store.api.query.StringFilter;
+import column.store.parquet.LocalInputFile;
+import column.store.parquet.write.ParquetWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import org.apache.parquet.ParquetReadOptions;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ParquetReaderTest {
+
+  private static final int DICTIONARY_ROWS = 10_000;
+
+  private final StringColumn message = Column.forString("message-string");
+
+  @TempDir
+  private Path tempDir;
+  private int files;
+
+  @Test
+  void keepsRowGroupsWithMixedCaseValues() throws IOException {
+    assertThat(kept(whereString(message).is("Connection Timeout"), "CONNECTION timeout", "zzz")).isTrue();
+    assertThat(kept(whereString(message).is("connection timeout"), "Connection TIMEOUT")).isTrue();
+    assertThat(kept(whereString(message).startsWith("GET /"), "get /index.html", "POST /")).isTrue();
+    assertThat(kept(whereString(message).startsWith("get /"), "AAA", "GET /")).isTrue();
+    for (var value : List.of("abc", "abC", "aBc", "aBC", "Abc", "AbC", "ABc", "ABC")) {
+      assertThat(kept(whereString(message).is("abc"), value)).isTrue();
+      assertThat(kept(whereString(message).startsWith("ab"), value)).isTrue();
+      assertThat(kept(whereString(message).startsWith("AB"), value + "xyz")).isTrue();
+    }
+  }
+
+  @Test
+  void keepsRowGroupsWithValuesWhichBecomeAsciiInLowercase() throws IOException {
+    // the Kelvin sign is a k in lowercase, the capital I with dot an i followed by a combining dot
+    assertThat(kept(whereString(message).is("kelvin"), "\u212Aelvin", "zebra")).isTrue();
+    assertThat(kept(whereString(message).is("ok"), "O\u212A", "zz")).isTrue();
+    assertThat(kept(whereString(message).startsWith("sin"), "SIN\u212A", "zz")).isTrue();
+    assertThat(kept(whereString(message).startsWith("i"), "\u0130stanbul", "zz")).isTrue();
+    assertThat(kept(whereString(message).startsWith("Li"), "L\u0130NE", "zz")).isTrue();
+  }
+
+  @Test
+  void keepsRowGroupsForNonAsciiFilterValues() throws IOException {
+    assertThat(kept(whereString(message).is("\u00FCber"), "aaa", "zzz")).isTrue();
+    assertThat(kept(whereString(message).startsWith("gr\u00FC"), "aaa", "zzz")).isTrue();
+    assertThat(kept(whereString(message).is("\u00FCber"), "\u00DCBER")).isTrue();
+    assertThat(kept(whereString(message).endsWith("zzz"), "aaa")).isTrue();
+    assertThat(kept(whereString(message).contains("zzz"), "aaa")).isTrue();
+  }
+
+  @Test
+  void dropsRowGroupsOutsideTheBounds() throws IOException {
+    // all values are smaller than the uppercase filter value
+    assertThat(kept(whereString(message).is("cherry"), "AB", "BC")).isFalse();
+    assertThat(kept(whereString(message).startsWith("ch"), "BZ", "CA")).isFalse();
+    assertThat(kept(whereString(message).is("kilo"), "AAA", "BBB")).isFalse();
+    // all values are greater than the lowercase filter value
+    assertThat(kept(whereString(message).is("cherry"), "yak", "zebra")).isFalse();
+    assertThat(kept(whereString(message).startsWith("ch"), "cz", "da")).isFalse();
+
+    assertThat(kept(whereString(message).startsWith("ch"), "chz", "da")).isTrue();
+    assertThat(kept(whereString(message).is("cherry"), "CHERRY", "zebra")).isTrue();
+  }
+
+  @Test
+  void readsEveryMatchOfTheRowGroups() throws IOException {
+    var values = List.of("Connection TIMEOUT", "connection reset", "\u212Aelvin", "KELVIN", "\u0130stanbul",
+        "istanbul", "GET /index.html", "get /api", "\u00DCber", "zebra");
+    for (int i = 0; i < values.size(); i += 2) {
+      write(tempDir.resolve("group-" + i + ".parquet"), values.get(i), values.get(i + 1));
+    }
+    var filters = List.of(whereString(message).is("kelvin"), whereString(message).startsWith("CONNECTION"),
+        whereString(message).startsWith("i"), whereString(message).is("get /API"), whereString(message).is("\u00FCber"),
+        whereString(message).startsWith("zz"));
+
+    for (var filter : filters) {
+      var expected = values.stream().filter(value -> matches(filter, value)).toList();
+      assertThat(read(Query.from(tempDir).select(message).filter(filter).allOf())).containsExactlyElementsOf(expected);
+    }
+  }
+
+  @Test
+  void readsTheSameMatchesOfDictionaryAndPlainPages() throws IOException {
+    var values = new String[DICTIONARY_ROWS];
+    var distinct = List.of("Connection TIMEOUT", "connection reset", "GET /index.html", "get /api", "\u212Aelvin", "ok");
+    for (int i = 0; i < values.length; i++) {
+      values[i] = distinct.get(i % distinct.size());
+    }
+    var dictionary = tempDir.resolve("dictionary.parquet");
+    var plain = tempDir.resolve("plain.parquet");
+    write(dictionary, UnaryOperator.identity(), values);
+    write(plain, builder -> builder.withDictionaryEncoding(false), values);
+    assertThat(dictionaryEncoded(dictionary)).isTrue();
+    assertThat(dictionaryEncoded(plain)).isFalse();
+
+    for (var filter : List.of(whereString(message).is("connection timeout"), whereString(message).startsWith("GET"),
+        whereString(message).is("kelvin"), whereString(message).startsWith("zz"))) {
+      var expected = Stream.of(values).filter(value -> matches(filter, value)).toList();
+      assertThat(read(Query.from(dictionary).select(message).filter(filter).allOf())).containsExactlyElementsOf(expected);
+      assertThat(read(Query.from(plain).select(message).filter(filter).allOf())).containsExactlyElementsOf(expected);
+    }
+  }
+
+  /**
+   * @return whether the statistics of a row group of {@code values} do not rule out a match of {@code filter}.
+   */
+  private boolean kept(final StringFilter filter, final String... values) throws IOException {
+    var file = tempDir.resolve("group-" + files++ + ".parquet");
+    write(file, values);
+    var query = Query.from(file).select(message).filter(filter).allOf();
+    var options = ParquetReadOptions.builder()
+        .withRecordFilter(ParquetReader.filterOf(query))
+        .useStatsFilter(true)
+        .useDictionaryFilter(false)
+        .useBloomFilter(false)
+        .build();
+    try (var reader = ParquetFileReader.open(new LocalInputFile(file), options)) {
+      return !reader.getRowGroups().isEmpty();
+    }
+  }
+
+  private void write(final Path file, final String... values) throws IOException {
+    write(file, UnaryOperator.identity(), values);
+  }
+
+  private void write(final Path file, final UnaryOperator<ParquetWriter.BuilderImpl> config, final String... values)
+      throws IOException {
+    Files.createDirectories(file.getParent());
+    try (var writer = new ParquetWriter(file, config, message)) {
+      for (var value : values) {
+        writer.of(message).write(value);
+        writer.next();
+      }
+    }
+  }
+
+  private static boolean dictionaryEncoded(final Path file) throws IOException {
+    try (var reader = ParquetFileReader.open(new LocalInputFile(file))) {
+      return reader.getFooter().getBlocks().get(0).getColumns().get(0).getEncodingStats().hasDictionaryEncodedPages();
+    }
+  }
+
+  private List<String> read(final Query query) throws IOException {
+    var values = new ArrayList<String>();
+    try (var reader = new ParquetReader(UnaryOperator.identity())) {
+      reader.query(query);
+      var messageReader = reader.of(message);
+      while (reader.hasNext()) {
+        reader.next();
+        values.add(messageReader.get());
+      }
+    }
+    return values;
+  }
+
+  private static boolean matches(final StringFilter filter, final String value) {
+    var lowercase = value.toLowerCase(Locale.ROOT);
+    return switch (filter.matchType()) {
+      case IS -> lowercase.equals(filter.value());
+      case STARTS_WITH -> lowercase.startsWith(filter.value());
+      default -> throw new IllegalArgumentException(filter.toString());
+    };
+  }
+}
@@ -0,0 +1,64 @@
+package column.store.parquet.read;
+
+import static column.store.api.query.Filter.whereString;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import column.store.api.column.Column;
+import column.store.api.column.StringColumn;
+import column.store.api.query.StringFilter;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+class StringMatcherTest {
+
+  private final StringColumn column = Column.forString("message");
+
+  @Test
+  void foldsAsciiCase() {
+    assertThat(matches(whereString(column).is("Hello World"), "hELLO wORLD")).isTrue();
+    assertThat(matches(whereString(column).is("Hello"), "Hello World")).isFalse();
+    assertThat(matches(whereString(column).startsWith("GET /"), "get /index.html")).isTrue();
+    assertThat(matches(whereString(column).startsWith("GET /"), "POST /")).isFalse();
+    assertThat(matches(whereString(column).endsWith(".HTML"), "get /index.html")).isTrue();
+    assertThat(matches(whereString(column).endsWith(".html"), "html")).isFalse();
+    assertThat(matches(whereString(column).contains("Timeout"), "connection TIMEOUT after 30s")).isTrue();
+    assertThat(matches(whereString(column).contains("timeouts"), "connection TIMEOUT after 30s")).isFalse();
+    assertThat(matches(whereString(column).contains("s"), "connection TIMEOUT after 30s")).isTrue();
+  }
+
+  @Test
+  void decodesValuesWithOtherCharacters() {
+    assertThat(matches(whereString(column).is("\u00FCber"), "\u00DCBER")).isTrue();
+    assertThat(matches(whereString(column).startsWith("\u00FC"), "\u00DCber")).isTrue();
+    // the Kelvin sign is a K in lowercase
+    assertThat(matches(whereString(column).is("kelvin"), "\u212Aelvin")).isTrue();
+    assertThat(matches(whereString(column).contains("ok"), "N\u212AO\u212A")).isTrue();
+    assertThat(matches(whereString(column).endsWith("k"), "5 \u212A")).isTrue();
+    assertThat(matches(whereString(column).contains("\u00FC"), "gr\u00FC\u00DF")).isTrue();
+    assertThat(matches(whereString(column).contains("ss"), "gr\u00FC\u00DF")).isFalse();
+  }
+
+  @Test
+  void matchesPhrases() {
+    assertThat(matches(whereString(column).hasPhrase("Connection refused"), "ERROR: connection  REFUSED by peer")).isTrue();
+    assertThat(matches(whereString(column).hasPhrase("connection refused"), "connection was refused")).isFalse();
+    assertThat(matches(whereString(column).hasPhrase("connection refused"), "reconnection refused")).isFalse();
+    assertThat(matches(whereString(column).hasPhrase("\u00FCber alles"), "\u00DCber-Alles")).isTrue();
+  }
+
+  @Test
+  void matchesPartOfAnArray() {
+    var bytes = "xxHELLOxx".getBytes(StandardCharsets.UTF_8);
+    var matcher = new StringMatcher(whereString(column).is("hello"));
+
+    assertThat(matcher.matches(bytes, 2, 5)).isTrue();
+    assertThat(matcher.matches(bytes, 1, 6)).isFalse();
+  }
+
+  private static boolean matches(final StringFilter filter, final String value) {
+    var bytes = value.getBytes(StandardCharsets.UTF_8);
+    return new StringMatcher(filter).matches(bytes, 0, bytes.length);
+  }
+}
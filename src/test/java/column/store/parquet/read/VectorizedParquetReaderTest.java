@@ -0,0 +1,202 @@
+package column.store.parquet.read;
+
+import static column.store.api.query.Filter.whereLong;
+import static column.store.api.query.Filter.whereString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import column.store.api.column.Column;
+import column.store.api.column.DoubleColumn;
+import column.store.api.column.LongColumn;
+import column.store.api.column.NoSuchColumnException;
+import column.store.api.column.StringColumn;
+import column.store.api.query.Query;
+import column.store.api.read.Reader;
+import column.store.parquet.LocalInputFile;
+import column.store.parquet.write.ParquetWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class VectorizedParquetReaderTest {
+
+  private static final int RECORDS = 3 * VectorizedParquetReader.DECODED_ROWS + 17;
+
+  private final LongColumn count = Column.forLong("count");
+  private final DoubleColumn ratio = Column.forDouble("ratio");
+  private final StringColumn message = Column.forString("message-string");
+
+  @TempDir
+  private Path tempDir;
+  private Path file;
+
+  @BeforeEach
+  void write() throws IOException {
+    file = tempDir.resolve("data.parquet");
+    try (var writer = new ParquetWriter(file, count, ratio, message)) {
+      for (int i = 0; i < RECORDS; i++) {
+        writer.of(count).write(i);
+        if (i % 3 != 0) {
+          writer.of(ratio).write(i / 2.0);
+        }
+        if (i % 5 != 0) {
+          writer.of(message).write(i % 100 == 1 ? "Connection TIMEOUT " + i : "ok " + i);
+        }
+        writer.next();
+      }
+    }
+  }
+
+  @Test
+  void readsTheSameRecordsAsTheRecordReader() throws IOException {
+    var all = Query.from(file).select(count, ratio, message).allOf();
+    var filtered = Query.from(file)
+        .select(count, ratio)
+        .filter(whereString(message).contains("timeout"))
+        .filter(whereLong(count).isLessThan(RECORDS / 2))
+        .allOf();
+    var either = Query.from(file)
+        .select(count)
+        .filter(whereString(message).startsWith("CONNECTION"))
+        .filter(whereLong(count).isGreaterThan(RECORDS - 10))
+        .atLeastOne();
+
+    for (var query : List.of(all, filtered, either)) {
+      var expected = records(new ParquetReader(UnaryOperator.identity()), query);
+      assertThat(expected).isNotEmpty();
+      assertThat(records(new VectorizedParquetReader(), query)).containsExactlyElementsOf(expected);
+      assertThat(batches(new VectorizedParquetReader(), query)).containsExactlyElementsOf(expected);
+    }
+  }
+
+  @Test
+  void selectsAllColumnsOfTheFile() throws IOException {
+    try (var reader = new VectorizedParquetReader()) {
+      reader.query(Query.from(tempDir).selectAll().allOf());
+
+      assertThat(reader.columnNames()).containsExactly("count", "ratio", "message-string");
+      int rows = 0;
+      int batch;
+      while ((batch = reader.nextBatch(1000)) > 0) {
+        assertThat(reader.of(message).vector().size()).isEqualTo(batch);
+        rows += batch;
+      }
+      assertThat(rows).isEqualTo(RECORDS);
+    }
+  }
+
+  @Test
+  void readsEveryFileOfADirectory() throws IOException {
+    Files.copy(file, tempDir.resolve("more.parquet"));
+    var query = Query.from(tempDir).select(count).filter(whereString(message).contains("timeout")).allOf();
+    var fileQuery = Query.from(file).select(count).filter(whereString(message).contains("timeout")).allOf();
+
+    var expected = records(new ParquetReader(UnaryOperator.identity()), query);
+    assertThat(expected).hasSize(2 * records(new ParquetReader(UnaryOperator.identity()), fileQuery).size());
+    assertThat(records(new ParquetReader(UnaryOperator.identity(), LocalInputFile.Mode.MAPPED), query))
+        .containsExactlyElementsOf(expected);
+    assertThat(records(new VectorizedParquetReader(UnaryOperator.identity(), LocalInputFile.Mode.MAPPED), query))
+        .containsExactlyElementsOf(expected);
+  }
+
+  @Test
+  void onlyReadsSelectedColumns() throws IOException {
+    try (var reader = new VectorizedParquetReader()) {
+      reader.query(Query.from(file).select(count).allOf());
+
+      assertThatThrownBy(() -> reader.of(message)).isInstanceOf(NoSuchColumnException.class);
+    }
+  }
+
+  @Test
+  void failsToFilterAllColumnsByAMissingColumn() throws IOException {
+    try (var reader = new VectorizedParquetReader()) {
+      var query = Query.from(tempDir).selectAll().filter(whereLong(Column.forLong("missing")).isLessThan(10)).allOf();
+
+      assertThatThrownBy(() -> reader.query(query)).isInstanceOf(NoSuchColumnException.class);
+    }
+  }
+
+  /**
+   * @return the values of the selected columns of every record read by {@link Reader#next()}.
+   */
+  private List<String> records(final Reader reader, final Query query) throws IOException {
+    var records = new ArrayList<String>();
+    try (reader) {
+      reader.query(query);
+      var columns = selected(query);
+      while (reader.hasNext()) {
+        reader.next();
+        var record = new StringBuilder();
+        for (var column : columns) {
+          record.append(value(reader, column)).append('|');
+        }
+        records.add(record.toString());
+      }
+    }
+    return records;
+  }
+
+  /**
+   * @return the values of the selected columns of every record read by {@link Reader#nextBatch(int)}.
+   */
+  private List<String> batches(final Reader reader, final Query query) throws IOException {
+    var records = new ArrayList<String>();
+    try (reader) {
+      reader.query(query);
+      var columns = selected(query);
+      int rows;
+      // batches do not end at the decoded rows
+      while ((rows = reader.nextBatch(VectorizedParquetReader.DECODED_ROWS / 3)) > 0) {
+        for (int row = 0; row < rows; row++) {
+          var record = new StringBuilder();
+          for (var column : columns) {
+            record.append(value(reader, column, row)).append('|');
+          }
+          records.add(record.toString());
+        }
+      }
+    }
+    return records;
+  }
+
+  private List<Column> selected(final Query query) {
+    var columns = new ArrayList<Column>();
+    for (var column : List.of(count, ratio, message)) {
+      query.columns().forEach(selected -> {
+        if (selected.equals(column)) {
+          columns.add(column);
+        }
+      });
+    }
+    return columns;
+  }
+
+  private Object value(final Reader reader, final Column column) {
+    return switch (column) {
+      case LongColumn longColumn -> reader.of(longColumn).isPresent() ? reader.of(longColumn).get() : null;
+      case DoubleColumn doubleColumn -> reader.of(doubleColumn).isPresent() ? reader.of(doubleColumn).get() : null;
+      case StringColumn stringColumn -> reader.of(stringColumn).isPresent() ? reader.of(stringColumn).get() : null;
+      default -> throw new IllegalArgumentException(column.toString());
+    };
+  }
+
+  private Object value(final Reader reader, final Column column, final int row) {
+    return switch (column) {
+      case LongColumn longColumn -> reader.of(longColumn).vector().isPresent(row) ? reader.of(longColumn).vector().get(row) : null;
+      case DoubleColumn doubleColumn ->
+          reader.of(doubleColumn).vector().isPresent(row) ? reader.of(doubleColumn).vector().get(row) : null;
+      case StringColumn stringColumn ->
+          reader.of(stringColumn).vector().isPresent(row) ? reader.of(stringColumn).vector().getString(row) : null;
+      default -> throw new IllegalArgumentException(column.toString());
+    };
+  }
+}